@@ -0,0 +1,70 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.CheckDigit;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single key and column validation of GS1 check digits.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckDigitBenchmark {
+
+    @State(Scope.Thread)
+    public static class Column {
+
+        static final int ROWS = 4096;
+        String[] gtins;
+        byte[] records;
+
+        @Setup
+        public void setup() {
+            gtins = new String[ROWS];
+            StringBuilder sb = new StringBuilder(ROWS * 15);
+            for (int i = 0; i < ROWS; i++) {
+                gtins[i] = TagMix.GTINS[i % TagMix.GTINS.length];
+                sb.append(gtins[i]).append('\n');
+            }
+            records = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @Benchmark
+    public boolean isValidGTIN(TagMix mix) {
+        return CheckDigit.isValidGTIN(mix.nextGtin());
+    }
+
+    @Benchmark
+    public int compute(TagMix mix) {
+        return CheckDigit.compute(mix.nextGtin(), 0, 13);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BitSet validateGTINColumn(Column column) {
+        return CheckDigit.validateGTINs(column.gtins);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BitSet validateRecords(Column column) {
+        return CheckDigit.validate(column.records, 0, 15, 14, Column.ROWS);
+    }
+}
@@ -0,0 +1,84 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.DecodeResult;
+import com.jensui.projects.epctools.DecodeStatus;
+import com.jensui.projects.epctools.EPCTools;
+import com.jensui.projects.epctools.Epc96;
+import com.jensui.projects.epctools.EpcDecoder;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * parseHexString and the bit-level decoder. The *Contended variants run on
+ * all cores against the one shared EPCTools instance. The *Noisy variants
+ * compare the throwing and the status returning decoder on a stream with
+ * 10% bad reads.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    private static final EPCTools TOOLS = EPCTools.getInstance();
+
+    @Benchmark
+    public HashMap<EPCTools.TAG_DATA, String> parseHexString(TagMix mix) throws Exception {
+        return TOOLS.parseHexString(mix.nextMixed());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public HashMap<EPCTools.TAG_DATA, String> parseHexStringContended(TagMix mix) throws Exception {
+        return TOOLS.parseHexString(mix.nextMixed());
+    }
+
+    @Benchmark
+    public Epc96 decode96(TagMix mix) throws Exception {
+        return EpcDecoder.decode(mix.nextSgtin96());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Epc96 decode96Contended(TagMix mix) throws Exception {
+        return EpcDecoder.decode(mix.nextSgtin96());
+    }
+
+    @Benchmark
+    public EPCTools.ENCODING getEncoding(TagMix mix) {
+        return TOOLS.getEncoding(mix.nextMixed());
+    }
+
+    @Benchmark
+    public Epc96 decodeNoisy(TagMix mix) {
+        try {
+            return EpcDecoder.decode(mix.nextNoisy());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public DecodeStatus tryDecodeNoisy(TagMix mix, Result result) {
+        return EpcDecoder.tryDecode(mix.nextNoisy(), result.result);
+    }
+
+    @State(Scope.Thread)
+    public static class Result {
+
+        final DecodeResult result = new DecodeResult();
+    }
+}
@@ -0,0 +1,111 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.EPCTools;
+import com.jensui.projects.epctools.EpcEncoder;
+import com.jensui.projects.epctools.EpcRange;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The create*HexEPC encoders and the buffer based EpcEncoder.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+    private static final EPCTools TOOLS = EPCTools.getInstance();
+
+    @State(Scope.Thread)
+    public static class Buffers {
+
+        final char[] hex = new char[24];
+        final byte[] bytes = new byte[12];
+        final byte[] block = new byte[12 * 1024];
+    }
+
+    @State(Scope.Benchmark)
+    public static class Ranges {
+
+        EpcRange sgtin96;
+
+        @Setup
+        public void setUp() throws Exception {
+            sgtin96 = EpcRange.sgtin96(3, 5, 37000L, 65735L, 0L, 1L << 30);
+        }
+    }
+
+    @Benchmark
+    public String createSGTIN_96HexEPC(TagMix mix) throws Exception {
+        return TOOLS.createSGTIN_96HexEPC(3, 5, "0037000", "065735", Integer.toString(mix.nextSerial()));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String createSGTIN_96HexEPCContended(TagMix mix) throws Exception {
+        return TOOLS.createSGTIN_96HexEPC(3, 5, "0037000", "065735", Integer.toString(mix.nextSerial()));
+    }
+
+    @Benchmark
+    public String createSGTIN_96HexEPCFromGTIN(TagMix mix) throws Exception {
+        return TOOLS.createSGTIN_96HexEPC(1, "08806420000314", Integer.toString(mix.nextSerial()));
+    }
+
+    @Benchmark
+    public String createSGTIN_198HexEPC(TagMix mix) throws Exception {
+        return TOOLS.createSGTIN_198HexEPC(1, 6, "030430", "0058045", "12345abcABC" + mix.nextSerial());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String createSGTIN_198HexEPCContended(TagMix mix) throws Exception {
+        return TOOLS.createSGTIN_198HexEPC(1, 6, "030430", "0058045", "12345abcABC" + mix.nextSerial());
+    }
+
+    @Benchmark
+    public String createSSCCHexEPC(TagMix mix) throws Exception {
+        return TOOLS.createSSCCHexEPC(2, "4032046", "3", Integer.toString(mix.nextSerial()));
+    }
+
+    @Benchmark
+    public char[] encodeSgtin96Chars(TagMix mix, Buffers buffers) throws Exception {
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, mix.nextSerial(), buffers.hex, 0);
+        return buffers.hex;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public char[] encodeSgtin96CharsContended(TagMix mix, Buffers buffers) throws Exception {
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, mix.nextSerial(), buffers.hex, 0);
+        return buffers.hex;
+    }
+
+    /**
+     * 1024 consecutive serials per operation
+     */
+    @Benchmark
+    public byte[] encodeSgtin96RangeBlock(TagMix mix, Buffers buffers, Ranges ranges) {
+        ranges.sgtin96.encode(mix.nextSerial() << 10, 1024, buffers.block, 0);
+        return buffers.block;
+    }
+
+    @Benchmark
+    public byte[] encodeSscc96Bytes(TagMix mix, Buffers buffers) throws Exception {
+        EpcEncoder.encodeSscc96(2, 5, 4032046L, 3000000000L + mix.nextSerial(), buffers.bytes, 0);
+        return buffers.bytes;
+    }
+}
@@ -0,0 +1,49 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.EPCTools;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GTIN extraction from SGTIN tags and GTIN check digit validation.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GtinBenchmark {
+
+    private static final EPCTools TOOLS = EPCTools.getInstance();
+
+    @Benchmark
+    public String getGTIN(TagMix mix) throws Exception {
+        return TOOLS.getGTIN(mix.nextSgtin());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String getGTINContended(TagMix mix) throws Exception {
+        return TOOLS.getGTIN(mix.nextSgtin());
+    }
+
+    @Benchmark
+    public boolean isValidGTIN(TagMix mix) {
+        return TOOLS.isValidGTIN(mix.nextGtin());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean isValidGTINContended(TagMix mix) {
+        return TOOLS.isValidGTIN(mix.nextGtin());
+    }
+}
@@ -0,0 +1,94 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.HexBatch;
+import com.jensui.projects.epctools.HexCodec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and formatting 1024 SGTIN-96 tags per call: the per character
+ * lookup table against the 8 characters per long SWAR path of
+ * {@link HexBatch}, on newline separated ASCII records.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HexBatchBenchmark {
+
+    private static final int COUNT = 1024;
+    private static final int STRIDE = 25;
+
+    private String[] hex;
+    private ByteBuffer records;
+    private final long[] highs = new long[COUNT];
+    private final long[] lows = new long[COUNT];
+    private final byte[] out = new byte[COUNT * STRIDE];
+
+    @Setup
+    public void setUp() {
+        TagMix mix = new TagMix();
+        mix.setUp();
+        hex = new String[COUNT];
+        StringBuilder sb = new StringBuilder(COUNT * STRIDE);
+        for (int i = 0; i < COUNT; i++) {
+            hex[i] = mix.nextSgtin96();
+            sb.append(hex[i]).append('\n');
+        }
+        records = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII));
+        HexBatch.parse96(hex, highs, lows, null);
+    }
+
+    @Benchmark
+    public long[] parseTable() {
+        for (int i = 0, p = 0; i < COUNT; i++, p += STRIDE) {
+            highs[i] = HexCodec.parseLong(records, p, 16);
+            lows[i] = HexCodec.parseLong(records, p + 16, 8);
+        }
+        return highs;
+    }
+
+    @Benchmark
+    public int parseSwar() {
+        return HexBatch.parse96(records, 0, STRIDE, COUNT, highs, lows, null);
+    }
+
+    @Benchmark
+    public int parseStrings() {
+        return HexBatch.parse96(hex, highs, lows, null);
+    }
+
+    @Benchmark
+    public byte[] formatTable() {
+        char[] c = new char[24];
+        for (int i = 0, p = 0; i < COUNT; i++, p += STRIDE) {
+            HexCodec.writeHex(highs[i], 16, c, 0);
+            HexCodec.writeHex(lows[i], 8, c, 16);
+            for (int j = 0; j < 24; j++) {
+                out[p + j] = (byte) c[j];
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public byte[] formatSwar() {
+        HexBatch.format96(highs, lows, COUNT, out, 0, STRIDE);
+        return out;
+    }
+}
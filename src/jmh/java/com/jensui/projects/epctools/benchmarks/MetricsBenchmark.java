@@ -0,0 +1,67 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.EPCTools;
+import com.jensui.projects.epctools.metrics.EpcMetrics;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the {@link EpcMetrics} instrumentation: metrics=false must match
+ * the plain {@link DecodeBenchmark} and {@link UriBenchmark} numbers.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private static final EPCTools TOOLS = EPCTools.getInstance();
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EpcMetrics.setEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EpcMetrics.setEnabled(false);
+        EpcMetrics.reset();
+    }
+
+    @Benchmark
+    public HashMap<EPCTools.TAG_DATA, String> parseHexString(TagMix mix) throws Exception {
+        return TOOLS.parseHexString(mix.nextMixed());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public HashMap<EPCTools.TAG_DATA, String> parseHexStringContended(TagMix mix) throws Exception {
+        return TOOLS.parseHexString(mix.nextMixed());
+    }
+
+    @Benchmark
+    public String createEPCPureIdentityURI(TagMix mix) throws Exception {
+        return TOOLS.createEPCPureIdentityURI(mix.nextMixed());
+    }
+}
@@ -0,0 +1,89 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.EpcEncoder;
+import com.jensui.projects.epctools.Reconciliation;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reconciling a manifest of one million SGTIN-96 tags (100 GTINs, sequential
+ * serials) against the reads with every 1000th tag missing: bitmaps against
+ * hash sets of the hex strings.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReconciliationBenchmark {
+
+    private static final int COUNT = 1000000;
+
+    private long[] highs;
+    private long[] lows;
+    private String[] hex;
+    private Reconciliation reconciliation;
+
+    @Setup
+    public void setUp() throws Exception {
+        highs = new long[COUNT];
+        lows = new long[COUNT];
+        hex = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            long serial = i % 10000;
+            highs[i] = EpcEncoder.sgtin96High(1, 5, 614141, i / 10000, serial);
+            lows[i] = EpcEncoder.sgtin96Low(serial);
+            hex[i] = String.format("%016X%08X", highs[i], lows[i]);
+        }
+        reconciliation = load();
+    }
+
+    private Reconciliation load() {
+        Reconciliation r = new Reconciliation();
+        for (int i = 0; i < COUNT; i++) {
+            r.expect(highs[i], lows[i]);
+            if (i % 1000 != 7) {
+                r.observe(highs[i], lows[i]);
+            }
+        }
+        return r;
+    }
+
+    @Benchmark
+    public long reconcile() {
+        return reconciliation.reconcile().getMissingCount();
+    }
+
+    @Benchmark
+    public long loadAndReconcile() {
+        return load().reconcile().getMissingCount();
+    }
+
+    @Benchmark
+    public long hashSets() {
+        Set<String> expected = new HashSet<>(COUNT * 2);
+        Set<String> observed = new HashSet<>(COUNT * 2);
+        for (int i = 0; i < COUNT; i++) {
+            expected.add(hex[i]);
+            if (i % 1000 != 7) {
+                observed.add(hex[i]);
+            }
+        }
+        expected.removeAll(observed);
+        return expected.size();
+    }
+}
@@ -0,0 +1,130 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Realistic mix of tags taken from the EPCToolsTest vectors: 60% SGTIN-96,
+ * 20% SGTIN-198 and 20% SSCC-96, shuffled with a fixed seed. Every thread
+ * walks the mix with its own cursor. The noisy stream replaces 10% of the
+ * SGTIN-96 tags by foreign and corrupt reads.
+ *
+ * @author chpressler
+ */
+@State(Scope.Thread)
+public class TagMix {
+
+    static final String[] SGTIN_96 = {
+        "30740242204031C0000003E7",
+        "30381D5D419C238000000001",
+        "30581D5D419C2380075BCD15",
+        "3020DA7557D32C4000003039"
+    };
+
+    static final String[] SGTIN_198 = {
+        "36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0",
+        "363B5C00800007E1B16AC183060C183060CD83960E1BB662CC",
+        "36381DB78038AF5A3060D183060C583062C000000000000000"
+    };
+
+    static final String[] SSCC_96 = {
+        "3154F618B8B2D05E00000000",
+        "315402422000000045000000",
+        "31542BE0F0218A7975000000"
+    };
+
+    static final String[] NOISE = {
+        "E2003412012345678901ABCD",
+        "307C0242204031C0000003E7",
+        "30740242204031C0000003",
+        "30740242204031C00000O3E7"
+    };
+
+    static final String[] GTINS = {
+        "00614141453245",
+        "00614141453246",
+        "00037000657354",
+        "00304300580454",
+        "08806420000314"
+    };
+
+    private static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    String[] mixed;
+    String[] sgtin96;
+    String[] noisy;
+    String[] sgtin;
+    int cursor;
+
+    @Setup
+    public void setUp() {
+        List<String> all = new ArrayList<>();
+        List<String> onlySgtin = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            int slot = i % 10;
+            String tag;
+            if (slot < 6) {
+                tag = SGTIN_96[i % SGTIN_96.length];
+            } else if (slot < 8) {
+                tag = SGTIN_198[i % SGTIN_198.length];
+            } else {
+                tag = SSCC_96[i % SSCC_96.length];
+            }
+            all.add(tag);
+            onlySgtin.add(slot < 8 ? tag : SGTIN_96[i % SGTIN_96.length]);
+        }
+        Random random = new Random(42);
+        Collections.shuffle(all, random);
+        Collections.shuffle(onlySgtin, random);
+        mixed = all.toArray(new String[SIZE]);
+        sgtin = onlySgtin.toArray(new String[SIZE]);
+        sgtin96 = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            sgtin96[i] = SGTIN_96[random.nextInt(SGTIN_96.length)];
+        }
+        Random noise = new Random(7);
+        noisy = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            noisy[i] = noise.nextInt(10) == 0 ? NOISE[noise.nextInt(NOISE.length)] : sgtin96[i];
+        }
+    }
+
+    /**
+     * @return the next tag of the 96/198 bit SGTIN and SSCC mix
+     */
+    public String nextMixed() {
+        return mixed[cursor++ & MASK];
+    }
+
+    /**
+     * @return the next SGTIN-96 or SGTIN-198 tag
+     */
+    public String nextSgtin() {
+        return sgtin[cursor++ & MASK];
+    }
+
+    public String nextSgtin96() {
+        return sgtin96[cursor++ & MASK];
+    }
+
+    /**
+     * @return the next SGTIN-96 tag or, one in ten, a foreign or corrupt read
+     */
+    public String nextNoisy() {
+        return noisy[cursor++ & MASK];
+    }
+
+    public String nextGtin() {
+        return GTINS[cursor++ % GTINS.length];
+    }
+
+    public int nextSerial() {
+        return cursor++ & 0xFFFFF;
+    }
+}
@@ -0,0 +1,49 @@
+package com.jensui.projects.epctools.benchmarks;
+
+import com.jensui.projects.epctools.EPCTools;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pure identity and tag URI generation over the tag mix.
+ *
+ * @author chpressler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriBenchmark {
+
+    private static final EPCTools TOOLS = EPCTools.getInstance();
+
+    @Benchmark
+    public String createEPCPureIdentityURI(TagMix mix) throws Exception {
+        return TOOLS.createEPCPureIdentityURI(mix.nextMixed());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String createEPCPureIdentityURIContended(TagMix mix) throws Exception {
+        return TOOLS.createEPCPureIdentityURI(mix.nextMixed());
+    }
+
+    @Benchmark
+    public String createEPCTagIdURI(TagMix mix) throws Exception {
+        return TOOLS.createEPCTagIdURI(mix.nextMixed());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String createEPCTagIdURIContended(TagMix mix) throws Exception {
+        return TOOLS.createEPCTagIdURI(mix.nextMixed());
+    }
+}
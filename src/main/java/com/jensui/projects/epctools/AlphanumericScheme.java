@@ -0,0 +1,282 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+import com.jensui.projects.epctools.EPCTools.TAG_DATA;
+
+/**
+ * Table description of the EPC schemes with a 7 bit alphanumeric last field.
+ * The tag is held in 4 long words (see {@link Ascii7Codec}), every field is
+ * read and written in place.
+ *
+ * <pre>
+ * SGTIN-198 0x36  filter 3 | partition 3 | company prefix | item reference | serial 140 (20 chars)
+ * GRAI-170  0x37  filter 3 | partition 3 | company prefix | asset type | serial 112 (16 chars)
+ * GIAI-202  0x38  filter 3 | partition 3 | company prefix | individual asset reference 148 - 168 (18 - 24 chars)
+ * SGLN-195  0x39  filter 3 | partition 3 | company prefix | location reference | extension 140 (20 chars)
+ * </pre>
+ *
+ * @author chpressler
+ */
+public final class AlphanumericScheme {
+
+    /**
+     * long words needed for the longest scheme
+     */
+    public static final int WORDS = 4;
+
+    private static final AlphanumericScheme[] SCHEMES = new AlphanumericScheme[256];
+
+    public static final AlphanumericScheme SGTIN_198 = new AlphanumericScheme(ENCODING.SGTIN_198, 0x36, 198, "sgtin", "sgtin-198",
+            TAG_DATA.ITEM_REFERENCE, PartitionTable.ITEM_REFERENCE_BITS, PartitionTable.ITEM_REFERENCE_DIGITS,
+            TAG_DATA.SERIAL_NUMBER, new int[]{140}, new int[]{20});
+
+    public static final AlphanumericScheme GRAI_170 = new AlphanumericScheme(ENCODING.GRAI_170, 0x37, 170, "grai", "grai-170",
+            TAG_DATA.ASSET_TYPE, new int[]{4, 7, 10, 14, 17, 20, 24}, new int[]{0, 1, 2, 3, 4, 5, 6},
+            TAG_DATA.SERIAL_NUMBER, new int[]{112}, new int[]{16});
+
+    public static final AlphanumericScheme GIAI_202 = new AlphanumericScheme(ENCODING.GIAI_202, 0x38, 202, "giai", "giai-202",
+            null, new int[]{0}, new int[]{0},
+            TAG_DATA.INDIVIDUAL_ASSET_REFERENCE, new int[]{148, 151, 154, 158, 161, 164, 168}, new int[]{18, 19, 20, 21, 22, 23, 24});
+
+    public static final AlphanumericScheme SGLN_195 = new AlphanumericScheme(ENCODING.SGLN_195, 0x39, 195, "sgln", "sgln-195",
+            TAG_DATA.LOCATION_REFERENCE, new int[]{1, 4, 7, 11, 14, 17, 21}, new int[]{0, 1, 2, 3, 4, 5, 6},
+            TAG_DATA.EXTENSION, new int[]{140}, new int[]{20});
+
+    private static final int COMPANY_PREFIX_OFFSET = 14;
+    private static final String HEX = "0123456789ABCDEF";
+
+    private final ENCODING encoding;
+    private final int header;
+    private final int bits;
+    private final String idName;
+    private final String tagName;
+    private final TAG_DATA referenceKey;
+    private final int[] referenceBits = new int[PartitionTable.PARTITIONS];
+    private final int[] referenceDigits = new int[PartitionTable.PARTITIONS];
+    private final TAG_DATA textKey;
+    private final int[] textOffsets = new int[PartitionTable.PARTITIONS];
+    private final int[] textChars = new int[PartitionTable.PARTITIONS];
+
+    private AlphanumericScheme(ENCODING encoding, int header, int bits, String idName, String tagName,
+            TAG_DATA referenceKey, int[] referenceBits, int[] referenceDigits,
+            TAG_DATA textKey, int[] textBits, int[] textChars) {
+        this.encoding = encoding;
+        this.header = header;
+        this.bits = bits;
+        this.idName = idName;
+        this.tagName = tagName;
+        this.referenceKey = referenceKey;
+        this.textKey = textKey;
+        for (int p = 0; p < PartitionTable.PARTITIONS; p++) {
+            this.referenceBits[p] = referenceBits[referenceBits.length == 1 ? 0 : p];
+            this.referenceDigits[p] = referenceDigits[referenceDigits.length == 1 ? 0 : p];
+            this.textChars[p] = textChars[textChars.length == 1 ? 0 : p];
+            textOffsets[p] = COMPANY_PREFIX_OFFSET + PartitionTable.COMPANY_PREFIX_BITS[p] + this.referenceBits[p];
+            if (textOffsets[p] + textBits[textBits.length == 1 ? 0 : p] != bits) {
+                throw new IllegalStateException(encoding + " partition " + p + " does not have " + bits + " bits");
+            }
+        }
+        SCHEMES[header] = this;
+    }
+
+    /**
+     * @return the scheme or null if the header is not an alphanumeric scheme
+     */
+    public static AlphanumericScheme get(int header) {
+        return SCHEMES[header & 0xFF];
+    }
+
+    public ENCODING getEncoding() {
+        return encoding;
+    }
+
+    public int getHeader() {
+        return header;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * @return the number of hex characters, the last one is padded with
+     * zero bits
+     */
+    public int getHexLength() {
+        return (bits + 3) / 4;
+    }
+
+    /**
+     * @return the key of the numeric field between company prefix and text,
+     * or null for GIAI-202
+     */
+    public TAG_DATA getReferenceKey() {
+        return referenceKey;
+    }
+
+    public TAG_DATA getTextKey() {
+        return textKey;
+    }
+
+    public int getFilter(long[] words) {
+        return (int) (words[0] >>> 53) & 0x7;
+    }
+
+    public int getPartition(long[] words) {
+        return (int) (words[0] >>> 50) & 0x7;
+    }
+
+    public long getCompanyPrefix(long[] words) {
+        int cpBits = PartitionTable.COMPANY_PREFIX_BITS[getPartition(words)];
+        return (words[0] >>> (50 - cpBits)) & ((1L << cpBits) - 1);
+    }
+
+    public String getCompanyPrefixString(long[] words) {
+        return Digits.padded(getCompanyPrefix(words), PartitionTable.COMPANY_PREFIX_DIGITS[getPartition(words)]);
+    }
+
+    /**
+     * @return the item reference, asset type or location reference, 0 for
+     * GIAI-202
+     */
+    public long getReference(long[] words) {
+        int partition = getPartition(words);
+        if (referenceBits[partition] == 0) {
+            return 0;
+        }
+        return Ascii7Codec.getBits(words, COMPANY_PREFIX_OFFSET + PartitionTable.COMPANY_PREFIX_BITS[partition], referenceBits[partition]);
+    }
+
+    public String getReferenceString(long[] words) {
+        return Digits.padded(getReference(words), referenceDigits[getPartition(words)]);
+    }
+
+    /**
+     * Appends the serial, individual asset reference or extension.
+     *
+     * @return the number of characters
+     */
+    public int appendText(long[] words, StringBuilder sb) {
+        int partition = getPartition(words);
+        return Ascii7Codec.decode(words, textOffsets[partition], textChars[partition], sb);
+    }
+
+    public String getText(long[] words) {
+        StringBuilder sb = new StringBuilder(24);
+        appendText(words, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Parses the hex string of a tag of this scheme into words.
+     *
+     * @param words at least {@link #WORDS} long
+     * @throws Exception if the hex string is invalid, too short, of another
+     * scheme or has an invalid partition
+     */
+    public void parseHex(CharSequence epcHex, long[] words) throws Exception {
+        if (epcHex.length() < getHexLength()) {
+            throw new Exception("invalid length for " + encoding + ": " + epcHex.length());
+        }
+        HexCodec.parseWords(epcHex, words);
+        if ((int) (words[0] >>> 56) != header) {
+            throw new Exception("not a " + encoding + ": " + epcHex);
+        }
+        int partition = getPartition(words);
+        if (!PartitionTable.isValid(partition)) {
+            throw new Exception("invalid partition: " + partition);
+        }
+        if (!fieldsFit(words)) {
+            throw new Exception("field has more digits than partition " + partition + " allows: " + epcHex);
+        }
+    }
+
+    /**
+     * @return false if the company prefix or reference has more decimal
+     * digits than the partition allows. The partition must be valid.
+     */
+    boolean fieldsFit(long[] words) {
+        int partition = getPartition(words);
+        return getCompanyPrefix(words) < Digits.POW10[PartitionTable.COMPANY_PREFIX_DIGITS[partition]]
+                && getReference(words) < Digits.POW10[referenceDigits[partition]];
+    }
+
+    /**
+     * Packs the tag into words, all other bits of the words are cleared.
+     *
+     * @param reference the item reference, asset type or location reference,
+     * ignored for GIAI-202
+     * @throws Exception if a value does not fit its field
+     */
+    public void encode(int filter, int partition, long companyPrefix, long reference, CharSequence text, long[] words) throws Exception {
+        if (filter < 0 || filter > 7) {
+            throw new Exception("filter value can not be bigger than 8");
+        }
+        if (!PartitionTable.isValid(partition)) {
+            throw new Exception("invalid partition: " + partition);
+        }
+        int cpBits = PartitionTable.COMPANY_PREFIX_BITS[partition];
+        if (companyPrefix < 0 || companyPrefix >= 1L << cpBits) {
+            throw new Exception("comp prefix length for partition: " + partition + " is too big. Max Length: " + cpBits + ".");
+        }
+        int refBits = referenceBits[partition];
+        if (referenceKey == null) {
+            reference = 0;
+        } else if (reference < 0 || reference >= 1L << refBits) {
+            throw new Exception(referenceKey + " length for partition: " + partition + " is too big. Max Length: " + refBits + ".");
+        }
+        for (int i = 0; i < words.length; i++) {
+            words[i] = 0;
+        }
+        words[0] = (long) header << 56 | (long) filter << 53 | (long) partition << 50 | companyPrefix << (50 - cpBits);
+        if (refBits > 0) {
+            Ascii7Codec.putBits(words, COMPANY_PREFIX_OFFSET + cpBits, refBits, reference);
+        }
+        Ascii7Codec.encode(text, words, textOffsets[partition], textChars[partition]);
+    }
+
+    /**
+     * @return the tag as upper case hex string of {@link #getHexLength()}
+     * characters
+     */
+    public String toHex(long[] words) {
+        StringBuilder sb = new StringBuilder(getHexLength());
+        HexCodec.appendHex(sb, words, getHexLength());
+        return sb.toString();
+    }
+
+    /**
+     * Appends the pure identity or tag URI. Characters of the text which are
+     * reserved in URIs are written as %XX escapes.
+     */
+    public void appendURI(long[] words, boolean tag, StringBuilder sb) {
+        sb.append(tag ? "urn:epc:tag:" : "urn:epc:id:").append(tag ? tagName : idName).append(':');
+        if (tag) {
+            sb.append(getFilter(words)).append('.');
+        }
+        int partition = getPartition(words);
+        Digits.appendPadded(sb, getCompanyPrefix(words), PartitionTable.COMPANY_PREFIX_DIGITS[partition]);
+        sb.append('.');
+        if (referenceKey != null) {
+            if (referenceDigits[partition] > 0) {
+                Digits.appendPadded(sb, getReference(words), referenceDigits[partition]);
+            }
+            sb.append('.');
+        }
+        int start = sb.length();
+        appendText(words, sb);
+        for (int i = start; i < sb.length(); i++) {
+            char c = sb.charAt(i);
+            if (c == '"' || c == '%' || c == '&' || c == '/' || c == '<' || c == '>' || c == '?') {
+                sb.setCharAt(i, '%');
+                sb.insert(i + 1, HEX.charAt(c >>> 4)).insert(i + 2, HEX.charAt(c & 0xF));
+                i += 2;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encoding.toString();
+    }
+}
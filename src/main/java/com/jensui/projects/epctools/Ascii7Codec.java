@@ -0,0 +1,103 @@
+package com.jensui.projects.epctools;
+
+/**
+ * 7 bit character codec for the alphanumeric fields of SGTIN-198, SGLN-195,
+ * GRAI-170 and GIAI-202. The tag is held in long words, most significant bit
+ * first (bit 0 of the tag is the top bit of words[0]); characters are read
+ * and written in place at any bit offset, also across word boundaries.
+ *
+ * Only the GS1 AI encodable character set 82 is accepted. A string shorter
+ * than its field is terminated by zero bits.
+ *
+ * @author chpressler
+ */
+public final class Ascii7Codec {
+
+    private static final boolean[] ENCODABLE = new boolean[128];
+
+    static {
+        for (char c : "!\"%&'()*+,-./:;<=>?_".toCharArray()) {
+            ENCODABLE[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ENCODABLE[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            ENCODABLE[c] = true;
+            ENCODABLE[c + 32] = true;
+        }
+    }
+
+    private Ascii7Codec() {
+    }
+
+    public static boolean isEncodable(char c) {
+        return c < 128 && ENCODABLE[c];
+    }
+
+    /**
+     * @return width bits (1 - 64) starting at bit offset of the words
+     */
+    public static long getBits(long[] words, int offset, int width) {
+        int index = offset >>> 6;
+        int shift = offset & 63;
+        long value = words[index] << shift;
+        if (shift + width > 64) {
+            value |= words[index + 1] >>> (64 - shift);
+        }
+        return value >>> (64 - width);
+    }
+
+    /**
+     * Sets width bits starting at bit offset. The target bits must be zero,
+     * value must fit into width bits.
+     */
+    public static void putBits(long[] words, int offset, int width, long value) {
+        int index = offset >>> 6;
+        int end = (offset & 63) + width;
+        if (end <= 64) {
+            words[index] |= value << (64 - end);
+        } else {
+            int spill = end - 64;
+            words[index] |= value >>> spill;
+            words[index + 1] |= value << (64 - spill);
+        }
+    }
+
+    /**
+     * Appends the characters of the field at bit offset up to the first
+     * zero character.
+     *
+     * @param maxChars the field width in characters
+     * @return the number of characters appended
+     */
+    public static int decode(long[] words, int offset, int maxChars, StringBuilder sb) {
+        for (int i = 0; i < maxChars; i++, offset += 7) {
+            int c = (int) getBits(words, offset, 7);
+            if (c == 0) {
+                return i;
+            }
+            sb.append((char) c);
+        }
+        return maxChars;
+    }
+
+    /**
+     * Writes the characters into the zeroed field at bit offset.
+     *
+     * @throws Exception if s is longer than maxChars or contains a character
+     * outside of the encodable set
+     */
+    public static void encode(CharSequence s, long[] words, int offset, int maxChars) throws Exception {
+        if (s.length() > maxChars) {
+            throw new Exception("more than " + maxChars + " characters: " + s);
+        }
+        for (int i = 0; i < s.length(); i++, offset += 7) {
+            char c = s.charAt(i);
+            if (!isEncodable(c)) {
+                throw new Exception("character '" + c + "' is not encodable: " + s);
+            }
+            putBits(words, offset, 7, c);
+        }
+    }
+}
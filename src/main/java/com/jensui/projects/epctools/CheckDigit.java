@@ -0,0 +1,170 @@
+package com.jensui.projects.epctools;
+
+import java.util.BitSet;
+
+/**
+ * GS1 modulo 10 check digits of GTIN-8/12/13/14, SSCC-18 and GLN keys. All
+ * methods work on digit ranges of CharSequences, char arrays or ASCII
+ * bytes, do not allocate and never throw or log on bad input: compute
+ * returns -1 for ranges containing non digits, the isValid methods return
+ * false.
+ *
+ * @author chpressler
+ */
+public final class CheckDigit {
+
+    /**
+     * bit n set if n is a valid key length
+     */
+    private static final int GTIN_LENGTHS = 1 << 8 | 1 << 12 | 1 << 13 | 1 << 14;
+    private static final int SSCC_LENGTHS = 1 << 18;
+    private static final int GLN_LENGTHS = 1 << 13;
+
+    private CheckDigit() {
+    }
+
+    /**
+     * @return the check digit of the digits in [offset, offset + length), or
+     * -1 if the range contains a non digit
+     */
+    public static int compute(CharSequence digits, int offset, int length) {
+        int sum = 0;
+        int factor = 3;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int d = digits.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            sum += d * factor;
+            factor = 4 - factor;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static int compute(char[] digits, int offset, int length) {
+        int sum = 0;
+        int factor = 3;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int d = digits[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            sum += d * factor;
+            factor = 4 - factor;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * @param digits ASCII encoded digits
+     */
+    public static int compute(byte[] digits, int offset, int length) {
+        int sum = 0;
+        int factor = 3;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int d = digits[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            sum += d * factor;
+            factor = 4 - factor;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * @return true if the last digit of the range is the check digit of the
+     * digits before it
+     */
+    public static boolean isValid(CharSequence key, int offset, int length) {
+        // compute returns -1 for a non digit, which is also '/' - '0'
+        return length > 1 && isCheckDigit(compute(key, offset, length - 1), key.charAt(offset + length - 1));
+    }
+
+    public static boolean isValid(byte[] key, int offset, int length) {
+        return length > 1 && isCheckDigit(compute(key, offset, length - 1), key[offset + length - 1]);
+    }
+
+    private static boolean isCheckDigit(int checkDigit, int c) {
+        return checkDigit >= 0 && checkDigit == c - '0';
+    }
+
+    public static boolean isValidGTIN(CharSequence gtin) {
+        return isValid(gtin, GTIN_LENGTHS);
+    }
+
+    public static boolean isValidSSCC(CharSequence sscc) {
+        return isValid(sscc, SSCC_LENGTHS);
+    }
+
+    public static boolean isValidGLN(CharSequence gln) {
+        return isValid(gln, GLN_LENGTHS);
+    }
+
+    /**
+     * @param gtin ASCII encoded GTIN-8, GTIN-12, GTIN-13 or GTIN-14
+     */
+    public static boolean isValidGTIN(byte[] gtin, int offset, int length) {
+        return hasLength(GTIN_LENGTHS, length) && isValid(gtin, offset, length);
+    }
+
+    public static boolean isValidSSCC(byte[] sscc, int offset, int length) {
+        return hasLength(SSCC_LENGTHS, length) && isValid(sscc, offset, length);
+    }
+
+    public static boolean isValidGLN(byte[] gln, int offset, int length) {
+        return hasLength(GLN_LENGTHS, length) && isValid(gln, offset, length);
+    }
+
+    /**
+     * Validates a column of GTINs, e.g. read from a catalog file. Null
+     * entries are failures.
+     *
+     * @return the indexes of the invalid GTINs
+     */
+    public static BitSet validateGTINs(CharSequence[] column) {
+        return validate(column, GTIN_LENGTHS);
+    }
+
+    public static BitSet validateSSCCs(CharSequence[] column) {
+        return validate(column, SSCC_LENGTHS);
+    }
+
+    public static BitSet validateGLNs(CharSequence[] column) {
+        return validate(column, GLN_LENGTHS);
+    }
+
+    /**
+     * Validates count fixed width ASCII keys. Key i starts at offset + i *
+     * stride and has length digits.
+     *
+     * @return the indexes of the invalid keys
+     */
+    public static BitSet validate(byte[] records, int offset, int stride, int length, int count) {
+        BitSet failures = new BitSet(count);
+        for (int i = 0, pos = offset; i < count; i++, pos += stride) {
+            if (!isValid(records, pos, length)) {
+                failures.set(i);
+            }
+        }
+        return failures;
+    }
+
+    private static boolean isValid(CharSequence key, int lengths) {
+        return key != null && hasLength(lengths, key.length()) && isValid(key, 0, key.length());
+    }
+
+    private static BitSet validate(CharSequence[] column, int lengths) {
+        BitSet failures = new BitSet(column.length);
+        for (int i = 0; i < column.length; i++) {
+            if (!isValid(column[i], lengths)) {
+                failures.set(i);
+            }
+        }
+        return failures;
+    }
+
+    private static boolean hasLength(int lengths, int length) {
+        return length < 32 && (lengths >>> length & 1) != 0;
+    }
+}
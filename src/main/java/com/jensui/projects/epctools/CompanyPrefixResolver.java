@@ -0,0 +1,253 @@
+package com.jensui.projects.epctools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Resolves the length of the GS1 Company Prefix of a GTIN or SSCC, and with
+ * it the EPC partition, from the GS1 prefix length table (the
+ * "GCP length prefix list"). The table maps GS1 prefixes of 1 to 12 digits to
+ * company prefix lengths; the longest prefix matching the digits wins. It is
+ * kept as a decimal digit trie in one int array, so a lookup reads at most
+ * 12 nodes.
+ *
+ * Tables are read from local files, either the GS1 XML format
+ * (<code>&lt;entry prefix="0614141" gcpLength="7"/&gt;</code>) or one
+ * <code>prefix,length</code> per line. A length of 0 marks prefixes without
+ * company prefix, e.g. restricted circulation numbers.
+ *
+ * The default resolver used by the GTIN and SSCC based encoders of
+ * {@link EPCTools} is loaded from the file named by the system property
+ * <code>epctools.gcp</code> or set with {@link #setDefault}. Lookups are
+ * thread safe, {@link #put} is not.
+ *
+ * @author chpressler
+ */
+public final class CompanyPrefixResolver {
+
+    public static final String PROPERTY = "epctools.gcp";
+
+    private static final int MAX_DIGITS = 12;
+
+    private static volatile CompanyPrefixResolver defaultResolver;
+    private static volatile boolean defaultLoaded;
+
+    /**
+     * 10 children per node, 0 for none (the root is never a child)
+     */
+    private int[] children = new int[10 * 64];
+    /**
+     * company prefix length per node, -1 if no prefix ends there
+     */
+    private byte[] lengths = new byte[64];
+    private int nodes = 1;
+    private int size;
+
+    public CompanyPrefixResolver() {
+        Arrays.fill(lengths, (byte) -1);
+    }
+
+    /**
+     * @return the resolver set with {@link #setDefault} or loaded from the
+     * file in the system property <code>epctools.gcp</code>, null if there is
+     * none
+     */
+    public static CompanyPrefixResolver getDefault() throws IOException {
+        if (!defaultLoaded) {
+            synchronized (CompanyPrefixResolver.class) {
+                if (!defaultLoaded) {
+                    String file = System.getProperty(PROPERTY);
+                    if (file != null) {
+                        defaultResolver = load(Paths.get(file));
+                    }
+                    defaultLoaded = true;
+                }
+            }
+        }
+        return defaultResolver;
+    }
+
+    /**
+     * @param resolver the resolver of the encoders, null for the fixed 6
+     * digit company prefix
+     */
+    public static void setDefault(CompanyPrefixResolver resolver) {
+        synchronized (CompanyPrefixResolver.class) {
+            defaultResolver = resolver;
+            defaultLoaded = true;
+        }
+    }
+
+    public static CompanyPrefixResolver load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    public static CompanyPrefixResolver read(Reader reader) throws IOException {
+        CompanyPrefixResolver resolver = new CompanyPrefixResolver();
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int number = 0;
+        while ((line = in.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String prefix;
+            String length;
+            if (line.startsWith("<")) {
+                prefix = attribute(line, "prefix");
+                length = attribute(line, "gcpLength");
+                if (prefix == null && length == null) {
+                    // any other XML element
+                    continue;
+                }
+            } else {
+                String[] fields = line.split("[,;\\s]+");
+                prefix = fields[0];
+                length = fields.length == 2 ? fields[1] : null;
+            }
+            try {
+                resolver.put(prefix, Integer.parseInt(length));
+            } catch (RuntimeException e) {
+                throw new IOException("invalid company prefix entry at line " + number + ": " + line, e);
+            }
+        }
+        return resolver;
+    }
+
+    private static String attribute(String element, String name) {
+        int start = element.indexOf(" " + name + "=\"");
+        if (start < 0) {
+            return null;
+        }
+        start += name.length() + 3;
+        int end = element.indexOf('"', start);
+        return end < 0 ? null : element.substring(start, end);
+    }
+
+    /**
+     * Adds or replaces an entry of the table.
+     *
+     * @param prefix 1 - 12 decimal digits
+     * @param length company prefix length of numbers starting with prefix,
+     * 0 if they have none
+     */
+    public void put(CharSequence prefix, int length) {
+        if (prefix == null || prefix.length() == 0 || prefix.length() > MAX_DIGITS) {
+            throw new IllegalArgumentException("prefix must have 1 - 12 digits: " + prefix);
+        }
+        if (length < 0 || length > MAX_DIGITS) {
+            throw new IllegalArgumentException("invalid company prefix length: " + length);
+        }
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            int d = prefix.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new IllegalArgumentException("not a decimal digit in prefix: " + prefix);
+            }
+            int child = children[node * 10 + d];
+            if (child == 0) {
+                child = newNode();
+                children[node * 10 + d] = child;
+            }
+            node = child;
+        }
+        if (lengths[node] < 0) {
+            size++;
+        }
+        lengths[node] = (byte) length;
+    }
+
+    private int newNode() {
+        if (nodes == lengths.length) {
+            children = Arrays.copyOf(children, children.length * 2);
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+            Arrays.fill(lengths, nodes, lengths.length, (byte) -1);
+        }
+        return nodes++;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param offset index of the first digit of the company prefix, e.g. 1
+     * for a GTIN-14 or SSCC
+     * @return the company prefix length or -1 if there is no entry or the
+     * prefix has no company prefix
+     */
+    public int getLength(CharSequence digits, int offset) {
+        int node = 0;
+        int length = -1;
+        for (int i = offset, end = Math.min(digits.length(), offset + MAX_DIGITS); i < end; i++) {
+            int d = digits.charAt(i) - '0';
+            if (d < 0 || d > 9 || (node = children[node * 10 + d]) == 0) {
+                break;
+            }
+            if (lengths[node] >= 0) {
+                length = lengths[node];
+            }
+        }
+        return length > 0 ? length : -1;
+    }
+
+    /**
+     * @param index position of the first digit of the company prefix in the
+     * ASCII buffer
+     */
+    public int getLength(ByteBuffer ascii, int index, int end) {
+        int node = 0;
+        int length = -1;
+        for (int i = index, last = Math.min(end, index + MAX_DIGITS); i < last; i++) {
+            int d = ascii.get(i) - '0';
+            if (d < 0 || d > 9 || (node = children[node * 10 + d]) == 0) {
+                break;
+            }
+            if (lengths[node] >= 0) {
+                length = lengths[node];
+            }
+        }
+        return length > 0 ? length : -1;
+    }
+
+    /**
+     * @return the EPC partition for the company prefix starting at offset or
+     * -1 if its length is unknown or not 6 - 12 digits
+     */
+    public int getPartition(CharSequence digits, int offset) {
+        return partition(getLength(digits, offset));
+    }
+
+    static int partition(int length) {
+        return length < 6 ? -1 : MAX_DIGITS - length;
+    }
+
+    /**
+     * @return the EPC partition of the GTIN-14 or -1
+     */
+    public int getGTINPartition(CharSequence gtin) {
+        return getPartition(gtin, 1);
+    }
+
+    /**
+     * @return the EPC partition of the SSCC (18 digits, extension digit
+     * first) or -1
+     */
+    public int getSSCCPartition(CharSequence sscc) {
+        return getPartition(sscc, 1);
+    }
+}
@@ -0,0 +1,333 @@
+package com.jensui.projects.epctools;
+
+/**
+ * Bounded concurrent cache in front of the {@link EpcDecoder}, keyed by the
+ * packed 96 bit value of the tag. Besides the decoded value the pure
+ * identity URI and the GTIN are kept once they have been asked for.
+ *
+ * The cache is split into lock striped segments. Each segment is a set
+ * associative open addressing table made of parallel arrays, no node is
+ * created per entry. A key may live in one of {@value #WAYS} consecutive
+ * slots after its hash slot, when all of them are taken the CLOCK (second
+ * chance) algorithm evicts the first slot not referenced since the last
+ * sweep.
+ *
+ * @author chpressler
+ */
+public class DecodeCache {
+
+    static final int WAYS = 8;
+
+    private static final int VALUE = 0;
+    private static final int URI = 1;
+    private static final int GTIN = 2;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    /**
+     * @param capacity maximum number of cached tags, rounded up to a power of
+     * two
+     */
+    public DecodeCache(int capacity) {
+        this(capacity, 16);
+    }
+
+    /**
+     * @param concurrency number of lock stripes, rounded up to a power of two
+     */
+    public DecodeCache(int capacity, int concurrency) {
+        int segmentCount = powerOfTwo(Math.max(1, concurrency));
+        int segmentCapacity = powerOfTwo(Math.max(WAYS, (capacity + segmentCount - 1) / segmentCount));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        segmentMask = segmentCount - 1;
+    }
+
+    public Epc96 decode(CharSequence epcHex) throws Exception {
+        checkLength(epcHex);
+        return decode(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex));
+    }
+
+    public Epc96 decode(long high, long low) throws Exception {
+        return (Epc96) get(high, low & 0xFFFFFFFFL, VALUE);
+    }
+
+    public String getPureIdentityURI(CharSequence epcHex) throws Exception {
+        checkLength(epcHex);
+        return getPureIdentityURI(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex));
+    }
+
+    public String getPureIdentityURI(long high, long low) throws Exception {
+        return (String) get(high, low & 0xFFFFFFFFL, URI);
+    }
+
+    /**
+     * @return the GTIN-14 of a SGTIN-96, null for other encodings
+     */
+    public String getGTIN(CharSequence epcHex) throws Exception {
+        checkLength(epcHex);
+        return getGTIN(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex));
+    }
+
+    public String getGTIN(long high, long low) throws Exception {
+        return (String) get(high, low & 0xFFFFFFFFL, GTIN);
+    }
+
+    private static void checkLength(CharSequence epcHex) throws Exception {
+        if (epcHex.length() != 24) {
+            throw new Exception("invalid length for 96 bit EPC: " + epcHex.length());
+        }
+    }
+
+    private Object get(long high, long low, int field) throws Exception {
+        long hash = hash(high, low);
+        Segment segment = segments[(int) (hash >>> 32) & segmentMask];
+        int start = (int) hash & segment.mask;
+        Epc96 epc = null;
+        synchronized (segment) {
+            int i = segment.find(high, low, start);
+            if (i >= 0) {
+                segment.hits++;
+                segment.referenced[i] = true;
+                Object value = segment.field(i, field);
+                if (value != null) {
+                    return value;
+                }
+                epc = segment.values[i];
+            } else {
+                segment.misses++;
+            }
+        }
+        if (epc == null) {
+            epc = EpcDecoder.decode(high, low);
+        }
+        Object value = derive(epc, field);
+        synchronized (segment) {
+            segment.put(high, low, start, epc, field, value);
+        }
+        return value;
+    }
+
+    private static Object derive(Epc96 epc, int field) {
+        switch (field) {
+            case URI:
+                StringBuilder sb = new StringBuilder(64);
+                epc.appendPureIdentityURI(sb);
+                return sb.toString();
+            case GTIN:
+                return epc instanceof Sgtin96 ? ((Sgtin96) epc).getGTIN() : null;
+            default:
+                return epc;
+        }
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    public long getEvictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * @return hits / (hits + misses), 0 if nothing was looked up yet
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    public int capacity() {
+        return segments.length * segments[0].values.length;
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DecodeCache[size=" + size() + ", capacity=" + capacity() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+    }
+
+    static long hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L + low;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    static int powerOfTwo(int n) {
+        int p = Integer.highestOneBit(n);
+        return p == n ? n : p << 1;
+    }
+
+    /**
+     * One lock stripe. All fields are guarded by the segment monitor.
+     * Entries are never removed one by one, so an empty slot ends a probe.
+     */
+    private static final class Segment {
+
+        final int mask;
+        final long[] highs;
+        final long[] lows;
+        final Epc96[] values;
+        final String[] uris;
+        final String[] gtins;
+        final boolean[] referenced;
+        int size;
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(int capacity) {
+            mask = capacity - 1;
+            highs = new long[capacity];
+            lows = new long[capacity];
+            values = new Epc96[capacity];
+            uris = new String[capacity];
+            gtins = new String[capacity];
+            referenced = new boolean[capacity];
+        }
+
+        int find(long high, long low, int start) {
+            for (int w = 0; w < WAYS; w++) {
+                int i = (start + w) & mask;
+                if (values[i] == null) {
+                    return -1;
+                }
+                if (highs[i] == high && lows[i] == low) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Object field(int i, int field) {
+            switch (field) {
+                case URI:
+                    return uris[i];
+                case GTIN:
+                    return gtins[i];
+                default:
+                    return values[i];
+            }
+        }
+
+        void put(long high, long low, int start, Epc96 epc, int field, Object value) {
+            int victim = -1;
+            for (int w = 0; w < WAYS; w++) {
+                int i = (start + w) & mask;
+                if (values[i] == null) {
+                    victim = i;
+                    size++;
+                    break;
+                }
+                if (highs[i] == high && lows[i] == low) {
+                    // stored by a concurrent miss in the meantime
+                    set(i, field, value);
+                    return;
+                }
+            }
+            if (victim < 0) {
+                victim = clock(start);
+                if (values[victim] == null) {
+                    size++;
+                } else {
+                    evictions++;
+                }
+            }
+            highs[victim] = high;
+            lows[victim] = low;
+            values[victim] = epc;
+            uris[victim] = null;
+            gtins[victim] = null;
+            referenced[victim] = false;
+            set(victim, field, value);
+        }
+
+        /**
+         * @return the first slot of the set without reference bit, clearing
+         * the reference bits passed on the way. The hand goes round the
+         * {@value DecodeCache#WAYS} slots of the set twice at most and never
+         * leaves it, a slot outside could not be found again.
+         */
+        private int clock(int start) {
+            for (int w = 0; w < 2 * WAYS; w++) {
+                int i = (start + (w % WAYS)) & mask;
+                if (!referenced[i]) {
+                    return i;
+                }
+                referenced[i] = false;
+            }
+            return start;
+        }
+
+        private void set(int i, int field, Object value) {
+            if (field == URI) {
+                uris[i] = (String) value;
+            } else if (field == GTIN) {
+                gtins[i] = (String) value;
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i <= mask; i++) {
+                values[i] = null;
+                uris[i] = null;
+                gtins[i] = null;
+                referenced[i] = false;
+            }
+            size = 0;
+            hits = 0;
+            misses = 0;
+            evictions = 0;
+        }
+    }
+}
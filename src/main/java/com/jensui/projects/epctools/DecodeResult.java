@@ -0,0 +1,150 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+
+/**
+ * Reusable holder filled by the non throwing decoder methods of
+ * {@link EpcDecoder}. Nothing is allocated while decoding; the tag is kept
+ * in 4 long words (see {@link Ascii7Codec}) and its fields are read from
+ * there. One instance per thread is meant to be reused for every read.
+ *
+ * @author chpressler
+ */
+public final class DecodeResult {
+
+    final long[] words = new long[AlphanumericScheme.WORDS];
+    DecodeStatus status = DecodeStatus.BAD_LENGTH;
+    int header = -1;
+    int errorIndex = -1;
+    EpcScheme scheme;
+    AlphanumericScheme alphanumericScheme;
+
+    DecodeStatus set(DecodeStatus status, int header, EpcScheme scheme, AlphanumericScheme alphanumericScheme, int errorIndex) {
+        this.status = status;
+        this.header = header;
+        this.scheme = scheme;
+        this.alphanumericScheme = alphanumericScheme;
+        this.errorIndex = errorIndex;
+        return status;
+    }
+
+    public DecodeStatus getStatus() {
+        return status;
+    }
+
+    public boolean isValid() {
+        return status == DecodeStatus.OK;
+    }
+
+    /**
+     * @return the index of the first non hex character for
+     * {@link DecodeStatus#NON_HEX}, otherwise -1
+     */
+    public int getErrorIndex() {
+        return errorIndex;
+    }
+
+    /**
+     * @return the header or -1 if it could not be read
+     */
+    public int getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the encoding or null if the header is not supported
+     */
+    public ENCODING getEncoding() {
+        return scheme != null ? scheme.getEncoding() : alphanumericScheme != null ? alphanumericScheme.getEncoding() : null;
+    }
+
+    /**
+     * @return the scheme of a 96 bit tag or null
+     */
+    public EpcScheme getScheme() {
+        return scheme;
+    }
+
+    /**
+     * @return the scheme of an alphanumeric tag or null
+     */
+    public AlphanumericScheme getAlphanumericScheme() {
+        return alphanumericScheme;
+    }
+
+    /**
+     * @return the tag length in bits or 0 if the header is not supported
+     */
+    public int getBits() {
+        return scheme != null ? 96 : alphanumericScheme != null ? alphanumericScheme.getBits() : 0;
+    }
+
+    /**
+     * @return bits 0..63 of the tag
+     */
+    public long getHigh() {
+        return words[0];
+    }
+
+    /**
+     * @return bits 64..95 of the tag in the lower 32 bits
+     */
+    public long getLow() {
+        return words[1] >>> 32;
+    }
+
+    /**
+     * Copies the tag words into dst, at least {@link AlphanumericScheme#WORDS}
+     * long.
+     */
+    public void getWords(long[] dst) {
+        System.arraycopy(words, 0, dst, 0, words.length);
+    }
+
+    public int getFilter() {
+        return scheme != null ? scheme.getFilter(words[0]) : alphanumericScheme != null ? alphanumericScheme.getFilter(words) : -1;
+    }
+
+    public int getPartition() {
+        return scheme != null ? scheme.getPartition(words[0]) : alphanumericScheme != null ? alphanumericScheme.getPartition(words) : -1;
+    }
+
+    /**
+     * @return the company prefix of a valid tag, for GID the general
+     * manager number, -1 for DoD or an invalid tag
+     */
+    public long getCompanyPrefix() {
+        if (status != DecodeStatus.OK) {
+            return -1;
+        }
+        if (alphanumericScheme != null) {
+            return alphanumericScheme.getCompanyPrefix(words);
+        }
+        return scheme.getFieldDigits(getPartition(), 0) == EpcScheme.TEXT ? -1 : scheme.getField(words[0], getLow(), 0);
+    }
+
+    /**
+     * @return the decoded value of a valid 96 bit tag, otherwise null
+     */
+    public Epc96 toEpc96() {
+        return status == DecodeStatus.OK && scheme != null ? scheme.create(words[0], getLow()) : null;
+    }
+
+    /**
+     * @return the tag as hex string, null if the header is not supported
+     */
+    public String toHexString() {
+        int bits = getBits();
+        if (bits == 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder((bits + 3) / 4);
+        HexCodec.appendHex(sb, words, (bits + 3) / 4);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "DecodeResult[" + status + (isValid() ? ", " + toHexString() : "") + "]";
+    }
+}
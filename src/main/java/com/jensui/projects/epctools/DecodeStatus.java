@@ -0,0 +1,34 @@
+package com.jensui.projects.epctools;
+
+/**
+ * Outcome of the non throwing decoder, see
+ * {@link EpcDecoder#tryDecode(CharSequence, DecodeResult)}.
+ *
+ * @author chpressler
+ */
+public enum DecodeStatus {
+
+    OK,
+    /**
+     * the length does not match the scheme of the header, or is too short
+     * to hold a header
+     */
+    BAD_LENGTH,
+    /**
+     * a character is not a hex digit, see {@link DecodeResult#getErrorIndex()}
+     */
+    NON_HEX,
+    /**
+     * the header is no supported scheme
+     */
+    UNSUPPORTED_HEADER,
+    /**
+     * the partition value is 7
+     */
+    BAD_PARTITION,
+    /**
+     * the company prefix or a reference has more decimal digits than the
+     * partition allows
+     */
+    BAD_FIELD
+}
@@ -0,0 +1,65 @@
+package com.jensui.projects.epctools;
+
+/**
+ * Decimal formatting helpers which write straight into char arrays.
+ *
+ * @author chpressler
+ */
+final class Digits {
+
+    /**
+     * 10^n for n = 0..18
+     */
+    static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private Digits() {
+    }
+
+    /**
+     * Writes value as decimal number, left padded with zeros to width
+     * characters. Digits exceeding width are cut off, the decoder rejects
+     * fields with more digits than their partition allows.
+     */
+    static void writePadded(long value, int width, char[] dst, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            dst[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+    }
+
+    /**
+     * Appends value as decimal number, left padded with zeros to width
+     * characters.
+     */
+    static void appendPadded(StringBuilder sb, long value, int width) {
+        for (int i = width - length(value); i > 0; i--) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    /**
+     * @return the number of decimal digits of a non negative value
+     */
+    static int length(long value) {
+        int length = 1;
+        while (value >= 10) {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    static String padded(long value, int width) {
+        char[] c = new char[width];
+        writePadded(value, width, c, 0);
+        return new String(c);
+    }
+}
@@ -1,10 +1,11 @@
 package com.jensui.projects.epctools;
 
+import com.jensui.projects.epctools.metrics.EpcMetrics;
+import com.jensui.projects.epctools.metrics.EpcMetrics.Operation;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.HashMap;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  *
@@ -12,58 +13,21 @@ import java.util.logging.Logger;
  */
 public class EPCTools implements Serializable {
 
-    private static HashMap<Long, ENCODING> headerEncodings;
-    private static HashMap<Long, Long> giaiPartitionTableCompPrefix;
-    private static HashMap<Long, Long> giaiPartitionTableIndividualAssetRef;
-    private static HashMap<Long, Long> giaiPartitionTableSerialReference;
+    private static final EPCTools INSTANCE = new EPCTools();
 
+    /**
+     * EPCTools holds no state, all lookup tables are static and immutable.
+     * A single instance can therefore be shared between any number of
+     * threads. The public constructor is kept for compatibility.
+     */
     public EPCTools() {
-        init();
-    }
-
-    private void init() {
-        /**
-         * The header determines the EPC tag standard. The following are a few
-         * of the defined header standards bound to the representing HEX Value
-         * in the Header
-         */
-        headerEncodings = new HashMap<>();
-//        headerEncodings.put(206L, ENCODING.DOD_64);
-//        headerEncodings.put(207L, ENCODING.DOD_96);
-        headerEncodings.put(54L, ENCODING.SGTIN_198);
-        headerEncodings.put(48L, ENCODING.SGTIN_96);
-        headerEncodings.put(49L, ENCODING.SSCC);
-//        headerEncodings.put(50L, ENCODING.GLN_96);
-//        headerEncodings.put(51L, ENCODING.GRAI_96);
-//        headerEncodings.put(52L, ENCODING.GIAI_96);
-//        headerEncodings.put(53L, ENCODING.GID_96);
-
-        giaiPartitionTableCompPrefix = new HashMap<>();
-        giaiPartitionTableCompPrefix.put(0L, 40L);
-        giaiPartitionTableCompPrefix.put(1L, 37L);
-        giaiPartitionTableCompPrefix.put(2L, 34L);
-        giaiPartitionTableCompPrefix.put(3L, 30L);
-        giaiPartitionTableCompPrefix.put(4L, 27L);
-        giaiPartitionTableCompPrefix.put(5L, 24L);
-        giaiPartitionTableCompPrefix.put(6L, 20L);
-
-        giaiPartitionTableSerialReference = new HashMap<>();
-        giaiPartitionTableSerialReference.put(0L, 18L);
-        giaiPartitionTableSerialReference.put(1L, 21L);
-        giaiPartitionTableSerialReference.put(2L, 24L);
-        giaiPartitionTableSerialReference.put(3L, 28L);
-        giaiPartitionTableSerialReference.put(4L, 31L);
-        giaiPartitionTableSerialReference.put(5L, 34L);
-        giaiPartitionTableSerialReference.put(6L, 38L);
-
-        giaiPartitionTableIndividualAssetRef = new HashMap<>();
-        giaiPartitionTableIndividualAssetRef.put(0L, 42L);
-        giaiPartitionTableIndividualAssetRef.put(1L, 45L);
-        giaiPartitionTableIndividualAssetRef.put(2L, 48L);
-        giaiPartitionTableIndividualAssetRef.put(3L, 52L);
-        giaiPartitionTableIndividualAssetRef.put(4L, 55L);
-        giaiPartitionTableIndividualAssetRef.put(5L, 58L);
-        giaiPartitionTableIndividualAssetRef.put(6L, 62L);
+    }
+
+    /**
+     * @return the shared thread-safe instance
+     */
+    public static EPCTools getInstance() {
+        return INSTANCE;
     }
 
     /**
@@ -72,15 +36,13 @@ public class EPCTools implements Serializable {
      */
     public enum TAG_DATA {
 
-        HEADER, FILTER, PARTITION, COMPANY_PREFIX, ITEM_REFERENCE, SERIAL_REFERENCE, SERIAL_NUMBER, UNALLOCATED, INDIVIDUAL_ASSET_REFERENCE, CAGE_CODE
+        HEADER, FILTER, PARTITION, COMPANY_PREFIX, ITEM_REFERENCE, SERIAL_REFERENCE, SERIAL_NUMBER, UNALLOCATED, INDIVIDUAL_ASSET_REFERENCE, CAGE_CODE,
+        LOCATION_REFERENCE, EXTENSION, ASSET_TYPE, GENERAL_MANAGER, OBJECT_CLASS
     }
 
-    /*public enum ENCODING {
-        DOD_64, DOD_96, SGTIN_96, SSCC, GLN_96, GRAI_96, GIAI_96, GID_96, SGTIN_198
-    }*/
     public enum ENCODING {
 
-        SGTIN_96, SGTIN_198, SSCC
+        SGTIN_96, SGTIN_198, SSCC, SGLN_96, GRAI_96, GIAI_96, GID_96, DOD_96, GRAI_170, GIAI_202, SGLN_195
     }
 
     private String fillLeftWithZeros(String s, int digits) {
@@ -92,32 +54,13 @@ public class EPCTools implements Serializable {
         return sb.toString();
     }
 
-    private String fillRightWithZeros(String s, int digits) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(s);
-        while (sb.length() < digits) {
-            sb.append("0");
-        }
-        return sb.toString();
-    }
-
-    private String hexToBinaryString(String hex) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : hex.getBytes()) {
-            sb.append(fillLeftWithZeros(Integer.toBinaryString(Integer.parseInt(new String(new byte[]{b}), 16)), 4));
-        }
-        return sb.toString();
-    }
-
-    private String binaryStringToHex(String bin) {
-        return Long.toHexString(binStringToLong(bin));
-    }
-
     public String getSerialNumber(HashMap<TAG_DATA, String> data) throws Exception {
         if (data.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_96.toString()) || data.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_198.toString())) {
             return data.get(TAG_DATA.SERIAL_NUMBER);
         } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.SSCC.toString())) {
             return data.get(TAG_DATA.SERIAL_REFERENCE);
+        } else if (data.containsKey(TAG_DATA.SERIAL_NUMBER)) {
+            return data.get(TAG_DATA.SERIAL_NUMBER);
         } else {
             throw new Exception("unsupported Header: " + data.get(TAG_DATA.HEADER));
         }
@@ -185,177 +128,132 @@ public class EPCTools implements Serializable {
     }
 
     public String createSGTIN_96HexEPC(int filter, int partition, String compPrefix, String itemRef, String serialNumber) throws Exception {
+        if (!EpcMetrics.isEnabled()) {
+            return encodeSGTIN_96(filter, partition, compPrefix, itemRef, serialNumber);
+        }
+        long start = EpcMetrics.start();
         try {
-            if (Long.parseLong(serialNumber) > 274877906944L) { //SGTIN-96 reserves 38 bit for sn. 2 ^ 38 = 274877906944 max value for sn in SGTIN-96
-                throw new Exception("serialnumber (" + serialNumber + ") out of range for SGTIN-96. Maximum Serialnumber value is 274877906944.");
-            }
+            String hex = encodeSGTIN_96(filter, partition, compPrefix, itemRef, serialNumber);
+            EpcMetrics.success(Operation.ENCODE, start);
+            return hex;
+        } catch (Exception e) {
+            EpcMetrics.failure(Operation.ENCODE, Sgtin96.HEADER, e, start);
+            throw e;
+        }
+    }
+
+    private String encodeSGTIN_96(int filter, int partition, String compPrefix, String itemRef, String serialNumber) throws Exception {
+        long serial;
+        try {
+            serial = Long.parseLong(serialNumber);
         } catch (NumberFormatException e) {
             throw new Exception("returned serialnumber (" + serialNumber + ") could not be parsed. Serialnumber must be numeric positive value. Max supported value is: 9223372036854775807.", e);
         }
-        if (filter > 7) {
-            throw new Exception("filter value can not be bigger than 8");
-        }
-        String b_header = fillLeftWithZeros(Integer.toBinaryString(48), 8); //8 bit header
-        String b_filter = fillLeftWithZeros(Integer.toBinaryString(filter), 3); //3 bit filter
-        String b_partition = fillLeftWithZeros(Integer.toBinaryString(partition), 3); //3 bit partition
-        long compPrefixLength = giaiPartitionTableCompPrefix.get((long) partition);
-        if (Long.toBinaryString(Long.parseLong(compPrefix)).length() > compPrefixLength) {
-            throw new Exception("comp prefix length for partition: " + partition + " is too big. Max Length: " + compPrefixLength + ".");
-        }
-        String b_compPrefix = fillLeftWithZeros(Long.toBinaryString(Long.parseLong(compPrefix)), (int) compPrefixLength);
-        long itemRefLength = giaiPartitionTableIndividualAssetRef.get((long) partition) - 38;
-        if (Integer.toBinaryString(Integer.parseInt(itemRef)).length() > itemRefLength) {
-            throw new Exception("item reference length for partition: " + partition + " is too big. Max Length: " + itemRefLength + ".");
-        }
-        String b_itemRef = fillLeftWithZeros(Integer.toBinaryString(Integer.parseInt(itemRef)), (int) itemRefLength);
-        String b_serialNumber = fillLeftWithZeros(Long.toBinaryString(Long.parseLong(serialNumber)), 38); //38 bit sn
-        String bin = b_header + b_filter + b_partition + b_compPrefix + b_itemRef + b_serialNumber;
-        StringBuilder hex = new StringBuilder();
-        int offs = 0;
-        while (offs < bin.length()) {
-            hex.append(binaryStringToHex(bin.substring(offs, offs += 4)));
-        }
-        return hex.toString().toUpperCase();
+        char[] hex = new char[24];
+        EpcEncoder.encodeSgtin96(filter, partition, Long.parseLong(compPrefix), Long.parseLong(itemRef), serial, hex, 0);
+        return new String(hex);
     }
 
     public String createSGTIN_198HexEPC(int filter, int partition, String compPrefix, String itemRef, String serialNumber) throws Exception {
-        if (serialNumber.length() > 20) { //up to 20 alphanumeric digits
-            throw new Exception("serialnumber length can not be higher than 20");
+        if (!EpcMetrics.isEnabled()) {
+            return encodeSGTIN_198(filter, partition, compPrefix, itemRef, serialNumber);
         }
-        if (filter > 7) {
-            throw new Exception("filter value can not be bigger than 8");
-        }
-        String b_header = fillLeftWithZeros(Integer.toBinaryString(54), 8); //8 bit header
-        String b_filter = fillLeftWithZeros(Integer.toBinaryString(filter), 3); //3 bit filter
-        String b_partition = fillLeftWithZeros(Integer.toBinaryString(partition), 3); //3 bit partition
-        long compPrefixLength = giaiPartitionTableCompPrefix.get((long) partition);
-        if (Long.toBinaryString(Long.parseLong(compPrefix)).length() > compPrefixLength) {
-            throw new Exception("comp prefix length for partition: " + partition + " is too big. Max Length: " + compPrefixLength + ".");
-        }
-        String b_compPrefix = fillLeftWithZeros(Long.toBinaryString(Long.parseLong(compPrefix)), (int) compPrefixLength);
-        long itemRefLength = giaiPartitionTableIndividualAssetRef.get((long) partition) - 38;
-        if (Integer.toBinaryString(Integer.parseInt(itemRef)).length() > itemRefLength) {
-            throw new Exception("item reference length for partition: " + partition + " is too big. Max Length: " + itemRefLength + ".");
-        }
-        String b_itemRef = fillLeftWithZeros(Integer.toBinaryString(Integer.parseInt(itemRef)), (int) itemRefLength);
-        String b_serialNumber = fillRightWithZeros(toBinaryString(serialNumber), 140);//140 bit sn - alphanumeric (140 bit / 20 digits = 7bit - ASCI 128 per digit)
-
-        String bin = b_header + b_filter + b_partition + b_compPrefix + b_itemRef + b_serialNumber;
-        StringBuilder hex = new StringBuilder();
-        int offs = 0;
-        while (offs < bin.length()) {
-            String tmp = bin.substring(offs, ((offs += 4) > bin.length()) ? bin.length() : offs);
-            if(tmp.length() < 4) {
-                tmp = fillRightWithZeros(tmp, 4);
-            }
-            hex.append(binaryStringToHex(tmp));
+        long start = EpcMetrics.start();
+        try {
+            String hex = encodeSGTIN_198(filter, partition, compPrefix, itemRef, serialNumber);
+            EpcMetrics.success(Operation.ENCODE, start);
+            return hex;
+        } catch (Exception e) {
+            EpcMetrics.failure(Operation.ENCODE, AlphanumericScheme.SGTIN_198.getHeader(), e, start);
+            throw e;
         }
-        return hex.toString().toUpperCase();
     }
 
-    private String toBinaryString(String s) {
-        byte[] ba;
-        StringBuilder ret = new StringBuilder();
-        ba = s.getBytes();
-        for (byte b : ba) {
-            ret.append(fillLeftWithZeros(Integer.toBinaryString((int) b), 7));
+    private String encodeSGTIN_198(int filter, int partition, String compPrefix, String itemRef, String serialNumber) throws Exception {
+        if (serialNumber.length() > 20) { //up to 20 alphanumeric digits
+            throw new Exception("serialnumber length can not be higher than 20");
         }
-        return ret.toString();
+        long[] words = new long[AlphanumericScheme.WORDS];
+        AlphanumericScheme.SGTIN_198.encode(filter, partition, Long.parseLong(compPrefix), Long.parseLong(itemRef), serialNumber, words);
+        return AlphanumericScheme.SGTIN_198.toHex(words);
     }
 
     public String createSSCCHexEPC(int filter, int partition, String compPrefix, String extensionCode, String serialRef) throws Exception {
-        if (filter > 7) {
-            throw new Exception("filter value can not be bigger than 8");
+        if (!EpcMetrics.isEnabled()) {
+            return encodeSSCC(filter, partition, compPrefix, extensionCode, serialRef);
         }
-        String b_header = fillLeftWithZeros(Integer.toBinaryString(49), 8); //8 bit header
-        String b_filter = fillLeftWithZeros(Integer.toBinaryString(filter), 3); //3 bit filter
-        String b_partition = fillLeftWithZeros(Integer.toBinaryString(partition), 3); //3 bit partition
-        long compPrefixLength = giaiPartitionTableCompPrefix.get((long) partition);
+        long start = EpcMetrics.start();
+        try {
+            String hex = encodeSSCC(filter, partition, compPrefix, extensionCode, serialRef);
+            EpcMetrics.success(Operation.ENCODE, start);
+            return hex;
+        } catch (Exception e) {
+            EpcMetrics.failure(Operation.ENCODE, Sscc96.HEADER, e, start);
+            throw e;
+        }
+    }
 
-        String b_compPrefix = fillLeftWithZeros(Long.toBinaryString(Long.parseLong(compPrefix)), (int) compPrefixLength);
-        long serialRefBitLength = giaiPartitionTableSerialReference.get((long) partition);
-        int serialRefDigits = partition + 5;
+    private String encodeSSCC(int filter, int partition, String compPrefix, String extensionCode, String serialRef) throws Exception {
+        if (!PartitionTable.isValid(partition)) {
+            throw new Exception("invalid partition: " + partition);
+        }
+        int serialRefDigits = PartitionTable.SERIAL_REFERENCE_DIGITS[partition];
+        long serialReference = Long.parseLong(extensionCode + fillLeftWithZeros(serialRef, serialRefDigits - 1));
+        char[] hex = new char[24];
+        EpcEncoder.encodeSscc96(filter, partition, Long.parseLong(compPrefix), serialReference, hex, 0);
+        return new String(hex);
+    }
 
-        String b_serialRef = Long.toBinaryString(Long.parseLong(extensionCode + fillLeftWithZeros(serialRef, serialRefDigits - 1)));
+    public String createEPCPureIdentityURI(String epcHex) throws Exception {
+        return createURI(epcHex, false);
+    }
 
-        b_serialRef = fillLeftWithZeros(b_serialRef, (int) serialRefBitLength);
-        String b_unallocated = fillLeftWithZeros("0", 24); //24 bit unallocated
-        String bin = b_header + b_filter + b_partition + b_compPrefix + b_serialRef + b_unallocated;
+    public String createEPCTagIdURI(String epcHex) throws Exception {
+        return createURI(epcHex, true);
+    }
 
-        StringBuilder hex = new StringBuilder();
-        int offs = 0;
-        while (offs < 96) {
-            hex.append(binaryStringToHex(bin.substring(offs, offs += 4)));
+    private String createURI(String epcHex, boolean tag) throws Exception {
+        if (!EpcMetrics.isEnabled()) {
+            return toURI(epcHex, tag);
+        }
+        long start = EpcMetrics.start();
+        try {
+            String uri = toURI(epcHex, tag);
+            EpcMetrics.success(Operation.URI, start);
+            return uri;
+        } catch (Exception e) {
+            EpcMetrics.failure(Operation.URI, EpcMetrics.header(epcHex), e, start);
+            throw e;
         }
-        return hex.toString().toUpperCase();
     }
 
-    public String createEPCPureIdentityURI(String epcHex) throws Exception {
-        HashMap<TAG_DATA, String> map = parseHexString(epcHex);
-        if (map.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_96.toString()) || map.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_198.toString())) {
-            String sn = map.get(TAG_DATA.SERIAL_NUMBER);
-            if (sn.matches(".*[a-zA-Z]+.*")) {
-                sn = sn.replaceFirst ("^0*", "");
-            }
-            else {
-                try {
-                    sn = Long.toString(Long.parseLong(sn));
-                } catch (Exception e) {}
-            }
-            return "urn:epc:id:sgtin:" + map.get(TAG_DATA.COMPANY_PREFIX) + "." + map.get(TAG_DATA.ITEM_REFERENCE) + "." + sn;
-        } else if (map.get(TAG_DATA.HEADER).equals(ENCODING.SSCC.toString())) {
-            String sn = map.get(TAG_DATA.SERIAL_REFERENCE);
-            if (sn.matches(".*[a-zA-Z]+.*")) {
-                sn = sn.replaceFirst ("^0*", "");
-            }
-            else {
-                try {
-                    sn = Long.toString(Long.parseLong(sn));
-                } catch (Exception e) {}
-            }
-            return "urn:epc:id:sscc:" + map.get(TAG_DATA.COMPANY_PREFIX) + "." + sn;
+    private static String toURI(String epcHex, boolean tag) throws Exception {
+        StringBuilder sb = new StringBuilder(64);
+        if (tag) {
+            EpcUri.appendTagURI(epcHex, sb);
         } else {
-            throw new Exception("unsupported Header: " + map.get(TAG_DATA.HEADER));
+            EpcUri.appendPureIdentityURI(epcHex, sb);
         }
+        return sb.toString();
     }
 
-    public String createEPCTagIdURI(String epcHex) throws Exception {
-        HashMap<TAG_DATA, String> map = parseHexString(epcHex);
-        if (map.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_96.toString())) {
-            String sn = map.get(TAG_DATA.SERIAL_NUMBER);
-            if (sn.matches(".*[a-zA-Z]+.*")) {
-                sn = sn.replaceFirst ("^0*", "");
-            }
-            else {
-                try {
-                    sn = Long.toString(Long.parseLong(sn));
-                } catch (Exception e) {}
-            }
-            return "urn:epc:tag:sgtin-96:" + map.get(TAG_DATA.FILTER) + "." + map.get(TAG_DATA.COMPANY_PREFIX) + "." + map.get(TAG_DATA.ITEM_REFERENCE) + "." +sn;
-        } if (map.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_198.toString())) {
-            String sn = map.get(TAG_DATA.SERIAL_NUMBER);
-            if (sn.matches(".*[a-zA-Z]+.*")) {
-                sn = sn.replaceFirst ("^0*", "");
-            }
-            else {
-                try {
-                    sn = Long.toString(Long.parseLong(sn));
-                } catch (Exception e) {}
-            }
-            return "urn:epc:tag:sgtin-198:" + map.get(TAG_DATA.FILTER) + "." + map.get(TAG_DATA.COMPANY_PREFIX) + "." + map.get(TAG_DATA.ITEM_REFERENCE) + "." +sn;
-        } else if (map.get(TAG_DATA.HEADER).equals(ENCODING.SSCC.toString())) {
-            String sn = map.get(TAG_DATA.SERIAL_REFERENCE);
-            if (sn.matches(".*[a-zA-Z]+.*")) {
-                sn = sn.replaceFirst ("^0*", "");
-            }
-            else {
-                try {
-                    sn = Long.toString(Long.parseLong(sn));
-                } catch (Exception e) {}
-            }
-            return "urn:epc:tag:sscc-96:" + map.get(TAG_DATA.FILTER) + "." + map.get(TAG_DATA.COMPANY_PREFIX) + "." + sn;
-        } else {
-            throw new Exception("unsupported Header: " + map.get(TAG_DATA.HEADER));
+    /**
+     * @param filter the filter value used for pure identity URIs
+     * @return the SGTIN-96 or SSCC-96 hex string of a pure identity or tag
+     * URI
+     */
+    public String createHexEPC(String epcUri, int filter) throws Exception {
+        if (!EpcMetrics.isEnabled()) {
+            return EpcUri.toHex(epcUri, filter);
+        }
+        long start = EpcMetrics.start();
+        try {
+            String hex = EpcUri.toHex(epcUri, filter);
+            EpcMetrics.success(Operation.PARSE_URI, start);
+            return hex;
+        } catch (Exception e) {
+            EpcMetrics.failure(Operation.PARSE_URI, EpcMetrics.UNKNOWN_HEADER, e, start);
+            throw e;
         }
     }
 
@@ -368,12 +266,47 @@ public class EPCTools implements Serializable {
         return createSGTIN_96HexEPC(filter, partition, companyPrefix, itemReference, serialNumber);
     }
 
+    /**
+     * Encodes a GTIN-14 with the company prefix length of the default
+     * {@link CompanyPrefixResolver}, or with a 6 digit company prefix if there
+     * is none.
+     */
     public String createSGTIN_96HexEPC(int packLevel, String gtin, String sn) throws Exception {
-        return createSGTIN_96HexEPC(packLevel, 6, gtin.substring(1, 7), gtin.substring(0, 1) + gtin.substring(7, 13), sn);
+        return createSGTIN_96HexEPC(packLevel, gtin, sn, CompanyPrefixResolver.getDefault());
+    }
+
+    /**
+     * @param resolver company prefix lengths, null for a 6 digit company
+     * prefix
+     */
+    public String createSGTIN_96HexEPC(int packLevel, String gtin, String sn, CompanyPrefixResolver resolver) throws Exception {
+        int partition = getGTINPartition(gtin, resolver);
+        int end = 13 - partition;
+        return createSGTIN_96HexEPC(packLevel, partition, gtin.substring(1, end), gtin.substring(0, 1) + gtin.substring(end, 13), sn);
     }
 
     public String createSGTIN_198HexEPC(int packLevel, String gtin, String sn) throws Exception {
-        return createSGTIN_198HexEPC(packLevel, 6, gtin.substring(1, 7), gtin.substring(0, 1) + gtin.substring(7, 13), sn);
+        return createSGTIN_198HexEPC(packLevel, gtin, sn, CompanyPrefixResolver.getDefault());
+    }
+
+    public String createSGTIN_198HexEPC(int packLevel, String gtin, String sn, CompanyPrefixResolver resolver) throws Exception {
+        int partition = getGTINPartition(gtin, resolver);
+        int end = 13 - partition;
+        return createSGTIN_198HexEPC(packLevel, partition, gtin.substring(1, end), gtin.substring(0, 1) + gtin.substring(end, 13), sn);
+    }
+
+    private static int getGTINPartition(String gtin, CompanyPrefixResolver resolver) throws Exception {
+        if (gtin == null || gtin.length() != 14) {
+            throw new Exception("GTIN must have 14 digits: " + gtin);
+        }
+        if (resolver == null) {
+            return 6;
+        }
+        int partition = resolver.getGTINPartition(gtin);
+        if (partition < 0) {
+            throw new Exception("no EPC company prefix length for GTIN: " + gtin);
+        }
+        return partition;
     }
 
     public String createSSCCHexEPC(int packLevel, String companyPrefix, String extensionCode, String serialRef) throws Exception {
@@ -381,24 +314,77 @@ public class EPCTools implements Serializable {
         return createSSCCHexEPC(packLevel, partition, companyPrefix, extensionCode, serialRef);
     }
 
+    /**
+     * Encodes an SSCC with the company prefix length of the default
+     * {@link CompanyPrefixResolver}.
+     *
+     * @param sscc 18 digits incl. check digit
+     */
+    public String createSSCCHexEPC(int packLevel, String sscc) throws Exception {
+        return createSSCCHexEPC(packLevel, sscc, CompanyPrefixResolver.getDefault());
+    }
+
+    public String createSSCCHexEPC(int packLevel, String sscc, CompanyPrefixResolver resolver) throws Exception {
+        if (sscc == null || sscc.length() != 18) {
+            throw new Exception("SSCC must have 18 digits: " + sscc);
+        }
+        if (resolver == null) {
+            throw new Exception("no company prefix resolver, set -D" + CompanyPrefixResolver.PROPERTY + "=<file>");
+        }
+        int partition = resolver.getSSCCPartition(sscc);
+        if (partition < 0) {
+            throw new Exception("no EPC company prefix length for SSCC: " + sscc);
+        }
+        int end = 13 - partition;
+        return createSSCCHexEPC(packLevel, partition, sscc.substring(1, end), sscc.substring(0, 1), sscc.substring(end, 17));
+    }
+
     public ENCODING getEncoding(String epcHex) {
-        String binaryData = hexToBinaryString(epcHex);
-        return headerEncodings.get(binStringToLong(binaryData.substring(0, 8)));
+        return HeaderTable.get(epcHex);
     }
 
     public boolean isSGTIN96(String epcHex) {
-        String binaryData = hexToBinaryString(epcHex);
-        return headerEncodings.get(binStringToLong(binaryData.substring(0, 8))) == ENCODING.SGTIN_96;
+        return HeaderTable.get(epcHex) == ENCODING.SGTIN_96;
     }
 
     public boolean isSGTIN198(String epcHex) {
-        String binaryData = hexToBinaryString(epcHex);
-        return headerEncodings.get(binStringToLong(binaryData.substring(0, 8))) == ENCODING.SGTIN_198;
+        return HeaderTable.get(epcHex) == ENCODING.SGTIN_198;
     }
 
     public boolean isSSCC(String epcHex) {
-        String binaryData = hexToBinaryString(epcHex);
-        return headerEncodings.get(binStringToLong(binaryData.substring(0, 8))) == ENCODING.SSCC;
+        return HeaderTable.get(epcHex) == ENCODING.SSCC;
+    }
+
+    public ENCODING getEncoding(byte[] epc, int offset) {
+        return EpcDecoder.getEncoding(epc, offset);
+    }
+
+    public ENCODING getEncoding(ByteBuffer epc, int index) {
+        return EpcDecoder.getEncoding(epc, index);
+    }
+
+    public boolean isSGTIN96(byte[] epc, int offset) {
+        return EpcDecoder.getEncoding(epc, offset) == ENCODING.SGTIN_96;
+    }
+
+    public boolean isSGTIN96(ByteBuffer epc, int index) {
+        return EpcDecoder.getEncoding(epc, index) == ENCODING.SGTIN_96;
+    }
+
+    public boolean isSGTIN198(byte[] epc, int offset) {
+        return EpcDecoder.getEncoding(epc, offset) == ENCODING.SGTIN_198;
+    }
+
+    public boolean isSGTIN198(ByteBuffer epc, int index) {
+        return EpcDecoder.getEncoding(epc, index) == ENCODING.SGTIN_198;
+    }
+
+    public boolean isSSCC(byte[] epc, int offset) {
+        return EpcDecoder.getEncoding(epc, offset) == ENCODING.SSCC;
+    }
+
+    public boolean isSSCC(ByteBuffer epc, int index) {
+        return EpcDecoder.getEncoding(epc, index) == ENCODING.SSCC;
     }
 
     /**
@@ -408,131 +394,96 @@ public class EPCTools implements Serializable {
      * @throws Exception
      */
     public HashMap<TAG_DATA, String> parseHexString(String hexData) throws Exception {
-//		if(hexData.length() != 24) {
-//			throw new Exception("invalid input hex string");
-//		}
-        String binaryData = hexToBinaryString(hexData);
-        int offs = 0; long lHeader = binStringToLong(binaryData.substring(0, offs += 8));
-        ENCODING header = headerEncodings.get(lHeader);
-        if(header == null) {
-            throw new Exception("unsupported Header: " + lHeader);
+        if (!EpcMetrics.isEnabled()) {
+            return parse(hexData);
         }
+        long start = EpcMetrics.start();
+        try {
+            HashMap<TAG_DATA, String> data = parse(hexData);
+            EpcMetrics.success(Operation.PARSE_HEX, start);
+            return data;
+        } catch (Exception e) {
+            EpcMetrics.failure(Operation.PARSE_HEX, EpcMetrics.header(hexData), e, start);
+            throw e;
+        }
+    }
 
-        HashMap<TAG_DATA, String> data = new HashMap<>();
-        data.put(TAG_DATA.HEADER, header.toString());
-
-        long filter = binStringToLong(binaryData.substring(offs, offs += 3));
-        data.put(TAG_DATA.FILTER, Long.toString(filter));
-        //data.get(TAG_DATA.PARTITION);
-        long partitionValue = binStringToLong(binaryData.substring(offs, offs += 3));
-        data.put(TAG_DATA.PARTITION, Long.toString(partitionValue));
-        long compPrefixBinaryLength = giaiPartitionTableCompPrefix.get(partitionValue);
-        int compPrefixDecimalLength = (int) (12 - partitionValue);
-        long compPrefix = binStringToLong(binaryData.substring(offs, offs += compPrefixBinaryLength));
-        data.put(TAG_DATA.COMPANY_PREFIX, fillLeftWithZeros(Long.toString(compPrefix), compPrefixDecimalLength));
-        if (!data.get(TAG_DATA.HEADER).equals(ENCODING.SSCC.toString())) {
-            long itemreference = binStringToLong(binaryData.substring(offs, offs += (giaiPartitionTableIndividualAssetRef.get(partitionValue) - 38)));
-            String itemRef = fillLeftWithZeros(Long.toString(itemreference), (int) (13 - (compPrefixDecimalLength)));
-            data.put(TAG_DATA.ITEM_REFERENCE, itemRef);
+    private HashMap<TAG_DATA, String> parse(String hexData) throws Exception {
+        int header = (int) HexCodec.parseLong(hexData, 0, 2);
+        if (EpcScheme.get(header) != null) {
+            return toMap(EpcDecoder.decode(hexData));
         }
-        if (data.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_96.toString())) {
-            long serial = binStringToLong(binaryData.substring(offs));
-            data.put(TAG_DATA.SERIAL_NUMBER, fillLeftWithZeros(Long.toString(serial), 12));
-        } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.SSCC.toString())) {
-            long serialreference = binStringToLong(binaryData.substring(offs, offs += (giaiPartitionTableSerialReference.get(partitionValue))));
-            int snLength = (int) (17 - compPrefixDecimalLength); // 18 (total sscc length) - checkDigit - companyPrefixLength
-            data.put(TAG_DATA.SERIAL_REFERENCE, fillLeftWithZeros(Long.toString(serialreference), snLength));
-            long unallocated = binStringToLong(binaryData.substring(offs));
-            data.put(TAG_DATA.UNALLOCATED, Long.toString(unallocated));
-        }
-        /*else if (data.get(TAG_DATA.HEADER).equals(ENCODING.DOD_64.toString())) {
-            //TODO
-        } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.DOD_96.toString())) {
-            //TODO
-        } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.GIAI_96.toString())) {
-            //TODO
-        } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.GID_96.toString())) {
-            //TODO
-        } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.GLN_96.toString())) {
-            //TODO
-        } else if (data.get(TAG_DATA.HEADER).equals(ENCODING.GRAI_96.toString())) {
-            //TODO
-        } */
-        else if (data.get(TAG_DATA.HEADER).equals(ENCODING.SGTIN_198.toString())) {
-            data.put(TAG_DATA.SERIAL_NUMBER, fillLeftWithZeros(binStringTo7bitASCII(binaryData.substring(offs, binaryData.length())), 20));
+        AlphanumericScheme scheme = AlphanumericScheme.get(header);
+        if (scheme == null) {
+            throw new Exception("unsupported Header: " + header);
+        }
+        long[] words = new long[AlphanumericScheme.WORDS];
+        scheme.parseHex(hexData, words);
+        HashMap<TAG_DATA, String> data = new HashMap<>();
+        data.put(TAG_DATA.HEADER, scheme.getEncoding().toString());
+        data.put(TAG_DATA.FILTER, Integer.toString(scheme.getFilter(words)));
+        data.put(TAG_DATA.PARTITION, Integer.toString(scheme.getPartition(words)));
+        data.put(TAG_DATA.COMPANY_PREFIX, scheme.getCompanyPrefixString(words));
+        if (scheme.getReferenceKey() != null) {
+            data.put(scheme.getReferenceKey(), scheme.getReferenceString(words));
+        }
+        if (scheme == AlphanumericScheme.SGTIN_198) {
+            data.put(TAG_DATA.SERIAL_NUMBER, fillLeftWithZeros(scheme.getText(words), 20));
+        } else {
+            data.put(scheme.getTextKey(), scheme.getText(words));
         }
         return data;
     }
 
-    private String binStringTo7bitASCII(String s) {
-        int offset = 0, length;
-        String ret = "";
-        while (offset < s.length()) {
-            length = (offset + 7 > s.length()) ? (s.length() - offset) : 7;
-            long l = binStringToLong(s.substring(offset, offset + length));
-            if (l > 9) { //skip control chars
-                ret += (char) binStringToLong(s.substring(offset, offset + length));
+    /**
+     * Adapts a decoded 96 bit EPC to the HashMap representation of
+     * {@link #parseHexString(String)}.
+     */
+    public HashMap<TAG_DATA, String> toMap(Epc96 epc) {
+        HashMap<TAG_DATA, String> data = new HashMap<>();
+        data.put(TAG_DATA.HEADER, epc.getEncoding().toString());
+        if (epc instanceof SchemeEpc96) {
+            SchemeEpc96 value = (SchemeEpc96) epc;
+            EpcScheme scheme = value.getScheme();
+            if (scheme.getFilterBits() > 0) {
+                data.put(TAG_DATA.FILTER, Integer.toString(value.getFilter()));
             }
-            offset += 7;
-        }
-        return ret;
-    }
-
-    private long binStringToLong(String s) {
-        char[] c = s.toCharArray();
-        long z = 0;
-        long erg = 0;
-        for (int i = c.length - 1; i >= 0; i--) {
-            if (z == 0 && c[i] == '0') {
-                z++;
-                continue;
+            if (scheme.isPartitioned()) {
+                data.put(TAG_DATA.PARTITION, Integer.toString(value.getPartition()));
+            }
+            for (int f = 0; f < scheme.getFieldCount(); f++) {
+                data.put(scheme.getFieldKey(f), value.getFieldString(f));
             }
-            erg += Math.pow(c[i] != '0' ? 2 : 0, z);
-            z++;
+            return data;
+        }
+        data.put(TAG_DATA.FILTER, Integer.toString(epc.getFilter()));
+        data.put(TAG_DATA.PARTITION, Integer.toString(epc.getPartition()));
+        data.put(TAG_DATA.COMPANY_PREFIX, epc.getCompanyPrefixString());
+        if (epc instanceof Sgtin96) {
+            Sgtin96 sgtin = (Sgtin96) epc;
+            data.put(TAG_DATA.ITEM_REFERENCE, sgtin.getItemReferenceString());
+            data.put(TAG_DATA.SERIAL_NUMBER, sgtin.getSerialNumberString());
+        } else if (epc instanceof Sscc96) {
+            Sscc96 sscc = (Sscc96) epc;
+            data.put(TAG_DATA.SERIAL_REFERENCE, sscc.getSerialReferenceString());
+            data.put(TAG_DATA.UNALLOCATED, Integer.toString(sscc.getUnallocated()));
         }
-        return erg;
+        return data;
     }
 
-    private int getChecksum(String sscc) throws ParseException {
-        int realCC = -1;
-        try {
-
-            int checksum = 0;
-            int factor = 3;
-
-            for (int i = sscc.length(); i > 0; --i) {
-                checksum += (Integer.parseInt(String.valueOf(sscc.charAt(i - 1))) * factor);
-                factor = 4 - factor;
-            }
-            realCC = ((1000 - checksum) % 10);
-
-        } catch (Exception e) {
-            Logger.getLogger(EPCTools.class.getName()).log(Level.SEVERE, null, e);
+    private int getChecksum(String digits) throws ParseException {
+        int checkDigit = CheckDigit.compute(digits, 0, digits.length());
+        if (checkDigit < 0) {
             throw new ParseException("sscc checksum error!", 1);
         }
-        return realCC;
+        return checkDigit;
     }
 
+    /**
+     * @return true for GTIN-8, GTIN-12, GTIN-13 and GTIN-14 with a valid
+     * check digit
+     */
     public boolean isValidGTIN(String gtin) {
-        if (gtin == null || gtin.isEmpty()) {
-            return false;
-        }
-        int factor = 3;
-        int checksum = 0;
-        try {
-            int currentCC = Integer.parseInt(String.valueOf(gtin.charAt(gtin.length() - 1)));
-            for (int i = gtin.length() - 1; i > 0; --i) {
-                checksum += (Integer.parseInt(String.valueOf(gtin.charAt(i - 1))) * factor);
-                factor = 4 - factor;
-            }
-            int realCC = ((1000 - checksum) % 10);
-            if (realCC == currentCC) {
-                return true;
-            }
-        } catch (Exception e) {
-            Logger.getLogger(EPCTools.class.getName()).log(Level.SEVERE, null, e);
-            return false;
-        }
-        return false;
+        return CheckDigit.isValidGTIN(gtin);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+
+/**
+ * A decoded 96 bit EPC. Implementations are immutable and only keep the
+ * packed bits (see {@link HexCodec}), all fields are extracted on access.
+ *
+ * @author chpressler
+ */
+public interface Epc96 {
+
+    ENCODING getEncoding();
+
+    /**
+     * @return bits 0..63 of the tag
+     */
+    long getHigh();
+
+    /**
+     * @return bits 64..95 of the tag in the lower 32 bits
+     */
+    long getLow();
+
+    int getFilter();
+
+    int getPartition();
+
+    long getCompanyPrefix();
+
+    /**
+     * @return the company prefix left padded to its partition dependent
+     * number of digits
+     */
+    String getCompanyPrefixString();
+
+    /**
+     * Appends the pure identity URI, e.g.
+     * <code>urn:epc:id:sgtin:0037000.065735.999</code>
+     */
+    void appendPureIdentityURI(StringBuilder sb);
+
+    /**
+     * Appends the tag URI, e.g.
+     * <code>urn:epc:tag:sgtin-96:3.0037000.065735.999</code>
+     */
+    void appendTagURI(StringBuilder sb);
+
+    String toHexString();
+}
@@ -0,0 +1,191 @@
+package com.jensui.projects.epctools;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch conversion of many EPCs on a {@link ForkJoinPool}. The input is
+ * split into index ranges which write into pre-sized result arrays, so the
+ * result order always matches the input order. A failing element does not
+ * abort the batch: its result stays null and the error message is stored at
+ * the same index of the errors array. Result arrays are expected to be
+ * fresh, successful elements do not clear their error slot.
+ *
+ * @author chpressler
+ */
+public final class EpcBatch {
+
+    /**
+     * ranges smaller than this are converted sequentially
+     */
+    static final int THRESHOLD = 1024;
+
+    private EpcBatch() {
+    }
+
+    /**
+     * @param out receives the decoded values, same length as hex
+     * @param errors receives the error message of failed elements, same
+     * length as hex
+     * @return the number of failed elements
+     */
+    public static int decodeAll(String[] hex, Epc96[] out, String[] errors) {
+        return decodeAll(ForkJoinPool.commonPool(), hex, out, errors);
+    }
+
+    public static int decodeAll(ForkJoinPool pool, final String[] hex, final Epc96[] out, final String[] errors) {
+        checkLengths(hex.length, out.length, errors.length);
+        return pool.invoke(new RangeTask(0, hex.length, new Converter() {
+            @Override
+            public void convert(int i) throws Exception {
+                out[i] = EpcDecoder.decode(hex[i]);
+            }
+        }, errors));
+    }
+
+    public static int decodeAll(Collection<String> hex, Epc96[] out, String[] errors) {
+        return decodeAll(hex.toArray(new String[hex.size()]), out, errors);
+    }
+
+    /**
+     * @param epcs 12 bytes per tag, most significant byte first
+     */
+    public static int decodeAll(byte[][] epcs, Epc96[] out, String[] errors) {
+        return decodeAll(ForkJoinPool.commonPool(), epcs, out, errors);
+    }
+
+    public static int decodeAll(ForkJoinPool pool, final byte[][] epcs, final Epc96[] out, final String[] errors) {
+        checkLengths(epcs.length, out.length, errors.length);
+        return pool.invoke(new RangeTask(0, epcs.length, new Converter() {
+            @Override
+            public void convert(int i) throws Exception {
+                out[i] = EpcDecoder.decode(epcs[i], 0);
+            }
+        }, errors));
+    }
+
+    /**
+     * Converts SGTIN-96, SGTIN-198 and SSCC-96 hex strings to pure identity
+     * URIs.
+     */
+    public static int toPureIdentityURIs(String[] hex, String[] out, String[] errors) {
+        return toPureIdentityURIs(ForkJoinPool.commonPool(), hex, out, errors);
+    }
+
+    public static int toPureIdentityURIs(ForkJoinPool pool, final String[] hex, final String[] out, final String[] errors) {
+        checkLengths(hex.length, out.length, errors.length);
+        final EPCTools tools = EPCTools.getInstance();
+        return pool.invoke(new RangeTask(0, hex.length, new Converter() {
+            @Override
+            public void convert(int i) throws Exception {
+                out[i] = tools.createEPCPureIdentityURI(hex[i]);
+            }
+        }, errors));
+    }
+
+    /**
+     * Encodes the SGTIN-96 hex strings for out.length consecutive serials.
+     * The fields are validated once for the whole range.
+     *
+     * @throws Exception if a field or the last serial does not fit
+     */
+    public static void encodeSgtin96Range(int filter, int partition, long companyPrefix, long itemRef, long firstSerial, String[] out) throws Exception {
+        encodeSgtin96Range(ForkJoinPool.commonPool(), filter, partition, companyPrefix, itemRef, firstSerial, out);
+    }
+
+    public static void encodeSgtin96Range(ForkJoinPool pool, int filter, int partition, long companyPrefix, long itemRef, long firstSerial, final String[] out) throws Exception {
+        final EpcRange range = EpcRange.sgtin96(filter, partition, companyPrefix, itemRef, firstSerial, out.length);
+        pool.invoke(new RangeTask(0, out.length, new Converter() {
+            @Override
+            public void convert(int i) {
+                char[] hex = new char[24];
+                EpcEncoder.write96(range.high(i), range.low(i), hex, 0);
+                out[i] = new String(hex);
+            }
+        }, null));
+    }
+
+    /**
+     * Encodes count consecutive SGTIN-96 tags as 12 bytes each into out,
+     * starting at offset.
+     */
+    public static void encodeSgtin96Range(int filter, int partition, long companyPrefix, long itemRef, long firstSerial, int count, byte[] out, int offset) throws Exception {
+        encodeSgtin96Range(ForkJoinPool.commonPool(), filter, partition, companyPrefix, itemRef, firstSerial, count, out, offset);
+    }
+
+    public static void encodeSgtin96Range(ForkJoinPool pool, int filter, int partition, long companyPrefix, long itemRef, long firstSerial, int count, final byte[] out, final int offset) throws Exception {
+        if (offset < 0 || out.length - offset < 12L * count) {
+            throw new Exception("buffer too small for " + count + " EPCs");
+        }
+        final EpcRange range = EpcRange.sgtin96(filter, partition, companyPrefix, itemRef, firstSerial, count);
+        pool.invoke(new RangeTask(0, count, new Converter() {
+            @Override
+            public void convert(int i) {
+                EpcEncoder.write96(range.high(i), range.low(i), out, offset + 12 * i);
+            }
+        }, null));
+    }
+
+    private static void checkLengths(int in, int out, int errors) {
+        if (out != in || errors != in) {
+            throw new IllegalArgumentException("result arrays must have the input length " + in);
+        }
+    }
+
+    /**
+     * Conversion of the element at one index of the batch.
+     */
+    interface Converter {
+
+        void convert(int i) throws Exception;
+    }
+
+    /**
+     * Converts the index range [from, to). Ranges above the threshold are
+     * split in halves, the left half is forked.
+     */
+    static final class RangeTask extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final Converter converter;
+        private final String[] errors;
+
+        /**
+         * @param errors receives the failure messages, or null if a failure
+         * is unexpected and should abort the batch
+         */
+        RangeTask(int from, int to, Converter converter, String[] errors) {
+            this.from = from;
+            this.to = to;
+            this.converter = converter;
+            this.errors = errors;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= THRESHOLD) {
+                int failures = 0;
+                for (int i = from; i < to; i++) {
+                    try {
+                        converter.convert(i);
+                    } catch (Exception e) {
+                        if (errors == null) {
+                            throw new IllegalStateException(e);
+                        }
+                        errors[i] = e.getMessage() != null ? e.getMessage() : e.toString();
+                        failures++;
+                    }
+                }
+                return failures;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, converter, errors);
+            left.fork();
+            return new RangeTask(mid, to, converter, errors).compute() + left.join();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Decodes 96 bit EPCs into {@link Epc96} values without going through
+ * binary strings. The hex string is packed into two longs and every field is
+ * taken out with shifts and masks.
+ *
+ * @author chpressler
+ */
+public final class EpcDecoder {
+
+    private EpcDecoder() {
+    }
+
+    /**
+     * @param epcHex 24 hex characters
+     * @return a {@link Sgtin96}, {@link Sscc96} or {@link SchemeEpc96}
+     * @throws Exception if the hex string is invalid or the header is not a
+     * supported 96 bit scheme (see {@link EpcScheme})
+     */
+    public static Epc96 decode(CharSequence epcHex) throws Exception {
+        checkLength(epcHex);
+        return decode(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex));
+    }
+
+    /**
+     * @param high bits 0..63 of the tag
+     * @param low bits 64..95 of the tag in the lower 32 bits
+     */
+    public static Epc96 decode(long high, long low) throws Exception {
+        EpcScheme scheme = EpcScheme.get(high);
+        if (scheme == null) {
+            throw new Exception("unsupported Header: " + (high >>> 56));
+        }
+        return scheme.decode(high, low & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Decodes the 12 bytes at offset, most significant byte first, e.g. the
+     * EPC memory bank as delivered by the reader. Several tags packed into
+     * one array are read by moving the offset, nothing is copied.
+     */
+    public static Epc96 decode(byte[] epc, int offset) throws Exception {
+        checkLength(epc, offset);
+        return decode(readHigh96(epc, offset), readLow96(epc, offset));
+    }
+
+    /**
+     * Decodes the 12 bytes at the absolute index of the buffer, most
+     * significant byte first. Position, limit and byte order of the buffer
+     * are not modified.
+     */
+    public static Epc96 decode(ByteBuffer epc, int index) throws Exception {
+        checkLength(epc, index);
+        return decode(readHigh96(epc, index), readLow96(epc, index));
+    }
+
+    /**
+     * Decodes a hex string of any supported scheme, 96 bit or alphanumeric,
+     * without throwing and without allocating. Meant for noisy read streams
+     * where foreign and corrupt tags are common.
+     *
+     * @param result reused holder of the tag, its fields are only meaningful
+     * if the status is {@link DecodeStatus#OK}
+     * @return the status, also kept in result
+     */
+    public static DecodeStatus tryDecode(CharSequence epcHex, DecodeResult result) {
+        int length = epcHex.length();
+        if (length < 2) {
+            return result.set(DecodeStatus.BAD_LENGTH, -1, null, null, -1);
+        }
+        int hi = HexCodec.digit(epcHex.charAt(0));
+        int lo = HexCodec.digit(epcHex.charAt(1));
+        if ((hi | lo) < 0) {
+            return result.set(DecodeStatus.NON_HEX, -1, null, null, hi < 0 ? 0 : 1);
+        }
+        if (lookup(hi << 4 | lo, length, result) != DecodeStatus.OK) {
+            return result.status;
+        }
+        return check(HexCodec.tryParseWords(epcHex, 0, length, result.words), result);
+    }
+
+    /**
+     * Like {@link #tryDecode(CharSequence, DecodeResult)} for length ASCII
+     * hex characters at offset, e.g. a line of a reader report.
+     */
+    public static DecodeStatus tryDecodeHex(byte[] ascii, int offset, int length, DecodeResult result) {
+        if (length < 2) {
+            return result.set(DecodeStatus.BAD_LENGTH, -1, null, null, -1);
+        }
+        int hi = HexCodec.digit((char) (ascii[offset] & 0xFF));
+        int lo = HexCodec.digit((char) (ascii[offset + 1] & 0xFF));
+        if ((hi | lo) < 0) {
+            return result.set(DecodeStatus.NON_HEX, -1, null, null, hi < 0 ? 0 : 1);
+        }
+        if (lookup(hi << 4 | lo, length, result) != DecodeStatus.OK) {
+            return result.status;
+        }
+        return check(HexCodec.tryParseWords(ascii, offset, length, result.words), result);
+    }
+
+    /**
+     * Non throwing variant of {@link #decode(byte[], int)} for the 12 bytes
+     * of a 96 bit tag at offset.
+     */
+    public static DecodeStatus tryDecode(byte[] epc, int offset, DecodeResult result) {
+        if (offset < 0 || epc.length - offset < 12) {
+            return result.set(DecodeStatus.BAD_LENGTH, -1, null, null, -1);
+        }
+        return tryDecode(readHigh96(epc, offset), readLow96(epc, offset), result);
+    }
+
+    /**
+     * Non throwing variant of {@link #decode(long, long)}.
+     */
+    public static DecodeStatus tryDecode(long high, long low, DecodeResult result) {
+        long[] words = result.words;
+        words[0] = high;
+        words[1] = low << 32;
+        words[2] = 0;
+        words[3] = 0;
+        int header = (int) (high >>> 56);
+        EpcScheme scheme = EpcScheme.get(header);
+        if (scheme == null) {
+            return result.set(DecodeStatus.UNSUPPORTED_HEADER, header, null, null, -1);
+        }
+        result.set(DecodeStatus.OK, header, scheme, null, -1);
+        return check(-1, result);
+    }
+
+    /**
+     * Finds the scheme of the header and checks the hex length against it.
+     */
+    private static DecodeStatus lookup(int header, int length, DecodeResult result) {
+        EpcScheme scheme = EpcScheme.get(header);
+        if (scheme != null) {
+            return result.set(length == 24 ? DecodeStatus.OK : DecodeStatus.BAD_LENGTH, header, scheme, null, -1);
+        }
+        AlphanumericScheme alphanumeric = AlphanumericScheme.get(header);
+        if (alphanumeric != null) {
+            return result.set(length == alphanumeric.getHexLength() ? DecodeStatus.OK : DecodeStatus.BAD_LENGTH, header, null, alphanumeric, -1);
+        }
+        return result.set(DecodeStatus.UNSUPPORTED_HEADER, header, null, null, -1);
+    }
+
+    /**
+     * @param badIndex the result of parsing the words
+     */
+    private static DecodeStatus check(int badIndex, DecodeResult result) {
+        if (badIndex >= 0) {
+            return result.set(DecodeStatus.NON_HEX, result.header, result.scheme, result.alphanumericScheme, badIndex);
+        }
+        boolean partitioned = result.scheme == null || result.scheme.isPartitioned();
+        if (partitioned && !PartitionTable.isValid(result.getPartition())) {
+            return result.set(DecodeStatus.BAD_PARTITION, result.header, result.scheme, result.alphanumericScheme, -1);
+        }
+        boolean fit = result.scheme != null ? result.scheme.badField(result.words[0], result.getLow()) < 0 : result.alphanumericScheme.fieldsFit(result.words);
+        if (!fit) {
+            return result.set(DecodeStatus.BAD_FIELD, result.header, result.scheme, result.alphanumericScheme, -1);
+        }
+        return DecodeStatus.OK;
+    }
+
+    /**
+     * @return the encoding of the tag starting at offset or null if the
+     * header is not supported
+     */
+    public static ENCODING getEncoding(byte[] epc, int offset) {
+        return HeaderTable.get(epc[offset]);
+    }
+
+    /**
+     * @return the encoding of the tag starting at the absolute index or null
+     * if the header is not supported
+     */
+    public static ENCODING getEncoding(ByteBuffer epc, int index) {
+        return HeaderTable.get(epc.get(index));
+    }
+
+    public static long readHigh96(byte[] epc, int offset) {
+        long high = 0;
+        for (int i = offset, end = offset + 8; i < end; i++) {
+            high = (high << 8) | (epc[i] & 0xFF);
+        }
+        return high;
+    }
+
+    public static long readLow96(byte[] epc, int offset) {
+        return ((epc[offset + 8] & 0xFFL) << 24)
+                | ((epc[offset + 9] & 0xFF) << 16)
+                | ((epc[offset + 10] & 0xFF) << 8)
+                | (epc[offset + 11] & 0xFF);
+    }
+
+    public static long readHigh96(ByteBuffer epc, int index) {
+        long high = epc.getLong(index);
+        return epc.order() == ByteOrder.BIG_ENDIAN ? high : Long.reverseBytes(high);
+    }
+
+    public static long readLow96(ByteBuffer epc, int index) {
+        int low = epc.getInt(index + 8);
+        return (epc.order() == ByteOrder.BIG_ENDIAN ? low : Integer.reverseBytes(low)) & 0xFFFFFFFFL;
+    }
+
+    public static Sgtin96 decodeSgtin96(CharSequence epcHex) throws Exception {
+        Epc96 epc = decode(epcHex);
+        if (!(epc instanceof Sgtin96)) {
+            throw new Exception("not a SGTIN-96: " + epcHex);
+        }
+        return (Sgtin96) epc;
+    }
+
+    public static Sscc96 decodeSscc96(CharSequence epcHex) throws Exception {
+        Epc96 epc = decode(epcHex);
+        if (!(epc instanceof Sscc96)) {
+            throw new Exception("not a SSCC-96: " + epcHex);
+        }
+        return (Sscc96) epc;
+    }
+
+    private static void checkLength(CharSequence epcHex) throws Exception {
+        if (epcHex.length() != 24) {
+            throw new Exception("invalid length for 96 bit EPC: " + epcHex.length());
+        }
+    }
+
+    private static void checkLength(byte[] epc, int offset) throws Exception {
+        if (offset < 0 || epc.length - offset < 12) {
+            throw new Exception("less than 12 bytes available for 96 bit EPC at offset: " + offset);
+        }
+    }
+
+    private static void checkLength(ByteBuffer epc, int index) throws Exception {
+        if (index < 0 || epc.limit() - index < 12) {
+            throw new Exception("less than 12 bytes available for 96 bit EPC at index: " + index);
+        }
+    }
+}
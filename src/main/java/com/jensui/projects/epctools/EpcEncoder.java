@@ -0,0 +1,159 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes 96 bit EPCs from primitive fields straight into caller supplied
+ * buffers. Nothing is allocated unless a range check fails.
+ *
+ * @author chpressler
+ */
+public final class EpcEncoder {
+
+    private EpcEncoder() {
+    }
+
+    /**
+     * @return bits 0..63 of the SGTIN-96
+     * @throws Exception if a field does not fit the partition
+     */
+    public static long sgtin96High(int filter, int partition, long companyPrefix, long itemRef, long serial) throws Exception {
+        checkFilter(filter);
+        checkPartition(partition);
+        int cpBits = PartitionTable.COMPANY_PREFIX_BITS[partition];
+        int irBits = PartitionTable.ITEM_REFERENCE_BITS[partition];
+        if (!fits(companyPrefix, cpBits)) {
+            throw new Exception("comp prefix length for partition: " + partition + " is too big. Max Length: " + cpBits + ".");
+        }
+        if (!fits(itemRef, irBits)) {
+            throw new Exception("item reference length for partition: " + partition + " is too big. Max Length: " + irBits + ".");
+        }
+        if (serial < 0 || serial > Sgtin96.MAX_SERIAL) {
+            throw new Exception("serialnumber (" + serial + ") out of range for SGTIN-96. Maximum Serialnumber value is " + Sgtin96.MAX_SERIAL + ".");
+        }
+        return ((long) Sgtin96.HEADER << 56)
+                | ((long) filter << 53)
+                | ((long) partition << 50)
+                | (((companyPrefix << irBits) | itemRef) << 6)
+                | (serial >>> 32);
+    }
+
+    /**
+     * @return bits 64..95 of the SGTIN-96, i.e. the lower 32 serial bits
+     */
+    public static long sgtin96Low(long serial) {
+        return serial & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @param serialReference the serial reference incl. the leading
+     * extension digit
+     * @return bits 0..63 of the SSCC-96
+     * @throws Exception if a field does not fit the partition
+     */
+    public static long sscc96High(int filter, int partition, long companyPrefix, long serialReference) throws Exception {
+        checkFilter(filter);
+        checkPartition(partition);
+        int cpBits = PartitionTable.COMPANY_PREFIX_BITS[partition];
+        int srBits = PartitionTable.SERIAL_REFERENCE_BITS[partition];
+        if (!fits(companyPrefix, cpBits)) {
+            throw new Exception("comp prefix length for partition: " + partition + " is too big. Max Length: " + cpBits + ".");
+        }
+        if (!fits(serialReference, srBits)) {
+            throw new Exception("serial reference length for partition: " + partition + " is too big. Max Length: " + srBits + ".");
+        }
+        return ((long) Sscc96.HEADER << 56)
+                | ((long) filter << 53)
+                | ((long) partition << 50)
+                | (((companyPrefix << srBits) | serialReference) >>> 8);
+    }
+
+    /**
+     * @return bits 64..95 of the SSCC-96, the last 8 serial reference bits
+     * followed by 24 unallocated zero bits
+     */
+    public static long sscc96Low(long serialReference) {
+        return (serialReference & 0xFF) << 24;
+    }
+
+    public static Sgtin96 sgtin96(int filter, int partition, long companyPrefix, long itemRef, long serial) throws Exception {
+        return new Sgtin96(sgtin96High(filter, partition, companyPrefix, itemRef, serial), sgtin96Low(serial));
+    }
+
+    public static Sscc96 sscc96(int filter, int partition, long companyPrefix, long serialReference) throws Exception {
+        return new Sscc96(sscc96High(filter, partition, companyPrefix, serialReference), sscc96Low(serialReference));
+    }
+
+    /**
+     * Writes the SGTIN-96 as 24 upper case hex characters.
+     */
+    public static void encodeSgtin96(int filter, int partition, long companyPrefix, long itemRef, long serial, char[] dst, int offset) throws Exception {
+        write96(sgtin96High(filter, partition, companyPrefix, itemRef, serial), sgtin96Low(serial), dst, offset);
+    }
+
+    /**
+     * Writes the SGTIN-96 as 12 bytes, most significant byte first.
+     */
+    public static void encodeSgtin96(int filter, int partition, long companyPrefix, long itemRef, long serial, byte[] dst, int offset) throws Exception {
+        write96(sgtin96High(filter, partition, companyPrefix, itemRef, serial), sgtin96Low(serial), dst, offset);
+    }
+
+    /**
+     * Puts the SGTIN-96 as 12 bytes, most significant byte first, at the
+     * current position of the buffer.
+     */
+    public static void encodeSgtin96(int filter, int partition, long companyPrefix, long itemRef, long serial, ByteBuffer dst) throws Exception {
+        write96(sgtin96High(filter, partition, companyPrefix, itemRef, serial), sgtin96Low(serial), dst);
+    }
+
+    public static void encodeSscc96(int filter, int partition, long companyPrefix, long serialReference, char[] dst, int offset) throws Exception {
+        write96(sscc96High(filter, partition, companyPrefix, serialReference), sscc96Low(serialReference), dst, offset);
+    }
+
+    public static void encodeSscc96(int filter, int partition, long companyPrefix, long serialReference, byte[] dst, int offset) throws Exception {
+        write96(sscc96High(filter, partition, companyPrefix, serialReference), sscc96Low(serialReference), dst, offset);
+    }
+
+    public static void encodeSscc96(int filter, int partition, long companyPrefix, long serialReference, ByteBuffer dst) throws Exception {
+        write96(sscc96High(filter, partition, companyPrefix, serialReference), sscc96Low(serialReference), dst);
+    }
+
+    public static void write96(long high, long low, char[] dst, int offset) {
+        HexCodec.writeHex(high, 16, dst, offset);
+        HexCodec.writeHex(low, 8, dst, offset + 16);
+    }
+
+    public static void write96(long high, long low, byte[] dst, int offset) {
+        for (int i = 0; i < 8; i++) {
+            dst[offset + i] = (byte) (high >>> (56 - 8 * i));
+        }
+        for (int i = 0; i < 4; i++) {
+            dst[offset + 8 + i] = (byte) (low >>> (24 - 8 * i));
+        }
+    }
+
+    public static void write96(long high, long low, ByteBuffer dst) {
+        for (int i = 0; i < 8; i++) {
+            dst.put((byte) (high >>> (56 - 8 * i)));
+        }
+        for (int i = 0; i < 4; i++) {
+            dst.put((byte) (low >>> (24 - 8 * i)));
+        }
+    }
+
+    private static boolean fits(long value, int bits) {
+        return value >= 0 && (value >>> bits) == 0;
+    }
+
+    private static void checkFilter(int filter) throws Exception {
+        if (filter < 0 || filter > 7) {
+            throw new Exception("filter value can not be bigger than 8");
+        }
+    }
+
+    private static void checkPartition(int partition) throws Exception {
+        if (!PartitionTable.isValid(partition)) {
+            throw new Exception("invalid partition: " + partition);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.jensui.projects.epctools;
+
+/**
+ * An EPC pattern URI compiled into checks on the packed 96 bits of a tag.
+ * Exact fields become one mask/value comparison per word, ranges are checked
+ * on the extracted field. Supported are
+ *
+ * <pre>
+ * urn:epc:pat:sgtin-96:filter.companyPrefix.itemReference.serial
+ * urn:epc:pat:sscc-96:filter.companyPrefix.serialReference
+ * </pre>
+ *
+ * where every field is a number, <code>*</code> or a range
+ * <code>[low-high]</code>. The company prefix must be given with all digits
+ * (its length selects the partition) or as <code>*</code>, in which case all
+ * following fields have to be <code>*</code> as well.
+ *
+ * @author chpressler
+ */
+public final class EpcPattern {
+
+    private static final String PREFIX = "urn:epc:pat:";
+
+    private final String uri;
+    private final int header;
+    private final int partition;
+    private final long companyPrefix;
+    private final long itemReference;
+    private long maskHigh;
+    private long maskLow;
+    private long valueHigh;
+    private long valueLow;
+    private int ranges;
+    private final int[] rangeOffsets = new int[4];
+    private final int[] rangeWidths = new int[4];
+    private final long[] rangeLows = new long[4];
+    private final long[] rangeHighs = new long[4];
+
+    private EpcPattern(String uri) throws Exception {
+        this.uri = uri;
+        if (!uri.startsWith(PREFIX)) {
+            throw new Exception("not an EPC pattern URI: " + uri);
+        }
+        int colon = uri.indexOf(':', PREFIX.length());
+        if (colon < 0) {
+            throw new Exception("missing scheme in pattern: " + uri);
+        }
+        String scheme = uri.substring(PREFIX.length(), colon);
+        String[] fields = uri.substring(colon + 1).split("\\.", -1);
+        int referenceDigits;
+        int[] referenceBits;
+        switch (scheme) {
+            case "sgtin-96":
+                header = Sgtin96.HEADER;
+                referenceBits = PartitionTable.ITEM_REFERENCE_BITS;
+                referenceDigits = 1;
+                checkFieldCount(fields, 4);
+                break;
+            case "sscc-96":
+                header = Sscc96.HEADER;
+                referenceBits = PartitionTable.SERIAL_REFERENCE_BITS;
+                referenceDigits = 5;
+                checkFieldCount(fields, 3);
+                break;
+            default:
+                throw new Exception("unsupported pattern scheme: " + scheme);
+        }
+        set(0, 8, header);
+        field(fields[0], 8, 3);
+        if ("*".equals(fields[1])) {
+            for (int i = 2; i < fields.length; i++) {
+                if (!"*".equals(fields[i])) {
+                    throw new Exception("fields after a * company prefix must be *: " + uri);
+                }
+            }
+            partition = -1;
+            companyPrefix = -1;
+            itemReference = -1;
+            return;
+        }
+        partition = 12 - digits(fields[1]);
+        if (!PartitionTable.isValid(partition)) {
+            throw new Exception("company prefix must have 6 - 12 digits: " + fields[1]);
+        }
+        set(11, 3, partition);
+        int cpBits = PartitionTable.COMPANY_PREFIX_BITS[partition];
+        int refBits = referenceBits[partition];
+        companyPrefix = Long.parseLong(fields[1]);
+        set(14, cpBits, companyPrefix);
+        String reference = fields[2];
+        if (isNumber(reference) && reference.length() != referenceDigits + partition) {
+            throw new Exception("expected " + (referenceDigits + partition) + " digits for partition " + partition + ": " + reference);
+        }
+        itemReference = header == Sgtin96.HEADER && isNumber(reference) ? Long.parseLong(reference) : -1;
+        field(reference, 14 + cpBits, refBits);
+        if (header == Sgtin96.HEADER) {
+            field(fields[3], 58, 38);
+        }
+    }
+
+    /**
+     * @throws Exception if the URI is not a supported pattern
+     */
+    public static EpcPattern compile(String uri) throws Exception {
+        return new EpcPattern(uri);
+    }
+
+    private static void checkFieldCount(String[] fields, int count) throws Exception {
+        if (fields.length != count) {
+            throw new Exception("expected " + count + " fields in pattern but found " + fields.length);
+        }
+    }
+
+    private static boolean isNumber(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(String s) throws Exception {
+        if (!isNumber(s)) {
+            throw new Exception("not a number: " + s);
+        }
+        return s.length();
+    }
+
+    private void field(String s, int offset, int width) throws Exception {
+        if ("*".equals(s)) {
+            return;
+        }
+        if (s.startsWith("[") && s.endsWith("]")) {
+            int dash = s.indexOf('-');
+            if (dash < 0) {
+                throw new Exception("invalid range: " + s);
+            }
+            long low = Long.parseLong(s.substring(1, dash));
+            long high = Long.parseLong(s.substring(dash + 1, s.length() - 1));
+            if (low > high) {
+                throw new Exception("empty range: " + s);
+            }
+            rangeOffsets[ranges] = offset;
+            rangeWidths[ranges] = width;
+            rangeLows[ranges] = low;
+            rangeHighs[ranges] = high;
+            ranges++;
+            return;
+        }
+        digits(s);
+        set(offset, width, Long.parseLong(s));
+    }
+
+    /**
+     * Adds an exact field to the mask/value pair of both words.
+     */
+    private void set(int offset, int width, long value) throws Exception {
+        if (value >>> width != 0) {
+            throw new Exception("value " + value + " does not fit into " + width + " bits");
+        }
+        int end = offset + width;
+        long mask = width == 64 ? -1L : (1L << width) - 1;
+        if (end <= 64) {
+            maskHigh |= mask << (64 - end);
+            valueHigh |= value << (64 - end);
+        } else if (offset >= 64) {
+            maskLow |= mask << (96 - end);
+            valueLow |= value << (96 - end);
+        } else {
+            int lowBits = end - 64;
+            maskHigh |= mask >>> lowBits;
+            valueHigh |= value >>> lowBits;
+            maskLow |= (mask << (32 - lowBits)) & 0xFFFFFFFFL;
+            valueLow |= (value << (32 - lowBits)) & 0xFFFFFFFFL;
+        }
+    }
+
+    /**
+     * @return width bits starting at bit offset of the 96 bit tag
+     */
+    static long bits(long high, long low, int offset, int width) {
+        int end = offset + width;
+        long mask = (1L << width) - 1;
+        if (end <= 64) {
+            return (high >>> (64 - end)) & mask;
+        } else if (offset >= 64) {
+            return (low >>> (96 - end)) & mask;
+        }
+        int lowBits = end - 64;
+        return ((high << lowBits) | (low >>> (32 - lowBits))) & mask;
+    }
+
+    public boolean matches(long high, long low) {
+        if ((high & maskHigh) != valueHigh || (low & maskLow) != valueLow) {
+            return false;
+        }
+        for (int i = 0; i < ranges; i++) {
+            long value = bits(high, low, rangeOffsets[i], rangeWidths[i]);
+            if (value < rangeLows[i] || value > rangeHighs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param epcHex 24 hex characters
+     */
+    public boolean matches(CharSequence epcHex) {
+        return epcHex.length() == 24 && matches(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex));
+    }
+
+    public boolean matches(byte[] epc, int offset) {
+        return matches(EpcDecoder.readHigh96(epc, offset), EpcDecoder.readLow96(epc, offset));
+    }
+
+    public int getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the partition or -1 if the company prefix is *
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * @return the company prefix or -1 if it is *
+     */
+    public long getCompanyPrefix() {
+        return companyPrefix;
+    }
+
+    /**
+     * @return the exact SGTIN item reference or -1 if it is * or a range
+     */
+    public long getItemReference() {
+        return itemReference;
+    }
+
+    @Override
+    public String toString() {
+        return uri;
+    }
+}
@@ -0,0 +1,209 @@
+package com.jensui.projects.epctools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of {@link EpcPattern}s indexed for matching many patterns per read.
+ * Patterns are grouped by header and partition (one array lookup), then by
+ * company prefix and for SGTIN by item reference (one hash lookup each), so
+ * only the few patterns sharing those fields are evaluated in full.
+ *
+ * @author chpressler
+ */
+public final class EpcPatternSet {
+
+    private final EpcPattern[] patterns;
+
+    /**
+     * per header: patterns with * company prefix
+     */
+    private final EpcPattern[][] anyCompanyPrefix = new EpcPattern[256][];
+
+    /**
+     * per header and partition (header << 3 | partition)
+     */
+    private final Bucket[] buckets = new Bucket[256 * 8];
+
+    public EpcPatternSet(Collection<String> uris) throws Exception {
+        List<EpcPattern> compiled = new ArrayList<>(uris.size());
+        for (String uri : uris) {
+            compiled.add(EpcPattern.compile(uri));
+        }
+        patterns = compiled.toArray(new EpcPattern[compiled.size()]);
+
+        Map<Integer, List<EpcPattern>> anyByHeader = new LinkedHashMap<>();
+        Map<Integer, List<EpcPattern>> byBucket = new LinkedHashMap<>();
+        for (EpcPattern pattern : patterns) {
+            if (pattern.getPartition() < 0) {
+                add(anyByHeader, pattern.getHeader(), pattern);
+            } else {
+                add(byBucket, pattern.getHeader() << 3 | pattern.getPartition(), pattern);
+            }
+        }
+        for (Map.Entry<Integer, List<EpcPattern>> e : anyByHeader.entrySet()) {
+            anyCompanyPrefix[e.getKey()] = toArray(e.getValue());
+        }
+        for (Map.Entry<Integer, List<EpcPattern>> e : byBucket.entrySet()) {
+            buckets[e.getKey()] = new Bucket(e.getValue());
+        }
+    }
+
+    public static EpcPatternSet of(String... uris) throws Exception {
+        List<String> list = new ArrayList<>(uris.length);
+        for (String uri : uris) {
+            list.add(uri);
+        }
+        return new EpcPatternSet(list);
+    }
+
+    /**
+     * @return one of the patterns matching the tag or null
+     */
+    public EpcPattern match(long high, long low) {
+        int header = (int) (high >>> 56);
+        EpcPattern match = first(anyCompanyPrefix[header], high, low);
+        if (match != null) {
+            return match;
+        }
+        int partition = (int) (high >>> 50) & 0x7;
+        Bucket bucket = buckets[header << 3 | partition];
+        return bucket == null ? null : bucket.match(high, low, partition);
+    }
+
+    public boolean matches(long high, long low) {
+        return match(high, low) != null;
+    }
+
+    /**
+     * @param epcHex 24 hex characters
+     */
+    public boolean matches(CharSequence epcHex) {
+        return epcHex.length() == 24 && matches(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex));
+    }
+
+    public boolean matches(byte[] epc, int offset) {
+        return matches(EpcDecoder.readHigh96(epc, offset), EpcDecoder.readLow96(epc, offset));
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    private static EpcPattern first(EpcPattern[] candidates, long high, long low) {
+        if (candidates != null) {
+            for (EpcPattern pattern : candidates) {
+                if (pattern.matches(high, low)) {
+                    return pattern;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static <K> void add(Map<K, List<EpcPattern>> map, K key, EpcPattern pattern) {
+        List<EpcPattern> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<>();
+            map.put(key, list);
+        }
+        list.add(pattern);
+    }
+
+    private static EpcPattern[] toArray(List<EpcPattern> list) {
+        return list.toArray(new EpcPattern[list.size()]);
+    }
+
+    private static long[] keys(Map<Long, ?> map) {
+        long[] keys = new long[map.size()];
+        int i = 0;
+        for (Long key : map.keySet()) {
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Patterns of one header and partition, indexed by company prefix.
+     */
+    private static final class Bucket {
+
+        private final int header;
+        private final LongIndex companyPrefixes;
+        private final Group[] groups;
+
+        Bucket(List<EpcPattern> patterns) {
+            header = patterns.get(0).getHeader();
+            Map<Long, List<EpcPattern>> byCompanyPrefix = new LinkedHashMap<>();
+            for (EpcPattern pattern : patterns) {
+                add(byCompanyPrefix, pattern.getCompanyPrefix(), pattern);
+            }
+            companyPrefixes = new LongIndex(keys(byCompanyPrefix));
+            groups = new Group[byCompanyPrefix.size()];
+            int i = 0;
+            for (List<EpcPattern> group : byCompanyPrefix.values()) {
+                groups[i++] = new Group(group);
+            }
+        }
+
+        EpcPattern match(long high, long low, int partition) {
+            long companyPrefix;
+            long itemReference = -1;
+            if (header == Sgtin96.HEADER) {
+                long field = (high >>> 6) & ((1L << 44) - 1);
+                int irBits = PartitionTable.ITEM_REFERENCE_BITS[partition];
+                companyPrefix = field >>> irBits;
+                itemReference = field & ((1L << irBits) - 1);
+            } else {
+                companyPrefix = EpcPattern.bits(high, low, 14, PartitionTable.COMPANY_PREFIX_BITS[partition]);
+            }
+            int g = companyPrefixes.get(companyPrefix);
+            return g < 0 ? null : groups[g].match(high, low, itemReference);
+        }
+    }
+
+    /**
+     * Patterns sharing one company prefix, indexed by exact item reference.
+     */
+    private static final class Group {
+
+        private final LongIndex itemReferences;
+        private final EpcPattern[][] byItemReference;
+        private final EpcPattern[] others;
+
+        Group(List<EpcPattern> patterns) {
+            Map<Long, List<EpcPattern>> exact = new LinkedHashMap<>();
+            List<EpcPattern> rest = new ArrayList<>();
+            for (EpcPattern pattern : patterns) {
+                if (pattern.getItemReference() >= 0) {
+                    add(exact, pattern.getItemReference(), pattern);
+                } else {
+                    rest.add(pattern);
+                }
+            }
+            itemReferences = new LongIndex(keys(exact));
+            byItemReference = new EpcPattern[exact.size()][];
+            int i = 0;
+            for (List<EpcPattern> list : exact.values()) {
+                byItemReference[i++] = toArray(list);
+            }
+            others = toArray(rest);
+        }
+
+        EpcPattern match(long high, long low, long itemReference) {
+            if (itemReference >= 0) {
+                int i = itemReferences.get(itemReference);
+                if (i >= 0) {
+                    EpcPattern match = first(byItemReference[i], high, low);
+                    if (match != null) {
+                        return match;
+                    }
+                }
+            }
+            return first(others, high, low);
+        }
+    }
+}
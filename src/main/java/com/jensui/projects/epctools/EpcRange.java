@@ -0,0 +1,212 @@
+package com.jensui.projects.epctools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A run of consecutive serials of one SGTIN-96 or SSCC-96. Header, filter,
+ * partition, company prefix and item reference are validated and encoded
+ * once when the range is created, producing an element only merges the
+ * serial (or serial reference) bits into the fixed bits.
+ *
+ * @author chpressler
+ */
+public final class EpcRange implements Iterable<Epc96> {
+
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+        10000000000L, 100000000000L, 1000000000000L
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean sscc;
+    private final long fixedHigh;
+    private final long first;
+    private final long count;
+
+    private EpcRange(boolean sscc, long fixedHigh, long first, long count) {
+        this.sscc = sscc;
+        this.fixedHigh = fixedHigh;
+        this.first = first;
+        this.count = count;
+    }
+
+    /**
+     * @throws Exception if a field or the last serial does not fit
+     */
+    public static EpcRange sgtin96(int filter, int partition, long companyPrefix, long itemRef, long firstSerial, long count) throws Exception {
+        checkCount(count);
+        EpcEncoder.sgtin96High(filter, partition, companyPrefix, itemRef, firstSerial + Math.max(count - 1, 0));
+        long high = EpcEncoder.sgtin96High(filter, partition, companyPrefix, itemRef, firstSerial);
+        return new EpcRange(false, high & ~0x3FL, firstSerial, count);
+    }
+
+    /**
+     * @param firstSerialReference the first serial reference incl. the
+     * leading extension digit
+     * @throws Exception if the first serial reference is negative or a field
+     * or the last serial reference does not fit
+     */
+    public static EpcRange sscc96(int filter, int partition, long companyPrefix, long firstSerialReference, long count) throws Exception {
+        if (firstSerialReference < 0) {
+            throw new Exception("serial reference can not be negative: " + firstSerialReference);
+        }
+        checkCount(count);
+        long last = firstSerialReference + Math.max(count - 1, 0);
+        EpcEncoder.sscc96High(filter, partition, companyPrefix, last);
+        if (last >= POW10[PartitionTable.SERIAL_REFERENCE_DIGITS[partition]]) {
+            throw new Exception("serial reference (" + last + ") has more than " + PartitionTable.SERIAL_REFERENCE_DIGITS[partition] + " digits for partition: " + partition);
+        }
+        return new EpcRange(true, EpcEncoder.sscc96High(filter, partition, companyPrefix, 0), firstSerialReference, count);
+    }
+
+    private static void checkCount(long count) throws Exception {
+        if (count < 0) {
+            throw new Exception("count can not be negative: " + count);
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return the serial (SGTIN) or serial reference (SSCC) of the element
+     */
+    public long serial(long index) {
+        return first + index;
+    }
+
+    /**
+     * @return bits 0..63 of the element
+     */
+    public long high(long index) {
+        long serial = first + index;
+        return fixedHigh | (sscc ? serial >>> 8 : serial >>> 32);
+    }
+
+    /**
+     * @return bits 64..95 of the element
+     */
+    public long low(long index) {
+        long serial = first + index;
+        return sscc ? (serial & 0xFF) << 24 : serial & 0xFFFFFFFFL;
+    }
+
+    public Epc96 get(long index) {
+        checkIndex(index, 1);
+        return sscc ? new Sscc96(high(index), low(index)) : new Sgtin96(high(index), low(index));
+    }
+
+    /**
+     * Writes n elements starting at index as 12 bytes each.
+     */
+    public void encode(long index, int n, byte[] dst, int offset) {
+        checkIndex(index, n);
+        for (int i = 0; i < n; i++) {
+            EpcEncoder.write96(high(index + i), low(index + i), dst, offset + 12 * i);
+        }
+    }
+
+    /**
+     * Puts n elements starting at index as 12 bytes each.
+     */
+    public void encode(long index, int n, ByteBuffer dst) {
+        checkIndex(index, n);
+        for (int i = 0; i < n; i++) {
+            EpcEncoder.write96(high(index + i), low(index + i), dst);
+        }
+    }
+
+    /**
+     * Writes n elements starting at index as 24 hex characters each.
+     */
+    public void encodeHex(long index, int n, char[] dst, int offset) {
+        checkIndex(index, n);
+        for (int i = 0; i < n; i++) {
+            EpcEncoder.write96(high(index + i), low(index + i), dst, offset + 24 * i);
+        }
+    }
+
+    /**
+     * Writes all elements as lines of 24 hex characters. The hex digits of
+     * the high word are only formatted again when it changes.
+     */
+    public void writeHexLines(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] line = new byte[25];
+        line[24] = '\n';
+        long lastHigh = ~high(0);
+        for (long i = 0; i < count; i++) {
+            long high = high(i);
+            if (high != lastHigh) {
+                writeHex(high, 16, line, 0);
+                lastHigh = high;
+            }
+            writeHex(low(i), 8, line, 16);
+            if (buffer.remaining() < line.length) {
+                flush(buffer, channel);
+            }
+            buffer.put(line);
+        }
+        flush(buffer, channel);
+    }
+
+    public void writeHexLines(OutputStream out) throws IOException {
+        writeHexLines(Channels.newChannel(out));
+        out.flush();
+    }
+
+    private static void writeHex(long value, int digits, byte[] dst, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            int d = (int) (value & 0xF);
+            dst[i] = (byte) (d < 10 ? '0' + d : 'A' - 10 + d);
+            value >>>= 4;
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void checkIndex(long index, int n) {
+        if (index < 0 || n < 0 || index + n > count) {
+            throw new IndexOutOfBoundsException("range of " + count + " elements, requested " + n + " at " + index);
+        }
+    }
+
+    @Override
+    public Iterator<Epc96> iterator() {
+        return new Iterator<Epc96>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Epc96 next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,481 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+import com.jensui.projects.epctools.EPCTools.TAG_DATA;
+
+/**
+ * Table description of a 96 bit EPC scheme: the width of filter and
+ * partition and the bit and digit width of every field per partition. The
+ * schemes are bound to their header in a 256 entry table, decoding a tag is
+ * one lookup on the header byte followed by shifts and masks at the offsets
+ * computed here once.
+ *
+ * <pre>
+ * SGTIN-96 0x30  filter 3 | partition 3 | company prefix | item reference | serial 38
+ * SSCC-96  0x31  filter 3 | partition 3 | company prefix | serial reference | unallocated 24
+ * SGLN-96  0x32  filter 3 | partition 3 | company prefix | location reference | extension 41
+ * GRAI-96  0x33  filter 3 | partition 3 | company prefix | asset type | serial 38
+ * GIAI-96  0x34  filter 3 | partition 3 | company prefix | individual asset reference
+ * GID-96   0x35  general manager 28 | object class 24 | serial 36
+ * DoD-96   0x2F  filter 4 | CAGE code 48 | serial 36
+ * </pre>
+ *
+ * SGTIN-96 and SSCC-96 decode into the specialized {@link Sgtin96} and
+ * {@link Sscc96}, all other schemes into {@link SchemeEpc96}.
+ *
+ * @author chpressler
+ */
+public class EpcScheme {
+
+    /**
+     * field digits: decimal number without padding
+     */
+    public static final int NUMBER = -1;
+    /**
+     * field digits: 8 bit ASCII characters, left padded with spaces
+     */
+    public static final int TEXT = -2;
+    /**
+     * field digits: reserved bits, always zero and not part of the URI
+     */
+    public static final int RESERVED = -3;
+
+    private static final EpcScheme[] SCHEMES = new EpcScheme[256];
+
+    public static final EpcScheme SGTIN_96 = new EpcScheme(ENCODING.SGTIN_96, Sgtin96.HEADER, 3, true, "sgtin", "sgtin-96",
+            new TAG_DATA[]{TAG_DATA.COMPANY_PREFIX, TAG_DATA.ITEM_REFERENCE, TAG_DATA.SERIAL_NUMBER},
+            new int[][]{PartitionTable.COMPANY_PREFIX_BITS, PartitionTable.ITEM_REFERENCE_BITS, {38}},
+            new int[][]{PartitionTable.COMPANY_PREFIX_DIGITS, PartitionTable.ITEM_REFERENCE_DIGITS, {NUMBER}}) {
+        @Override
+        Epc96 create(long high, long low) {
+            return new Sgtin96(high, low);
+        }
+    };
+
+    public static final EpcScheme SSCC_96 = new EpcScheme(ENCODING.SSCC, Sscc96.HEADER, 3, true, "sscc", "sscc-96",
+            new TAG_DATA[]{TAG_DATA.COMPANY_PREFIX, TAG_DATA.SERIAL_REFERENCE, TAG_DATA.UNALLOCATED},
+            new int[][]{PartitionTable.COMPANY_PREFIX_BITS, PartitionTable.SERIAL_REFERENCE_BITS, {24}},
+            new int[][]{PartitionTable.COMPANY_PREFIX_DIGITS, PartitionTable.SERIAL_REFERENCE_DIGITS, {RESERVED}}) {
+        @Override
+        Epc96 create(long high, long low) {
+            return new Sscc96(high, low);
+        }
+    };
+
+    public static final EpcScheme SGLN_96 = new EpcScheme(ENCODING.SGLN_96, 0x32, 3, true, "sgln", "sgln-96",
+            new TAG_DATA[]{TAG_DATA.COMPANY_PREFIX, TAG_DATA.LOCATION_REFERENCE, TAG_DATA.EXTENSION},
+            new int[][]{PartitionTable.COMPANY_PREFIX_BITS, {1, 4, 7, 11, 14, 17, 21}, {41}},
+            new int[][]{PartitionTable.COMPANY_PREFIX_DIGITS, {0, 1, 2, 3, 4, 5, 6}, {NUMBER}});
+
+    public static final EpcScheme GRAI_96 = new EpcScheme(ENCODING.GRAI_96, 0x33, 3, true, "grai", "grai-96",
+            new TAG_DATA[]{TAG_DATA.COMPANY_PREFIX, TAG_DATA.ASSET_TYPE, TAG_DATA.SERIAL_NUMBER},
+            new int[][]{PartitionTable.COMPANY_PREFIX_BITS, {4, 7, 10, 14, 17, 20, 24}, {38}},
+            new int[][]{PartitionTable.COMPANY_PREFIX_DIGITS, {0, 1, 2, 3, 4, 5, 6}, {NUMBER}});
+
+    public static final EpcScheme GIAI_96 = new EpcScheme(ENCODING.GIAI_96, 0x34, 3, true, "giai", "giai-96",
+            new TAG_DATA[]{TAG_DATA.COMPANY_PREFIX, TAG_DATA.INDIVIDUAL_ASSET_REFERENCE},
+            new int[][]{PartitionTable.COMPANY_PREFIX_BITS, {42, 45, 48, 52, 55, 58, 62}},
+            new int[][]{PartitionTable.COMPANY_PREFIX_DIGITS, {NUMBER}});
+
+    public static final EpcScheme GID_96 = new EpcScheme(ENCODING.GID_96, 0x35, 0, false, "gid", "gid-96",
+            new TAG_DATA[]{TAG_DATA.GENERAL_MANAGER, TAG_DATA.OBJECT_CLASS, TAG_DATA.SERIAL_NUMBER},
+            new int[][]{{28}, {24}, {36}},
+            new int[][]{{NUMBER}, {NUMBER}, {NUMBER}});
+
+    public static final EpcScheme DOD_96 = new EpcScheme(ENCODING.DOD_96, 0x2F, 4, false, "usdod", "usdod-96",
+            new TAG_DATA[]{TAG_DATA.CAGE_CODE, TAG_DATA.SERIAL_NUMBER},
+            new int[][]{{48}, {36}},
+            new int[][]{{TEXT}, {NUMBER}});
+
+    private final ENCODING encoding;
+    private final int header;
+    private final int filterBits;
+    private final boolean partitioned;
+    private final String idName;
+    private final String tagName;
+    private final TAG_DATA[] keys;
+    /**
+     * [partition][field], a single row for schemes without partition
+     */
+    private final int[][] offsets;
+    private final int[][] widths;
+    private final int[][] digits;
+    /**
+     * [partition][field], 10^digits or Long.MAX_VALUE for fields without
+     * fixed number of digits
+     */
+    private final long[][] limits;
+
+    EpcScheme(ENCODING encoding, int header, int filterBits, boolean partitioned, String idName, String tagName,
+            TAG_DATA[] keys, int[][] bits, int[][] digits) {
+        this.encoding = encoding;
+        this.header = header;
+        this.filterBits = filterBits;
+        this.partitioned = partitioned;
+        this.idName = idName;
+        this.tagName = tagName;
+        this.keys = keys;
+        int partitions = partitioned ? PartitionTable.PARTITIONS : 1;
+        this.offsets = new int[partitions][keys.length];
+        this.widths = new int[partitions][keys.length];
+        this.digits = new int[partitions][keys.length];
+        this.limits = new long[partitions][keys.length];
+        for (int p = 0; p < partitions; p++) {
+            int offset = 8 + filterBits + (partitioned ? 3 : 0);
+            for (int f = 0; f < keys.length; f++) {
+                offsets[p][f] = offset;
+                widths[p][f] = bits[f][bits[f].length == 1 ? 0 : p];
+                this.digits[p][f] = digits[f][digits[f].length == 1 ? 0 : p];
+                limits[p][f] = this.digits[p][f] >= 0 ? Digits.POW10[this.digits[p][f]] : Long.MAX_VALUE;
+                offset += widths[p][f];
+            }
+            if (offset != 96) {
+                throw new IllegalStateException(encoding + " partition " + p + " has " + offset + " bits");
+            }
+        }
+        SCHEMES[header] = this;
+    }
+
+    /**
+     * @return the scheme or null if the header is not a supported 96 bit
+     * scheme
+     */
+    public static EpcScheme get(int header) {
+        return SCHEMES[header & 0xFF];
+    }
+
+    /**
+     * @return the scheme of the header in the top byte of high, or null
+     */
+    public static EpcScheme get(long high) {
+        return SCHEMES[(int) (high >>> 56)];
+    }
+
+    /**
+     * Looks up a scheme by the name used in its pure identity or tag URI,
+     * e.g. <code>grai</code> or <code>grai-96</code>.
+     *
+     * @return the scheme or null
+     */
+    public static EpcScheme forURIName(CharSequence s, int start, int end, boolean tag) {
+        for (EpcScheme scheme : SCHEMES) {
+            if (scheme != null && regionEquals(tag ? scheme.tagName : scheme.idName, s, start, end)) {
+                return scheme;
+            }
+        }
+        return null;
+    }
+
+    private static boolean regionEquals(String name, CharSequence s, int start, int end) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (s.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public ENCODING getEncoding() {
+        return encoding;
+    }
+
+    public int getHeader() {
+        return header;
+    }
+
+    public int getFilterBits() {
+        return filterBits;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public String getIdName() {
+        return idName;
+    }
+
+    public String getTagName() {
+        return tagName;
+    }
+
+    public int getFieldCount() {
+        return keys.length;
+    }
+
+    public TAG_DATA getFieldKey(int field) {
+        return keys[field];
+    }
+
+    /**
+     * @return the bit offset of the field within the 96 bits
+     */
+    public int getFieldOffset(int partition, int field) {
+        return offsets[partition][field];
+    }
+
+    public int getFieldBits(int partition, int field) {
+        return widths[partition][field];
+    }
+
+    /**
+     * @return the number of decimal digits or {@link #NUMBER},
+     * {@link #TEXT}, {@link #RESERVED}
+     */
+    public int getFieldDigits(int partition, int field) {
+        return digits[partition][field];
+    }
+
+    public int getFilter(long high) {
+        return (int) (high >>> (56 - filterBits)) & ((1 << filterBits) - 1);
+    }
+
+    /**
+     * @return the partition value or 0 for schemes without partition
+     */
+    public int getPartition(long high) {
+        return partitioned ? (int) (high >>> (53 - filterBits)) & 0x7 : 0;
+    }
+
+    /**
+     * @param low bits 64..95 of the tag in the lower 32 bits
+     */
+    public long getField(long high, long low, int field) {
+        int partition = getPartition(high);
+        return EpcPattern.bits(high, low, offsets[partition][field], widths[partition][field]);
+    }
+
+    /**
+     * @param low bits 64..95 of the tag, the upper 32 bits must be clear
+     * @throws Exception if the partition value is invalid or a field has
+     * more digits than the partition allows
+     */
+    Epc96 decode(long high, long low) throws Exception {
+        int partition = getPartition(high);
+        if (partitioned && !PartitionTable.isValid(partition)) {
+            throw new Exception("invalid partition: " + partition);
+        }
+        int f = badField(high, low);
+        if (f >= 0) {
+            throw new Exception(keys[f] + " " + getField(high, low, f) + " has more than " + digits[partition][f] + " digits for partition: " + partition);
+        }
+        return create(high, low);
+    }
+
+    /**
+     * @param low bits 64..95 of the tag in the lower 32 bits
+     * @return the first field with more decimal digits than the partition
+     * allows, e.g. a company prefix of 10^7 for partition 5, or -1. The
+     * partition must be valid.
+     */
+    int badField(long high, long low) {
+        int partition = getPartition(high);
+        long[] limit = limits[partition];
+        for (int f = 0; f < limit.length; f++) {
+            if (limit[f] != Long.MAX_VALUE && EpcPattern.bits(high, low, offsets[partition][f], widths[partition][f]) >= limit[f]) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    Epc96 create(long high, long low) {
+        return new SchemeEpc96(this, high, low);
+    }
+
+    /**
+     * Packs the tag from its field values.
+     *
+     * @param partition ignored for schemes without partition
+     * @param values one value per URI field, reserved fields are zero; TEXT
+     * fields hold their ASCII characters, first character in the highest
+     * byte
+     * @throws Exception if a value does not fit its field
+     */
+    public Epc96 encode(int filter, int partition, long... values) throws Exception {
+        if (filter < 0 || filter >= 1 << filterBits) {
+            throw new Exception("invalid filter: " + filter);
+        }
+        if (!partitioned) {
+            partition = 0;
+        } else if (!PartitionTable.isValid(partition)) {
+            throw new Exception("invalid partition: " + partition);
+        }
+        long high = (long) header << 56 | (long) filter << (56 - filterBits);
+        if (partitioned) {
+            high |= (long) partition << (53 - filterBits);
+        }
+        long low = 0;
+        int fields = 0;
+        for (int f = 0; f < keys.length; f++) {
+            if (digits[partition][f] != RESERVED) {
+                fields++;
+            }
+        }
+        if (values.length != fields) {
+            throw new Exception(encoding + " has " + fields + " fields, got " + values.length);
+        }
+        for (int f = 0; f < fields; f++) {
+            long value = values[f];
+            int width = widths[partition][f];
+            if (value < 0 || (width < 63 && value >= 1L << width) || !fitsDigits(value, digits[partition][f])) {
+                throw new Exception(keys[f] + " " + value + " does not fit partition " + partition + " of " + encoding);
+            }
+            int end = offsets[partition][f] + width;
+            if (end <= 64) {
+                high |= value << (64 - end);
+            } else if (offsets[partition][f] >= 64) {
+                low |= value << (96 - end);
+            } else {
+                high |= value >>> (end - 64);
+                low |= (value << (96 - end)) & 0xFFFFFFFFL;
+            }
+        }
+        return create(high, low);
+    }
+
+    private static boolean fitsDigits(long value, int digits) {
+        if (digits < 0) {
+            return true;
+        }
+        long limit = 1;
+        for (int i = 0; i < digits && limit <= value; i++) {
+            limit *= 10;
+        }
+        return value < limit;
+    }
+
+    /**
+     * Parses the '.' separated URI fields of this scheme from pos to the end
+     * of s, starting with the filter if tag is set.
+     */
+    Epc96 parse(CharSequence s, int pos, boolean tag, int filter) throws Exception {
+        if (tag && filterBits > 0) {
+            int end = fieldEnd(s, pos);
+            filter = (int) parseNumber(s, pos, end, 2);
+            pos = end + 1;
+        }
+        int partition = 0;
+        if (partitioned) {
+            int end = fieldEnd(s, pos);
+            partition = 12 - (end - pos);
+            if (!PartitionTable.isValid(partition)) {
+                throw new Exception("company prefix must have 6 - 12 digits: " + s);
+            }
+        }
+        int[] row = digits[partition];
+        int fields = 0;
+        while (fields < row.length && row[fields] != RESERVED) {
+            fields++;
+        }
+        long[] values = new long[fields];
+        for (int f = 0; f < fields; f++) {
+            int end = f == fields - 1 ? s.length() : fieldEnd(s, pos);
+            int d = row[f];
+            if (d == TEXT) {
+                values[f] = parseText(s, pos, end, widths[partition][f] / 8);
+            } else {
+                if (d >= 0 && end - pos != d) {
+                    throw new Exception("expected " + d + " digits for " + keys[f] + ": " + s);
+                }
+                if (d == NUMBER && (end == pos || (s.charAt(pos) == '0' && end - pos > 1))) {
+                    throw new Exception("invalid " + keys[f] + ": " + s);
+                }
+                values[f] = parseNumber(s, pos, end, 19);
+            }
+            pos = end + 1;
+        }
+        return encode(filter, partition, values);
+    }
+
+    private static int fieldEnd(CharSequence s, int pos) throws Exception {
+        for (int i = pos; i < s.length(); i++) {
+            if (s.charAt(i) == '.') {
+                return i;
+            }
+        }
+        throw new Exception("missing field in EPC URI: " + s);
+    }
+
+    private static long parseNumber(CharSequence s, int start, int end, int maxDigits) throws Exception {
+        if (end - start > maxDigits) {
+            throw new Exception("too many digits at " + start + " in EPC URI: " + s);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new Exception("not a digit at " + i + " in EPC URI: " + s);
+            }
+            value = value * 10 + d;
+            if (value < 0) {
+                throw new Exception("number too big at " + start + " in EPC URI: " + s);
+            }
+        }
+        return value;
+    }
+
+    private static long parseText(CharSequence s, int start, int end, int chars) throws Exception {
+        if (end - start > chars) {
+            throw new Exception("expected up to " + chars + " characters at " + start + " in EPC URI: " + s);
+        }
+        long value = 0;
+        for (int i = end - start; i < chars; i++) {
+            value = value << 8 | ' ';
+        }
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c <= ' ' || c > '~') {
+                throw new Exception("invalid character at " + i + " in EPC URI: " + s);
+            }
+            value = value << 8 | c;
+        }
+        return value;
+    }
+
+    /**
+     * Appends the URI form of the field: padded or plain decimal or the text
+     * without its leading spaces.
+     */
+    void appendField(long high, long low, int field, StringBuilder sb) {
+        int partition = getPartition(high);
+        int d = digits[partition][field];
+        long value = EpcPattern.bits(high, low, offsets[partition][field], widths[partition][field]);
+        if (d > 0) {
+            Digits.appendPadded(sb, value, d);
+        } else if (d == NUMBER) {
+            sb.append(value);
+        } else if (d == TEXT) {
+            boolean leading = true;
+            for (int shift = widths[partition][field] - 8; shift >= 0; shift -= 8) {
+                char c = (char) ((value >>> shift) & 0xFF);
+                if (!leading || (c != ' ' && c != 0)) {
+                    sb.append(c);
+                    leading = false;
+                }
+            }
+        }
+    }
+
+    void appendURI(long high, long low, boolean tag, StringBuilder sb) {
+        sb.append(tag ? "urn:epc:tag:" : "urn:epc:id:").append(tag ? tagName : idName).append(':');
+        if (tag && filterBits > 0) {
+            sb.append(getFilter(high)).append('.');
+        }
+        int partition = getPartition(high);
+        for (int f = 0; f < keys.length && digits[partition][f] != RESERVED; f++) {
+            if (f > 0) {
+                sb.append('.');
+            }
+            appendField(high, low, f, sb);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encoding.toString();
+    }
+}
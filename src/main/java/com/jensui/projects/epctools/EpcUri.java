@@ -0,0 +1,320 @@
+package com.jensui.projects.epctools;
+
+import java.io.IOException;
+
+/**
+ * Writes EPC URIs in one pass into a caller supplied buffer and parses pure
+ * identity and tag URIs back into packed EPC bits. Supported are
+ *
+ * <pre>
+ * urn:epc:id:sgtin:companyPrefix.itemReference.serial
+ * urn:epc:tag:sgtin-96:filter.companyPrefix.itemReference.serial
+ * urn:epc:id:sscc:companyPrefix.serialReference
+ * urn:epc:tag:sscc-96:filter.companyPrefix.serialReference
+ * </pre>
+ *
+ * and the URIs of the other {@link EpcScheme}s, e.g.
+ * <code>urn:epc:id:grai:companyPrefix.assetType.serial</code>.
+ *
+ * @author chpressler
+ */
+public final class EpcUri {
+
+    private static final String ID_SGTIN = "urn:epc:id:sgtin:";
+    private static final String TAG_SGTIN_96 = "urn:epc:tag:sgtin-96:";
+    private static final String ID_SSCC = "urn:epc:id:sscc:";
+    private static final String TAG_SSCC_96 = "urn:epc:tag:sscc-96:";
+    private static final String URN_ID = "urn:epc:id:";
+    private static final String URN_TAG = "urn:epc:tag:";
+
+    private EpcUri() {
+    }
+
+    /**
+     * Appends the pure identity URI of a SGTIN-198 or 96 bit EPC hex string.
+     */
+    public static void appendPureIdentityURI(CharSequence epcHex, StringBuilder sb) throws Exception {
+        append(epcHex, sb, false);
+    }
+
+    public static void appendPureIdentityURI(CharSequence epcHex, Appendable out) throws Exception {
+        StringBuilder sb = new StringBuilder(64);
+        append(epcHex, sb, false);
+        out.append(sb);
+    }
+
+    /**
+     * Appends the tag URI of a SGTIN-198 or 96 bit EPC hex string.
+     */
+    public static void appendTagURI(CharSequence epcHex, StringBuilder sb) throws Exception {
+        append(epcHex, sb, true);
+    }
+
+    public static void appendTagURI(CharSequence epcHex, Appendable out) throws Exception {
+        StringBuilder sb = new StringBuilder(64);
+        append(epcHex, sb, true);
+        out.append(sb);
+    }
+
+    public static void appendPureIdentityURI(Epc96 epc, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            epc.appendPureIdentityURI((StringBuilder) out);
+        } else {
+            StringBuilder sb = new StringBuilder(64);
+            epc.appendPureIdentityURI(sb);
+            out.append(sb);
+        }
+    }
+
+    public static void appendTagURI(Epc96 epc, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            epc.appendTagURI((StringBuilder) out);
+        } else {
+            StringBuilder sb = new StringBuilder(64);
+            epc.appendTagURI(sb);
+            out.append(sb);
+        }
+    }
+
+    private static void append(CharSequence epcHex, StringBuilder sb, boolean tag) throws Exception {
+        int header = (int) HexCodec.parseLong(epcHex, 0, 2);
+        if (EpcScheme.get(header) != null) {
+            Epc96 epc = EpcDecoder.decode(epcHex);
+            if (tag) {
+                epc.appendTagURI(sb);
+            } else {
+                epc.appendPureIdentityURI(sb);
+            }
+        } else if (AlphanumericScheme.get(header) != null) {
+            long[] words = new long[AlphanumericScheme.WORDS];
+            AlphanumericScheme scheme = AlphanumericScheme.get(header);
+            scheme.parseHex(epcHex, words);
+            int start = sb.length();
+            scheme.appendURI(words, tag, sb);
+            if (scheme == AlphanumericScheme.SGTIN_198) {
+                // SGTIN URIs are written without the leading zeros of the
+                // serial, zeros are never escaped
+                int serial = start;
+                for (int dots = tag ? 3 : 2; dots > 0; serial++) {
+                    if (sb.charAt(serial) == '.') {
+                        dots--;
+                    }
+                }
+                sb.delete(serial, serial + leadingZeros(scheme.getText(words)));
+            }
+        } else {
+            throw new Exception("unsupported Header: " + header);
+        }
+    }
+
+    /**
+     * Appends a zero padded serial without its leading zeros.
+     */
+    static void appendSerial(String sn, StringBuilder sb) {
+        sb.append(sn, leadingZeros(sn), sn.length());
+    }
+
+    /**
+     * @return the number of leading zeros to drop from a serial. Numeric
+     * serials keep one zero, serials too long for a long and serials with
+     * other characters than letters and digits are kept as they are.
+     */
+    static int leadingZeros(String sn) {
+        boolean letters = false;
+        boolean digits = !sn.isEmpty();
+        for (int i = 0; i < sn.length(); i++) {
+            char c = sn.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                letters = true;
+            } else if (c < '0' || c > '9') {
+                digits = false;
+            }
+        }
+        int start = 0;
+        while (start < sn.length() && sn.charAt(start) == '0') {
+            start++;
+        }
+        if (letters) {
+            return start;
+        } else if (!digits || !fitsLong(sn, start)) {
+            return 0;
+        } else if (start == sn.length()) {
+            return start - 1;
+        }
+        return start;
+    }
+
+    private static boolean fitsLong(String digits, int start) {
+        int length = digits.length() - start;
+        return length < 19 || (length == 19 && digits.substring(start).compareTo("9223372036854775807") <= 0);
+    }
+
+    /**
+     * Parses a SGTIN or SSCC URI into a 96 bit EPC.
+     *
+     * @param filter the filter value for pure identity URIs, ignored for tag
+     * URIs which carry their own
+     * @throws Exception if the URI is invalid or the SGTIN serial is not
+     * encodable in SGTIN-96 (numeric without leading zeros)
+     */
+    public static Epc96 parse(CharSequence uri, int filter) throws Exception {
+        return (Epc96) parse(uri, filter, null, null, 0);
+    }
+
+    /**
+     * Parses the URI and writes the EPC as 24 hex characters.
+     */
+    public static void parse(CharSequence uri, int filter, char[] dst, int offset) throws Exception {
+        parse(uri, filter, dst, null, offset);
+    }
+
+    /**
+     * Parses the URI and writes the EPC as 12 bytes, most significant first.
+     */
+    public static void parse(CharSequence uri, int filter, byte[] dst, int offset) throws Exception {
+        parse(uri, filter, null, dst, offset);
+    }
+
+    public static String toHex(CharSequence uri, int filter) throws Exception {
+        char[] hex = new char[24];
+        parse(uri, filter, hex, null, 0);
+        return new String(hex);
+    }
+
+    /**
+     * Single pass over the URI. Writes into chars or bytes if given,
+     * otherwise returns the value.
+     */
+    private static Object parse(CharSequence uri, int filter, char[] chars, byte[] bytes, int offset) throws Exception {
+        boolean sgtin;
+        boolean tag;
+        int pos;
+        if (startsWith(uri, ID_SGTIN)) {
+            sgtin = true;
+            tag = false;
+            pos = ID_SGTIN.length();
+        } else if (startsWith(uri, TAG_SGTIN_96)) {
+            sgtin = true;
+            tag = true;
+            pos = TAG_SGTIN_96.length();
+        } else if (startsWith(uri, ID_SSCC)) {
+            sgtin = false;
+            tag = false;
+            pos = ID_SSCC.length();
+        } else if (startsWith(uri, TAG_SSCC_96)) {
+            sgtin = false;
+            tag = true;
+            pos = TAG_SSCC_96.length();
+        } else {
+            return parseScheme(uri, filter, chars, bytes, offset);
+        }
+        if (tag) {
+            int end = fieldEnd(uri, pos);
+            filter = (int) number(uri, pos, end);
+            pos = end + 1;
+        }
+        int end = fieldEnd(uri, pos);
+        int partition = 12 - (end - pos);
+        if (!PartitionTable.isValid(partition)) {
+            throw new Exception("company prefix must have 6 - 12 digits: " + uri);
+        }
+        long companyPrefix = number(uri, pos, end);
+        pos = end + 1;
+        if (sgtin) {
+            end = fieldEnd(uri, pos);
+            if (end - pos != PartitionTable.ITEM_REFERENCE_DIGITS[partition]) {
+                throw new Exception("expected " + PartitionTable.ITEM_REFERENCE_DIGITS[partition] + " item reference digits: " + uri);
+            }
+            long itemRef = number(uri, pos, end);
+            pos = end + 1;
+            if (pos >= uri.length() || (uri.charAt(pos) == '0' && pos + 1 < uri.length())) {
+                throw new Exception("serial not encodable in SGTIN-96: " + uri);
+            }
+            long serial = number(uri, pos, uri.length());
+            if (chars != null) {
+                EpcEncoder.encodeSgtin96(filter, partition, companyPrefix, itemRef, serial, chars, offset);
+            } else if (bytes != null) {
+                EpcEncoder.encodeSgtin96(filter, partition, companyPrefix, itemRef, serial, bytes, offset);
+            } else {
+                return EpcEncoder.sgtin96(filter, partition, companyPrefix, itemRef, serial);
+            }
+        } else {
+            if (uri.length() - pos > PartitionTable.SERIAL_REFERENCE_DIGITS[partition]) {
+                throw new Exception("expected up to " + PartitionTable.SERIAL_REFERENCE_DIGITS[partition] + " serial reference digits: " + uri);
+            }
+            long serialRef = number(uri, pos, uri.length());
+            if (chars != null) {
+                EpcEncoder.encodeSscc96(filter, partition, companyPrefix, serialRef, chars, offset);
+            } else if (bytes != null) {
+                EpcEncoder.encodeSscc96(filter, partition, companyPrefix, serialRef, bytes, offset);
+            } else {
+                return EpcEncoder.sscc96(filter, partition, companyPrefix, serialRef);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the URI of any other {@link EpcScheme} through its field table.
+     */
+    private static Object parseScheme(CharSequence uri, int filter, char[] chars, byte[] bytes, int offset) throws Exception {
+        boolean tag = startsWith(uri, URN_TAG);
+        if (!tag && !startsWith(uri, URN_ID)) {
+            throw new Exception("unsupported EPC URI: " + uri);
+        }
+        int pos = tag ? URN_TAG.length() : URN_ID.length();
+        int end = pos;
+        while (end < uri.length() && uri.charAt(end) != ':') {
+            end++;
+        }
+        EpcScheme scheme = end < uri.length() ? EpcScheme.forURIName(uri, pos, end, tag) : null;
+        if (scheme == null) {
+            throw new Exception("unsupported EPC URI: " + uri);
+        }
+        Epc96 epc = scheme.parse(uri, end + 1, tag, filter);
+        if (chars != null) {
+            EpcEncoder.write96(epc.getHigh(), epc.getLow(), chars, offset);
+        } else if (bytes != null) {
+            EpcEncoder.write96(epc.getHigh(), epc.getLow(), bytes, offset);
+        } else {
+            return epc;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(CharSequence s, String prefix) {
+        if (s.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int fieldEnd(CharSequence uri, int pos) throws Exception {
+        for (int i = pos; i < uri.length(); i++) {
+            if (uri.charAt(i) == '.') {
+                return i;
+            }
+        }
+        throw new Exception("missing field in EPC URI: " + uri);
+    }
+
+    private static long number(CharSequence uri, int start, int end) throws Exception {
+        if (end <= start || end - start > 18) {
+            throw new Exception("expected 1 - 18 digits at " + start + " in EPC URI: " + uri);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int d = uri.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new Exception("not a digit at " + i + " in EPC URI: " + uri);
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
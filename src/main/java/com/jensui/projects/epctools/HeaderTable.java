@@ -0,0 +1,47 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+
+/**
+ * The header determines the EPC tag standard. The encodings are bound to
+ * their header value in a 256 entry table which is built once and never
+ * modified afterwards.
+ *
+ * @author chpressler
+ */
+final class HeaderTable {
+
+    private static final ENCODING[] ENCODINGS = new ENCODING[256];
+
+    static {
+        ENCODINGS[0x36] = ENCODING.SGTIN_198;
+        ENCODINGS[0x30] = ENCODING.SGTIN_96;
+        ENCODINGS[0x31] = ENCODING.SSCC;
+        ENCODINGS[0x32] = ENCODING.SGLN_96;
+        ENCODINGS[0x33] = ENCODING.GRAI_96;
+        ENCODINGS[0x34] = ENCODING.GIAI_96;
+        ENCODINGS[0x35] = ENCODING.GID_96;
+        ENCODINGS[0x2F] = ENCODING.DOD_96;
+        ENCODINGS[0x37] = ENCODING.GRAI_170;
+        ENCODINGS[0x38] = ENCODING.GIAI_202;
+        ENCODINGS[0x39] = ENCODING.SGLN_195;
+    }
+
+    private HeaderTable() {
+    }
+
+    /**
+     * @param header the 8 bit header value
+     * @return the encoding or null if the header is not supported
+     */
+    static ENCODING get(int header) {
+        return ENCODINGS[header & 0xFF];
+    }
+
+    /**
+     * @return the encoding of the header in the first two hex characters
+     */
+    static ENCODING get(CharSequence epcHex) {
+        return get((int) HexCodec.parseLong(epcHex, 0, 2));
+    }
+}
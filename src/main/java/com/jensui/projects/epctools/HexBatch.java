@@ -0,0 +1,212 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+
+/**
+ * Batch conversion between hex EPCs and packed words with the format check
+ * fused into the same pass: a bad length or character only sets the bit of
+ * the tag in the invalid set, its words are zero.
+ *
+ * String input goes through the {@link HexCodec} lookup table. ASCII input
+ * (reader reports, mapped files) is handled 8 characters per long with SWAR
+ * (SIMD within a register): all 8 bytes are range checked and turned into
+ * nibbles with a few adds and masks, then the nibbles are packed into 32
+ * bits. Formatting runs the same steps backwards.
+ *
+ * @author chpressler
+ */
+public final class HexBatch {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long LOW_NIBBLES = 0x0F0F0F0F0F0F0F0FL;
+
+    private HexBatch() {
+    }
+
+    /**
+     * @return the bytes of x within [lo, hi] as 0x80 flags, valid for bytes
+     * below 0x80
+     */
+    private static long inRange(long x, int lo, int hi) {
+        return (x + (0x80 - lo) * ONES) & ~(x + (0x7F - hi) * ONES) & HIGHS;
+    }
+
+    /**
+     * @param ascii 8 hex characters, the first one in the highest byte
+     * @return the 32 bit value or -1 if a byte is not a hex digit
+     */
+    public static long parse8(long ascii) {
+        long hex = inRange(ascii, '0', '9') | inRange(ascii, 'A', 'F') | inRange(ascii, 'a', 'f');
+        if ((ascii & HIGHS) != 0 || hex != HIGHS) {
+            return -1;
+        }
+        // letters have bit 6 set and need 9 added to their low nibble
+        long letters = (ascii >>> 6) & ONES;
+        long v = (ascii & LOW_NIBBLES) + letters * 9;
+        v = (v | (v >>> 4)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v >>> 8)) & 0x0000FFFF0000FFFFL;
+        return (v | (v >>> 16)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return the 8 ASCII hex characters at the absolute index as 32 bit
+     * value or -1 if one is not a hex digit
+     */
+    public static long parse8(ByteBuffer ascii, int index) {
+        long w = ascii.getLong(index);
+        return parse8(ascii.order() == ByteOrder.BIG_ENDIAN ? w : Long.reverseBytes(w));
+    }
+
+    /**
+     * @return 8 upper case ASCII hex characters of the lower 32 bits of value,
+     * the first one in the highest byte
+     */
+    public static long format8(long value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & LOW_NIBBLES;
+        long letters = ((v + 0x76 * ONES) & HIGHS) >>> 7;
+        return v + '0' * ONES + letters * 7;
+    }
+
+    /**
+     * Parses count 96 bit tags of 24 ASCII hex characters, one every stride
+     * bytes starting at the absolute index. Buffer position and limit are not
+     * modified.
+     *
+     * @param invalid receives the indexes of the tags with a non hex
+     * character, may be null
+     * @return the number of invalid tags
+     */
+    public static int parse96(ByteBuffer ascii, int index, int stride, int count, long[] highs, long[] lows, BitSet invalid) {
+        int errors = 0;
+        for (int i = 0, p = index; i < count; i++, p += stride) {
+            long a = parse8(ascii, p);
+            long b = parse8(ascii, p + 8);
+            long c = parse8(ascii, p + 16);
+            if ((a | b | c) < 0) {
+                highs[i] = 0;
+                lows[i] = 0;
+                errors++;
+                if (invalid != null) {
+                    invalid.set(i);
+                }
+            } else {
+                highs[i] = a << 32 | b;
+                lows[i] = c;
+            }
+        }
+        return errors;
+    }
+
+    public static int parse96(byte[] ascii, int offset, int stride, int count, long[] highs, long[] lows, BitSet invalid) {
+        return parse96(ByteBuffer.wrap(ascii), offset, stride, count, highs, lows, invalid);
+    }
+
+    /**
+     * Parses 96 bit tags of 24 hex characters into highs and lows, same
+     * length as hex.
+     *
+     * @param invalid receives the indexes of the tags with a bad length or
+     * character, may be null
+     * @return the number of invalid tags
+     */
+    public static int parse96(CharSequence[] hex, long[] highs, long[] lows, BitSet invalid) {
+        int errors = 0;
+        for (int i = 0; i < hex.length; i++) {
+            CharSequence s = hex[i];
+            long high = 0;
+            long low = 0;
+            int bad = s == null || s.length() != 24 ? -1 : 0;
+            if (bad == 0) {
+                for (int j = 0; j < 16; j++) {
+                    int d = HexCodec.digit(s.charAt(j));
+                    bad |= d;
+                    high = (high << 4) | (d & 0xF);
+                }
+                for (int j = 16; j < 24; j++) {
+                    int d = HexCodec.digit(s.charAt(j));
+                    bad |= d;
+                    low = (low << 4) | (d & 0xF);
+                }
+            }
+            if (bad < 0) {
+                high = 0;
+                low = 0;
+                errors++;
+                if (invalid != null) {
+                    invalid.set(i);
+                }
+            }
+            highs[i] = high;
+            lows[i] = low;
+        }
+        return errors;
+    }
+
+    /**
+     * Parses tags of digits hex characters each (e.g. 50 for SGTIN-198) into
+     * {@link AlphanumericScheme#WORDS} words per tag, tag i starts at
+     * words[i * WORDS].
+     *
+     * @param digits 1 - 64
+     * @return the number of invalid tags
+     */
+    public static int parseWords(CharSequence[] hex, int digits, long[] words, BitSet invalid) {
+        if (digits < 1 || digits > AlphanumericScheme.WORDS * 16) {
+            throw new IllegalArgumentException("invalid number of hex digits: " + digits);
+        }
+        long[] tag = new long[AlphanumericScheme.WORDS];
+        int errors = 0;
+        for (int i = 0; i < hex.length; i++) {
+            CharSequence s = hex[i];
+            boolean valid = s != null && s.length() == digits && HexCodec.tryParseWords(s, 0, digits, tag) < 0;
+            for (int w = 0; w < tag.length; w++) {
+                words[i * tag.length + w] = valid ? tag[w] : 0;
+            }
+            if (!valid) {
+                errors++;
+                if (invalid != null) {
+                    invalid.set(i);
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Writes count 96 bit tags as 24 upper case ASCII hex characters, one
+     * every stride bytes starting at the absolute index.
+     */
+    public static void format96(long[] highs, long[] lows, int count, ByteBuffer out, int index, int stride) {
+        boolean bigEndian = out.order() == ByteOrder.BIG_ENDIAN;
+        for (int i = 0, p = index; i < count; i++, p += stride) {
+            long a = format8(highs[i] >>> 32);
+            long b = format8(highs[i]);
+            long c = format8(lows[i]);
+            out.putLong(p, bigEndian ? a : Long.reverseBytes(a));
+            out.putLong(p + 8, bigEndian ? b : Long.reverseBytes(b));
+            out.putLong(p + 16, bigEndian ? c : Long.reverseBytes(c));
+        }
+    }
+
+    public static void format96(long[] highs, long[] lows, int count, byte[] out, int offset, int stride) {
+        format96(highs, lows, count, ByteBuffer.wrap(out), offset, stride);
+    }
+
+    /**
+     * @param out receives the hex strings, same length as highs
+     */
+    public static void format96(long[] highs, long[] lows, String[] out) {
+        char[] c = new char[24];
+        for (int i = 0; i < out.length; i++) {
+            HexCodec.writeHex(highs[i], 16, c, 0);
+            HexCodec.writeHex(lows[i], 8, c, 16);
+            out[i] = new String(c);
+        }
+    }
+}
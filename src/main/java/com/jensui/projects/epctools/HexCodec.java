@@ -0,0 +1,212 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Table driven conversion between hex characters and packed bits.
+ *
+ * 96 bit EPCs are held in two longs throughout the library: <code>high</code>
+ * carries bits 0..63 of the tag (the header is in the top byte) and
+ * <code>low</code> carries bits 64..95 in its lower 32 bits.
+ *
+ * @author chpressler
+ */
+public final class HexCodec {
+
+    private static final byte[] DIGITS = new byte[128];
+    private static final char[] UPPER = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'};
+
+    static {
+        for (int i = 0; i < DIGITS.length; i++) {
+            DIGITS[i] = -1;
+        }
+        for (int i = 0; i < 10; i++) {
+            DIGITS['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DIGITS['A' + i] = (byte) (10 + i);
+            DIGITS['a' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {
+    }
+
+    /**
+     * @return the value of the hex digit or -1 if c is not a hex digit
+     */
+    public static int digit(char c) {
+        return c < 128 ? DIGITS[c] : -1;
+    }
+
+    /**
+     * Parses up to 16 hex characters into a long. 16 characters fill all 64
+     * bits, so the result may be negative.
+     *
+     * @throws NumberFormatException if a character is not a hex digit
+     */
+    public static long parseLong(CharSequence s, int offset, int length) {
+        long value = 0;
+        int bad = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int d = digit(s.charAt(i));
+            bad |= d;
+            value = (value << 4) | (d & 0xF);
+        }
+        if (bad < 0) {
+            throw new NumberFormatException("invalid hex string: " + s);
+        }
+        return value;
+    }
+
+    /**
+     * Parses up to 16 ASCII hex characters at the absolute index of the
+     * buffer. The position of the buffer is not modified.
+     *
+     * @throws NumberFormatException if a byte is not a hex digit
+     */
+    public static long parseLong(ByteBuffer s, int index, int length) {
+        long value = 0;
+        int bad = 0;
+        for (int i = index, end = index + length; i < end; i++) {
+            int d = digit((char) (s.get(i) & 0xFF));
+            bad |= d;
+            value = (value << 4) | (d & 0xF);
+        }
+        if (bad < 0) {
+            throw new NumberFormatException("invalid hex characters at index: " + index);
+        }
+        return value;
+    }
+
+    /**
+     * @return the first 64 bits of a 96 bit EPC given as 24 hex characters
+     */
+    public static long parseHigh96(CharSequence hex) {
+        return parseLong(hex, 0, 16);
+    }
+
+    /**
+     * @return the last 32 bits of a 96 bit EPC given as 24 hex characters
+     */
+    public static long parseLow96(CharSequence hex) {
+        return parseLong(hex, 16, 8);
+    }
+
+    /**
+     * Writes the lowest <code>digits * 4</code> bits of value as upper case
+     * hex characters.
+     */
+    public static void writeHex(long value, int digits, char[] dst, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            dst[i] = UPPER[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * Appends the lowest <code>digits * 4</code> bits of value as upper case
+     * hex characters.
+     */
+    public static void appendHex(StringBuilder sb, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(UPPER[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Parses the hex characters into words, most significant bit first, e.g.
+     * the 50 characters of a SGTIN-198 into 4 longs. Bits after the last
+     * character are zero, so a tag whose length is not a multiple of 4 bits
+     * comes out with its padding cleared.
+     *
+     * @throws NumberFormatException if a character is not a hex digit or
+     * the words are too short
+     */
+    public static void parseWords(CharSequence s, long[] words) {
+        int length = s.length();
+        if (length > words.length * 16) {
+            throw new NumberFormatException("hex string too long: " + s);
+        }
+        if (tryParseWords(s, 0, length, words) >= 0) {
+            throw new NumberFormatException("invalid hex string: " + s);
+        }
+    }
+
+    /**
+     * Like {@link #parseWords(CharSequence, long[])} for length characters
+     * at offset, without throwing. The words must hold length * 4 bits.
+     *
+     * @return -1 or the index of the first character which is not a hex
+     * digit, relative to offset
+     */
+    public static int tryParseWords(CharSequence s, int offset, int length, long[] words) {
+        int bad = 0;
+        for (int i = 0; i < words.length; i++) {
+            int start = i * 16;
+            int n = Math.min(16, length - start);
+            long value = 0;
+            for (int j = offset + start, end = j + n; j < end; j++) {
+                int d = digit(s.charAt(j));
+                bad |= d;
+                value = (value << 4) | (d & 0xF);
+            }
+            words[i] = n <= 0 ? 0 : n == 16 ? value : value << (64 - n * 4);
+        }
+        if (bad >= 0) {
+            return -1;
+        }
+        int i = 0;
+        while (digit(s.charAt(offset + i)) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Like {@link #tryParseWords(CharSequence, int, int, long[])} for ASCII
+     * hex characters.
+     */
+    public static int tryParseWords(byte[] ascii, int offset, int length, long[] words) {
+        int bad = 0;
+        for (int i = 0; i < words.length; i++) {
+            int start = i * 16;
+            int n = Math.min(16, length - start);
+            long value = 0;
+            for (int j = offset + start, end = j + n; j < end; j++) {
+                int d = digit((char) (ascii[j] & 0xFF));
+                bad |= d;
+                value = (value << 4) | (d & 0xF);
+            }
+            words[i] = n <= 0 ? 0 : n == 16 ? value : value << (64 - n * 4);
+        }
+        if (bad >= 0) {
+            return -1;
+        }
+        int i = 0;
+        while (digit((char) (ascii[offset + i] & 0xFF)) >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Appends the first <code>digits * 4</code> bits of the words as upper
+     * case hex characters.
+     */
+    public static void appendHex(StringBuilder sb, long[] words, int digits) {
+        for (int i = 0; i < digits; i++) {
+            sb.append(UPPER[(int) (words[i >>> 4] >>> (60 - ((i & 15) << 2))) & 0xF]);
+        }
+    }
+
+    /**
+     * @return the 96 bit EPC as 24 upper case hex characters
+     */
+    public static String toHex96(long high, long low) {
+        char[] c = new char[24];
+        writeHex(high, 16, c, 0);
+        writeHex(low, 8, c, 16);
+        return new String(c);
+    }
+}
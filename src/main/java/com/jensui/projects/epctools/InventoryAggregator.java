@@ -0,0 +1,189 @@
+package com.jensui.projects.epctools;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolls decoded reads up into counts per GTIN, per SSCC and per company
+ * prefix while many reader threads add concurrently. Counts are keyed by the
+ * packed partition and field bits of the tag, GTIN, SSCC and company prefix
+ * strings (incl. check digits) are only built when a snapshot is taken.
+ *
+ * @author chpressler
+ */
+public class InventoryAggregator {
+
+    private static final long MASK_44 = (1L << 44) - 1;
+    private static final long MASK_58 = (1L << 58) - 1;
+
+    private final LongCounterMap gtins;
+    private final LongCounterMap ssccs;
+    private final LongCounterMap companyPrefixes;
+    private final LongAdder rejected = new LongAdder();
+
+    public InventoryAggregator() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param concurrency number of lock stripes for new keys
+     */
+    public InventoryAggregator(int concurrency) {
+        gtins = new LongCounterMap(concurrency);
+        ssccs = new LongCounterMap(concurrency);
+        companyPrefixes = new LongCounterMap(concurrency);
+    }
+
+    /**
+     * @return false if the tag is no SGTIN-96 or SSCC-96 with a valid
+     * partition and fields, it is then only counted as rejected
+     */
+    public boolean add(long high, long low, long count) {
+        int header = (int) (high >>> 56);
+        long partition = (high >>> 50) & 0x7;
+        if (!PartitionTable.isValid((int) partition)) {
+            rejected.add(count);
+            return false;
+        }
+        if (header == Sgtin96.HEADER && EpcScheme.SGTIN_96.badField(high, low) < 0) {
+            long prefixAndReference = (high >>> 6) & MASK_44;
+            gtins.add(partition << 44 | prefixAndReference, count);
+            companyPrefixes.add(partition << 40 | prefixAndReference >>> PartitionTable.ITEM_REFERENCE_BITS[(int) partition], count);
+            return true;
+        } else if (header == Sscc96.HEADER && EpcScheme.SSCC_96.badField(high, low) < 0) {
+            long prefixAndReference = ((high << 8) | ((low >>> 24) & 0xFF)) & MASK_58;
+            ssccs.add(partition << 58 | prefixAndReference, count);
+            companyPrefixes.add(partition << 40 | prefixAndReference >>> PartitionTable.SERIAL_REFERENCE_BITS[(int) partition], count);
+            return true;
+        }
+        rejected.add(count);
+        return false;
+    }
+
+    public boolean add(long high, long low) {
+        return add(high, low, 1);
+    }
+
+    public boolean add(Epc96 epc) {
+        return add(epc.getHigh(), epc.getLow(), 1);
+    }
+
+    /**
+     * @param epcHex 24 hex characters
+     */
+    public boolean add(CharSequence epcHex) {
+        if (epcHex.length() != 24) {
+            rejected.increment();
+            return false;
+        }
+        return add(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex), 1);
+    }
+
+    public boolean add(byte[] epc, int offset) {
+        return add(EpcDecoder.readHigh96(epc, offset), EpcDecoder.readLow96(epc, offset), 1);
+    }
+
+    /**
+     * Reads the current counts. Counts added concurrently may or may not be
+     * included.
+     */
+    public Snapshot snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Reads the current counts and zeroes them, for periodic reporting.
+     * Every read is reported by exactly one snapshot, a read added while
+     * the snapshot is taken is counted either in this or in the next one.
+     */
+    public Snapshot snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    private Snapshot snapshot(boolean reset) {
+        final Map<String, Long> gtinCounts = new TreeMap<>();
+        final Map<String, Long> ssccCounts = new TreeMap<>();
+        final Map<String, Long> prefixCounts = new TreeMap<>();
+        gtins.forEach(new LongCounterMap.Visitor() {
+            @Override
+            public void visit(long key, long count) {
+                long high = (long) Sgtin96.HEADER << 56 | (key >>> 44) << 50 | (key & MASK_44) << 6;
+                add(gtinCounts, new Sgtin96(high, 0).getGTIN(), count);
+            }
+        }, reset);
+        ssccs.forEach(new LongCounterMap.Visitor() {
+            @Override
+            public void visit(long key, long count) {
+                long prefixAndReference = key & MASK_58;
+                long high = (long) Sscc96.HEADER << 56 | (key >>> 58) << 50 | prefixAndReference >>> 8;
+                add(ssccCounts, new Sscc96(high, (prefixAndReference & 0xFF) << 24).getSSCC(), count);
+            }
+        }, reset);
+        companyPrefixes.forEach(new LongCounterMap.Visitor() {
+            @Override
+            public void visit(long key, long count) {
+                int partition = (int) (key >>> 40);
+                prefixCounts.put(Digits.padded(key & ((1L << 40) - 1), PartitionTable.COMPANY_PREFIX_DIGITS[partition]), count);
+            }
+        }, reset);
+        long rejectedCount = reset ? LongCounterMap.drain(rejected) : rejected.sum();
+        return new Snapshot(gtinCounts, ssccCounts, prefixCounts, rejectedCount);
+    }
+
+    /**
+     * The same GTIN or SSCC can be encoded with different partitions, their
+     * counters are added up under the one key.
+     */
+    private static void add(Map<String, Long> counts, String key, long count) {
+        Long previous = counts.get(key);
+        counts.put(key, previous == null ? count : previous + count);
+    }
+
+    /**
+     * Counts at the time of a snapshot, sorted by key.
+     */
+    public static final class Snapshot {
+
+        private final Map<String, Long> gtinCounts;
+        private final Map<String, Long> ssccCounts;
+        private final Map<String, Long> companyPrefixCounts;
+        private final long rejected;
+
+        Snapshot(Map<String, Long> gtinCounts, Map<String, Long> ssccCounts, Map<String, Long> companyPrefixCounts, long rejected) {
+            this.gtinCounts = Collections.unmodifiableMap(gtinCounts);
+            this.ssccCounts = Collections.unmodifiableMap(ssccCounts);
+            this.companyPrefixCounts = Collections.unmodifiableMap(companyPrefixCounts);
+            this.rejected = rejected;
+        }
+
+        /**
+         * @return reads per GTIN-14
+         */
+        public Map<String, Long> getGtinCounts() {
+            return gtinCounts;
+        }
+
+        /**
+         * @return reads per SSCC-18
+         */
+        public Map<String, Long> getSsccCounts() {
+            return ssccCounts;
+        }
+
+        /**
+         * @return SGTIN and SSCC reads per company prefix
+         */
+        public Map<String, Long> getCompanyPrefixCounts() {
+            return companyPrefixCounts;
+        }
+
+        /**
+         * @return reads which were no SGTIN-96 or SSCC-96
+         */
+        public long getRejected() {
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.jensui.projects.epctools;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent map from non negative long keys to {@link LongAdder} counters.
+ * Keys live in lock striped open addressing tables. Incrementing an existing
+ * key takes no lock: the key is found with volatile reads and the counter is
+ * a LongAdder, so hot keys scale across threads. Only inserting a new key
+ * and growing a table lock the stripe. Keys are never removed, which keeps
+ * lock free probing safe; resetting only drains the counters.
+ *
+ * @author chpressler
+ */
+final class LongCounterMap {
+
+    private static final long EMPTY = -1L;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    LongCounterMap(int concurrency) {
+        int count = DecodeCache.powerOfTwo(Math.max(1, concurrency));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = count - 1;
+    }
+
+    void add(long key, long delta) {
+        long hash = DecodeCache.hash(key, 0);
+        stripes[(int) (hash >>> 32) & stripeMask].counter(key, (int) hash).add(delta);
+    }
+
+    /**
+     * Calls the visitor for every key with a non zero count.
+     *
+     * @param reset drain each counter while reading it
+     */
+    void forEach(Visitor visitor, boolean reset) {
+        for (Stripe stripe : stripes) {
+            Table table = stripe.table;
+            for (int i = 0, n = table.keys.length(); i < n; i++) {
+                long key = table.keys.get(i);
+                if (key != EMPTY) {
+                    LongAdder counter = table.counters.get(i);
+                    long count = reset ? drain(counter) : counter.sum();
+                    if (count != 0) {
+                        visitor.visit(key, count);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the read sum out of the counter. Unlike
+     * {@link LongAdder#sumThenReset()} an add racing with the reset is not
+     * lost, it is either part of the returned sum or stays in the counter.
+     */
+    static long drain(LongAdder counter) {
+        long sum = counter.sum();
+        if (sum != 0) {
+            counter.add(-sum);
+        }
+        return sum;
+    }
+
+    interface Visitor {
+
+        void visit(long key, long count);
+    }
+
+    private static final class Table {
+
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<LongAdder> counters;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            counters = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, EMPTY);
+            }
+        }
+
+        /**
+         * @return the slot of key or the empty slot ending its probe
+         */
+        int slot(long key, int hash) {
+            int i = hash & mask;
+            long k;
+            while ((k = keys.get(i)) != key && k != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+
+    private static final class Stripe {
+
+        volatile Table table = new Table(64);
+        int size;
+
+        LongAdder counter(long key, int hash) {
+            Table t = table;
+            int i = t.slot(key, hash);
+            if (t.keys.get(i) == key) {
+                return t.counters.get(i);
+            }
+            return insert(key, hash);
+        }
+
+        private synchronized LongAdder insert(long key, int hash) {
+            Table t = table;
+            int i = t.slot(key, hash);
+            if (t.keys.get(i) == key) {
+                return t.counters.get(i);
+            }
+            if ((size + 1) * 2 > t.keys.length()) {
+                t = grow(t);
+                i = t.slot(key, hash);
+            }
+            LongAdder counter = new LongAdder();
+            // the counter must be visible before the key is
+            t.counters.set(i, counter);
+            t.keys.set(i, key);
+            size++;
+            return counter;
+        }
+
+        /**
+         * Copies into a twice as large table. The LongAdders are shared, so
+         * increments through the old table during the copy are not lost.
+         */
+        private Table grow(Table old) {
+            Table t = new Table(old.keys.length() * 2);
+            for (int i = 0, n = old.keys.length(); i < n; i++) {
+                long key = old.keys.get(i);
+                if (key != EMPTY) {
+                    int j = t.slot(key, (int) DecodeCache.hash(key, 0));
+                    t.counters.set(j, old.counters.get(i));
+                    t.keys.set(j, key);
+                }
+            }
+            table = t;
+            return t;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.jensui.projects.epctools;
+
+/**
+ * Immutable open addressing index from distinct long keys to their position
+ * in the key array.
+ *
+ * @author chpressler
+ */
+final class LongIndex {
+
+    private final long[] keys;
+    private final int[] positions;
+    private final int mask;
+
+    LongIndex(long[] keys) {
+        int capacity = DecodeCache.powerOfTwo(Math.max(2, keys.length * 2));
+        this.keys = new long[capacity];
+        positions = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            positions[i] = -1;
+        }
+        for (int p = 0; p < keys.length; p++) {
+            int i = slot(keys[p]);
+            while (positions[i] >= 0) {
+                i = (i + 1) & mask;
+            }
+            this.keys[i] = keys[p];
+            positions[i] = p;
+        }
+    }
+
+    /**
+     * @return the position of key in the array given to the constructor or
+     * -1
+     */
+    int get(long key) {
+        for (int i = slot(key);; i = (i + 1) & mask) {
+            int p = positions[i];
+            if (p < 0 || keys[i] == key) {
+                return p;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
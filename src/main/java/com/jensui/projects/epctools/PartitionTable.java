@@ -0,0 +1,35 @@
+package com.jensui.projects.epctools;
+
+/**
+ * Bit and digit lengths of the partitioned fields of the GS1 EPC schemes,
+ * indexed directly by the 3 bit partition value (0 - 6).
+ *
+ * @author chpressler
+ */
+final class PartitionTable {
+
+    static final int PARTITIONS = 7;
+
+    static final int[] COMPANY_PREFIX_BITS = {40, 37, 34, 30, 27, 24, 20};
+    static final int[] COMPANY_PREFIX_DIGITS = {12, 11, 10, 9, 8, 7, 6};
+
+    /**
+     * SGTIN item reference incl. indicator digit, 44 bits minus company prefix
+     */
+    static final int[] ITEM_REFERENCE_BITS = {4, 7, 10, 14, 17, 20, 24};
+    static final int[] ITEM_REFERENCE_DIGITS = {1, 2, 3, 4, 5, 6, 7};
+
+    /**
+     * SSCC serial reference incl. extension digit, 58 bits minus company
+     * prefix
+     */
+    static final int[] SERIAL_REFERENCE_BITS = {18, 21, 24, 28, 31, 34, 38};
+    static final int[] SERIAL_REFERENCE_DIGITS = {5, 6, 7, 8, 9, 10, 11};
+
+    private PartitionTable() {
+    }
+
+    static boolean isValid(int partition) {
+        return partition >= 0 && partition < PARTITIONS;
+    }
+}
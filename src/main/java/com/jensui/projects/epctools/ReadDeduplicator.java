@@ -0,0 +1,232 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Drops repeated reads of the same tag within a time window before they are
+ * decoded. Tags are keyed by their packed 96 bits (see {@link HexCodec}).
+ *
+ * Each lock stripe is an open addressing table with linear probing stored in
+ * one {@link LongBuffer}, three longs per entry (high, low, time of the last
+ * accepted read). The buffer is either a plain long[] or a direct buffer off
+ * the heap, in both cases no object is created per read. Entries expire
+ * lazily: an expired slot found while probing is reused for a new tag, and
+ * expired entries are dropped whenever the table has to be rebuilt.
+ *
+ * @author chpressler
+ */
+public class ReadDeduplicator {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long window;
+    private final boolean offHeap;
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    /**
+     * @param window reads of a tag within this many time units after its
+     * last accepted read are duplicates. The unit is the one of the
+     * timestamps passed to accept, milliseconds for the variants without
+     * timestamp.
+     */
+    public ReadDeduplicator(long window) {
+        this(window, 1024, 16, false);
+    }
+
+    /**
+     * @param initialCapacity expected number of distinct tags per window
+     * @param concurrency number of lock stripes, rounded up to a power of two
+     * @param offHeap keep the tables in direct buffers outside the heap
+     */
+    public ReadDeduplicator(long window, int initialCapacity, int concurrency, boolean offHeap) {
+        this.window = window;
+        this.offHeap = offHeap;
+        int segmentCount = DecodeCache.powerOfTwo(Math.max(1, concurrency));
+        int segmentCapacity = DecodeCache.powerOfTwo(Math.max(16, 2 * initialCapacity / segmentCount));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * @return true if the read is the first of the tag within the window and
+     * should be forwarded, false for a duplicate
+     */
+    public boolean accept(long high, long low, long timestamp) {
+        low &= 0xFFFFFFFFL;
+        long hash = DecodeCache.hash(high, low);
+        Segment segment = segments[(int) (hash >>> 32) & segmentMask];
+        synchronized (segment) {
+            return segment.accept(high, low, (int) hash, timestamp);
+        }
+    }
+
+    public boolean accept(long high, long low) {
+        return accept(high, low, System.currentTimeMillis());
+    }
+
+    /**
+     * @param epcHex 24 hex characters
+     */
+    public boolean accept(CharSequence epcHex, long timestamp) {
+        return accept(HexCodec.parseHigh96(epcHex), HexCodec.parseLow96(epcHex), timestamp);
+    }
+
+    /**
+     * @param epc 12 bytes at offset, most significant byte first
+     */
+    public boolean accept(byte[] epc, int offset, long timestamp) {
+        return accept(EpcDecoder.readHigh96(epc, offset), EpcDecoder.readLow96(epc, offset), timestamp);
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public long getAccepted() {
+        long accepted = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                accepted += segment.accepted;
+            }
+        }
+        return accepted;
+    }
+
+    public long getDuplicates() {
+        long duplicates = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                duplicates += segment.duplicates;
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return the number of occupied slots, including expired entries which
+     * have not been reused or dropped yet
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.used;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Drops all entries expired at the given time.
+     */
+    public void purge(long now) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.rebuild(now, segment.mask + 1);
+            }
+        }
+    }
+
+    private final class Segment {
+
+        LongBuffer table;
+        int mask;
+        int used;
+        long accepted;
+        long duplicates;
+
+        Segment(int capacity) {
+            table = allocate(capacity);
+            mask = capacity - 1;
+        }
+
+        private LongBuffer allocate(int capacity) {
+            LongBuffer buffer = offHeap
+                    ? ByteBuffer.allocateDirect(capacity * 3 * 8).asLongBuffer()
+                    : LongBuffer.allocate(capacity * 3);
+            for (int i = 0; i < capacity; i++) {
+                buffer.put(3 * i + 2, EMPTY);
+            }
+            return buffer;
+        }
+
+        boolean accept(long high, long low, int hash, long timestamp) {
+            int reuse = -1;
+            int i = hash & mask;
+            for (int n = 0; n <= mask; n++, i = (i + 1) & mask) {
+                long last = table.get(3 * i + 2);
+                if (last == EMPTY) {
+                    break;
+                }
+                if (table.get(3 * i) == high && table.get(3 * i + 1) == low) {
+                    if (timestamp - last < window) {
+                        duplicates++;
+                        return false;
+                    }
+                    table.put(3 * i + 2, timestamp);
+                    accepted++;
+                    return true;
+                }
+                if (reuse < 0 && timestamp - last >= window) {
+                    reuse = i;
+                }
+            }
+            accepted++;
+            if (reuse >= 0) {
+                put(reuse, high, low, timestamp);
+                return true;
+            }
+            put(i, high, low, timestamp);
+            if (++used > (mask + 1) * 3 / 4) {
+                rebuild(timestamp, mask + 1);
+            }
+            return true;
+        }
+
+        private void put(int i, long high, long low, long timestamp) {
+            table.put(3 * i, high);
+            table.put(3 * i + 1, low);
+            table.put(3 * i + 2, timestamp);
+        }
+
+        /**
+         * Re-inserts the entries not expired at now into a new table, which
+         * is grown until the live entries fill at most half of it.
+         */
+        void rebuild(long now, int capacity) {
+            int live = 0;
+            for (int i = 0; i <= mask; i++) {
+                long last = table.get(3 * i + 2);
+                if (last != EMPTY && now - last < window) {
+                    live++;
+                }
+            }
+            while (live >= capacity / 2) {
+                capacity <<= 1;
+            }
+            LongBuffer old = table;
+            int oldCapacity = mask + 1;
+            table = allocate(capacity);
+            mask = capacity - 1;
+            used = 0;
+            for (int i = 0; i < oldCapacity; i++) {
+                long last = old.get(3 * i + 2);
+                if (last != EMPTY && now - last < window) {
+                    long high = old.get(3 * i);
+                    long low = old.get(3 * i + 1);
+                    int j = (int) DecodeCache.hash(high, low) & mask;
+                    while (table.get(3 * j + 2) != EMPTY) {
+                        j = (j + 1) & mask;
+                    }
+                    put(j, high, low, last);
+                    used++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.jensui.projects.epctools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the tags expected on a manifest (e.g. an ASN) with the tags
+ * observed at the dock door. SGTIN-96 tags are grouped by partition, company
+ * prefix and item reference, SSCC-96 tags by partition and company prefix;
+ * the serials (serial reference for SSCC) of every group go into a
+ * {@link SerialBitmap}, so matched, missing and unexpected tags come out of
+ * container wise set operations instead of string sets. The filter value is
+ * not part of the identity and is ignored.
+ *
+ * Not thread safe.
+ *
+ * @author chpressler
+ */
+public class Reconciliation {
+
+    private static final long MASK_44 = (1L << 44) - 1;
+    private static final long MASK_50 = (1L << 50) - 1;
+    private static final long SSCC_GROUP = 1L << 62;
+
+    private final Map<Long, Group> groups = new HashMap<>();
+    private long lastKey = -1;
+    private Group last;
+    private long rejected;
+
+    /**
+     * @return false if the tag is no SGTIN-96 or SSCC-96 with a valid
+     * partition, it is then only counted as rejected
+     */
+    public boolean expect(long high, long low) {
+        return add(high, low, true);
+    }
+
+    public boolean expect(Epc96 epc) {
+        return add(epc.getHigh(), epc.getLow(), true);
+    }
+
+    /**
+     * @param epcHex 24 hex characters, anything else is rejected
+     */
+    public boolean expect(CharSequence epcHex) {
+        return add(epcHex, true);
+    }
+
+    public boolean observe(long high, long low) {
+        return add(high, low, false);
+    }
+
+    public boolean observe(Epc96 epc) {
+        return add(epc.getHigh(), epc.getLow(), false);
+    }
+
+    public boolean observe(CharSequence epcHex) {
+        return add(epcHex, false);
+    }
+
+    /**
+     * @return the number of tags which could not be grouped
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    private boolean add(CharSequence epcHex, boolean expected) {
+        if (epcHex.length() != 24) {
+            rejected++;
+            return false;
+        }
+        long high;
+        long low;
+        try {
+            high = HexCodec.parseHigh96(epcHex);
+            low = HexCodec.parseLow96(epcHex);
+        } catch (NumberFormatException e) {
+            rejected++;
+            return false;
+        }
+        return add(high, low, expected);
+    }
+
+    private boolean add(long high, long low, boolean expected) {
+        int header = (int) (high >>> 56);
+        int partition = (int) (high >>> 50) & 0x7;
+        low &= 0xFFFFFFFFL;
+        long key;
+        long serial;
+        if (header == Sgtin96.HEADER && PartitionTable.isValid(partition)) {
+            key = (long) partition << 44 | (high >>> 6) & MASK_44;
+            serial = (high & 0x3F) << 32 | low;
+        } else if (header == Sscc96.HEADER && PartitionTable.isValid(partition)) {
+            int serialBits = PartitionTable.SERIAL_REFERENCE_BITS[partition];
+            long prefixAndReference = (high & MASK_50) << 8 | low >>> 24;
+            key = SSCC_GROUP | (long) partition << 44 | prefixAndReference >>> serialBits;
+            serial = prefixAndReference & ((1L << serialBits) - 1);
+        } else {
+            rejected++;
+            return false;
+        }
+        Group group = key == lastKey ? last : groups.get(key);
+        if (group == null) {
+            group = new Group(key);
+            groups.put(key, group);
+        }
+        lastKey = key;
+        last = group;
+        (expected ? group.expected : group.observed).add(serial);
+        return true;
+    }
+
+    /**
+     * Computes matched, missing and unexpected tags of all groups.
+     */
+    public Result reconcile() {
+        List<Group> result = new ArrayList<>(groups.size());
+        long matched = 0;
+        long missing = 0;
+        long unexpected = 0;
+        for (Group group : groups.values()) {
+            group.matched = group.expected.and(group.observed);
+            group.missing = group.expected.andNot(group.observed);
+            group.unexpected = group.observed.andNot(group.expected);
+            matched += group.matched.getCardinality();
+            missing += group.missing.getCardinality();
+            unexpected += group.unexpected.getCardinality();
+            result.add(group);
+        }
+        return new Result(result, matched, missing, unexpected, rejected);
+    }
+
+    /**
+     * The serials of one GTIN (SGTIN-96) or one company prefix (SSCC-96).
+     */
+    public static final class Group {
+
+        private final long key;
+        final SerialBitmap expected = new SerialBitmap();
+        final SerialBitmap observed = new SerialBitmap();
+        SerialBitmap matched;
+        SerialBitmap missing;
+        SerialBitmap unexpected;
+
+        Group(long key) {
+            this.key = key;
+        }
+
+        public boolean isSSCC() {
+            return (key & SSCC_GROUP) != 0;
+        }
+
+        public int getPartition() {
+            return (int) (key >>> 44) & 0x7;
+        }
+
+        public long getCompanyPrefix() {
+            long field = key & MASK_44;
+            return isSSCC() ? field : field >>> PartitionTable.ITEM_REFERENCE_BITS[getPartition()];
+        }
+
+        public String getCompanyPrefixString() {
+            return Digits.padded(getCompanyPrefix(), PartitionTable.COMPANY_PREFIX_DIGITS[getPartition()]);
+        }
+
+        /**
+         * @return the GTIN-14 or null for SSCC groups
+         */
+        public String getGTIN() {
+            return isSSCC() ? null : new Sgtin96(high(0), 0).getGTIN();
+        }
+
+        /**
+         * @return bits 0..63 of the tag with the serial, filter 0
+         */
+        public long high(long serial) {
+            int partition = getPartition();
+            if (isSSCC()) {
+                long prefixAndReference = getCompanyPrefix() << PartitionTable.SERIAL_REFERENCE_BITS[partition] | serial;
+                return (long) Sscc96.HEADER << 56 | (long) partition << 50 | prefixAndReference >>> 8;
+            }
+            return (long) Sgtin96.HEADER << 56 | (long) partition << 50 | (key & MASK_44) << 6 | serial >>> 32;
+        }
+
+        /**
+         * @return bits 64..95 of the tag with the serial
+         */
+        public long low(long serial) {
+            return isSSCC() ? (serial & 0xFF) << 24 : serial & 0xFFFFFFFFL;
+        }
+
+        public String toHex(long serial) {
+            return HexCodec.toHex96(high(serial), low(serial));
+        }
+
+        public SerialBitmap getExpected() {
+            return expected;
+        }
+
+        public SerialBitmap getObserved() {
+            return observed;
+        }
+
+        public SerialBitmap getMatched() {
+            return matched;
+        }
+
+        public SerialBitmap getMissing() {
+            return missing;
+        }
+
+        public SerialBitmap getUnexpected() {
+            return unexpected;
+        }
+
+        @Override
+        public String toString() {
+            return (isSSCC() ? "SSCC " + getCompanyPrefixString() : "GTIN " + getGTIN())
+                    + " [matched " + matched.getCardinality() + ", missing " + missing.getCardinality() + ", unexpected " + unexpected.getCardinality() + "]";
+        }
+    }
+
+    /**
+     * Outcome of {@link #reconcile()}.
+     */
+    public static final class Result {
+
+        private final List<Group> groups;
+        private final long matched;
+        private final long missing;
+        private final long unexpected;
+        private final long rejected;
+
+        Result(List<Group> groups, long matched, long missing, long unexpected, long rejected) {
+            this.groups = Collections.unmodifiableList(groups);
+            this.matched = matched;
+            this.missing = missing;
+            this.unexpected = unexpected;
+            this.rejected = rejected;
+        }
+
+        public List<Group> getGroups() {
+            return groups;
+        }
+
+        /**
+         * @return tags expected and observed
+         */
+        public long getMatchedCount() {
+            return matched;
+        }
+
+        /**
+         * @return tags expected but not observed
+         */
+        public long getMissingCount() {
+            return missing;
+        }
+
+        /**
+         * @return tags observed but not expected
+         */
+        public long getUnexpectedCount() {
+            return unexpected;
+        }
+
+        public long getRejectedCount() {
+            return rejected;
+        }
+
+        public boolean isComplete() {
+            return missing == 0 && unexpected == 0;
+        }
+    }
+}
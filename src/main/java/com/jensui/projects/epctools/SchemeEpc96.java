@@ -0,0 +1,124 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+
+/**
+ * Immutable 96 bit EPC of a scheme without specialized value class (SGLN,
+ * GRAI, GIAI, GID, DoD). All fields are read through the offsets of its
+ * {@link EpcScheme}.
+ *
+ * @author chpressler
+ */
+public final class SchemeEpc96 implements Epc96 {
+
+    private final EpcScheme scheme;
+    private final long high;
+    private final long low;
+
+    SchemeEpc96(EpcScheme scheme, long high, long low) {
+        this.scheme = scheme;
+        this.high = high;
+        this.low = low;
+    }
+
+    public EpcScheme getScheme() {
+        return scheme;
+    }
+
+    @Override
+    public ENCODING getEncoding() {
+        return scheme.getEncoding();
+    }
+
+    @Override
+    public long getHigh() {
+        return high;
+    }
+
+    @Override
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public int getFilter() {
+        return scheme.getFilter(high);
+    }
+
+    /**
+     * @return the partition value or 0 for GID and DoD
+     */
+    @Override
+    public int getPartition() {
+        return scheme.getPartition(high);
+    }
+
+    /**
+     * @return the value of the field, e.g. for GRAI-96 field 1 is the asset
+     * type
+     */
+    public long getField(int field) {
+        return scheme.getField(high, low, field);
+    }
+
+    /**
+     * @return the field as written in the URI
+     */
+    public String getFieldString(int field) {
+        StringBuilder sb = new StringBuilder(24);
+        scheme.appendField(high, low, field, sb);
+        return sb.toString();
+    }
+
+    /**
+     * @return the company prefix, for GID the general manager number and -1
+     * for DoD
+     */
+    @Override
+    public long getCompanyPrefix() {
+        return scheme.getFieldDigits(getPartition(), 0) == EpcScheme.TEXT ? -1 : getField(0);
+    }
+
+    /**
+     * @return the first URI field, for DoD the CAGE code
+     */
+    @Override
+    public String getCompanyPrefixString() {
+        return getFieldString(0);
+    }
+
+    @Override
+    public void appendPureIdentityURI(StringBuilder sb) {
+        scheme.appendURI(high, low, false, sb);
+    }
+
+    @Override
+    public void appendTagURI(StringBuilder sb) {
+        scheme.appendURI(high, low, true, sb);
+    }
+
+    @Override
+    public String toHexString() {
+        return HexCodec.toHex96(high, low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SchemeEpc96)) {
+            return false;
+        }
+        SchemeEpc96 other = (SchemeEpc96) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = high * 31 + low;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return scheme + "[" + toHexString() + "]";
+    }
+}
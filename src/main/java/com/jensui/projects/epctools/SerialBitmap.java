@@ -0,0 +1,458 @@
+package com.jensui.projects.epctools;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of serial numbers in the 38 bit SGTIN-96 serial space, in
+ * the layout of a Roaring bitmap: the upper 22 bits select a container, the
+ * lower 16 bits are stored in it. A container with up to {@value #ARRAY_MAX}
+ * serials is a sorted char[], a fuller one a bitmap of 1024 longs. Sparse
+ * serials cost 2 bytes each, consecutive ranges 1 bit each.
+ *
+ * Set operations work container by container; two bitmap containers are
+ * combined with one operation per 64 serials.
+ *
+ * Not thread safe.
+ *
+ * @author chpressler
+ */
+public final class SerialBitmap {
+
+    public static final int SERIAL_BITS = 38;
+    public static final long MAX_SERIAL = (1L << SERIAL_BITS) - 1;
+
+    static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private int size;
+    private int[] keys = new int[4];
+    /**
+     * char[] or long[] per key
+     */
+    private Object[] containers = new Object[4];
+    private int[] cards = new int[4];
+    private int last;
+
+    public interface Visitor {
+
+        void visit(long serial);
+    }
+
+    /**
+     * @return true if the serial was not in the set
+     * @throws IllegalArgumentException if the serial is negative or does
+     * not fit 38 bits
+     */
+    public boolean add(long serial) {
+        checkSerial(serial);
+        int i = container((int) (serial >>> 16));
+        char low = (char) serial;
+        Object c = containers[i];
+        if (c instanceof long[]) {
+            long[] bits = (long[]) c;
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bits[low >>> 6] |= mask;
+            cards[i]++;
+            return true;
+        }
+        char[] array = (char[]) c;
+        int card = cards[i];
+        // serials mostly come in ascending order
+        int pos = card > 0 && array[card - 1] < low ? -card - 1 : Arrays.binarySearch(array, 0, card, low);
+        if (pos >= 0) {
+            return false;
+        }
+        pos = -pos - 1;
+        if (card == ARRAY_MAX) {
+            long[] bits = toBitmap(array, card);
+            bits[low >>> 6] |= 1L << low;
+            containers[i] = bits;
+        } else {
+            if (card == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, card * 2));
+                containers[i] = array;
+            }
+            System.arraycopy(array, pos, array, pos + 1, card - pos);
+            array[pos] = low;
+        }
+        cards[i]++;
+        return true;
+    }
+
+    /**
+     * Adds the serials from (inclusive) to to (exclusive).
+     */
+    public void addRange(long from, long to) {
+        if (from >= to) {
+            return;
+        }
+        checkSerial(from);
+        checkSerial(to - 1);
+        for (long start = from; start < to;) {
+            long end = Math.min(to, (start | 0xFFFF) + 1);
+            int i = container((int) (start >>> 16));
+            if (!(containers[i] instanceof long[]) && cards[i] + (end - start) <= ARRAY_MAX) {
+                for (long s = start; s < end; s++) {
+                    add(s);
+                }
+            } else {
+                if (!(containers[i] instanceof long[])) {
+                    containers[i] = toBitmap((char[]) containers[i], cards[i]);
+                }
+                long[] bits = (long[]) containers[i];
+                setRange(bits, (int) (start & 0xFFFF), (int) ((end - 1) & 0xFFFF) + 1);
+                cards[i] = cardinality(bits);
+            }
+            start = end;
+        }
+    }
+
+    public boolean contains(long serial) {
+        if (serial < 0 || serial > MAX_SERIAL) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, 0, size, (int) (serial >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        char low = (char) serial;
+        Object c = containers[i];
+        if (c instanceof long[]) {
+            return (((long[]) c)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) c, 0, cards[i], low) >= 0;
+    }
+
+    public long getCardinality() {
+        long n = 0;
+        for (int i = 0; i < size; i++) {
+            n += cards[i];
+        }
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the approximate number of bytes held by the containers
+     */
+    public long getSizeInBytes() {
+        long bytes = 16L * keys.length;
+        for (int i = 0; i < size; i++) {
+            bytes += 16 + (containers[i] instanceof long[] ? BITMAP_WORDS * 8 : ((char[]) containers[i]).length * 2);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the serials in both sets
+     */
+    public SerialBitmap and(SerialBitmap other) {
+        SerialBitmap result = new SerialBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], and(containers[i], cards[i], other.containers[j], other.cards[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the serials of this set which are not in other
+     */
+    public SerialBitmap andNot(SerialBitmap other) {
+        SerialBitmap result = new SerialBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                result.append(keys[i], andNot(containers[i], cards[i], other.containers[j], other.cards[j]));
+            } else {
+                result.append(keys[i], copy(containers[i], cards[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of serials in both sets, without building the
+     * intersection
+     */
+    public long andCardinality(SerialBitmap other) {
+        long n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object a = containers[i];
+                Object b = other.containers[j];
+                if (a instanceof long[] && b instanceof long[]) {
+                    long[] x = (long[]) a;
+                    long[] y = (long[]) b;
+                    for (int w = 0; w < BITMAP_WORDS; w++) {
+                        n += Long.bitCount(x[w] & y[w]);
+                    }
+                } else {
+                    n += cardinality(and(a, cards[i], b, other.cards[j]));
+                }
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Visits all serials in ascending order.
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            long base = (long) keys[i] << 16;
+            Object c = containers[i];
+            if (c instanceof long[]) {
+                long[] bits = (long[]) c;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    for (long word = bits[w]; word != 0; word &= word - 1) {
+                        visitor.visit(base | w << 6 | Long.numberOfTrailingZeros(word));
+                    }
+                }
+            } else {
+                char[] array = (char[]) c;
+                for (int k = 0, card = cards[i]; k < card; k++) {
+                    visitor.visit(base | array[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the serials in ascending order
+     */
+    public long[] toArray() {
+        final long[] serials = new long[(int) getCardinality()];
+        forEach(new Visitor() {
+            private int n;
+
+            @Override
+            public void visit(long serial) {
+                serials[n++] = serial;
+            }
+        });
+        return serials;
+    }
+
+    @Override
+    public String toString() {
+        return "SerialBitmap[" + getCardinality() + " serials, " + size + " containers]";
+    }
+
+    private static void checkSerial(long serial) {
+        if (serial < 0 || serial > MAX_SERIAL) {
+            throw new IllegalArgumentException("serial does not fit " + SERIAL_BITS + " bits: " + serial);
+        }
+    }
+
+    /**
+     * @return the index of the container of key, created if missing
+     */
+    private int container(int key) {
+        if (last < size && keys[last] == key) {
+            return last;
+        }
+        int i = size > 0 && keys[size - 1] < key ? -size - 1 : Arrays.binarySearch(keys, 0, size, key);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, key, new char[4], 0);
+        }
+        last = i;
+        return i;
+    }
+
+    private void insert(int i, int key, Object container, int card) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cards = Arrays.copyOf(cards, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        System.arraycopy(cards, i, cards, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        cards[i] = card;
+        size++;
+    }
+
+    /**
+     * Appends a result container, keys must come in ascending order. Empty
+     * containers are dropped, sparse bitmaps turned into arrays.
+     */
+    private void append(int key, Object container) {
+        int card = cardinality(container);
+        if (card == 0) {
+            return;
+        }
+        if (container instanceof long[] && card <= ARRAY_MAX) {
+            container = toArray((long[]) container, card);
+        }
+        insert(size, key, container, card);
+    }
+
+    private static int cardinality(Object container) {
+        if (container instanceof char[]) {
+            return ((char[]) container).length;
+        }
+        return cardinality((long[]) container);
+    }
+
+    private static int cardinality(long[] bits) {
+        int n = 0;
+        for (long word : bits) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+
+    private static long[] toBitmap(char[] array, int card) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int k = 0; k < card; k++) {
+            bits[array[k] >>> 6] |= 1L << array[k];
+        }
+        return bits;
+    }
+
+    private static char[] toArray(long[] bits, int card) {
+        char[] array = new char[card];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                array[n++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+            }
+        }
+        return array;
+    }
+
+    private static void setRange(long[] bits, int from, int to) {
+        int first = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == lastWord) {
+            bits[first] |= firstMask & lastMask;
+            return;
+        }
+        bits[first] |= firstMask;
+        for (int w = first + 1; w < lastWord; w++) {
+            bits[w] = -1L;
+        }
+        bits[lastWord] |= lastMask;
+    }
+
+    /**
+     * @return a char[] of exactly the card serials or a long[]
+     */
+    private static Object copy(Object c, int card) {
+        return c instanceof long[] ? ((long[]) c).clone() : Arrays.copyOf((char[]) c, card);
+    }
+
+    private static Object and(Object a, int na, Object b, int nb) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            long[] r = new long[BITMAP_WORDS];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                r[w] = x[w] & y[w];
+            }
+            return r;
+        }
+        if (a instanceof long[]) {
+            return and(b, nb, a, na);
+        }
+        char[] x = (char[]) a;
+        char[] r = new char[na];
+        int n = 0;
+        if (b instanceof long[]) {
+            long[] y = (long[]) b;
+            for (int i = 0; i < na; i++) {
+                if ((y[x[i] >>> 6] & (1L << x[i])) != 0) {
+                    r[n++] = x[i];
+                }
+            }
+        } else {
+            char[] y = (char[]) b;
+            for (int i = 0, j = 0; i < na && j < nb;) {
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    r[n++] = x[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(r, n);
+    }
+
+    private static Object andNot(Object a, int na, Object b, int nb) {
+        if (a instanceof long[]) {
+            long[] r = ((long[]) a).clone();
+            if (b instanceof long[]) {
+                long[] y = (long[]) b;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    r[w] &= ~y[w];
+                }
+            } else {
+                char[] y = (char[]) b;
+                for (int j = 0; j < nb; j++) {
+                    r[y[j] >>> 6] &= ~(1L << y[j]);
+                }
+            }
+            return r;
+        }
+        char[] x = (char[]) a;
+        char[] r = new char[na];
+        int n = 0;
+        if (b instanceof long[]) {
+            long[] y = (long[]) b;
+            for (int i = 0; i < na; i++) {
+                if ((y[x[i] >>> 6] & (1L << x[i])) == 0) {
+                    r[n++] = x[i];
+                }
+            }
+        } else {
+            char[] y = (char[]) b;
+            int j = 0;
+            for (int i = 0; i < na; i++) {
+                while (j < nb && y[j] < x[i]) {
+                    j++;
+                }
+                if (j == nb || y[j] != x[i]) {
+                    r[n++] = x[i];
+                }
+            }
+        }
+        return Arrays.copyOf(r, n);
+    }
+}
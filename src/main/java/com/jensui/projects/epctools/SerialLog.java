@@ -0,0 +1,149 @@
+package com.jensui.projects.epctools;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory mapped log of issued serial ranges behind {@link SerialRegistry}.
+ *
+ * <pre>
+ * header 64: magic 4 | record size 4 | capacity 4
+ * record 32: key 8 | from 8 | to 8 | checksum 4 | commit 4
+ * </pre>
+ *
+ * The commit marker is written last; on open the records are replayed up to
+ * the first incomplete one and the markers behind it are cleared. The file
+ * is mapped with room for more records and remapped twice as large when it
+ * is full.
+ *
+ * @author chpressler
+ */
+final class SerialLog {
+
+    static final int HEADER = 64;
+    static final int RECORD = 32;
+    private static final int MAGIC = 0x45505331;
+    private static final int COMMITTED = 0x53455249;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER) / RECORD;
+
+    interface Replay {
+
+        void range(long key, long from, long to);
+    }
+
+    private Path file;
+    private MappedByteBuffer data;
+    private int capacity;
+    private int count;
+
+    private SerialLog(Path file) {
+        this.file = file;
+    }
+
+    static SerialLog create(Path file, int capacity) throws IOException {
+        SerialLog log = new SerialLog(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            log.map(channel, capacity);
+        }
+        log.data.putInt(0, MAGIC);
+        log.data.putInt(4, RECORD);
+        return log;
+    }
+
+    /**
+     * Opens an existing log and passes every complete record to replay.
+     */
+    static SerialLog open(Path file, Replay replay) throws IOException {
+        SerialLog log = new SerialLog(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER) {
+                throw new IOException("not a serial log: " + file);
+            }
+            log.map(channel, (int) Math.min(MAX_CAPACITY, (channel.size() - HEADER) / RECORD));
+        }
+        MappedByteBuffer data = log.data;
+        if (data.getInt(0) != MAGIC || data.getInt(4) != RECORD) {
+            throw new IOException("not a serial log: " + file);
+        }
+        while (log.count < log.capacity) {
+            int position = HEADER + log.count * RECORD;
+            long key = data.getLong(position);
+            long from = data.getLong(position + 8);
+            long to = data.getLong(position + 16);
+            if (data.getInt(position + 28) != COMMITTED || data.getInt(position + 24) != checksum(key, from, to)) {
+                break;
+            }
+            replay.range(key, from, to);
+            log.count++;
+        }
+        for (int i = log.count; i < log.capacity; i++) {
+            int commit = HEADER + i * RECORD + 28;
+            if (data.getInt(commit) != 0) {
+                data.putInt(commit, 0);
+            }
+        }
+        return log;
+    }
+
+    private void map(FileChannel channel, int records) throws IOException {
+        data = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) records * RECORD);
+        data.putInt(8, records);
+        capacity = records;
+    }
+
+    /**
+     * Appends the range [from, to) of the key.
+     */
+    void append(long key, long from, long to) throws IOException {
+        if (count == capacity) {
+            if (capacity == MAX_CAPACITY) {
+                throw new IOException("serial log is full: " + file);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                map(channel, (int) Math.min(MAX_CAPACITY, Math.max(1024L, capacity * 2L)));
+            }
+        }
+        int position = HEADER + count * RECORD;
+        data.putLong(position, key);
+        data.putLong(position + 8, from);
+        data.putLong(position + 16, to);
+        data.putInt(position + 24, checksum(key, from, to));
+        data.putInt(position + 28, COMMITTED);
+        count++;
+    }
+
+    int size() {
+        return count;
+    }
+
+    void force() {
+        data.force();
+    }
+
+    /**
+     * Forces the log to disk and moves it over target, which keeps target
+     * complete if the process dies while a compacted log is written.
+     */
+    void replace(Path target) throws IOException {
+        data.force();
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        file = target;
+    }
+
+    private static int checksum(long key, long from, long to) {
+        long h = mix(key);
+        h = mix(h ^ from);
+        h = mix(h ^ to);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long mix(long h) {
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,421 @@
+package com.jensui.projects.epctools;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local registry of issued serials, so commissioning lines and restarted
+ * jobs never issue the same EPC twice. Serials are kept per pool: one GTIN
+ * (SGTIN, partition, company prefix and item reference) or one SSCC company
+ * prefix. Each pool holds its issued serials in a {@link SerialBitmap} and
+ * the next free serial above all of them.
+ *
+ * Encoders call {@link #reserve(long, int)} to get a block of consecutive
+ * serials and number their tags from it without a round trip per tag;
+ * serials chosen elsewhere are claimed with {@link #register(long, long)},
+ * which fails for duplicates. Every reservation is one record in a memory
+ * mapped range log ({@link SerialLog}), which is replayed on open; a record
+ * torn by a crash is dropped, so its serials count as not issued.
+ * {@link #compact()} rewrites the log with one record per run of issued
+ * serials.
+ *
+ * Thread safe; threads reserving from different pools do not wait for each
+ * other except for the append to the log. Reservations survive a crash of
+ * the process once they are returned and a crash of the machine after
+ * {@link #flush()}, or immediately in sync mode.
+ *
+ * @author chpressler
+ */
+public class SerialRegistry implements Closeable {
+
+    public static final String FILE = "serials.log";
+
+    private static final long MASK_44 = (1L << 44) - 1;
+    private static final long MASK_50 = (1L << 50) - 1;
+    private static final long SSCC_POOL = 1L << 62;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final Path dir;
+    private final boolean sync;
+    private final ConcurrentHashMap<Long, Pool> pools = new ConcurrentHashMap<>();
+    /**
+     * shared by reservations, exclusive for compaction and close
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private SerialLog log;
+    private boolean closed;
+
+    private static final class Pool {
+
+        final long key;
+        final long max;
+        final SerialBitmap issued = new SerialBitmap();
+        long next;
+
+        Pool(long key) {
+            this.key = key;
+            this.max = maxSerial(key);
+        }
+
+        void add(long from, long to) {
+            issued.addRange(from, to);
+            next = Math.max(next, to);
+        }
+    }
+
+    /**
+     * Runs of consecutive serials collected by {@link #compact()}.
+     */
+    private static final class Runs {
+
+        long[] keys = new long[64];
+        long[] from = new long[64];
+        long[] to = new long[64];
+        int n;
+
+        void add(long key, long serial) {
+            if (n > 0 && keys[n - 1] == key && to[n - 1] == serial) {
+                to[n - 1]++;
+                return;
+            }
+            if (n == keys.length) {
+                keys = Arrays.copyOf(keys, n * 2);
+                from = Arrays.copyOf(from, n * 2);
+                to = Arrays.copyOf(to, n * 2);
+            }
+            keys[n] = key;
+            from[n] = serial;
+            to[n++] = serial + 1;
+        }
+    }
+
+    public SerialRegistry(Path dir) throws IOException {
+        this(dir, false);
+    }
+
+    /**
+     * Opens the registry in dir or creates a new one.
+     *
+     * @param sync force every reservation to disk before it is returned
+     */
+    public SerialRegistry(Path dir, boolean sync) throws IOException {
+        this.dir = dir;
+        this.sync = sync;
+        Files.createDirectories(dir);
+        Path file = dir.resolve(FILE);
+        Files.deleteIfExists(dir.resolve(FILE + ".tmp"));
+        if (Files.exists(file)) {
+            log = SerialLog.open(file, new SerialLog.Replay() {
+                @Override
+                public void range(long key, long from, long to) {
+                    pool(key).add(from, to);
+                }
+            });
+        } else {
+            log = SerialLog.create(file, INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * @return the pool key of the GTIN or -1 if the values do not fit the
+     * partition
+     */
+    public static long sgtinKey(int partition, long companyPrefix, long itemReference) {
+        if (!PartitionTable.isValid(partition)) {
+            return -1;
+        }
+        int itemBits = PartitionTable.ITEM_REFERENCE_BITS[partition];
+        if (companyPrefix < 0 || companyPrefix >= 1L << (44 - itemBits) || itemReference < 0 || itemReference >= 1L << itemBits) {
+            return -1;
+        }
+        return (long) partition << 44 | companyPrefix << itemBits | itemReference;
+    }
+
+    /**
+     * @return the pool key of the SSCC company prefix or -1 if it does not fit
+     * the partition
+     */
+    public static long ssccKey(int partition, long companyPrefix) {
+        if (!PartitionTable.isValid(partition) || companyPrefix < 0 || companyPrefix >= 1L << PartitionTable.COMPANY_PREFIX_BITS[partition]) {
+            return -1;
+        }
+        return SSCC_POOL | (long) partition << 44 | companyPrefix;
+    }
+
+    /**
+     * @return the pool key of an SGTIN-96 or SSCC-96 tag or -1 for all other
+     * tags
+     */
+    public static long key(long high) {
+        int header = (int) (high >>> 56);
+        int partition = (int) (high >>> 50) & 0x7;
+        if (!PartitionTable.isValid(partition)) {
+            return -1;
+        }
+        if (header == Sgtin96.HEADER) {
+            return (long) partition << 44 | (high >>> 6) & MASK_44;
+        }
+        if (header == Sscc96.HEADER) {
+            return SSCC_POOL | (long) partition << 44 | (high & MASK_50) >>> (PartitionTable.SERIAL_REFERENCE_BITS[partition] - 8);
+        }
+        return -1;
+    }
+
+    /**
+     * @param low bits 64..95 in the lower 32 bits
+     * @return the serial (SSCC: serial reference) of an SGTIN-96 or SSCC-96
+     * tag or -1 for all other tags
+     */
+    public static long serial(long high, long low) {
+        int header = (int) (high >>> 56);
+        int partition = (int) (high >>> 50) & 0x7;
+        if (!PartitionTable.isValid(partition)) {
+            return -1;
+        }
+        low &= 0xFFFFFFFFL;
+        if (header == Sgtin96.HEADER) {
+            return (high & 0x3F) << 32 | low;
+        }
+        if (header == Sscc96.HEADER) {
+            return ((high & MASK_50) << 8 | low >>> 24) & ((1L << PartitionTable.SERIAL_REFERENCE_BITS[partition]) - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the largest serial of the pool, for SSCC pools limited by the
+     * digits of the serial reference
+     */
+    public static long maxSerial(long key) {
+        int partition = (int) (key >>> 44) & 0x7;
+        if (key < 0 || !PartitionTable.isValid(partition)) {
+            throw new IllegalArgumentException("invalid pool key: " + key);
+        }
+        if ((key & SSCC_POOL) == 0) {
+            return SerialBitmap.MAX_SERIAL;
+        }
+        long max = 1;
+        for (int i = 0; i < PartitionTable.SERIAL_REFERENCE_DIGITS[partition]; i++) {
+            max *= 10;
+        }
+        return max - 1;
+    }
+
+    private Pool pool(long key) {
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            Pool created = new Pool(key);
+            pool = pools.putIfAbsent(key, created);
+            if (pool == null) {
+                pool = created;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Reserves count consecutive serials above all serials issued in the
+     * pool so far.
+     *
+     * @return the first serial of the block or -1 if the pool has not enough
+     * serials left
+     */
+    public long reserve(long key, int count) throws IOException {
+        if (count <= 0) {
+            throw new IllegalArgumentException("invalid block size: " + count);
+        }
+        lock.readLock().lock();
+        try {
+            Pool pool = open(key);
+            synchronized (pool) {
+                long first = pool.next;
+                if (first > pool.max - count + 1) {
+                    return -1;
+                }
+                append(key, first, first + count);
+                pool.add(first, first + count);
+                return first;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Claims a single serial.
+     *
+     * @return false if it was issued before
+     */
+    public boolean register(long key, long serial) throws IOException {
+        return register(key, serial, serial + 1);
+    }
+
+    /**
+     * Claims the serials [from, to), either all of them or none.
+     *
+     * @return false if one of them was issued before
+     */
+    public boolean register(long key, long from, long to) throws IOException {
+        lock.readLock().lock();
+        try {
+            Pool pool = open(key);
+            if (from < 0 || to <= from || to - 1 > pool.max) {
+                throw new IllegalArgumentException("invalid serial range: [" + from + ", " + to + ")");
+            }
+            synchronized (pool) {
+                if (from < pool.next) {
+                    SerialBitmap range = new SerialBitmap();
+                    range.addRange(from, to);
+                    if (range.andCardinality(pool.issued) != 0) {
+                        return false;
+                    }
+                }
+                append(key, from, to);
+                pool.add(from, to);
+                return true;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Claims the serial of an SGTIN-96 or SSCC-96 tag.
+     *
+     * @param low bits 64..95 in the lower 32 bits
+     * @return false if the tag was issued before
+     */
+    public boolean registerTag(long high, long low) throws IOException {
+        long key = key(high);
+        if (key < 0) {
+            throw new IllegalArgumentException("not an SGTIN-96 or SSCC-96: " + HexCodec.toHex96(high, low));
+        }
+        return register(key, serial(high, low));
+    }
+
+    public boolean register(Epc96 epc) throws IOException {
+        return registerTag(epc.getHigh(), epc.getLow());
+    }
+
+    private Pool open(long key) throws IOException {
+        if (closed) {
+            throw new IOException("registry is closed");
+        }
+        maxSerial(key);
+        return pool(key);
+    }
+
+    private void append(long key, long from, long to) throws IOException {
+        synchronized (this) {
+            log.append(key, from, to);
+            if (sync) {
+                log.force();
+            }
+        }
+    }
+
+    public boolean isIssued(long key, long serial) {
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            return false;
+        }
+        synchronized (pool) {
+            return pool.issued.contains(serial);
+        }
+    }
+
+    public long getIssuedCount(long key) {
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            return 0;
+        }
+        synchronized (pool) {
+            return pool.issued.getCardinality();
+        }
+    }
+
+    /**
+     * @return the first serial the next {@link #reserve(long, int)} of the
+     * pool returns
+     */
+    public long getNext(long key) {
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            return 0;
+        }
+        synchronized (pool) {
+            return pool.next;
+        }
+    }
+
+    public int getPoolCount() {
+        return pools.size();
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public synchronized int getLogSize() {
+        return log.size();
+    }
+
+    /**
+     * Rewrites the log with one record per run of issued serials. The new
+     * log is written next to the old one and moved over it, reservations
+     * wait until it is done.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                throw new IOException("registry is closed");
+            }
+            Path tmp = dir.resolve(FILE + ".tmp");
+            Files.deleteIfExists(tmp);
+            final Runs runs = new Runs();
+            for (final Pool pool : pools.values()) {
+                pool.issued.forEach(new SerialBitmap.Visitor() {
+                    @Override
+                    public void visit(long serial) {
+                        runs.add(pool.key, serial);
+                    }
+                });
+            }
+            SerialLog compacted = SerialLog.create(tmp, Math.max(INITIAL_CAPACITY, runs.n * 2));
+            for (int i = 0; i < runs.n; i++) {
+                compacted.append(runs.keys[i], runs.from[i], runs.to[i]);
+            }
+            synchronized (this) {
+                compacted.replace(dir.resolve(FILE));
+                log = compacted;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the log to disk.
+     */
+    public synchronized void flush() {
+        log.force();
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                flush();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
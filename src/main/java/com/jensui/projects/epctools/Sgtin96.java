@@ -0,0 +1,147 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+
+/**
+ * Immutable SGTIN-96 value backed by the packed tag bits.
+ *
+ * <pre>
+ * header 8 | filter 3 | partition 3 | company prefix + item reference 44 | serial 38
+ * </pre>
+ *
+ * @author chpressler
+ */
+public final class Sgtin96 implements Epc96 {
+
+    public static final int HEADER = 0x30;
+    public static final long MAX_SERIAL = (1L << 38) - 1;
+
+    private static final long MASK_44 = (1L << 44) - 1;
+
+    private final long high;
+    private final long low;
+
+    Sgtin96(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    @Override
+    public ENCODING getEncoding() {
+        return ENCODING.SGTIN_96;
+    }
+
+    @Override
+    public long getHigh() {
+        return high;
+    }
+
+    @Override
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public int getFilter() {
+        return (int) (high >>> 53) & 0x7;
+    }
+
+    @Override
+    public int getPartition() {
+        return (int) (high >>> 50) & 0x7;
+    }
+
+    @Override
+    public long getCompanyPrefix() {
+        return ((high >>> 6) & MASK_44) >>> PartitionTable.ITEM_REFERENCE_BITS[getPartition()];
+    }
+
+    /**
+     * @return the item reference incl. the leading indicator digit
+     */
+    public long getItemReference() {
+        return (high >>> 6) & ((1L << PartitionTable.ITEM_REFERENCE_BITS[getPartition()]) - 1);
+    }
+
+    public long getSerial() {
+        return ((high & 0x3F) << 32) | low;
+    }
+
+    @Override
+    public String getCompanyPrefixString() {
+        return Digits.padded(getCompanyPrefix(), PartitionTable.COMPANY_PREFIX_DIGITS[getPartition()]);
+    }
+
+    public String getItemReferenceString() {
+        return Digits.padded(getItemReference(), PartitionTable.ITEM_REFERENCE_DIGITS[getPartition()]);
+    }
+
+    /**
+     * @return the serial left padded to 12 digits like
+     * {@link EPCTools#parseHexString(String)} does
+     */
+    public String getSerialNumberString() {
+        return Digits.padded(getSerial(), 12);
+    }
+
+    /**
+     * @return the GTIN-14 incl. check digit
+     */
+    public String getGTIN() {
+        int partition = getPartition();
+        int cpDigits = PartitionTable.COMPANY_PREFIX_DIGITS[partition];
+        int irDigits = PartitionTable.ITEM_REFERENCE_DIGITS[partition];
+        char[] c = new char[14];
+        long itemRef = getItemReference();
+        // indicator digit first, then company prefix, then the rest of the item reference
+        Digits.writePadded(itemRef, irDigits, c, cpDigits);
+        c[0] = c[cpDigits];
+        Digits.writePadded(getCompanyPrefix(), cpDigits, c, 1);
+        Digits.writePadded(itemRef, irDigits - 1, c, cpDigits + 1);
+        c[13] = (char) ('0' + CheckDigit.compute(c, 0, 13));
+        return new String(c);
+    }
+
+    @Override
+    public void appendPureIdentityURI(StringBuilder sb) {
+        appendURI(sb.append("urn:epc:id:sgtin:"));
+    }
+
+    @Override
+    public void appendTagURI(StringBuilder sb) {
+        appendURI(sb.append("urn:epc:tag:sgtin-96:").append(getFilter()).append('.'));
+    }
+
+    private void appendURI(StringBuilder sb) {
+        int partition = getPartition();
+        Digits.appendPadded(sb, getCompanyPrefix(), PartitionTable.COMPANY_PREFIX_DIGITS[partition]);
+        sb.append('.');
+        Digits.appendPadded(sb, getItemReference(), PartitionTable.ITEM_REFERENCE_DIGITS[partition]);
+        sb.append('.').append(getSerial());
+    }
+
+    @Override
+    public String toHexString() {
+        return HexCodec.toHex96(high, low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Sgtin96)) {
+            return false;
+        }
+        Sgtin96 other = (Sgtin96) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = high * 31 + low;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "SGTIN_96[" + toHexString() + "]";
+    }
+}
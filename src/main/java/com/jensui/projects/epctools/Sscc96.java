@@ -0,0 +1,143 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+
+/**
+ * Immutable SSCC-96 value backed by the packed tag bits.
+ *
+ * <pre>
+ * header 8 | filter 3 | partition 3 | company prefix + serial reference 58 | unallocated 24
+ * </pre>
+ *
+ * @author chpressler
+ */
+public final class Sscc96 implements Epc96 {
+
+    public static final int HEADER = 0x31;
+
+    private static final long MASK_50 = (1L << 50) - 1;
+
+    private final long high;
+    private final long low;
+
+    Sscc96(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    @Override
+    public ENCODING getEncoding() {
+        return ENCODING.SSCC;
+    }
+
+    @Override
+    public long getHigh() {
+        return high;
+    }
+
+    @Override
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public int getFilter() {
+        return (int) (high >>> 53) & 0x7;
+    }
+
+    @Override
+    public int getPartition() {
+        return (int) (high >>> 50) & 0x7;
+    }
+
+    private long prefixAndReference() {
+        return ((high & MASK_50) << 8) | (low >>> 24);
+    }
+
+    @Override
+    public long getCompanyPrefix() {
+        return prefixAndReference() >>> PartitionTable.SERIAL_REFERENCE_BITS[getPartition()];
+    }
+
+    /**
+     * @return the serial reference incl. the leading extension digit
+     */
+    public long getSerialReference() {
+        return prefixAndReference() & ((1L << PartitionTable.SERIAL_REFERENCE_BITS[getPartition()]) - 1);
+    }
+
+    public int getUnallocated() {
+        return (int) (low & 0xFFFFFF);
+    }
+
+    @Override
+    public String getCompanyPrefixString() {
+        return Digits.padded(getCompanyPrefix(), PartitionTable.COMPANY_PREFIX_DIGITS[getPartition()]);
+    }
+
+    public String getSerialReferenceString() {
+        return Digits.padded(getSerialReference(), PartitionTable.SERIAL_REFERENCE_DIGITS[getPartition()]);
+    }
+
+    /**
+     * @return the SSCC-18 incl. check digit
+     */
+    public String getSSCC() {
+        int partition = getPartition();
+        int cpDigits = PartitionTable.COMPANY_PREFIX_DIGITS[partition];
+        int srDigits = PartitionTable.SERIAL_REFERENCE_DIGITS[partition];
+        char[] c = new char[18];
+        long serialRef = getSerialReference();
+        // extension digit first, then company prefix, then the rest of the serial reference
+        Digits.writePadded(serialRef, srDigits, c, cpDigits);
+        c[0] = c[cpDigits];
+        Digits.writePadded(getCompanyPrefix(), cpDigits, c, 1);
+        Digits.writePadded(serialRef, srDigits - 1, c, cpDigits + 1);
+        c[17] = (char) ('0' + CheckDigit.compute(c, 0, 17));
+        return new String(c);
+    }
+
+    /**
+     * The serial reference is written without leading zeros like
+     * {@link EPCTools#createEPCPureIdentityURI(String)} does.
+     */
+    @Override
+    public void appendPureIdentityURI(StringBuilder sb) {
+        appendURI(sb.append("urn:epc:id:sscc:"));
+    }
+
+    @Override
+    public void appendTagURI(StringBuilder sb) {
+        appendURI(sb.append("urn:epc:tag:sscc-96:").append(getFilter()).append('.'));
+    }
+
+    private void appendURI(StringBuilder sb) {
+        Digits.appendPadded(sb, getCompanyPrefix(), PartitionTable.COMPANY_PREFIX_DIGITS[getPartition()]);
+        sb.append('.').append(getSerialReference());
+    }
+
+    @Override
+    public String toHexString() {
+        return HexCodec.toHex96(high, low);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Sscc96)) {
+            return false;
+        }
+        Sscc96 other = (Sscc96) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = high * 31 + low;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "SSCC[" + toHexString() + "]";
+    }
+}
@@ -0,0 +1,217 @@
+package com.jensui.projects.epctools.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Converts line based EPC dump files of any size. The input is memory mapped
+ * segment by segment, every segment is cut at line breaks into one chunk per
+ * worker thread and the chunks are converted in parallel. The outputs of the
+ * chunks are written in input order through a FileChannel, so the output
+ * lines keep the order of the input lines. Lines failing to convert are
+ * counted and skipped, empty lines are ignored.
+ *
+ * @author chpressler
+ */
+public class DumpConverter {
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final LineConverter converter;
+    private final int threads;
+    private final int segmentSize;
+
+    public DumpConverter(LineConverter converter, int threads) {
+        this(converter, threads, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize bytes mapped at once, must be larger than the
+     * longest line
+     */
+    public DumpConverter(LineConverter converter, int threads, int segmentSize) {
+        this.converter = converter;
+        this.threads = Math.max(1, threads);
+        this.segmentSize = segmentSize;
+    }
+
+    public Stats convert(Path input, Path output) throws Exception {
+        long started = System.nanoTime();
+        Stats stats = new Stats();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(segmentSize, size - position);
+                MappedByteBuffer segment = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    end = lastLineEnd(segment, end);
+                    if (end == 0) {
+                        throw new IOException("line longer than segment size at offset: " + position);
+                    }
+                }
+                convertSegment(executor, segment, end, out, stats);
+                position += end;
+            }
+            stats.bytes = size;
+        } finally {
+            executor.shutdown();
+        }
+        stats.nanos = System.nanoTime() - started;
+        return stats;
+    }
+
+    private void convertSegment(ExecutorService executor, final ByteBuffer segment, int length, FileChannel out, Stats stats) throws Exception {
+        List<Future<Chunk>> futures = new ArrayList<>(threads);
+        int start = 0;
+        for (int t = threads; t > 0 && start < length; t--) {
+            int end = t == 1 ? length : nextLineStart(segment, start + (length - start) / t, length);
+            final int from = start;
+            final int to = end;
+            futures.add(executor.submit(new Callable<Chunk>() {
+                @Override
+                public Chunk call() {
+                    return convertChunk(segment, from, to);
+                }
+            }));
+            start = end;
+        }
+        for (Future<Chunk> future : futures) {
+            Chunk chunk = future.get();
+            ByteBuffer bytes = ByteBuffer.wrap(chunk.out, 0, chunk.length);
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            stats.lines += chunk.lines;
+            stats.errors += chunk.errors;
+        }
+    }
+
+    Chunk convertChunk(ByteBuffer in, int start, int end) {
+        Chunk chunk = new Chunk(end - start + (end - start) / 2);
+        StringBuilder sb = new StringBuilder(128);
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && in.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+            while (lineEnd > lineStart && in.get(lineEnd - 1) <= ' ') {
+                lineEnd--;
+            }
+            while (lineStart < lineEnd && in.get(lineStart) <= ' ') {
+                lineStart++;
+            }
+            if (lineStart < lineEnd) {
+                chunk.lines++;
+                sb.setLength(0);
+                try {
+                    converter.convert(in, lineStart, lineEnd, sb);
+                    chunk.append(sb);
+                } catch (Exception e) {
+                    chunk.errors++;
+                }
+            }
+            lineStart = next;
+        }
+        return chunk;
+    }
+
+    /**
+     * @return the index after the last line break before end, 0 if there is
+     * none
+     */
+    static int lastLineEnd(ByteBuffer segment, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (segment.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    static int nextLineStart(ByteBuffer segment, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (segment.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Output of one chunk as ASCII bytes.
+     */
+    static final class Chunk {
+
+        byte[] out;
+        int length;
+        long lines;
+        long errors;
+
+        Chunk(int capacity) {
+            out = new byte[Math.max(capacity, 64)];
+        }
+
+        void append(StringBuilder line) {
+            int needed = length + line.length() + 1;
+            if (needed > out.length) {
+                byte[] grown = new byte[Math.max(needed, out.length * 2)];
+                System.arraycopy(out, 0, grown, 0, length);
+                out = grown;
+            }
+            for (int i = 0, n = line.length(); i < n; i++) {
+                out[length++] = (byte) line.charAt(i);
+            }
+            out[length++] = '\n';
+        }
+    }
+
+    /**
+     * Counters of a conversion run.
+     */
+    public static final class Stats {
+
+        long lines;
+        long errors;
+        long bytes;
+        long nanos;
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format("%d lines, %d errors, %.3f s, %.0f lines/s, %.1f MB/s",
+                    lines, errors, seconds, lines / seconds, bytes / seconds / (1 << 20));
+        }
+    }
+}
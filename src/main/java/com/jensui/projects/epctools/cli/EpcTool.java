@@ -0,0 +1,80 @@
+package com.jensui.projects.epctools.cli;
+
+import com.jensui.projects.epctools.CompanyPrefixResolver;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line converter for EPC dump files.
+ *
+ * <pre>
+ * java -cp EPCTools.jar com.jensui.projects.epctools.cli.EpcTool decode [-f uri|tag_uri|gtin_csv|hex] [-t threads] input output
+ * java -cp EPCTools.jar com.jensui.projects.epctools.cli.EpcTool encode [-f hex|uri|tag_uri] [-filter n] [-gcp file] [-t threads] input output
+ * </pre>
+ *
+ * decode reads one hex EPC per line, encode reads one
+ * <code>GTIN-14,serial</code> per line and writes SGTIN-96, with the company
+ * prefix lengths of the GS1 prefix table file given by -gcp. Throughput and
+ * error counts are reported on stderr.
+ *
+ * @author chpressler
+ */
+public class EpcTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            usage();
+            return;
+        }
+        String mode = args[0];
+        OutputFormat format = "encode".equals(mode) ? OutputFormat.HEX : OutputFormat.URI;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int filter = 1;
+        CompanyPrefixResolver resolver = CompanyPrefixResolver.getDefault();
+        int i = 1;
+        for (; i < args.length - 2; i += 2) {
+            switch (args[i]) {
+                case "-f":
+                    format = OutputFormat.valueOf(args[i + 1].toUpperCase());
+                    break;
+                case "-t":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-filter":
+                    filter = Integer.parseInt(args[i + 1]);
+                    break;
+                case "-gcp":
+                    resolver = CompanyPrefixResolver.load(Paths.get(args[i + 1]));
+                    break;
+                default:
+                    usage();
+                    return;
+            }
+        }
+        if (i != args.length - 2) {
+            usage();
+            return;
+        }
+        LineConverter converter;
+        if ("decode".equals(mode)) {
+            converter = LineConverter.decoder(format);
+        } else if ("encode".equals(mode)) {
+            converter = LineConverter.sgtin96Encoder(filter, format, resolver);
+        } else {
+            usage();
+            return;
+        }
+        Path input = Paths.get(args[args.length - 2]);
+        Path output = Paths.get(args[args.length - 1]);
+        DumpConverter.Stats stats = new DumpConverter(converter, threads).convert(input, output);
+        System.err.println(stats);
+        if (stats.getErrors() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("usage: EpcTool decode [-f uri|tag_uri|gtin_csv|hex] [-t threads] input output");
+        System.err.println("       EpcTool encode [-f hex|uri|tag_uri] [-filter n] [-gcp file] [-t threads] input output");
+    }
+}
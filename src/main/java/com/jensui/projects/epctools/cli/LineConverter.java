@@ -0,0 +1,115 @@
+package com.jensui.projects.epctools.cli;
+
+import com.jensui.projects.epctools.CompanyPrefixResolver;
+import com.jensui.projects.epctools.EpcDecoder;
+import com.jensui.projects.epctools.EpcEncoder;
+import com.jensui.projects.epctools.HexBatch;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts one input line, given as byte range of a mapped file, into one
+ * output line. Implementations are stateless and shared by all workers.
+ *
+ * @author chpressler
+ */
+public abstract class LineConverter {
+
+    private static final long[] POWERS = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    /**
+     * @param in the mapped input, only read with absolute gets
+     * @param start index of the first byte of the line
+     * @param end index after the last byte of the line, without line break
+     * @param out receives the output line without line break
+     * @throws Exception if the line can not be converted
+     */
+    public abstract void convert(ByteBuffer in, int start, int end, StringBuilder out) throws Exception;
+
+    /**
+     * Hex EPC per line to the given format. 96 bit tags are decoded straight
+     * from the mapped bytes 8 characters at a time (see {@link HexBatch}),
+     * other lengths go through EPCTools.
+     */
+    public static LineConverter decoder(final OutputFormat format) {
+        return new LineConverter() {
+            @Override
+            public void convert(ByteBuffer in, int start, int end, StringBuilder out) throws Exception {
+                if (end - start == 24) {
+                    long a = HexBatch.parse8(in, start);
+                    long b = HexBatch.parse8(in, start + 8);
+                    long c = HexBatch.parse8(in, start + 16);
+                    if ((a | b | c) < 0) {
+                        throw new Exception("invalid hex characters at index: " + start);
+                    }
+                    format.append(EpcDecoder.decode(a << 32 | b, c), out);
+                } else {
+                    format.append(ascii(in, start, end), out);
+                }
+            }
+        };
+    }
+
+    /**
+     * <code>GTIN-14,serial</code> per line to SGTIN-96 in the given format,
+     * with the company prefix lengths of the default resolver like
+     * {@link com.jensui.projects.epctools.EPCTools#createSGTIN_96HexEPC(int, String, String)}.
+     */
+    public static LineConverter sgtin96Encoder(final int filter, final OutputFormat format) throws IOException {
+        return sgtin96Encoder(filter, format, CompanyPrefixResolver.getDefault());
+    }
+
+    /**
+     * @param resolver company prefix lengths, null for a 6 digit company
+     * prefix
+     */
+    public static LineConverter sgtin96Encoder(final int filter, final OutputFormat format, final CompanyPrefixResolver resolver) {
+        return new LineConverter() {
+            @Override
+            public void convert(ByteBuffer in, int start, int end, StringBuilder out) throws Exception {
+                int comma = start + 14;
+                if (end - start < 16 || in.get(comma) != ',') {
+                    throw new Exception("expected GTIN-14,serial");
+                }
+                int digits = 6;
+                if (resolver != null) {
+                    digits = resolver.getLength(in, start + 1, comma);
+                    if (digits < 6) {
+                        throw new Exception("no EPC company prefix length for GTIN: " + ascii(in, start, comma));
+                    }
+                }
+                int itemEnd = start + 13;
+                long companyPrefix = decimal(in, start + 1, start + 1 + digits);
+                long itemRef = decimal(in, start, start + 1);
+                if (digits < 12) {
+                    itemRef = itemRef * POWERS[12 - digits] + decimal(in, start + 1 + digits, itemEnd);
+                }
+                long serial = decimal(in, comma + 1, end);
+                format.append(EpcEncoder.sgtin96(filter, 12 - digits, companyPrefix, itemRef, serial), out);
+            }
+        };
+    }
+
+    static long decimal(ByteBuffer in, int start, int end) throws Exception {
+        if (end <= start || end - start > 18) {
+            throw new Exception("expected 1 - 18 decimal digits at index: " + start);
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int d = in.get(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new Exception("not a decimal digit at index: " + i);
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    static String ascii(ByteBuffer in, int start, int end) {
+        char[] c = new char[end - start];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (char) (in.get(start + i) & 0xFF);
+        }
+        return new String(c);
+    }
+}
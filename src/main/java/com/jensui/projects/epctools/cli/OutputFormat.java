@@ -0,0 +1,93 @@
+package com.jensui.projects.epctools.cli;
+
+import com.jensui.projects.epctools.EPCTools;
+import com.jensui.projects.epctools.Epc96;
+import com.jensui.projects.epctools.HexCodec;
+import com.jensui.projects.epctools.Sgtin96;
+import com.jensui.projects.epctools.Sscc96;
+import java.util.HashMap;
+
+/**
+ * The line formats written by the {@link EpcTool}.
+ *
+ * @author chpressler
+ */
+public enum OutputFormat {
+
+    /**
+     * urn:epc:id:... pure identity URI
+     */
+    URI,
+    /**
+     * urn:epc:tag:... tag URI
+     */
+    TAG_URI,
+    /**
+     * GTIN-14,serial for SGTIN and SSCC-18, for SSCC, an empty key for the
+     * other schemes
+     */
+    GTIN_CSV,
+    /**
+     * upper case hex
+     */
+    HEX;
+
+    void append(Epc96 epc, StringBuilder sb) {
+        switch (this) {
+            case URI:
+                epc.appendPureIdentityURI(sb);
+                break;
+            case TAG_URI:
+                epc.appendTagURI(sb);
+                break;
+            case GTIN_CSV:
+                if (epc instanceof Sgtin96) {
+                    Sgtin96 sgtin = (Sgtin96) epc;
+                    sb.append(sgtin.getGTIN()).append(',').append(sgtin.getSerial());
+                } else if (epc instanceof Sscc96) {
+                    sb.append(((Sscc96) epc).getSSCC()).append(',');
+                } else {
+                    sb.append(',');
+                }
+                break;
+            default:
+                HexCodec.appendHex(sb, epc.getHigh(), 16);
+                HexCodec.appendHex(sb, epc.getLow(), 8);
+        }
+    }
+
+    /**
+     * Formats tags the bit-level decoder does not handle (e.g. SGTIN-198)
+     * through the string based EPCTools methods.
+     */
+    void append(String epcHex, StringBuilder sb) throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        switch (this) {
+            case URI:
+                sb.append(tools.createEPCPureIdentityURI(epcHex));
+                break;
+            case TAG_URI:
+                sb.append(tools.createEPCTagIdURI(epcHex));
+                break;
+            case GTIN_CSV:
+                HashMap<EPCTools.TAG_DATA, String> map = tools.parseHexString(epcHex);
+                String gtin = tools.getGTIN(map);
+                if (gtin != null) {
+                    sb.append(gtin).append(',').append(tools.getSerialNumber(map));
+                } else {
+                    // null for GRAI-170, GIAI-202 and SGLN-195
+                    String sscc = tools.getSSCC(map);
+                    if (sscc != null) {
+                        sb.append(sscc);
+                    }
+                    sb.append(',');
+                }
+                break;
+            default:
+                if (tools.getEncoding(epcHex) == null) {
+                    throw new Exception("unsupported Header: " + epcHex.substring(0, 2));
+                }
+                sb.append(epcHex.toUpperCase());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.jensui.projects.epctools.epcis;
+
+/**
+ * The fields of an EPCIS 2.0 ObjectEvent or AggregationEvent except its
+ * EPCs, which are streamed by the {@link EpcisWriter}. Optional fields are
+ * null. Instances are mutable and can be reused for the next event once it
+ * is ended.
+ *
+ * @author chpressler
+ */
+public class EpcisEvent {
+
+    public enum Type {
+
+        OBJECT("ObjectEvent", "epcList"),
+        AGGREGATION("AggregationEvent", "childEPCs");
+
+        final String element;
+        final String epcList;
+
+        Type(String element, String epcList) {
+            this.element = element;
+            this.epcList = epcList;
+        }
+    }
+
+    public enum Action {
+
+        ADD, OBSERVE, DELETE
+    }
+
+    private Type type = Type.OBJECT;
+    private Action action = Action.OBSERVE;
+    private long eventTime;
+    private String eventTimeZoneOffset = "+00:00";
+    private String parentID;
+    private String bizStep;
+    private String disposition;
+    private String readPoint;
+    private String bizLocation;
+
+    public EpcisEvent() {
+    }
+
+    public EpcisEvent(Type type, Action action, long eventTime) {
+        this.type = type;
+        this.action = action;
+        this.eventTime = eventTime;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    /**
+     * @return milliseconds since the epoch
+     */
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public void setEventTime(long eventTime) {
+        this.eventTime = eventTime;
+    }
+
+    public String getEventTimeZoneOffset() {
+        return eventTimeZoneOffset;
+    }
+
+    /**
+     * @param eventTimeZoneOffset e.g. <code>+02:00</code>
+     */
+    public void setEventTimeZoneOffset(String eventTimeZoneOffset) {
+        this.eventTimeZoneOffset = eventTimeZoneOffset;
+    }
+
+    public String getParentID() {
+        return parentID;
+    }
+
+    /**
+     * @param parentID pure identity URI of the pallet or case, required for
+     * aggregation events with action ADD or DELETE
+     */
+    public void setParentID(String parentID) {
+        this.parentID = parentID;
+    }
+
+    public String getBizStep() {
+        return bizStep;
+    }
+
+    /**
+     * @param bizStep CBV business step, e.g. <code>shipping</code>
+     */
+    public void setBizStep(String bizStep) {
+        this.bizStep = bizStep;
+    }
+
+    public String getDisposition() {
+        return disposition;
+    }
+
+    /**
+     * @param disposition CBV disposition, e.g. <code>in_transit</code>
+     */
+    public void setDisposition(String disposition) {
+        this.disposition = disposition;
+    }
+
+    public String getReadPoint() {
+        return readPoint;
+    }
+
+    /**
+     * @param readPoint SGLN pure identity URI
+     */
+    public void setReadPoint(String readPoint) {
+        this.readPoint = readPoint;
+    }
+
+    public String getBizLocation() {
+        return bizLocation;
+    }
+
+    public void setBizLocation(String bizLocation) {
+        this.bizLocation = bizLocation;
+    }
+}
@@ -0,0 +1,444 @@
+package com.jensui.projects.epctools.epcis;
+
+import com.jensui.projects.epctools.Epc96;
+import com.jensui.projects.epctools.EpcDecoder;
+import com.jensui.projects.epctools.EpcUri;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams an EPCIS 2.0 document in XML or JSON-LD. The EPCs of an event are
+ * written one by one as pure identity URIs straight into the output, so
+ * memory stays the same for ten or a hundred thousand EPCs per event: the
+ * char buffer of the output and the StringBuilders for URIs and times are
+ * reused for the whole document.
+ *
+ * <pre>
+ * writer.startDocument();
+ * writer.startEvent(event);
+ * for (...) {
+ *     writer.epc(high, low);
+ * }
+ * writer.endEvent();
+ * writer.endDocument();
+ * </pre>
+ *
+ * With {@link #setMaxEpcsPerEvent(int)} a large event is split into several
+ * events with the same fields and at most that many EPCs each.
+ *
+ * Not thread safe.
+ *
+ * @author chpressler
+ */
+public class EpcisWriter implements Closeable, Flushable {
+
+    public enum Format {
+
+        XML, JSON_LD
+    }
+
+    public static final String SCHEMA_VERSION = "2.0";
+    public static final String XML_NAMESPACE = "urn:epcglobal:epcis:xsd:2";
+    public static final String JSON_LD_CONTEXT = "https://ref.gs1.org/standards/epcis/epcis-context.jsonld";
+
+    private static final String BIZSTEP = "urn:epcglobal:cbv:bizstep:";
+    private static final String DISPOSITION = "urn:epcglobal:cbv:disp:";
+    private static final int NEW = 0;
+    private static final int DOCUMENT = 1;
+    private static final int EVENT = 2;
+    private static final int ENDED = 3;
+
+    private final Writer out;
+    private final Format format;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder uri = new StringBuilder(128);
+    /**
+     * separate from uri, a split writes the event time of the next event
+     * while the EPC URI is pending
+     */
+    private final StringBuilder time = new StringBuilder(32);
+    private int position;
+    private int maxEpcsPerEvent;
+    private int state = NEW;
+    private EpcisEvent event;
+    private int epcs;
+    private long events;
+    private long totalEpcs;
+
+    public EpcisWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Writes UTF-8 to the stream.
+     */
+    public EpcisWriter(OutputStream out, Format format) {
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8), format);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public int getMaxEpcsPerEvent() {
+        return maxEpcsPerEvent;
+    }
+
+    /**
+     * @param maxEpcsPerEvent EPCs after which an event is split, 0 for no
+     * limit
+     */
+    public void setMaxEpcsPerEvent(int maxEpcsPerEvent) {
+        if (maxEpcsPerEvent < 0) {
+            throw new IllegalArgumentException("invalid max EPCs per event: " + maxEpcsPerEvent);
+        }
+        this.maxEpcsPerEvent = maxEpcsPerEvent;
+    }
+
+    /**
+     * @return the number of written events, split events counted one by one
+     */
+    public long getEventCount() {
+        return events;
+    }
+
+    public long getEpcCount() {
+        return totalEpcs;
+    }
+
+    public void startDocument() throws IOException {
+        startDocument(System.currentTimeMillis());
+    }
+
+    /**
+     * @param creationDate milliseconds since the epoch
+     */
+    public void startDocument(long creationDate) throws IOException {
+        check(NEW);
+        if (format == Format.XML) {
+            write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<epcis:EPCISDocument xmlns:epcis=\"");
+            write(XML_NAMESPACE);
+            write("\" schemaVersion=\"");
+            write(SCHEMA_VERSION);
+            write("\" creationDate=\"");
+            writeTime(creationDate);
+            write("\">\n  <EPCISBody>\n    <EventList>\n");
+        } else {
+            write("{\"@context\":[\"");
+            write(JSON_LD_CONTEXT);
+            write("\"],\"type\":\"EPCISDocument\",\"schemaVersion\":\"");
+            write(SCHEMA_VERSION);
+            write("\",\"creationDate\":\"");
+            writeTime(creationDate);
+            write("\",\"epcisBody\":{\"eventList\":[");
+        }
+        state = DOCUMENT;
+    }
+
+    /**
+     * Starts an event. The event must not be changed until
+     * {@link #endEvent()}, its fields are written again for every split.
+     */
+    public void startEvent(EpcisEvent event) throws IOException {
+        check(DOCUMENT);
+        if (event.getType() == null || event.getAction() == null) {
+            throw new IllegalArgumentException("event type and action are required");
+        }
+        this.event = event;
+        openEvent();
+        state = EVENT;
+    }
+
+    /**
+     * Writes a 96 bit EPC, e.g. an SGTIN-96 or SSCC-96.
+     *
+     * @param low bits 64..95 in the lower 32 bits
+     */
+    public void epc(long high, long low) throws Exception {
+        check(EVENT);
+        uri.setLength(0);
+        EpcDecoder.decode(high, low).appendPureIdentityURI(uri);
+        writeEpc(uri);
+    }
+
+    public void epc(Epc96 epc) throws IOException {
+        check(EVENT);
+        uri.setLength(0);
+        epc.appendPureIdentityURI(uri);
+        writeEpc(uri);
+    }
+
+    /**
+     * Writes an EPC given as hex string, 96 bit or e.g. SGTIN-198.
+     */
+    public void epcHex(CharSequence epcHex) throws Exception {
+        check(EVENT);
+        uri.setLength(0);
+        EpcUri.appendPureIdentityURI(epcHex, uri);
+        writeEpc(uri);
+    }
+
+    /**
+     * Writes an EPC which already is a pure identity URI.
+     */
+    public void uri(CharSequence epcUri) throws IOException {
+        check(EVENT);
+        writeEpc(epcUri);
+    }
+
+    private void writeEpc(CharSequence epcUri) throws IOException {
+        if (maxEpcsPerEvent > 0 && epcs == maxEpcsPerEvent) {
+            closeEvent();
+            openEvent();
+        }
+        if (format == Format.XML) {
+            write("        <epc>");
+            escaped(epcUri);
+            write("</epc>\n");
+        } else {
+            write(epcs == 0 ? "\"" : ",\"");
+            escaped(epcUri);
+            write('"');
+        }
+        epcs++;
+        totalEpcs++;
+    }
+
+    public void endEvent() throws IOException {
+        check(EVENT);
+        closeEvent();
+        event = null;
+        state = DOCUMENT;
+    }
+
+    /**
+     * Ends the document and flushes the output.
+     */
+    public void endDocument() throws IOException {
+        check(DOCUMENT);
+        write(format == Format.XML ? "    </EventList>\n  </EPCISBody>\n</epcis:EPCISDocument>\n" : "]}}");
+        state = ENDED;
+        flush();
+    }
+
+    private void openEvent() throws IOException {
+        EpcisEvent.Type type = event.getType();
+        if (format == Format.XML) {
+            write("      <");
+            write(type.element);
+            write(">\n");
+            eventTime();
+            element("eventTimeZoneOffset", event.getEventTimeZoneOffset());
+            if (type == EpcisEvent.Type.AGGREGATION) {
+                element("parentID", event.getParentID());
+            }
+            write("        <");
+            write(type.epcList);
+            write(">\n");
+        } else {
+            write(events == 0 ? "{\"type\":\"" : ",{\"type\":\"");
+            write(type.element);
+            write("\",\"eventTime\":\"");
+            writeTime(event.getEventTime());
+            write('"');
+            field("eventTimeZoneOffset", event.getEventTimeZoneOffset());
+            if (type == EpcisEvent.Type.AGGREGATION) {
+                field("parentID", event.getParentID());
+            }
+            write(",\"");
+            write(type.epcList);
+            write("\":[");
+        }
+        epcs = 0;
+        events++;
+    }
+
+    private void closeEvent() throws IOException {
+        if (format == Format.XML) {
+            write("        </");
+            write(event.getType().epcList);
+            write(">\n");
+            element("action", event.getAction().name());
+            if (event.getBizStep() != null) {
+                element("bizStep", cbv(BIZSTEP, event.getBizStep()));
+            }
+            if (event.getDisposition() != null) {
+                element("disposition", cbv(DISPOSITION, event.getDisposition()));
+            }
+            location("readPoint", event.getReadPoint());
+            location("bizLocation", event.getBizLocation());
+            write("      </");
+            write(event.getType().element);
+            write(">\n");
+        } else {
+            write(']');
+            field("action", event.getAction().name());
+            field("bizStep", event.getBizStep());
+            field("disposition", event.getDisposition());
+            location("readPoint", event.getReadPoint());
+            location("bizLocation", event.getBizLocation());
+            write('}');
+        }
+    }
+
+    /**
+     * EPCIS 2.0 XML takes CBV values as URIs, JSON-LD also as bare names.
+     */
+    private static String cbv(String prefix, String value) {
+        return value.indexOf(':') < 0 ? prefix + value : value;
+    }
+
+    private void eventTime() throws IOException {
+        write("        <eventTime>");
+        writeTime(event.getEventTime());
+        write("</eventTime>\n");
+    }
+
+    /**
+     * Writes an XML element on its own line if value is not null.
+     */
+    private void element(String name, String value) throws IOException {
+        if (value != null) {
+            write("        <");
+            write(name);
+            write('>');
+            escaped(value);
+            write("</");
+            write(name);
+            write(">\n");
+        }
+    }
+
+    /**
+     * Writes a JSON string member if value is not null.
+     */
+    private void field(String name, String value) throws IOException {
+        if (value != null) {
+            write(",\"");
+            write(name);
+            write("\":\"");
+            escaped(value);
+            write('"');
+        }
+    }
+
+    private void location(String name, String id) throws IOException {
+        if (id == null) {
+            return;
+        }
+        if (format == Format.XML) {
+            write("        <");
+            write(name);
+            write("><id>");
+            escaped(id);
+            write("</id></");
+            write(name);
+            write(">\n");
+        } else {
+            write(",\"");
+            write(name);
+            write("\":{\"id\":\"");
+            escaped(id);
+            write("\"}");
+        }
+    }
+
+    private void writeTime(long millis) throws IOException {
+        time.setLength(0);
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(millis), time);
+        write(time);
+    }
+
+    private void check(int expected) {
+        if (state != expected) {
+            switch (expected) {
+                case NEW:
+                    throw new IllegalStateException("document already started");
+                case DOCUMENT:
+                    throw new IllegalStateException(state == EVENT ? "event not ended" : "no open document");
+                default:
+                    throw new IllegalStateException("no open event");
+            }
+        }
+    }
+
+    private void escaped(CharSequence s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (format == Format.XML) {
+                switch (c) {
+                    case '&':
+                        write("&amp;");
+                        break;
+                    case '<':
+                        write("&lt;");
+                        break;
+                    case '>':
+                        write("&gt;");
+                        break;
+                    case '"':
+                        write("&quot;");
+                        break;
+                    default:
+                        write(c);
+                }
+            } else if (c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            } else if (c < 0x20) {
+                write("\\u00");
+                write(Character.forDigit(c >> 4, 16));
+                write(Character.forDigit(c & 0xF, 16));
+            } else {
+                write(c);
+            }
+        }
+    }
+
+    private void write(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+    }
+
+    private void write(CharSequence s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = s.charAt(i);
+        }
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the output, without ending an open document.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.jensui.projects.epctools.ingest;
+
+import com.jensui.projects.epctools.DecodeResult;
+import com.jensui.projects.epctools.DecodeStatus;
+import com.jensui.projects.epctools.Epc96;
+import com.jensui.projects.epctools.EpcDecoder;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Raw frames of one connection, copied out of the socket buffer by the
+ * selector thread and decoded on a worker thread.
+ *
+ * @author chpressler
+ */
+final class Batch {
+
+    static final int FRAMES = 256;
+
+    final Framing framing;
+    final ConnectionStats source;
+    private byte[] data = new byte[FRAMES * 32];
+    private final int[] offsets = new int[FRAMES];
+    private final int[] lengths = new int[FRAMES];
+    private int count;
+    private int size;
+
+    Batch(Framing framing, ConnectionStats source) {
+        this.framing = framing;
+        this.source = source;
+    }
+
+    void add(ByteBuffer in, int index, int length) {
+        if (size + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + length));
+        }
+        for (int i = 0; i < length; i++) {
+            data[size + i] = in.get(index + i);
+        }
+        offsets[count] = size;
+        lengths[count] = length;
+        size += length;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == FRAMES;
+    }
+
+    /**
+     * Decodes all frames and counts them in the stats of the source. Frames
+     * failing to decode leave a null slot, as do alphanumeric tags (e.g.
+     * SGTIN-198) which are valid but have no Epc96 value; they are counted
+     * as skipped, not as errors.
+     */
+    void decode(Epc96[] out) {
+        DecodeResult result = new DecodeResult();
+        int errors = 0;
+        int skipped = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = offsets[i];
+            boolean valid;
+            if (framing == Framing.HEX_LINES) {
+                valid = EpcDecoder.tryDecodeHex(data, offset, lengths[i], result) == DecodeStatus.OK;
+            } else {
+                valid = lengths[i] == 12 && EpcDecoder.tryDecode(data, offset, result) == DecodeStatus.OK;
+            }
+            out[i] = valid ? result.toEpc96() : null;
+            if (!valid) {
+                errors++;
+            } else if (out[i] == null) {
+                skipped++;
+            }
+        }
+        source.errors.addAndGet(errors);
+        source.skipped.addAndGet(skipped);
+        source.decoded.addAndGet(count - errors - skipped);
+    }
+}
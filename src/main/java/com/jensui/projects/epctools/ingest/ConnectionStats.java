@@ -0,0 +1,91 @@
+package com.jensui.projects.epctools.ingest;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one TCP connection or one UDP sender. Bytes and frames are
+ * counted by the selector thread, decoded and failed tags by the workers.
+ *
+ * @author chpressler
+ */
+public final class ConnectionStats {
+
+    private final String protocol;
+    private final SocketAddress remote;
+    private final long opened = System.nanoTime();
+    private volatile long closed;
+    final AtomicLong bytes = new AtomicLong();
+    final AtomicLong frames = new AtomicLong();
+    final AtomicLong decoded = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong skipped = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+
+    ConnectionStats(String protocol, SocketAddress remote) {
+        this.protocol = protocol;
+        this.remote = remote;
+    }
+
+    void close() {
+        closed = System.nanoTime();
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public SocketAddress getRemote() {
+        return remote;
+    }
+
+    public boolean isClosed() {
+        return closed != 0;
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getFrames() {
+        return frames.get();
+    }
+
+    public long getDecoded() {
+        return decoded.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * @return valid alphanumeric tags (e.g. SGTIN-198), which are not passed
+     * to the sink
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return UDP frames dropped because all batch slots were taken
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return decoded tags per second since the connection was opened, up to
+     * its close
+     */
+    public double getThroughput() {
+        long end = closed != 0 ? closed : System.nanoTime();
+        return decoded.get() * 1e9 / Math.max(1, end - opened);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: %d frames, %d decoded, %d errors, %d skipped, %d dropped, %d bytes, %.0f tags/s%s",
+                protocol, remote, getFrames(), getDecoded(), getErrors(), getSkipped(), getDropped(), getBytes(), getThroughput(), isClosed() ? " (closed)" : "");
+    }
+}
@@ -0,0 +1,23 @@
+package com.jensui.projects.epctools.ingest;
+
+import com.jensui.projects.epctools.Epc96;
+
+/**
+ * Receives the decoded tags of the {@link IngestServer}. Called from the
+ * worker threads, one call per batch. A sink may block: the server then
+ * stops reading from its connections once all batch slots are taken, so TCP
+ * readers are slowed down instead of reports being dropped.
+ *
+ * @author chpressler
+ */
+public interface EpcSink {
+
+    /**
+     * @param epcs the decoded tags in report order, null where a frame failed
+     * to decode or held an alphanumeric tag (SGTIN-198, GRAI-170, GIAI-202,
+     * SGLN-195), see {@link ConnectionStats#getSkipped()}. The array is
+     * owned by the sink.
+     * @param count the number of valid slots in epcs
+     */
+    void accept(ConnectionStats source, Epc96[] epcs, int count) throws InterruptedException;
+}
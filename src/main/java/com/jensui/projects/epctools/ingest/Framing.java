@@ -0,0 +1,88 @@
+package com.jensui.projects.epctools.ingest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * How EPC reports are framed on a socket. UDP datagrams carry one or more
+ * complete frames.
+ *
+ * @author chpressler
+ */
+public enum Framing {
+
+    /**
+     * one EPC as hex characters per line, terminated by '\n'. Surrounding
+     * white space and '\r' are ignored, so are empty lines.
+     */
+    HEX_LINES,
+    /**
+     * one length byte followed by that many EPC bytes, most significant byte
+     * first, e.g. 0x0C and the 12 bytes of a 96 bit tag
+     */
+    BINARY;
+
+    /**
+     * lines without '\n' within this many bytes are cut and fail to decode
+     */
+    static final int MAX_LINE = 128;
+
+    /**
+     * Moves the next frame from the position of in to the batch.
+     *
+     * @return false if in does not hold a complete frame
+     */
+    boolean next(ByteBuffer in, Batch batch) {
+        int start = in.position();
+        if (this == BINARY) {
+            if (in.remaining() < 1 || in.remaining() < 1 + (in.get(start) & 0xFF)) {
+                return false;
+            }
+            int length = in.get(start) & 0xFF;
+            batch.add(in, start + 1, length);
+            in.position(start + 1 + length);
+            return true;
+        }
+        int limit = Math.min(in.limit(), start + MAX_LINE);
+        for (int i = start; i < limit; i++) {
+            if (in.get(i) == '\n') {
+                addTrimmed(in, start, i, batch);
+                in.position(i + 1);
+                return true;
+            }
+        }
+        if (limit - start < MAX_LINE) {
+            return false;
+        }
+        batch.add(in, start, MAX_LINE);
+        in.position(limit);
+        return true;
+    }
+
+    /**
+     * Moves the rest of in, a last frame without terminator, to the batch.
+     * Incomplete binary frames fail to decode.
+     */
+    void finish(ByteBuffer in, Batch batch) {
+        if (!in.hasRemaining()) {
+            return;
+        }
+        if (this == HEX_LINES) {
+            addTrimmed(in, in.position(), in.limit(), batch);
+        } else {
+            batch.add(in, in.position(), in.remaining());
+        }
+        in.position(in.limit());
+    }
+
+    private static void addTrimmed(ByteBuffer in, int start, int end, Batch batch) {
+        while (start < end && in.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && in.get(end - 1) <= ' ') {
+            end--;
+        }
+        if (end > start) {
+            batch.add(in, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.jensui.projects.epctools.ingest;
+
+import com.jensui.projects.epctools.Epc96;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Receives EPC reports from many readers over TCP and UDP and decodes them
+ * in-process. One selector thread reads all sockets and cuts the byte
+ * streams into frames (see {@link Framing}); the frames are collected into
+ * batches of up to {@link Batch#FRAMES} which are decoded on the worker
+ * threads and handed to the {@link EpcSink}. Alphanumeric tags such as
+ * SGTIN-198 have no {@link com.jensui.projects.epctools.Epc96} value, they
+ * are not passed to the sink and only counted as skipped.
+ *
+ * At most maxBatches batches are queued or in work at any time. When all
+ * slots are taken, a TCP connection stops being read until a batch
+ * completes, which pushes back to the reader through TCP flow control. UDP
+ * frames cannot be held back and are counted as dropped instead.
+ *
+ * All listeners are bound before {@link #start()}.
+ *
+ * @author chpressler
+ */
+public final class IngestServer implements Closeable {
+
+    static final int BUFFER_SIZE = 64 << 10;
+
+    private final EpcSink sink;
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    private final Selector selector;
+    private final List<ConnectionStats> connections = new CopyOnWriteArrayList<>();
+    /**
+     * connections waiting for a batch slot, selector thread only
+     */
+    private final List<Connection> paused = new ArrayList<>();
+    private final AtomicInteger pausedCount = new AtomicInteger();
+    private final AtomicBoolean resume = new AtomicBoolean();
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param workers number of decoding threads
+     * @param maxBatches batches queued or in work before readers are held
+     * back
+     */
+    public IngestServer(EpcSink sink, int workers, int maxBatches) throws IOException {
+        this.sink = sink;
+        this.slots = new Semaphore(maxBatches);
+        this.selector = Selector.open();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "epc-ingest-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * @param address port 0 binds an ephemeral port
+     * @return the bound address
+     */
+    public InetSocketAddress bindTcp(InetSocketAddress address, Framing framing) throws IOException {
+        checkNotStarted();
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.bind(address);
+        server.register(selector, SelectionKey.OP_ACCEPT, framing);
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    public InetSocketAddress bindUdp(InetSocketAddress address, Framing framing) throws IOException {
+        checkNotStarted();
+        DatagramChannel channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(address);
+        channel.register(selector, SelectionKey.OP_READ, new Endpoint(channel, framing));
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    private void checkNotStarted() {
+        if (thread != null) {
+            throw new IllegalStateException("listeners must be bound before start");
+        }
+    }
+
+    public synchronized void start() {
+        checkNotStarted();
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                select();
+            }
+        }, "epc-ingest-selector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the counters of all TCP connections and UDP senders seen so
+     * far, incl. closed connections until {@link #removeClosed()}
+     */
+    public List<ConnectionStats> getConnections() {
+        return new ArrayList<>(connections);
+    }
+
+    public void removeClosed() {
+        for (ConnectionStats stats : connections) {
+            if (stats.isClosed()) {
+                connections.remove(stats);
+            }
+        }
+    }
+
+    /**
+     * Stops reading, closes all sockets and waits for the batches in work.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            if (thread != null) {
+                thread.join();
+            }
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            for (ConnectionStats stats : connections) {
+                stats.close();
+            }
+        }
+    }
+
+    private void select() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                running = false;
+                break;
+            }
+            if (resume.getAndSet(false)) {
+                resumePaused();
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept((ServerSocketChannel) key.channel(), (Framing) key.attachment());
+                } else if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).read();
+                } else {
+                    ((Endpoint) key.attachment()).receive();
+                }
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel server, Framing framing) {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                ConnectionStats stats = new ConnectionStats("tcp", channel.getRemoteAddress());
+                connections.add(stats);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key, framing, stats));
+            }
+        } catch (IOException e) {
+            // the reader went away while connecting, keep on serving the others
+        }
+    }
+
+    private void resumePaused() {
+        for (Iterator<Connection> it = paused.iterator(); it.hasNext();) {
+            if (it.next().resume()) {
+                it.remove();
+                pausedCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return false if no batch slot is free
+     */
+    private boolean dispatch(final Batch batch) {
+        if (!slots.tryAcquire()) {
+            return false;
+        }
+        workers.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Epc96[] epcs = new Epc96[batch.count()];
+                    batch.decode(epcs);
+                    sink.accept(batch.source, epcs, batch.count());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    slots.release();
+                    if (pausedCount.get() > 0 && resume.compareAndSet(false, true)) {
+                        selector.wakeup();
+                    }
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * State of one TCP connection, selector thread only.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final Framing framing;
+        private final ConnectionStats stats;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private Batch batch;
+        /**
+         * full batch waiting for a slot
+         */
+        private Batch blocked;
+        private boolean eof;
+        private boolean isPaused;
+
+        Connection(SocketChannel channel, SelectionKey key, Framing framing, ConnectionStats stats) {
+            this.channel = channel;
+            this.key = key;
+            this.framing = framing;
+            this.stats = stats;
+            this.batch = new Batch(framing, stats);
+        }
+
+        void read() {
+            try {
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    stats.bytes.addAndGet(n);
+                }
+            } catch (IOException e) {
+                eof = true;
+            }
+            process();
+        }
+
+        /**
+         * Frames the buffered bytes until they are used up or no batch slot
+         * is free.
+         */
+        private void process() {
+            buffer.flip();
+            while (blocked == null && framing.next(buffer, batch)) {
+                if (batch.isFull()) {
+                    submit();
+                }
+            }
+            if (blocked == null) {
+                if (eof && buffer.hasRemaining()) {
+                    framing.finish(buffer, batch);
+                }
+                if (batch.count() > 0) {
+                    submit();
+                }
+            }
+            buffer.compact();
+            if (blocked != null) {
+                if (!isPaused) {
+                    isPaused = true;
+                    key.interestOps(0);
+                    paused.add(this);
+                    pausedCount.incrementAndGet();
+                    // a worker that released its slot before the count was
+                    // raised did not wake the selector, so check once more
+                    if (slots.availablePermits() > 0 && resume.compareAndSet(false, true)) {
+                        selector.wakeup();
+                    }
+                }
+            } else if (eof) {
+                close();
+            }
+        }
+
+        private void submit() {
+            stats.frames.addAndGet(batch.count());
+            if (!dispatch(batch)) {
+                blocked = batch;
+            }
+            batch = new Batch(framing, stats);
+        }
+
+        /**
+         * @return true if the connection is no longer blocked
+         */
+        boolean resume() {
+            if (!dispatch(blocked)) {
+                return false;
+            }
+            blocked = null;
+            process();
+            if (blocked != null) {
+                return false;
+            }
+            isPaused = false;
+            if (!eof) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+            return true;
+        }
+
+        private void close() {
+            stats.close();
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to read anyway
+            }
+        }
+    }
+
+    /**
+     * A bound UDP port, selector thread only.
+     */
+    private final class Endpoint {
+
+        private final DatagramChannel channel;
+        private final Framing framing;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Map<SocketAddress, ConnectionStats> senders = new HashMap<>();
+
+        Endpoint(DatagramChannel channel, Framing framing) {
+            this.channel = channel;
+            this.framing = framing;
+        }
+
+        void receive() {
+            try {
+                SocketAddress from;
+                while ((from = channel.receive(buffer)) != null) {
+                    buffer.flip();
+                    ConnectionStats stats = senders.get(from);
+                    if (stats == null) {
+                        stats = new ConnectionStats("udp", from);
+                        senders.put(from, stats);
+                        connections.add(stats);
+                    }
+                    stats.bytes.addAndGet(buffer.remaining());
+                    Batch batch = new Batch(framing, stats);
+                    while (framing.next(buffer, batch)) {
+                        if (batch.isFull()) {
+                            submit(batch);
+                            batch = new Batch(framing, stats);
+                        }
+                    }
+                    framing.finish(buffer, batch);
+                    if (batch.count() > 0) {
+                        submit(batch);
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                buffer.clear();
+            }
+        }
+
+        private void submit(Batch batch) {
+            batch.source.frames.addAndGet(batch.count());
+            if (!dispatch(batch)) {
+                batch.source.dropped.addAndGet(batch.count());
+            }
+        }
+    }
+}
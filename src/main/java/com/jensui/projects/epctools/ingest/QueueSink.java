@@ -0,0 +1,47 @@
+package com.jensui.projects.epctools.ingest;
+
+import com.jensui.projects.epctools.Epc96;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink handing the decoded tags to consumer threads through a bounded queue.
+ * A full queue blocks the workers and thereby the readers, failed frames are
+ * not queued.
+ *
+ * @author chpressler
+ */
+public class QueueSink implements EpcSink {
+
+    private final BlockingQueue<Epc96> queue;
+
+    public QueueSink(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void accept(ConnectionStats source, Epc96[] epcs, int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            if (epcs[i] != null) {
+                queue.put(epcs[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the next tag or null if none arrived within the timeout
+     */
+    public Epc96 poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    public int drainTo(Collection<? super Epc96> c, int maxElements) {
+        return queue.drainTo(c, maxElements);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.jensui.projects.epctools.journal;
+
+import com.jensui.projects.epctools.Epc96;
+import com.jensui.projects.epctools.EpcDecoder;
+import com.jensui.projects.epctools.HexCodec;
+
+/**
+ * One read of the {@link ReadJournal}. Instances are reused while iterating.
+ * The EPC is held in 4 long words, most significant bit first; for 96 bit
+ * tags words[0] is <code>high</code> and the top half of words[1] is
+ * <code>low</code>.
+ *
+ * @author chpressler
+ */
+public final class JournalRecord {
+
+    long sequence;
+    long timestamp;
+    int reader;
+    int antenna;
+    int bits;
+    final long[] words = new long[4];
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the read time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getReader() {
+        return reader;
+    }
+
+    public int getAntenna() {
+        return antenna;
+    }
+
+    /**
+     * @return the EPC length in bits, e.g. 96 or 198
+     */
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * @return bits 0..63 of the tag
+     */
+    public long getHigh() {
+        return words[0];
+    }
+
+    /**
+     * @return bits 64..95 of a 96 bit tag in the lower 32 bits
+     */
+    public long getLow() {
+        return words[1] >>> 32;
+    }
+
+    /**
+     * Copies the EPC words into dst, at least 4 long.
+     */
+    public void getWords(long[] dst) {
+        System.arraycopy(words, 0, dst, 0, words.length);
+    }
+
+    public Epc96 toEpc96() throws Exception {
+        if (bits != 96) {
+            throw new Exception("not a 96 bit EPC: " + bits + " bits");
+        }
+        return EpcDecoder.decode(getHigh(), getLow());
+    }
+
+    public String toHexString() {
+        StringBuilder sb = new StringBuilder(52);
+        HexCodec.appendHex(sb, words, (bits + 3) / 4);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord[" + sequence + ", " + timestamp + ", " + reader + "/" + antenna + ", " + toHexString() + "]";
+    }
+}
@@ -0,0 +1,214 @@
+package com.jensui.projects.epctools.journal;
+
+import com.jensui.projects.epctools.Epc96;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only journal of tag reads in memory mapped segment files of fixed
+ * width records (see {@link Segment}). Every read gets a sequence number;
+ * a segment file is named after the sequence of its first record and a new
+ * one is started when it is full.
+ *
+ * SGTIN-96 and SGTIN-198 reads are indexed by partition, company prefix and
+ * item reference. The active segment keeps the keys in memory, a full
+ * segment is sealed with a sorted side index file, so a query for one GTIN
+ * over a time range only touches the matching records of the segments whose
+ * time range overlaps.
+ *
+ * Opening the journal maps the sealed segments and only scans the last one;
+ * a record torn by a crash ends the journal there. Records are durable after
+ * {@link #flush()} or when their segment is sealed.
+ *
+ * @author chpressler
+ */
+public class ReadJournal implements Closeable {
+
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    private static final long MASK_44 = (1L << 44) - 1;
+    private static final int SGTIN_96 = 0x30;
+    private static final int SGTIN_198 = 0x36;
+    private static final int[] ITEM_REFERENCE_BITS = {4, 7, 10, 14, 17, 20, 24};
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final List<Segment> segments = new ArrayList<>();
+    private final long[] words = new long[4];
+    private Segment active;
+    private boolean closed;
+
+    public ReadJournal(Path dir) throws IOException {
+        this(dir, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * Opens the journal in dir or creates a new one.
+     *
+     * @param recordsPerSegment records of new segment files, existing files
+     * keep their size
+     */
+    public ReadJournal(Path dir, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment <= 0 || recordsPerSegment > (Integer.MAX_VALUE - Segment.HEADER) / Segment.RECORD) {
+            throw new IllegalArgumentException("invalid records per segment: " + recordsPerSegment);
+        }
+        this.dir = dir;
+        this.recordsPerSegment = recordsPerSegment;
+        Files.createDirectories(dir);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.seg")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        // names are zero padded sequences, so they sort in journal order
+        Collections.sort(files);
+        for (int i = 0; i < files.size(); i++) {
+            segments.add(Segment.open(files.get(i), i == files.size() - 1));
+        }
+        if (!segments.isEmpty()) {
+            active = segments.get(segments.size() - 1);
+        }
+    }
+
+    /**
+     * @return the index key of an SGTIN tag or -1 for all other tags
+     */
+    static long key(long high) {
+        int header = (int) (high >>> 56);
+        if (header != SGTIN_96 && header != SGTIN_198) {
+            return -1;
+        }
+        return (high >>> 50 & 0x7) << 44 | (high >>> 6) & MASK_44;
+    }
+
+    /**
+     * @return the index key for the GTIN or -1 if the values do not fit the
+     * partition
+     */
+    static long key(int partition, long companyPrefix, long itemReference) {
+        if (partition < 0 || partition >= ITEM_REFERENCE_BITS.length) {
+            return -1;
+        }
+        int itemBits = ITEM_REFERENCE_BITS[partition];
+        if (companyPrefix < 0 || companyPrefix >= 1L << (44 - itemBits) || itemReference < 0 || itemReference >= 1L << itemBits) {
+            return -1;
+        }
+        return (long) partition << 44 | companyPrefix << itemBits | itemReference;
+    }
+
+    /**
+     * Appends a 96 bit read.
+     *
+     * @param low bits 64..95 in the lower 32 bits
+     * @return the sequence number of the record
+     */
+    public synchronized long append(long high, long low, long timestamp, int reader, int antenna) throws IOException {
+        words[0] = high;
+        words[1] = low << 32;
+        words[2] = 0;
+        words[3] = 0;
+        return append(words, 96, timestamp, reader, antenna);
+    }
+
+    public long append(Epc96 epc, long timestamp, int reader, int antenna) throws IOException {
+        return append(epc.getHigh(), epc.getLow(), timestamp, reader, antenna);
+    }
+
+    /**
+     * Appends a read of up to 256 bits, e.g. an SGTIN-198 packed by
+     * {@link com.jensui.projects.epctools.AlphanumericScheme}.
+     *
+     * @param epc 4 long words, most significant bit first
+     * @param antenna 0..65535
+     * @return the sequence number of the record
+     */
+    public synchronized long append(long[] epc, int bits, long timestamp, int reader, int antenna) throws IOException {
+        if (closed) {
+            throw new IOException("journal is closed");
+        }
+        if (bits <= 0 || bits > 256) {
+            throw new IllegalArgumentException("invalid EPC length: " + bits);
+        }
+        if (active == null || active.isFull()) {
+            roll();
+        }
+        long sequence = active.first + active.count;
+        active.append(timestamp, reader, antenna, bits, epc, key(epc[0]));
+        return sequence;
+    }
+
+    private void roll() throws IOException {
+        long first = 0;
+        if (active != null) {
+            active.seal();
+            first = active.first + active.count;
+        }
+        active = Segment.create(dir.resolve(String.format("%020d.seg", first)), first, recordsPerSegment);
+        segments.add(active);
+    }
+
+    /**
+     * Visits all reads of the GTIN with a timestamp within [from, to] in
+     * sequence order.
+     *
+     * @return the number of visited records
+     */
+    public synchronized long query(int partition, long companyPrefix, long itemReference, long from, long to, RecordVisitor visitor) {
+        long key = key(partition, companyPrefix, itemReference);
+        if (key < 0) {
+            return 0;
+        }
+        JournalRecord record = new JournalRecord();
+        long visited = 0;
+        for (Segment segment : segments) {
+            visited += segment.query(key, from, to, record, visitor);
+        }
+        return visited;
+    }
+
+    /**
+     * Reads the record with the sequence number into record.
+     *
+     * @return false if there is no such record
+     */
+    public synchronized boolean read(long sequence, JournalRecord record) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            if (sequence >= segment.first) {
+                return sequence < segment.first + segment.count && segment.read((int) (sequence - segment.first), record);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of records, which is also the next sequence number
+     */
+    public synchronized long size() {
+        return active == null ? 0 : active.first + active.count;
+    }
+
+    /**
+     * Forces the records of the active segment to disk.
+     */
+    public synchronized void flush() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            flush();
+        }
+    }
+}
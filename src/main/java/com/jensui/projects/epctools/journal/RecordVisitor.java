@@ -0,0 +1,14 @@
+package com.jensui.projects.epctools.journal;
+
+/**
+ * Receives the records of a {@link ReadJournal} query.
+ *
+ * @author chpressler
+ */
+public interface RecordVisitor {
+
+    /**
+     * @param record reused for the next record, copy what has to be kept
+     */
+    void visit(JournalRecord record);
+}
@@ -0,0 +1,323 @@
+package com.jensui.projects.epctools.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * One memory mapped journal file of fixed width records.
+ *
+ * <pre>
+ * header 64: magic 4 | record size 4 | first sequence 8 | capacity 4
+ * record 64: timestamp 8 | reader 4 | antenna 2 | bits 2 | epc 32 | sequence 8 | checksum 4 | commit 4
+ * </pre>
+ *
+ * The commit marker is written last, so a record is complete if its marker
+ * is set and its checksum matches. The active segment keeps the index key of
+ * every record in memory; when the segment is sealed the keys are sorted and
+ * written to a side index file next to it.
+ *
+ * <pre>
+ * index: magic 4 | records 4 | min time 8 | max time 8 | keys 4 | pad 4 | key 8 * keys | start 4 * (keys + 1) | record 4 * n
+ * </pre>
+ *
+ * @author chpressler
+ */
+final class Segment {
+
+    static final int HEADER = 64;
+    static final int RECORD = 64;
+    private static final int MAGIC = 0x45504A31;
+    private static final int INDEX_MAGIC = 0x45504931;
+    private static final int COMMITTED = 0x52454144;
+    private static final int INDEX_HEADER = 32;
+
+    final long first;
+    final int capacity;
+    final Path file;
+    private final MappedByteBuffer data;
+    int count;
+    long minTime = Long.MAX_VALUE;
+    long maxTime = Long.MIN_VALUE;
+    /**
+     * index key per record while the segment is active, null once sealed
+     */
+    private long[] keys;
+    /**
+     * side index of a sealed segment
+     */
+    private ByteBuffer index;
+    private int distinct;
+
+    private Segment(Path file, long first, int capacity, MappedByteBuffer data) {
+        this.file = file;
+        this.first = first;
+        this.capacity = capacity;
+        this.data = data;
+    }
+
+    static Segment create(Path file, long first, int capacity) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            data = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+        }
+        data.putInt(0, MAGIC);
+        data.putInt(4, RECORD);
+        data.putLong(8, first);
+        data.putInt(16, capacity);
+        Segment segment = new Segment(file, first, capacity, data);
+        segment.keys = new long[Math.min(capacity, 1024)];
+        return segment;
+    }
+
+    /**
+     * Opens an existing segment. A sealed segment with a complete side index
+     * is only mapped; otherwise its records are scanned up to the first
+     * incomplete one, which ends the segment, and the commit markers behind
+     * it are cleared.
+     */
+    static Segment open(Path file, boolean active) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            data = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (data.capacity() < HEADER || data.getInt(0) != MAGIC || data.getInt(4) != RECORD) {
+            throw new IOException("not a journal segment: " + file);
+        }
+        Segment segment = new Segment(file, data.getLong(8), data.getInt(16), data);
+        if (!active && segment.loadIndex()) {
+            return segment;
+        }
+        segment.keys = new long[Math.max(1024, segment.capacity / 16)];
+        JournalRecord record = new JournalRecord();
+        while (segment.count < segment.capacity && segment.read(segment.count, record)) {
+            segment.indexed(record.timestamp, ReadJournal.key(record.words[0]));
+        }
+        for (int i = segment.count; i < segment.capacity; i++) {
+            int commit = HEADER + i * RECORD + 60;
+            if (data.getInt(commit) != 0) {
+                data.putInt(commit, 0);
+            }
+        }
+        if (!active) {
+            segment.seal();
+        }
+        return segment;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    void append(long timestamp, int reader, int antenna, int bits, long[] words, long key) {
+        int position = HEADER + count * RECORD;
+        long sequence = first + count;
+        data.putLong(position, timestamp);
+        data.putInt(position + 8, reader);
+        data.putShort(position + 12, (short) antenna);
+        data.putShort(position + 14, (short) bits);
+        for (int i = 0; i < 4; i++) {
+            data.putLong(position + 16 + i * 8, words[i]);
+        }
+        data.putLong(position + 48, sequence);
+        data.putInt(position + 56, checksum(timestamp, reader, antenna, bits, words, sequence));
+        data.putInt(position + 60, COMMITTED);
+        indexed(timestamp, key);
+    }
+
+    private void indexed(long timestamp, long key) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, Math.min(capacity, keys.length * 2));
+        }
+        keys[count++] = key;
+        minTime = Math.min(minTime, timestamp);
+        maxTime = Math.max(maxTime, timestamp);
+    }
+
+    /**
+     * @return false if the record is not complete
+     */
+    boolean read(int i, JournalRecord record) {
+        int position = HEADER + i * RECORD;
+        if (data.getInt(position + 60) != COMMITTED) {
+            return false;
+        }
+        record.timestamp = data.getLong(position);
+        record.reader = data.getInt(position + 8);
+        record.antenna = data.getShort(position + 12) & 0xFFFF;
+        record.bits = data.getShort(position + 14);
+        for (int w = 0; w < 4; w++) {
+            record.words[w] = data.getLong(position + 16 + w * 8);
+        }
+        record.sequence = data.getLong(position + 48);
+        return record.sequence == first + i
+                && data.getInt(position + 56) == checksum(record.timestamp, record.reader, record.antenna, record.bits, record.words, record.sequence);
+    }
+
+    long timestamp(int i) {
+        return data.getLong(HEADER + i * RECORD);
+    }
+
+    /**
+     * Visits the records of the key read within [from, to].
+     *
+     * @return the number of visited records
+     */
+    int query(long key, long from, long to, JournalRecord record, RecordVisitor visitor) {
+        if (count == 0 || maxTime < from || minTime > to) {
+            return 0;
+        }
+        int visited = 0;
+        if (keys != null) {
+            for (int i = 0; i < count; i++) {
+                if (keys[i] == key && visit(i, from, to, record, visitor)) {
+                    visited++;
+                }
+            }
+            return visited;
+        }
+        int k = findKey(key);
+        if (k < 0) {
+            return 0;
+        }
+        int starts = INDEX_HEADER + distinct * 8;
+        int records = starts + (distinct + 1) * 4;
+        for (int j = index.getInt(starts + k * 4), end = index.getInt(starts + k * 4 + 4); j < end; j++) {
+            if (visit(index.getInt(records + j * 4), from, to, record, visitor)) {
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    private boolean visit(int i, long from, long to, JournalRecord record, RecordVisitor visitor) {
+        long timestamp = timestamp(i);
+        if (timestamp < from || timestamp > to || !read(i, record)) {
+            return false;
+        }
+        visitor.visit(record);
+        return true;
+    }
+
+    private int findKey(long key) {
+        int lo = 0;
+        int hi = distinct - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = index.getLong(INDEX_HEADER + mid * 8);
+            if (k < key) {
+                lo = mid + 1;
+            } else if (k > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Forces the records to disk, writes the side index and drops the in
+     * memory keys. The index is written to a temporary file and moved into
+     * place, so an existing index file is always complete.
+     */
+    void seal() throws IOException {
+        data.force();
+        long[] sorted = new long[count];
+        int indexed = 0;
+        for (int i = 0; i < count; i++) {
+            if (keys[i] >= 0) {
+                sorted[indexed++] = keys[i];
+            }
+        }
+        Arrays.sort(sorted, 0, indexed);
+        int d = 0;
+        for (int i = 0; i < indexed; i++) {
+            if (d == 0 || sorted[d - 1] != sorted[i]) {
+                sorted[d++] = sorted[i];
+            }
+        }
+        // (key rank, record) pairs sort the records of each key in append order
+        long[] pairs = new long[indexed];
+        for (int i = 0, n = 0; i < count; i++) {
+            if (keys[i] >= 0) {
+                pairs[n++] = (long) Arrays.binarySearch(sorted, 0, d, keys[i]) << 32 | i;
+            }
+        }
+        Arrays.sort(pairs);
+        ByteBuffer out = ByteBuffer.allocate(INDEX_HEADER + d * 8 + (d + 1) * 4 + indexed * 4);
+        out.putInt(INDEX_MAGIC).putInt(count).putLong(minTime).putLong(maxTime).putInt(d).putInt(0);
+        for (int i = 0; i < d; i++) {
+            out.putLong(sorted[i]);
+        }
+        for (int i = 0, j = 0; i <= d; i++) {
+            while (j < indexed && (int) (pairs[j] >>> 32) < i) {
+                j++;
+            }
+            out.putInt(j);
+        }
+        for (int j = 0; j < indexed; j++) {
+            out.putInt((int) pairs[j]);
+        }
+        out.flip();
+        Path tmp = indexFile().resolveSibling(indexFile().getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, indexFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out.rewind();
+        index = out;
+        distinct = d;
+        keys = null;
+    }
+
+    private boolean loadIndex() throws IOException {
+        if (!Files.exists(indexFile())) {
+            return false;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(indexFile(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < INDEX_HEADER || buffer.getInt(0) != INDEX_MAGIC) {
+            return false;
+        }
+        index = buffer;
+        count = buffer.getInt(4);
+        minTime = buffer.getLong(8);
+        maxTime = buffer.getLong(16);
+        distinct = buffer.getInt(24);
+        return true;
+    }
+
+    Path indexFile() {
+        return file.resolveSibling(file.getFileName().toString().replace(".seg", ".idx"));
+    }
+
+    void force() {
+        data.force();
+    }
+
+    private static int checksum(long timestamp, int reader, int antenna, int bits, long[] words, long sequence) {
+        long h = mix(timestamp ^ sequence);
+        h = mix(h ^ ((long) reader << 32 | antenna << 16 | bits));
+        for (long w : words) {
+            h = mix(h ^ w);
+        }
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long mix(long h) {
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,290 @@
+package com.jensui.projects.epctools.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Optional counters, latencies and failure counts of the codec operations of
+ * {@link com.jensui.projects.epctools.EPCTools}. Disabled by default, or
+ * enabled on startup with the system property <code>epctools.metrics</code>.
+ * While disabled an instrumented call only reads one volatile flag.
+ *
+ * Failures are counted by operation, by tag header and by reason, which is
+ * the exception class and the method which threw it (e.g. "Exception at
+ * EpcDecoder.decode"). The message is not used, it carries the offending
+ * values. At most {@value #MAX_REASONS} distinct reasons are kept, later
+ * ones count as "other".
+ *
+ * The counters are pulled with {@link #getSnapshot()} or through JMX after
+ * {@link #registerMBean()}.
+ *
+ * @author chpressler
+ */
+public final class EpcMetrics {
+
+    public static final String OBJECT_NAME = "com.jensui.projects.epctools:type=EpcMetrics";
+
+    /**
+     * header value of failures where the header could not be read
+     */
+    public static final int UNKNOWN_HEADER = -1;
+
+    static final int MAX_REASONS = 64;
+
+    public enum Operation {
+
+        /**
+         * hex string to tag data map
+         */
+        PARSE_HEX("parseHexString"),
+        /**
+         * create*HexEPC
+         */
+        ENCODE("createHexEPC"),
+        /**
+         * hex string to pure identity or tag URI
+         */
+        URI("createURI"),
+        /**
+         * URI to hex string
+         */
+        PARSE_URI("parseURI");
+
+        private final String key;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final AtomicLongArray HEADER_FAILURES = new AtomicLongArray(257);
+    private static final ConcurrentHashMap<String, LongAdder> REASON_FAILURES = new ConcurrentHashMap<>();
+    private static final String OTHER = "other";
+
+    private static volatile boolean enabled = Boolean.getBoolean("epctools.metrics");
+
+    private EpcMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        EpcMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return the start time to pass to {@link #success} or
+     * {@link #failure}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void success(Operation operation, long start) {
+        operation.latency.record(System.nanoTime() - start);
+        operation.calls.increment();
+    }
+
+    /**
+     * @param header the tag header or {@link #UNKNOWN_HEADER}
+     */
+    public static void failure(Operation operation, int header, Exception e, long start) {
+        operation.latency.record(System.nanoTime() - start);
+        operation.calls.increment();
+        operation.failures.increment();
+        HEADER_FAILURES.incrementAndGet(header < 0 || header > 255 ? 256 : header);
+        String reason = reason(e);
+        LongAdder counter = REASON_FAILURES.get(reason);
+        if (counter == null) {
+            if (REASON_FAILURES.size() >= MAX_REASONS) {
+                reason = OTHER;
+            }
+            counter = new LongAdder();
+            LongAdder existing = REASON_FAILURES.putIfAbsent(reason, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        counter.increment();
+    }
+
+    /**
+     * @return the fixed reason of the failure site, one per throwing method
+     */
+    static String reason(Exception e) {
+        StackTraceElement[] trace = e.getStackTrace();
+        if (trace.length == 0) {
+            return e.getClass().getSimpleName();
+        }
+        String className = trace[0].getClassName();
+        return e.getClass().getSimpleName() + " at " + className.substring(className.lastIndexOf('.') + 1) + "." + trace[0].getMethodName();
+    }
+
+    /**
+     * @return the header of a hex string or {@link #UNKNOWN_HEADER} if it
+     * does not start with two hex digits
+     */
+    public static int header(CharSequence epcHex) {
+        if (epcHex == null || epcHex.length() < 2) {
+            return UNKNOWN_HEADER;
+        }
+        int hi = Character.digit(epcHex.charAt(0), 16);
+        int lo = Character.digit(epcHex.charAt(1), 16);
+        return hi < 0 || lo < 0 ? UNKNOWN_HEADER : hi << 4 | lo;
+    }
+
+    /**
+     * @return successful and failed calls
+     */
+    public static long getCount(Operation operation) {
+        return operation.calls.sum();
+    }
+
+    public static long getFailures(Operation operation) {
+        return operation.failures.sum();
+    }
+
+    /**
+     * @return the latencies of the operation in nanoseconds
+     */
+    public static LatencyHistogram getLatency(Operation operation) {
+        return operation.latency;
+    }
+
+    public static long getFailures(int header) {
+        return HEADER_FAILURES.get(header < 0 || header > 255 ? 256 : header);
+    }
+
+    /**
+     * @return failure counts by hex header (e.g. "E2") or "unknown"
+     */
+    public static Map<String, Long> getFailuresByHeader() {
+        Map<String, Long> failures = new TreeMap<>();
+        for (int i = 0; i <= 256; i++) {
+            long n = HEADER_FAILURES.get(i);
+            if (n > 0) {
+                failures.put(i == 256 ? "unknown" : String.format("%02X", i), n);
+            }
+        }
+        return failures;
+    }
+
+    public static Map<String, Long> getFailuresByReason() {
+        Map<String, Long> failures = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> e : REASON_FAILURES.entrySet()) {
+            failures.put(e.getKey(), e.getValue().sum());
+        }
+        return failures;
+    }
+
+    /**
+     * Flat view of all metrics for export, e.g.
+     * <code>parseHexString.count</code>,
+     * <code>parseHexString.latency.p99</code> (nanoseconds),
+     * <code>failures.header.E2</code> and
+     * <code>failures.reason.Exception at EpcDecoder.decode</code>.
+     */
+    public static Map<String, Long> getSnapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            String key = operation.key;
+            LatencyHistogram latency = operation.latency;
+            snapshot.put(key + ".count", operation.calls.sum());
+            snapshot.put(key + ".failures", operation.failures.sum());
+            snapshot.put(key + ".latency.mean", Math.round(latency.getMean()));
+            snapshot.put(key + ".latency.p50", latency.getValueAtPercentile(50));
+            snapshot.put(key + ".latency.p90", latency.getValueAtPercentile(90));
+            snapshot.put(key + ".latency.p99", latency.getValueAtPercentile(99));
+            snapshot.put(key + ".latency.p999", latency.getValueAtPercentile(99.9));
+            snapshot.put(key + ".latency.max", latency.getMax());
+        }
+        for (Map.Entry<String, Long> e : getFailuresByHeader().entrySet()) {
+            snapshot.put("failures.header." + e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, Long> e : getFailuresByReason().entrySet()) {
+            snapshot.put("failures.reason." + e.getKey(), e.getValue());
+        }
+        return snapshot;
+    }
+
+    public static void reset() {
+        for (Operation operation : Operation.values()) {
+            operation.calls.reset();
+            operation.failures.reset();
+            operation.latency.reset();
+        }
+        for (int i = 0; i <= 256; i++) {
+            HEADER_FAILURES.set(i, 0);
+        }
+        REASON_FAILURES.clear();
+    }
+
+    /**
+     * Registers the {@link EpcMetricsMXBean} with the platform MBean server,
+     * nothing happens if it is registered already.
+     */
+    public static synchronized void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new Bean(), name);
+        }
+    }
+
+    public static synchronized void unregisterMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private static final class Bean implements EpcMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return EpcMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            EpcMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getSnapshot() {
+            return EpcMetrics.getSnapshot();
+        }
+
+        @Override
+        public Map<String, Long> getFailuresByHeader() {
+            return EpcMetrics.getFailuresByHeader();
+        }
+
+        @Override
+        public Map<String, Long> getFailuresByReason() {
+            return EpcMetrics.getFailuresByReason();
+        }
+
+        @Override
+        public void reset() {
+            EpcMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.jensui.projects.epctools.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link EpcMetrics}, registered as
+ * {@value EpcMetrics#OBJECT_NAME}.
+ *
+ * @author chpressler
+ */
+public interface EpcMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @see EpcMetrics#getSnapshot()
+     */
+    Map<String, Long> getSnapshot();
+
+    Map<String, Long> getFailuresByHeader();
+
+    Map<String, Long> getFailuresByReason();
+
+    void reset();
+}
@@ -5,7 +5,7 @@ package com.jensui.projects.epctools;
  */
 public class test {
 
-    static EPCTools tools = new EPCTools();
+    static EPCTools tools = EPCTools.getInstance();
 
     public static void main(String[] args) throws  Exception {
 
@@ -0,0 +1,82 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.TAG_DATA;
+import java.util.HashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class AlphanumericSchemeTest {
+
+    @Test
+    public void testBitsAcrossWords() {
+        long[] words = new long[2];
+        Ascii7Codec.putBits(words, 60, 7, 0x55);
+        Assert.assertEquals(0xAL, words[0]);
+        Assert.assertEquals(0x5L << 61, words[1]);
+        Assert.assertEquals(0x55L, Ascii7Codec.getBits(words, 60, 7));
+        Ascii7Codec.putBits(words, 0, 60, (1L << 60) - 1);
+        Assert.assertEquals(-6L, words[0]);
+    }
+
+    @Test
+    public void testCodec() throws Exception {
+        long[] words = new long[AlphanumericScheme.WORDS];
+        Ascii7Codec.encode("12345abcABC012345678", words, 58, 20);
+        StringBuilder sb = new StringBuilder();
+        Assert.assertEquals(20, Ascii7Codec.decode(words, 58, 20, sb));
+        Assert.assertEquals("12345abcABC012345678", sb.toString());
+        Assert.assertFalse(Ascii7Codec.isEncodable(' '));
+        Assert.assertFalse(Ascii7Codec.isEncodable('#'));
+        Assert.assertTrue(Ascii7Codec.isEncodable('_'));
+    }
+
+    @Test(expected = Exception.class)
+    public void testNotEncodable() throws Exception {
+        Ascii7Codec.encode("12 34", new long[AlphanumericScheme.WORDS], 58, 20);
+    }
+
+    @Test
+    public void testSgtin198() throws Exception {
+        long[] words = new long[AlphanumericScheme.WORDS];
+        AlphanumericScheme scheme = AlphanumericScheme.SGTIN_198;
+        scheme.parseHex("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0", words);
+        Assert.assertEquals(1, scheme.getFilter(words));
+        Assert.assertEquals(6, scheme.getPartition(words));
+        Assert.assertEquals(30430L, scheme.getCompanyPrefix(words));
+        Assert.assertEquals(58045L, scheme.getReference(words));
+        Assert.assertEquals("12345abcABC012345678", scheme.getText(words));
+        scheme.encode(1, 6, 30430L, 58045L, "12345abcABC012345678", words);
+        Assert.assertEquals("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0", scheme.toHex(words));
+    }
+
+    @Test
+    public void testOtherSchemes() throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        long[] words = new long[AlphanumericScheme.WORDS];
+        AlphanumericScheme.GRAI_170.encode(3, 5, 614141L, 12345L, "32a/b", words);
+        String hex = AlphanumericScheme.GRAI_170.toHex(words);
+        Assert.assertEquals("3774257BF40C0E59B2C2BF100000000000000000000", hex);
+        Assert.assertEquals("urn:epc:tag:grai-170:3.0614141.12345.32a%2Fb", tools.createEPCTagIdURI(hex));
+
+        AlphanumericScheme.GIAI_202.encode(3, 5, 614141L, 0, "12345400", words);
+        hex = AlphanumericScheme.GIAI_202.toHex(words);
+        Assert.assertEquals("3874257BF58B266D1AB460C0000000000000000000000000000", hex);
+        Assert.assertEquals("urn:epc:id:giai:0614141.12345400", tools.createEPCPureIdentityURI(hex));
+
+        hex = "3934257BF46072CD9615F8800000000000000000000000000";
+        Assert.assertEquals("urn:epc:id:sgln:0614141.12345.32a%2Fb", tools.createEPCPureIdentityURI(hex));
+        HashMap<TAG_DATA, String> map = tools.parseHexString(hex);
+        Assert.assertEquals("SGLN_195", map.get(TAG_DATA.HEADER));
+        Assert.assertEquals("12345", map.get(TAG_DATA.LOCATION_REFERENCE));
+        Assert.assertEquals("32a/b", map.get(TAG_DATA.EXTENSION));
+    }
+
+    @Test(expected = Exception.class)
+    public void testTooShort() throws Exception {
+        AlphanumericScheme.SGTIN_198.parseHex("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66E", new long[AlphanumericScheme.WORDS]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.jensui.projects.epctools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class CheckDigitTest {
+
+    @Test
+    public void testCompute() {
+        Assert.assertEquals(5, CheckDigit.compute("0061414145324", 0, 13));
+        Assert.assertEquals(5, CheckDigit.compute("x0061414145324x", 1, 13));
+        Assert.assertEquals(5, CheckDigit.compute("0061414145324".getBytes(StandardCharsets.US_ASCII), 0, 13));
+        Assert.assertEquals(-1, CheckDigit.compute("00614141453a4", 0, 13));
+        Assert.assertEquals(-1, CheckDigit.compute("00614141453/4".getBytes(StandardCharsets.US_ASCII), 0, 13));
+    }
+
+    @Test
+    public void testKeys() {
+        Assert.assertTrue(CheckDigit.isValidGTIN("96385074"));
+        Assert.assertTrue(CheckDigit.isValidGTIN("036000291452"));
+        Assert.assertTrue(CheckDigit.isValidGTIN("4006381333931"));
+        Assert.assertTrue(CheckDigit.isValidGTIN("00614141453245"));
+        Assert.assertFalse(CheckDigit.isValidGTIN("00614141453246"));
+        Assert.assertFalse(CheckDigit.isValidGTIN("0000614141453245"));
+        Assert.assertFalse(CheckDigit.isValidGTIN("006141414532-5"));
+        Assert.assertFalse(CheckDigit.isValidGTIN(null));
+        Assert.assertFalse(CheckDigit.isValidGTIN(""));
+        Assert.assertTrue(CheckDigit.isValidSSCC("106141411234567897"));
+        Assert.assertFalse(CheckDigit.isValidSSCC("00614141453245"));
+        Assert.assertTrue(CheckDigit.isValidGLN("0614141000005"));
+        Assert.assertFalse(CheckDigit.isValidGLN("0614141000006"));
+        byte[] b = "xx106141411234567897".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertTrue(CheckDigit.isValidSSCC(b, 2, 18));
+        Assert.assertFalse(CheckDigit.isValidGTIN(b, 2, 18));
+    }
+
+    @Test
+    public void testValidateColumns() {
+        BitSet failures = CheckDigit.validateGTINs(new String[]{"00614141453245", "00614141453246", null, "96385074", "abc"});
+        Assert.assertEquals("{1, 2, 4}", failures.toString());
+
+        byte[] records = "00614141453245;00614141453246;00037000657354;0003700065735x;".getBytes(StandardCharsets.US_ASCII);
+        failures = CheckDigit.validate(records, 0, 15, 14, 4);
+        Assert.assertEquals("{1, 3}", failures.toString());
+    }
+
+    @Test
+    public void testComputeLongRange() {
+        // sum of 3591, above the 1000 the check digit used to be taken from
+        StringBuilder nines = new StringBuilder();
+        for (int i = 0; i < 199; i++) {
+            nines.append('9');
+        }
+        Assert.assertEquals(9, CheckDigit.compute(nines, 0, nines.length()));
+        Assert.assertEquals(9, CheckDigit.compute(nines.toString().toCharArray(), 0, nines.length()));
+        Assert.assertEquals(9, CheckDigit.compute(nines.toString().getBytes(StandardCharsets.US_ASCII), 0, nines.length()));
+    }
+
+    @Test
+    public void testNonDigitsBeforeSlash() {
+        Assert.assertFalse(CheckDigit.isValidGTIN("00614141453A4/"));
+        Assert.assertFalse(CheckDigit.isValidSSCC("ABCDEFGHIJKLMNOPQ/"));
+        Assert.assertFalse(EPCTools.getInstance().isValidGTIN("x000000000000/"));
+        Assert.assertFalse(CheckDigit.isValidGTIN("x000000000000/".getBytes(StandardCharsets.US_ASCII), 0, 14));
+        Assert.assertEquals("{0}", CheckDigit.validateGTINs(new String[]{"-------------/", "00614141453245"}).toString());
+        byte[] records = "-------------/".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals("{0}", CheckDigit.validate(records, 0, 14, 14, 1).toString());
+    }
+}
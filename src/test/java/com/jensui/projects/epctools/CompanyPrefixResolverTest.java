@@ -0,0 +1,85 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.cli.LineConverter;
+import com.jensui.projects.epctools.cli.OutputFormat;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author chpressler
+ */
+public class CompanyPrefixResolverTest {
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<gcpPrefixFormatList>\n"
+            + "  <entry prefix=\"0\" gcpLength=\"7\"/>\n"
+            + "  <entry prefix=\"0614141\" gcpLength=\"7\"/>\n"
+            + "  <entry prefix=\"0614142\" gcpLength=\"9\"/>\n"
+            + "  <entry prefix=\"40\" gcpLength=\"0\"/>\n"
+            + "  <entry prefix=\"401\" gcpLength=\"6\"/>\n"
+            + "  <entry prefix=\"5\" gcpLength=\"4\"/>\n"
+            + "  <entry prefix=\"952\" gcpLength=\"12\"/>\n"
+            + "</gcpPrefixFormatList>\n";
+
+    @Test
+    public void testLongestPrefix() throws Exception {
+        CompanyPrefixResolver resolver = CompanyPrefixResolver.read(new StringReader(XML));
+        Assert.assertEquals(7, resolver.size());
+        Assert.assertEquals(7, resolver.getLength("0614141", 0));
+        Assert.assertEquals(9, resolver.getLength("061414212", 0));
+        Assert.assertEquals(7, resolver.getLength("0999999", 0));
+        // restricted prefix without company prefix, longer entries still match
+        Assert.assertEquals(-1, resolver.getLength("4099999", 0));
+        Assert.assertEquals(6, resolver.getLength("4019999", 0));
+        Assert.assertEquals(-1, resolver.getLength("7000000", 0));
+        Assert.assertEquals(-1, resolver.getLength("x", 0));
+
+        Assert.assertEquals(5, resolver.getGTINPartition("00614141453245"));
+        Assert.assertEquals(0, resolver.getGTINPartition("19520000000013"));
+        // 4 digit company prefixes can not be encoded
+        Assert.assertEquals(-1, resolver.getGTINPartition("05123456789012"));
+        Assert.assertEquals(3, resolver.getSSCCPartition("306141421234567892"));
+
+        ByteBuffer ascii = ByteBuffer.wrap("x0614142".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals(9, resolver.getLength(ascii, 1, 8));
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        CompanyPrefixResolver resolver = CompanyPrefixResolver.read(new StringReader("# prefix,length\n0614141,7\n\n0614142;9\n"));
+        Assert.assertEquals(2, resolver.size());
+        Assert.assertEquals(9, resolver.getLength("0614142", 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidLine() throws Exception {
+        CompanyPrefixResolver.read(new StringReader("0614141,7\n0614142\n"));
+    }
+
+    @Test
+    public void testEncoders() throws Exception {
+        CompanyPrefixResolver resolver = CompanyPrefixResolver.read(new StringReader(XML));
+        EPCTools tools = EPCTools.getInstance();
+        Assert.assertEquals(tools.createSGTIN_96HexEPC(1, 5, "0614141", "045324", "6789"), tools.createSGTIN_96HexEPC(1, "00614141453245", "6789", resolver));
+        Assert.assertEquals(tools.createSGTIN_198HexEPC(1, 3, "061414245", "0324", "A1"), tools.createSGTIN_198HexEPC(1, "00614142453245", "A1", resolver));
+        Assert.assertEquals(tools.createSSCCHexEPC(0, 3, "061414212", "3", "3456789"), tools.createSSCCHexEPC(0, "306141421234567892", resolver));
+        // without a resolver the company prefix has 6 digits
+        Assert.assertEquals(tools.createSGTIN_96HexEPC(1, 6, "061414", "0145324", "6789"), tools.createSGTIN_96HexEPC(1, "00614141453245", "6789", null));
+        Assert.assertEquals("00614141453245", tools.getGTIN(tools.parseHexString(tools.createSGTIN_96HexEPC(1, "00614141453245", "6789", resolver))));
+        try {
+            tools.createSGTIN_96HexEPC(1, "05123456789012", "1", resolver);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage().startsWith("no EPC company prefix length"));
+        }
+
+        StringBuilder out = new StringBuilder();
+        String line = "00614142453245,6789";
+        LineConverter.sgtin96Encoder(1, OutputFormat.HEX, resolver).convert(ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII)), 0, line.length(), out);
+        Assert.assertEquals(tools.createSGTIN_96HexEPC(1, 3, "061414245", "0324", "6789"), out.toString());
+    }
+}
@@ -0,0 +1,88 @@
+package com.jensui.projects.epctools;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class DecodeCacheTest {
+
+    @Test
+    public void testHitsAndDerivedValues() throws Exception {
+        DecodeCache cache = new DecodeCache(64);
+        Epc96 epc = cache.decode("30740242204031C0000003E7");
+        Assert.assertSame(epc, cache.decode("30740242204031C0000003E7"));
+        Assert.assertEquals("urn:epc:id:sgtin:0037000.065735.999", cache.getPureIdentityURI("30740242204031C0000003E7"));
+        Assert.assertEquals("00037000657354", cache.getGTIN("30740242204031C0000003E7"));
+        Assert.assertSame(cache.getGTIN("30740242204031C0000003E7"), cache.getGTIN(epc.getHigh(), epc.getLow()));
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(5, cache.getHits());
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.getGTIN("3154F618B8B2D05E00000000"));
+        Assert.assertEquals("urn:epc:id:sscc:4032046.3000000000", cache.getPureIdentityURI("3154F618B8B2D05E00000000"));
+    }
+
+    @Test
+    public void testBoundedWithEvictions() throws Exception {
+        DecodeCache cache = new DecodeCache(256, 4);
+        Assert.assertEquals(256, cache.capacity());
+        for (long serial = 0; serial < 10000; serial++) {
+            Sgtin96 sgtin = (Sgtin96) cache.decode(EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, serial), serial);
+            Assert.assertEquals(serial, sgtin.getSerial());
+        }
+        Assert.assertTrue(cache.size() <= 256);
+        Assert.assertEquals(10000, cache.getMisses());
+        Assert.assertEquals(10000 - cache.size(), cache.getEvictions());
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0.0, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testReferencedEntriesSurvive() throws Exception {
+        DecodeCache cache = new DecodeCache(64, 1);
+        long hot = EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, 0);
+        for (long serial = 1; serial < 5000; serial++) {
+            cache.decode(hot, 0);
+            cache.decode(EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, serial), serial);
+        }
+        Assert.assertTrue(cache.getHitRate() > 0.45);
+    }
+
+    @Test
+    public void testCollidingKeysStayInTheirSet() throws Exception {
+        DecodeCache cache = new DecodeCache(64, 1);
+        long first = EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, 0);
+        int start = (int) DecodeCache.hash(first, 0) & 63;
+        int colliding = 0;
+        for (long serial = 0; colliding < 40; serial++) {
+            long high = EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, serial);
+            if (((int) DecodeCache.hash(high, serial) & 63) != start) {
+                continue;
+            }
+            Epc96 epc = cache.decode(high, serial);
+            Assert.assertSame(epc, cache.decode(high, serial));
+            colliding++;
+        }
+        Assert.assertEquals(DecodeCache.WAYS, cache.size());
+        Assert.assertEquals(40, cache.getMisses());
+        Assert.assertEquals(40 - DecodeCache.WAYS, cache.getEvictions());
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidLengthURI() throws Exception {
+        new DecodeCache(64).getPureIdentityURI("30740242204031C0000003E7FF");
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidLengthGTIN() throws Exception {
+        new DecodeCache(64).getGTIN("30740242204031C0");
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidTagIsNotCached() throws Exception {
+        new DecodeCache(64).decode("E20034120123456789ABCDEF");
+    }
+}
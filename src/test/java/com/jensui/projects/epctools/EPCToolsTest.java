@@ -5,6 +5,7 @@
 package com.jensui.projects.epctools;
 
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import org.junit.*;
@@ -215,4 +216,36 @@ public class EPCToolsTest {
         Assert.assertEquals("12345abcABC012345678", epcTools.getSerialNumber("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testSharedInstanceAcrossThreads() throws Exception {
+        final EPCTools shared = EPCTools.getInstance();
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        try {
+                            new EPCTools();
+                            if (!"00037000657354".equals(shared.getGTIN("30740242204031C0000003E7"))
+                                    || !"030430".equals(shared.getCompanyPrefix("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0"))) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(0, failures.get());
+        Assert.assertEquals(EPCTools.ENCODING.SSCC, shared.getEncoding("3154F618B8B2D05E00000000"));
+        Assert.assertNull(shared.getEncoding("E20034120123456789ABCDEF"));
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.jensui.projects.epctools;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcBatchTest {
+
+    @Test
+    public void testDecodeAllKeepsOrderAndReportsFailures() throws Exception {
+        int n = 10000;
+        String[] hex = new String[n];
+        EpcBatch.encodeSgtin96Range(1, 6, 30069L, 422030L, 100L, hex);
+        hex[17] = "E20034120123456789ABCDEF";
+        hex[5000] = "not a tag";
+        Epc96[] out = new Epc96[n];
+        String[] errors = new String[n];
+        Assert.assertEquals(2, EpcBatch.decodeAll(hex, out, errors));
+        for (int i = 0; i < n; i++) {
+            if (i == 17 || i == 5000) {
+                Assert.assertNull(out[i]);
+                Assert.assertNotNull(errors[i]);
+            } else {
+                Assert.assertEquals(100L + i, ((Sgtin96) out[i]).getSerial());
+                Assert.assertNull(errors[i]);
+            }
+        }
+        Assert.assertEquals("unsupported Header: 226", errors[17]);
+    }
+
+    @Test
+    public void testDecodeAllBytes() throws Exception {
+        byte[] packed = new byte[12 * 3000];
+        EpcBatch.encodeSgtin96Range(3, 5, 37000L, 65735L, 999L, 3000, packed, 0);
+        byte[][] epcs = new byte[3000][];
+        for (int i = 0; i < epcs.length; i++) {
+            epcs[i] = Arrays.copyOfRange(packed, 12 * i, 12 * i + 12);
+        }
+        Epc96[] out = new Epc96[epcs.length];
+        Assert.assertEquals(0, EpcBatch.decodeAll(epcs, out, new String[epcs.length]));
+        Assert.assertEquals("30740242204031C0000003E7", out[0].toHexString());
+        Assert.assertEquals(999L + 2999, ((Sgtin96) out[2999]).getSerial());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            byte[] other = new byte[12 * 3000 + 5];
+            EpcBatch.encodeSgtin96Range(pool, 3, 5, 37000L, 65735L, 999L, 3000, other, 5);
+            Assert.assertArrayEquals(packed, Arrays.copyOfRange(other, 5, other.length));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testToPureIdentityURIs() throws Exception {
+        String[] hex = {"3154F618B8B2D05E00000000", "36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0", "XX"};
+        String[] uris = new String[3];
+        String[] errors = new String[3];
+        Assert.assertEquals(1, EpcBatch.toPureIdentityURIs(hex, uris, errors));
+        Assert.assertEquals("urn:epc:id:sscc:4032046.3000000000", uris[0]);
+        Assert.assertEquals("urn:epc:id:sgtin:030430.0058045.12345abcABC012345678", uris[1]);
+        Assert.assertNotNull(errors[2]);
+    }
+
+    @Test(expected = Exception.class)
+    public void testEncodeRangeOverflow() throws Exception {
+        EpcBatch.encodeSgtin96Range(1, 6, 30069L, 422030L, Sgtin96.MAX_SERIAL - 1, new String[3]);
+    }
+}
@@ -0,0 +1,185 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcDecoderTest {
+
+    @Test
+    public void testDecodeSgtin96() throws Exception {
+        Sgtin96 sgtin = EpcDecoder.decodeSgtin96("30740242204031C0000003E7");
+        Assert.assertEquals(3, sgtin.getFilter());
+        Assert.assertEquals(5, sgtin.getPartition());
+        Assert.assertEquals(37000L, sgtin.getCompanyPrefix());
+        Assert.assertEquals("0037000", sgtin.getCompanyPrefixString());
+        Assert.assertEquals(65735L, sgtin.getItemReference());
+        Assert.assertEquals("065735", sgtin.getItemReferenceString());
+        Assert.assertEquals(999L, sgtin.getSerial());
+        Assert.assertEquals("00037000657354", sgtin.getGTIN());
+        Assert.assertEquals("30740242204031C0000003E7", sgtin.toHexString());
+
+        sgtin = EpcDecoder.decodeSgtin96("3020da7557d32c4000003039");
+        Assert.assertEquals("234567890123", sgtin.getCompanyPrefixString());
+        Assert.assertEquals("1", sgtin.getItemReferenceString());
+        Assert.assertEquals(12345L, sgtin.getSerial());
+    }
+
+    @Test
+    public void testDecodeSscc96() throws Exception {
+        Sscc96 sscc = EpcDecoder.decodeSscc96("3154F618B8B2D05E00000000");
+        Assert.assertEquals(2, sscc.getFilter());
+        Assert.assertEquals("4032046", sscc.getCompanyPrefixString());
+        Assert.assertEquals("3000000000", sscc.getSerialReferenceString());
+        Assert.assertEquals("340320460000000000", sscc.getSSCC());
+        Assert.assertEquals(0, sscc.getUnallocated());
+    }
+
+    @Test
+    public void testDecodeMaxSerial() throws Exception {
+        Sgtin96 sgtin = EpcDecoder.decodeSgtin96("30381D5D419C23BFFFFFFFFF");
+        Assert.assertEquals(Sgtin96.MAX_SERIAL, sgtin.getSerial());
+        Assert.assertEquals(422030L, sgtin.getItemReference());
+    }
+
+    @Test(expected = Exception.class)
+    public void testUnsupportedHeader() throws Exception {
+        EpcDecoder.decode("E20034120123456789ABCDEF");
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidPartition() throws Exception {
+        EpcDecoder.decode("301C00000000000000000001");
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidHex() throws Exception {
+        EpcDecoder.decode("30740242204031C0000003EX");
+    }
+
+    @Test
+    public void testMapAdapter() throws Exception {
+        HashMap<EPCTools.TAG_DATA, String> map = new EPCTools().toMap(EpcDecoder.decode("31542BE0F0218A7975000000"));
+        Assert.assertEquals("SSCC", map.get(EPCTools.TAG_DATA.HEADER));
+        Assert.assertEquals("2", map.get(EPCTools.TAG_DATA.FILTER));
+        Assert.assertEquals("5", map.get(EPCTools.TAG_DATA.PARTITION));
+        Assert.assertEquals("0718908", map.get(EPCTools.TAG_DATA.COMPANY_PREFIX));
+        Assert.assertEquals("0562723189", map.get(EPCTools.TAG_DATA.SERIAL_REFERENCE));
+        Assert.assertEquals("0", map.get(EPCTools.TAG_DATA.UNALLOCATED));
+    }
+
+    @Test
+    public void testDecodeBytes() throws Exception {
+        byte[] packed = new byte[26];
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, 999L, packed, 1);
+        EpcEncoder.encodeSscc96(2, 5, 4032046L, 3000000000L, packed, 13);
+        Assert.assertEquals(EPCTools.ENCODING.SGTIN_96, EpcDecoder.getEncoding(packed, 1));
+        Assert.assertEquals(EPCTools.ENCODING.SSCC, EpcDecoder.getEncoding(packed, 13));
+        Assert.assertEquals("30740242204031C0000003E7", EpcDecoder.decode(packed, 1).toHexString());
+        Assert.assertEquals("340320460000000000", ((Sscc96) EpcDecoder.decode(packed, 13)).getSSCC());
+    }
+
+    @Test
+    public void testDecodeByteBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(24);
+        EpcEncoder.encodeSscc96(2, 5, 4032046L, 3000000000L, buffer);
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, 999L, buffer);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals("3154F618B8B2D05E00000000", EpcDecoder.decode(buffer, 0).toHexString());
+        Assert.assertEquals("30740242204031C0000003E7", EpcDecoder.decode(buffer, 12).toHexString());
+        Assert.assertEquals(24, buffer.position());
+        Assert.assertTrue(EPCTools.getInstance().isSGTIN96(buffer, 12));
+    }
+
+    @Test(expected = Exception.class)
+    public void testDecodeBytesTooShort() throws Exception {
+        EpcDecoder.decode(new byte[16], 6);
+    }
+
+    @Test
+    public void testTryDecode() throws Exception {
+        DecodeResult result = new DecodeResult();
+        Assert.assertEquals(DecodeStatus.OK, EpcDecoder.tryDecode("30740242204031C0000003E7", result));
+        Assert.assertTrue(result.isValid());
+        Assert.assertEquals(EPCTools.ENCODING.SGTIN_96, result.getEncoding());
+        Assert.assertEquals(3, result.getFilter());
+        Assert.assertEquals(5, result.getPartition());
+        Assert.assertEquals(37000L, result.getCompanyPrefix());
+        Assert.assertEquals(EpcDecoder.decode("30740242204031C0000003E7"), result.toEpc96());
+
+        Assert.assertEquals(DecodeStatus.OK, EpcDecoder.tryDecode("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0", result));
+        Assert.assertEquals(198, result.getBits());
+        Assert.assertNull(result.toEpc96());
+        Assert.assertEquals("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0", result.toHexString());
+
+        Assert.assertEquals(DecodeStatus.UNSUPPORTED_HEADER, EpcDecoder.tryDecode("E2003412012345678901ABCD", result));
+        Assert.assertEquals(0xE2, result.getHeader());
+        Assert.assertNull(result.getEncoding());
+        Assert.assertEquals(DecodeStatus.BAD_PARTITION, EpcDecoder.tryDecode("307C0242204031C0000003E7", result));
+        Assert.assertEquals(-1, result.getCompanyPrefix());
+        Assert.assertEquals(DecodeStatus.BAD_LENGTH, EpcDecoder.tryDecode("30740242204031C0000003", result));
+        Assert.assertEquals(DecodeStatus.BAD_LENGTH, EpcDecoder.tryDecode("3", result));
+        Assert.assertEquals(DecodeStatus.NON_HEX, EpcDecoder.tryDecode("30740242204031C00000O3E7", result));
+        Assert.assertEquals(20, result.getErrorIndex());
+        Assert.assertEquals(DecodeStatus.NON_HEX, EpcDecoder.tryDecode("X0740242204031C0000003E7", result));
+        Assert.assertEquals(0, result.getErrorIndex());
+        Assert.assertNull(result.toEpc96());
+
+        // GID-96 has no partition
+        Assert.assertEquals(DecodeStatus.OK, EpcDecoder.tryDecode("35000000F00000E000000001", result));
+    }
+
+    @Test
+    public void testTryDecodeBytes() throws Exception {
+        DecodeResult result = new DecodeResult();
+        byte[] packed = new byte[13];
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, 999L, packed, 1);
+        Assert.assertEquals(DecodeStatus.OK, EpcDecoder.tryDecode(packed, 1, result));
+        Assert.assertEquals("30740242204031C0000003E7", result.toHexString());
+        Assert.assertEquals(DecodeStatus.BAD_LENGTH, EpcDecoder.tryDecode(packed, 2, result));
+        packed[1] = (byte) 0xE2;
+        Assert.assertEquals(DecodeStatus.UNSUPPORTED_HEADER, EpcDecoder.tryDecode(packed, 1, result));
+
+        byte[] ascii = " 3154F618B8B2D05E00000000".getBytes("US-ASCII");
+        Assert.assertEquals(DecodeStatus.OK, EpcDecoder.tryDecodeHex(ascii, 1, 24, result));
+        Assert.assertEquals(EPCTools.ENCODING.SSCC, result.getEncoding());
+        Assert.assertEquals(DecodeStatus.NON_HEX, EpcDecoder.tryDecodeHex(ascii, 0, 24, result));
+    }
+
+    @Test
+    public void testFieldsBeyondPartitionDigits() throws Exception {
+        // company prefix 16601678 in the 24 bits of partition 5 and serial
+        // reference beyond 10 digits, both were cut to the field width
+        for (String hex : new String[]{"3077F549384655D2C0614A06", "31BBE081BF2F5F053DC4B77B"}) {
+            try {
+                EpcDecoder.decode(hex);
+                Assert.fail(hex);
+            } catch (Exception e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("digits for partition"));
+            }
+            DecodeResult result = new DecodeResult();
+            Assert.assertEquals(DecodeStatus.BAD_FIELD, EpcDecoder.tryDecode(hex, result));
+            Assert.assertNull(result.toEpc96());
+            Assert.assertEquals(DecodeStatus.BAD_FIELD, EpcDecoder.tryDecode(HexCodec.parseHigh96(hex), HexCodec.parseLow96(hex), result));
+            Assert.assertFalse(new InventoryAggregator(1).add(hex));
+        }
+
+        long[] words = new long[AlphanumericScheme.WORDS];
+        AlphanumericScheme.SGTIN_198.parseHex(EPCTools.getInstance().createSGTIN_198HexEPC(1, 5, "0614141", "812345", "A1"), words);
+        words[0] |= ((1L << 24) - 1) << 26;
+        String hex = AlphanumericScheme.SGTIN_198.toHex(words);
+        Assert.assertEquals(DecodeStatus.BAD_FIELD, EpcDecoder.tryDecode(hex, new DecodeResult()));
+        try {
+            EpcUri.appendPureIdentityURI(hex, new StringBuilder());
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage().startsWith("field has more digits"));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcEncoderTest {
+
+    @Test
+    public void testEncodeSgtin96Hex() throws Exception {
+        char[] hex = new char[30];
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, 999L, hex, 3);
+        Assert.assertEquals("30740242204031C0000003E7", new String(hex, 3, 24));
+
+        EpcEncoder.encodeSgtin96(1, 0, 234567890123L, 1L, 12345L, hex, 0);
+        Assert.assertEquals("3020DA7557D32C4000003039", new String(hex, 0, 24));
+    }
+
+    @Test
+    public void testEncodeSgtin96Bytes() throws Exception {
+        byte[] b = new byte[12];
+        EpcEncoder.encodeSgtin96(2, 6, 30069L, 422030L, 123456789L, b, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        EpcEncoder.encodeSgtin96(2, 6, 30069L, 422030L, 123456789L, buffer);
+        Assert.assertArrayEquals(b, buffer.array());
+        Assert.assertEquals(0x30, b[0] & 0xFF);
+        Assert.assertEquals(0x15, b[11] & 0xFF);
+    }
+
+    @Test
+    public void testEncodeSscc96() throws Exception {
+        char[] hex = new char[24];
+        EpcEncoder.encodeSscc96(2, 5, 4032046L, 3000000000L, hex, 0);
+        Assert.assertEquals("3154F618B8B2D05E00000000", new String(hex));
+        Assert.assertEquals("340320460000000000", EpcEncoder.sscc96(2, 5, 4032046L, 3000000000L).getSSCC());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Sgtin96 sgtin = EpcEncoder.sgtin96(1, 6, 30069L, 422030L, Sgtin96.MAX_SERIAL);
+        Assert.assertEquals(sgtin, EpcDecoder.decode(sgtin.toHexString()));
+        Assert.assertEquals(Sgtin96.MAX_SERIAL, sgtin.getSerial());
+    }
+
+    @Test(expected = Exception.class)
+    public void testSerialOutOfRange() throws Exception {
+        EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, Sgtin96.MAX_SERIAL + 1);
+    }
+
+    @Test(expected = Exception.class)
+    public void testCompanyPrefixOutOfRange() throws Exception {
+        EpcEncoder.sgtin96High(1, 6, 1L << 20, 422030L, 1L);
+    }
+
+    @Test(expected = Exception.class)
+    public void testSerialReferenceOutOfRange() throws Exception {
+        EpcEncoder.sscc96High(2, 5, 4032046L, 1L << 34);
+    }
+}
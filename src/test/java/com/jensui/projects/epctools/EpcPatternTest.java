@@ -0,0 +1,71 @@
+package com.jensui.projects.epctools;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcPatternTest {
+
+    @Test
+    public void testSgtin96Pattern() throws Exception {
+        Assert.assertTrue(EpcPattern.compile("urn:epc:pat:sgtin-96:3.0037000.*.*").matches("30740242204031C0000003E7"));
+        Assert.assertTrue(EpcPattern.compile("urn:epc:pat:sgtin-96:*.0037000.065735.999").matches("30740242204031C0000003E7"));
+        Assert.assertTrue(EpcPattern.compile("urn:epc:pat:sgtin-96:*.*.*.*").matches("30381D5D419C238000000001"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sgtin-96:2.0037000.*.*").matches("30740242204031C0000003E7"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sgtin-96:3.0037001.*.*").matches("30740242204031C0000003E7"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sgtin-96:3.0037000.065735.998").matches("30740242204031C0000003E7"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sgtin-96:3.037000.*.*").matches("30740242204031C0000003E7"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sscc-96:*.*.*").matches("30740242204031C0000003E7"));
+    }
+
+    @Test
+    public void testRanges() throws Exception {
+        EpcPattern pattern = EpcPattern.compile("urn:epc:pat:sgtin-96:[1-3].0037000.[065000-066000].[900-1000]");
+        Assert.assertTrue(pattern.matches("30740242204031C0000003E7"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sgtin-96:3.0037000.065735.[1000-2000]").matches("30740242204031C0000003E7"));
+        long high = EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, (1L << 32) + 5);
+        EpcPattern straddling = EpcPattern.compile("urn:epc:pat:sgtin-96:1.030069.0422030.[4294967300-4294967301]");
+        Assert.assertTrue(straddling.matches(high, 5));
+        Assert.assertFalse(straddling.matches(high, 6));
+    }
+
+    @Test
+    public void testSscc96Pattern() throws Exception {
+        Assert.assertTrue(EpcPattern.compile("urn:epc:pat:sscc-96:2.4032046.3000000000").matches("3154F618B8B2D05E00000000"));
+        Assert.assertTrue(EpcPattern.compile("urn:epc:pat:sscc-96:*.4032046.[3000000000-3000000010]").matches("3154F618B8B2D05E00000000"));
+        Assert.assertFalse(EpcPattern.compile("urn:epc:pat:sscc-96:*.4032046.3000000001").matches("3154F618B8B2D05E00000000"));
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidItemReferenceDigits() throws Exception {
+        EpcPattern.compile("urn:epc:pat:sgtin-96:3.0037000.65735.*");
+    }
+
+    @Test(expected = Exception.class)
+    public void testFieldAfterWildcardPrefix() throws Exception {
+        EpcPattern.compile("urn:epc:pat:sgtin-96:3.*.065735.*");
+    }
+
+    @Test
+    public void testPatternSet() throws Exception {
+        List<String> uris = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            uris.add("urn:epc:pat:sgtin-96:*.0" + (100000 + i) + "." + (100000 + i) + ".*");
+        }
+        uris.add("urn:epc:pat:sgtin-96:3.0037000.[065000-066000].*");
+        uris.add("urn:epc:pat:sscc-96:*.*.*");
+        EpcPatternSet set = new EpcPatternSet(uris);
+        Assert.assertEquals(5002, set.size());
+        Assert.assertTrue(set.matches("30740242204031C0000003E7"));
+        Assert.assertTrue(set.matches("3154F618B8B2D05E00000000"));
+        Assert.assertFalse(set.matches("30381D5D419C238000000001"));
+        long high = EpcEncoder.sgtin96High(1, 5, 101234L, 101234L, 77L);
+        Assert.assertEquals("urn:epc:pat:sgtin-96:*.0101234.101234.*", set.match(high, 77L).toString());
+        Assert.assertNull(set.match(EpcEncoder.sgtin96High(1, 5, 101234L, 101235L, 77L), 77L));
+    }
+}
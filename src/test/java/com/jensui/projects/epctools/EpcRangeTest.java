@@ -0,0 +1,74 @@
+package com.jensui.projects.epctools;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcRangeTest {
+
+    @Test
+    public void testSgtin96AcrossWordBoundary() throws Exception {
+        long first = (1L << 32) - 2;
+        EpcRange range = EpcRange.sgtin96(1, 6, 30069L, 422030L, first, 4);
+        char[] hex = new char[24 * 4];
+        range.encodeHex(0, 4, hex, 0);
+        for (int i = 0; i < 4; i++) {
+            Sgtin96 sgtin = EpcDecoder.decodeSgtin96(new String(hex, 24 * i, 24));
+            Assert.assertEquals(first + i, sgtin.getSerial());
+            Assert.assertEquals(EpcEncoder.sgtin96(1, 6, 30069L, 422030L, first + i), sgtin);
+        }
+    }
+
+    @Test
+    public void testSscc96AcrossWordBoundary() throws Exception {
+        EpcRange range = EpcRange.sscc96(2, 5, 4032046L, 3000000250L, 10);
+        byte[] b = new byte[120];
+        range.encode(0, 10, b, 0);
+        for (int i = 0; i < 10; i++) {
+            Sscc96 sscc = (Sscc96) EpcDecoder.decode(b, 12 * i);
+            Assert.assertEquals(3000000250L + i, sscc.getSerialReference());
+            Assert.assertEquals(4032046L, sscc.getCompanyPrefix());
+        }
+        Assert.assertEquals("3154F618B8B2D05E00000000", EpcRange.sscc96(2, 5, 4032046L, 3000000000L, 1).get(0).toHexString());
+    }
+
+    @Test
+    public void testWriteHexLinesAndIterator() throws Exception {
+        EpcRange range = EpcRange.sscc96(2, 5, 4032046L, 3000000000L, 600);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        range.writeHexLines(out);
+        String[] lines = new String(out.toByteArray(), "US-ASCII").split("\n");
+        Assert.assertEquals(600, lines.length);
+        Iterator<Epc96> it = range.iterator();
+        for (String line : lines) {
+            Assert.assertEquals(it.next().toHexString(), line);
+        }
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test(expected = Exception.class)
+    public void testSgtin96RangeOverflow() throws Exception {
+        EpcRange.sgtin96(1, 6, 30069L, 422030L, Sgtin96.MAX_SERIAL, 2);
+    }
+
+    @Test(expected = Exception.class)
+    public void testSscc96RangeExceedsDigits() throws Exception {
+        EpcRange.sscc96(2, 5, 4032046L, 9999999999L, 2);
+    }
+
+    @Test
+    public void testSscc96NegativeSerialReference() {
+        try {
+            EpcRange.sscc96(2, 5, 4032046L, -5L, 10);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals(Exception.class, e.getClass());
+            Assert.assertEquals("serial reference can not be negative: -5", e.getMessage());
+        }
+    }
+}
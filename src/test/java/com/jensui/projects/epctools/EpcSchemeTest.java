@@ -0,0 +1,91 @@
+package com.jensui.projects.epctools;
+
+import com.jensui.projects.epctools.EPCTools.ENCODING;
+import com.jensui.projects.epctools.EPCTools.TAG_DATA;
+import java.util.HashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcSchemeTest {
+
+    private static final String[][] VECTORS = {
+        {"3374257BF40C0E4000000190", "urn:epc:id:grai:0614141.12345.400", "urn:epc:tag:grai-96:3.0614141.12345.400"},
+        {"3474257BF40000000000162E", "urn:epc:id:giai:0614141.5678", "urn:epc:tag:giai-96:3.0614141.5678"},
+        {"3234257BF460720000000190", "urn:epc:id:sgln:0614141.12345.400", "urn:epc:tag:sgln-96:1.0614141.12345.400"},
+        {"32023BF69FE5040000000000", "urn:epc:id:sgln:614141000001..0", "urn:epc:tag:sgln-96:0.614141000001..0"},
+        {"355AB1C60003039000000190", "urn:epc:id:gid:95100000.12345.400", "urn:epc:tag:gid-96:95100000.12345.400"},
+        {"2F22032533139342DFDC1C35", "urn:epc:id:usdod:2S194.12345678901", "urn:epc:tag:usdod-96:2.2S194.12345678901"}
+    };
+
+    @Test
+    public void testVectors() throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        for (String[] v : VECTORS) {
+            Epc96 epc = EpcDecoder.decode(v[0]);
+            Assert.assertTrue(epc instanceof SchemeEpc96);
+            Assert.assertEquals(v[1], tools.createEPCPureIdentityURI(v[0]));
+            Assert.assertEquals(v[2], tools.createEPCTagIdURI(v[0]));
+            Assert.assertEquals(v[0], EpcUri.toHex(v[2], 0));
+            Assert.assertEquals(epc, EpcUri.parse(v[1], epc.getFilter()));
+        }
+    }
+
+    @Test
+    public void testFields() throws Exception {
+        SchemeEpc96 grai = (SchemeEpc96) EpcDecoder.decode("3374257BF40C0E4000000190");
+        Assert.assertEquals(ENCODING.GRAI_96, grai.getEncoding());
+        Assert.assertEquals(3, grai.getFilter());
+        Assert.assertEquals(5, grai.getPartition());
+        Assert.assertEquals(614141L, grai.getCompanyPrefix());
+        Assert.assertEquals("0614141", grai.getCompanyPrefixString());
+        Assert.assertEquals(12345L, grai.getField(1));
+        Assert.assertEquals(400L, grai.getField(2));
+
+        SchemeEpc96 dod = (SchemeEpc96) EpcDecoder.decode("2F22032533139342DFDC1C35");
+        Assert.assertEquals(-1L, dod.getCompanyPrefix());
+        Assert.assertEquals("2S194", dod.getCompanyPrefixString());
+        Assert.assertEquals(12345678901L, dod.getField(1));
+    }
+
+    @Test
+    public void testMap() throws Exception {
+        HashMap<TAG_DATA, String> map = EPCTools.getInstance().parseHexString("3374257BF40C0E4000000190");
+        Assert.assertEquals("GRAI_96", map.get(TAG_DATA.HEADER));
+        Assert.assertEquals("3", map.get(TAG_DATA.FILTER));
+        Assert.assertEquals("5", map.get(TAG_DATA.PARTITION));
+        Assert.assertEquals("0614141", map.get(TAG_DATA.COMPANY_PREFIX));
+        Assert.assertEquals("12345", map.get(TAG_DATA.ASSET_TYPE));
+        Assert.assertEquals("400", EPCTools.getInstance().getSerialNumber(map));
+
+        map = EPCTools.getInstance().parseHexString("355AB1C60003039000000190");
+        Assert.assertEquals("95100000", map.get(TAG_DATA.GENERAL_MANAGER));
+        Assert.assertEquals("12345", map.get(TAG_DATA.OBJECT_CLASS));
+        Assert.assertNull(map.get(TAG_DATA.FILTER));
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        Epc96 giai = EpcScheme.GIAI_96.encode(3, 5, 614141L, 5678L);
+        Assert.assertEquals("3474257BF40000000000162E", giai.toHexString());
+        Epc96 sgtin = EpcScheme.SGTIN_96.encode(3, 5, 37000L, 65735L, 999L);
+        Assert.assertTrue(sgtin instanceof Sgtin96);
+        Assert.assertEquals("30740242204031C0000003E7", sgtin.toHexString());
+        Assert.assertEquals(EpcDecoder.decode("3154F618B8B2D05E00000000"), EpcScheme.SSCC_96.encode(2, 5, 4032046L, 3000000000L));
+        Assert.assertSame(EpcScheme.GID_96, EpcScheme.get(0x35));
+        Assert.assertNull(EpcScheme.get(0x36));
+    }
+
+    @Test(expected = Exception.class)
+    public void testEncodeTooManyDigits() throws Exception {
+        EpcScheme.GRAI_96.encode(3, 5, 614141L, 123456L, 400L);
+    }
+
+    @Test(expected = Exception.class)
+    public void testParseLeadingZeroSerial() throws Exception {
+        EpcUri.parse("urn:epc:id:grai:0614141.12345.0400", 3);
+    }
+}
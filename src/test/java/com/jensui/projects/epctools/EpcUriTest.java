@@ -0,0 +1,89 @@
+package com.jensui.projects.epctools;
+
+import java.io.StringWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class EpcUriTest {
+
+    @Test
+    public void testAppendURIs() throws Exception {
+        StringBuilder sb = new StringBuilder("uri=");
+        EpcUri.appendPureIdentityURI("30740242204031C0000003E7", sb);
+        Assert.assertEquals("uri=urn:epc:id:sgtin:0037000.065735.999", sb.toString());
+
+        StringWriter writer = new StringWriter();
+        EpcUri.appendTagURI("36381DB78038AF5A3060D183060C583062C000000000000000", writer);
+        Assert.assertEquals("urn:epc:tag:sgtin-198:1.030430.0058045.400400010010", writer.toString());
+
+        sb.setLength(0);
+        EpcUri.appendTagURI(EpcDecoder.decode("3154F618B8B2D05E00000000"), sb);
+        Assert.assertEquals("urn:epc:tag:sscc-96:2.4032046.3000000000", sb.toString());
+    }
+
+    @Test
+    public void testSgtin198() throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        StringBuilder sb = new StringBuilder();
+        EpcUri.appendPureIdentityURI(tools.createSGTIN_198HexEPC(1, 5, "0614141", "812345", "A&B/0"), sb);
+        Assert.assertEquals("urn:epc:id:sgtin:0614141.812345.A%26B%2F0", sb.toString());
+        sb.setLength(0);
+        EpcUri.appendTagURI(tools.createSGTIN_198HexEPC(1, 5, "0614141", "812345", "000123"), sb);
+        Assert.assertEquals("urn:epc:tag:sgtin-198:1.0614141.812345.123", sb.toString());
+        sb.setLength(0);
+        EpcUri.appendPureIdentityURI(tools.createSGTIN_198HexEPC(1, 5, "0614141", "812345", "00%1"), sb);
+        Assert.assertEquals("urn:epc:id:sgtin:0614141.812345.00%251", sb.toString());
+    }
+
+    @Test
+    public void testAppendSerial() {
+        Assert.assertEquals("12345abc", serial("00012345abc"));
+        Assert.assertEquals("999", serial("000000000999"));
+        Assert.assertEquals("0", serial("000000000000"));
+        Assert.assertEquals("00000-1", serial("00000-1"));
+        Assert.assertEquals("99999999999999999999", serial("99999999999999999999"));
+    }
+
+    private static String serial(String sn) {
+        StringBuilder sb = new StringBuilder();
+        EpcUri.appendSerial(sn, sb);
+        return sb.toString();
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        Assert.assertEquals("30740242204031C0000003E7", EpcUri.toHex("urn:epc:tag:sgtin-96:3.0037000.065735.999", 0));
+        Assert.assertEquals("30740242204031C0000003E7", EpcUri.toHex("urn:epc:id:sgtin:0037000.065735.999", 3));
+        Assert.assertEquals("3154F618B8B2D05E00000000", EpcUri.toHex("urn:epc:id:sscc:4032046.3000000000", 2));
+        Assert.assertEquals("3154F618B8B2D05E00000000", EpcUri.toHex("urn:epc:tag:sscc-96:2.4032046.3000000000", 7));
+        Assert.assertEquals("3154024220218A7975000000", EpcUri.toHex("urn:epc:id:sscc:0037000.562723189", 2));
+        Assert.assertEquals("3154024220218A7975000000", EPCTools.getInstance().createHexEPC("urn:epc:id:sscc:0037000.0562723189", 2));
+
+        byte[] b = new byte[12];
+        EpcUri.parse("urn:epc:id:sgtin:234567890123.1.12345", 1, b, 0);
+        Assert.assertEquals("3020DA7557D32C4000003039", EpcDecoder.decode(b, 0).toHexString());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        for (String hex : new String[]{"30740242204031C0000003E7", "30381D5D419C238000000001", "3020DA7557D32C4000003039", "3154F618B8B2D05E00000000", "31542BE0F0218A7975000000"}) {
+            Assert.assertEquals(hex, EpcUri.toHex(tools.createEPCTagIdURI(hex), 0));
+            Assert.assertEquals(EpcDecoder.decode(hex), EpcUri.parse(tools.createEPCTagIdURI(hex), 0));
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void testParseAlphanumericSerial() throws Exception {
+        EpcUri.parse("urn:epc:id:sgtin:030430.0058045.12345abc", 1);
+    }
+
+    @Test(expected = Exception.class)
+    public void testParseWrongItemReferenceDigits() throws Exception {
+        EpcUri.parse("urn:epc:id:sgtin:0037000.65735.999", 1);
+    }
+}
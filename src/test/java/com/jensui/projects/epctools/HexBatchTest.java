@@ -0,0 +1,101 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author chpressler
+ */
+public class HexBatchTest {
+
+    private static long ascii(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII)).getLong();
+    }
+
+    @Test
+    public void testParse8() {
+        Assert.assertEquals(0x0123ABCDL, HexBatch.parse8(ascii("0123ABCD")));
+        Assert.assertEquals(0xFFFFFFFFL, HexBatch.parse8(ascii("ffffffff")));
+        Assert.assertEquals(0x009AF0AFL, HexBatch.parse8(ascii("009aF0aF")));
+        for (String bad : new String[]{"0123ABCG", "/0000000", ":0000000", "@0000000", "G0000000", "`0000000", "g0000000", "0000 000"}) {
+            Assert.assertEquals(bad, -1, HexBatch.parse8(ascii(bad)));
+        }
+        Assert.assertEquals(-1, HexBatch.parse8(0x30303030303030B0L));
+        // every byte value in every position
+        for (int b = 0; b < 256; b++) {
+            for (int pos = 0; pos < 8; pos++) {
+                long w = ascii("00000000") & ~(0xFFL << (pos * 8)) | (long) b << (pos * 8);
+                int d = HexCodec.digit((char) b);
+                Assert.assertEquals(d < 0 ? -1 : (long) d << (pos * 4), HexBatch.parse8(w));
+            }
+        }
+    }
+
+    @Test
+    public void testFormat8() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            long v = random.nextLong() & 0xFFFFFFFFL;
+            long f = HexBatch.format8(v);
+            Assert.assertEquals(v, HexBatch.parse8(f));
+            byte[] b = ByteBuffer.allocate(8).putLong(f).array();
+            Assert.assertEquals(String.format("%08X", v), new String(b, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testParse96Ascii() {
+        byte[] records = "30740242204031C0000003E7\n3154F618B8B2D05E00000000\n30740242204031C0000003Z7\n".getBytes(StandardCharsets.US_ASCII);
+        long[] highs = new long[3];
+        long[] lows = new long[3];
+        BitSet invalid = new BitSet();
+        Assert.assertEquals(1, HexBatch.parse96(records, 0, 25, 3, highs, lows, invalid));
+        Assert.assertEquals("30740242204031C0000003E7", HexCodec.toHex96(highs[0], lows[0]));
+        Assert.assertEquals("3154F618B8B2D05E00000000", HexCodec.toHex96(highs[1], lows[1]));
+        Assert.assertEquals(0, highs[2]);
+        Assert.assertEquals(2, invalid.nextSetBit(0));
+
+        ByteBuffer little = ByteBuffer.wrap(records).order(ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(1, HexBatch.parse96(little, 0, 25, 3, highs, lows, null));
+        Assert.assertEquals("3154F618B8B2D05E00000000", HexCodec.toHex96(highs[1], lows[1]));
+
+        byte[] out = new byte[50];
+        HexBatch.format96(highs, lows, 2, out, 1, 25);
+        Assert.assertEquals("30740242204031C0000003E7", new String(out, 1, 24, StandardCharsets.US_ASCII));
+        Assert.assertEquals("3154F618B8B2D05E00000000", new String(out, 26, 24, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testParse96Strings() {
+        String[] hex = {"30740242204031C0000003E7", "3074", null, "3154f618b8b2d05e00000000", "30740242204031C0000003-7"};
+        long[] highs = new long[hex.length];
+        long[] lows = new long[hex.length];
+        BitSet invalid = new BitSet();
+        Assert.assertEquals(3, HexBatch.parse96(hex, highs, lows, invalid));
+        Assert.assertEquals("{1, 2, 4}", invalid.toString());
+        Assert.assertEquals("3154F618B8B2D05E00000000", HexCodec.toHex96(highs[3], lows[3]));
+
+        String[] out = new String[hex.length];
+        HexBatch.format96(highs, lows, out);
+        Assert.assertEquals("30740242204031C0000003E7", out[0]);
+        Assert.assertEquals("000000000000000000000000", out[1]);
+    }
+
+    @Test
+    public void testParseWords() {
+        String sgtin198 = "36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0";
+        long[] words = new long[2 * AlphanumericScheme.WORDS];
+        BitSet invalid = new BitSet();
+        Assert.assertEquals(1, HexBatch.parseWords(new String[]{"30740242204031C0000003E7", sgtin198}, 50, words, invalid));
+        Assert.assertTrue(invalid.get(0));
+        Assert.assertEquals(0, words[0]);
+        long[] tag = new long[AlphanumericScheme.WORDS];
+        System.arraycopy(words, AlphanumericScheme.WORDS, tag, 0, tag.length);
+        Assert.assertEquals(sgtin198, AlphanumericScheme.SGTIN_198.toHex(tag));
+    }
+}
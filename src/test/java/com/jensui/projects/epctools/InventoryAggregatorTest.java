@@ -0,0 +1,118 @@
+package com.jensui.projects.epctools;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class InventoryAggregatorTest {
+
+    @Test
+    public void testCounts() throws Exception {
+        InventoryAggregator aggregator = new InventoryAggregator(4);
+        Assert.assertTrue(aggregator.add("30740242204031C0000003E7"));
+        Assert.assertTrue(aggregator.add("30740242204031C0000003E8"));
+        Assert.assertTrue(aggregator.add("315402422000000045000000"));
+        Assert.assertTrue(aggregator.add("3154F618B8B2D05E00000000"));
+        Assert.assertTrue(aggregator.add("3154F618B8B2D05E00000000"));
+        Assert.assertFalse(aggregator.add("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0"));
+        Assert.assertFalse(aggregator.add("E20034120123456789ABCDEF"));
+
+        InventoryAggregator.Snapshot snapshot = aggregator.snapshotAndReset();
+        Assert.assertEquals(Long.valueOf(2), snapshot.getGtinCounts().get("00037000657354"));
+        Assert.assertEquals(Long.valueOf(1), snapshot.getSsccCounts().get("000370000000000693"));
+        Assert.assertEquals(Long.valueOf(2), snapshot.getSsccCounts().get("340320460000000000"));
+        Assert.assertEquals(Long.valueOf(3), snapshot.getCompanyPrefixCounts().get("0037000"));
+        Assert.assertEquals(Long.valueOf(2), snapshot.getCompanyPrefixCounts().get("4032046"));
+        Assert.assertEquals(2, snapshot.getRejected());
+
+        snapshot = aggregator.snapshot();
+        Assert.assertTrue(snapshot.getGtinCounts().isEmpty());
+        Assert.assertEquals(0, snapshot.getRejected());
+    }
+
+    @Test
+    public void testSameKeyUnderTwoPartitions() throws Exception {
+        InventoryAggregator aggregator = new InventoryAggregator(4);
+        aggregator.add(EpcEncoder.sgtin96High(1, 5, 614141L, 45324L, 1), 1);
+        aggregator.add(EpcEncoder.sgtin96High(1, 5, 614141L, 45324L, 2), 2);
+        aggregator.add(EpcEncoder.sgtin96High(1, 6, 61414L, 145324L, 3), 3);
+        aggregator.add(EpcEncoder.sscc96(2, 5, 614141L, 1234567890L));
+        aggregator.add(EpcEncoder.sscc96(2, 6, 61414L, 11234567890L));
+        InventoryAggregator.Snapshot snapshot = aggregator.snapshot();
+        Assert.assertEquals(1, snapshot.getGtinCounts().size());
+        Assert.assertEquals(Long.valueOf(3), snapshot.getGtinCounts().get("00614141453245"));
+        Assert.assertEquals(1, snapshot.getSsccCounts().size());
+        Assert.assertEquals(Long.valueOf(2), snapshot.getSsccCounts().values().iterator().next());
+        Assert.assertEquals(Long.valueOf(3), snapshot.getCompanyPrefixCounts().get("0614141"));
+        Assert.assertEquals(Long.valueOf(2), snapshot.getCompanyPrefixCounts().get("061414"));
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final InventoryAggregator aggregator = new InventoryAggregator(2);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (long itemRef = 0; itemRef < 500; itemRef++) {
+                            for (long serial = 0; serial < 20; serial++) {
+                                aggregator.add(EpcEncoder.sgtin96High(1, 6, 30069L, itemRef, serial), serial);
+                            }
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        InventoryAggregator.Snapshot snapshot = aggregator.snapshot();
+        Assert.assertEquals(500, snapshot.getGtinCounts().size());
+        for (Long count : snapshot.getGtinCounts().values()) {
+            Assert.assertEquals(80L, count.longValue());
+        }
+        Assert.assertEquals(Long.valueOf(40000), snapshot.getCompanyPrefixCounts().get("030069"));
+    }
+
+    @Test
+    public void testSnapshotAndResetWhileAdding() throws Exception {
+        final InventoryAggregator aggregator = new InventoryAggregator(2);
+        final long high = EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, 0);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 250000; i++) {
+                        aggregator.add(high, 0);
+                        aggregator.add(0, 0);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        long reported = 0;
+        long rejected = 0;
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            InventoryAggregator.Snapshot snapshot = aggregator.snapshotAndReset();
+            Long count = snapshot.getGtinCounts().get("00300694220303");
+            reported += count == null ? 0 : count;
+            rejected += snapshot.getRejected();
+        }
+        Assert.assertEquals(1000000, reported);
+        Assert.assertEquals(1000000, rejected);
+    }
+}
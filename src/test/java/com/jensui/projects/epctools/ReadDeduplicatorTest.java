@@ -0,0 +1,54 @@
+package com.jensui.projects.epctools;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author chpressler
+ */
+public class ReadDeduplicatorTest {
+
+    @Test
+    public void testWindow() {
+        ReadDeduplicator dedup = new ReadDeduplicator(1000);
+        Assert.assertTrue(dedup.accept("30740242204031C0000003E7", 0));
+        Assert.assertFalse(dedup.accept("30740242204031C0000003E7", 500));
+        Assert.assertTrue(dedup.accept("3154F618B8B2D05E00000000", 500));
+        Assert.assertFalse(dedup.accept("30740242204031C0000003E7", 999));
+        Assert.assertTrue(dedup.accept("30740242204031C0000003E7", 1000));
+        Assert.assertFalse(dedup.accept("30740242204031C0000003E7", 1999));
+        Assert.assertEquals(3, dedup.getAccepted());
+        Assert.assertEquals(3, dedup.getDuplicates());
+    }
+
+    @Test
+    public void testBytesAndHexShareKeys() throws Exception {
+        byte[] epc = new byte[12];
+        EpcEncoder.encodeSgtin96(3, 5, 37000L, 65735L, 999L, epc, 0);
+        ReadDeduplicator dedup = new ReadDeduplicator(1000);
+        Assert.assertTrue(dedup.accept(epc, 0, 10));
+        Assert.assertFalse(dedup.accept("30740242204031c0000003e7", 20));
+    }
+
+    @Test
+    public void testGrowAndLazyExpiry() throws Exception {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            ReadDeduplicator dedup = new ReadDeduplicator(100, 16, 2, offHeap);
+            long high = EpcEncoder.sgtin96High(1, 6, 30069L, 422030L, 0);
+            for (int round = 0; round < 3; round++) {
+                long now = round * 1000;
+                for (long serial = 0; serial < 20000; serial++) {
+                    Assert.assertTrue(dedup.accept(high, serial, now));
+                }
+                for (long serial = 0; serial < 20000; serial += 7) {
+                    Assert.assertFalse(dedup.accept(high, serial, now + 99));
+                }
+            }
+            Assert.assertEquals(60000, dedup.getAccepted());
+            Assert.assertTrue(dedup.size() <= 40000);
+            dedup.purge(10000);
+            Assert.assertEquals(0, dedup.size());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.jensui.projects.epctools;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author chpressler
+ */
+public class ReconciliationTest {
+
+    @Test
+    public void testReconcile() throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        Reconciliation reconciliation = new Reconciliation();
+        for (int serial = 1; serial <= 100; serial++) {
+            reconciliation.expect(tools.createSGTIN_96HexEPC(1, "00614141453245", Integer.toString(serial)));
+        }
+        reconciliation.expect(tools.createSSCCHexEPC(0, "0614141", "1", "234567890"));
+        reconciliation.expect(tools.createSSCCHexEPC(0, "0614141", "1", "234567891"));
+        // read with another filter value, all but serial 50, one foreign tag
+        for (int serial = 1; serial <= 100; serial++) {
+            if (serial != 50) {
+                reconciliation.observe(EpcDecoder.decode(tools.createSGTIN_96HexEPC(3, "00614141453245", Integer.toString(serial))));
+            }
+        }
+        reconciliation.observe(tools.createSGTIN_96HexEPC(1, "00614141453245", "101"));
+        reconciliation.observe(tools.createSSCCHexEPC(2, "0614141", "1", "234567890"));
+        Assert.assertFalse(reconciliation.observe("E2003412012345678901ABCD"));
+        Assert.assertFalse(reconciliation.observe("3074"));
+
+        Reconciliation.Result result = reconciliation.reconcile();
+        Assert.assertEquals(100, result.getMatchedCount());
+        Assert.assertEquals(2, result.getMissingCount());
+        Assert.assertEquals(1, result.getUnexpectedCount());
+        Assert.assertEquals(2, result.getRejectedCount());
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals(2, result.getGroups().size());
+        for (Reconciliation.Group group : result.getGroups()) {
+            if (group.isSSCC()) {
+                Assert.assertEquals("0614141", group.getCompanyPrefixString());
+                Assert.assertNull(group.getGTIN());
+                long[] missing = group.getMissing().toArray();
+                Assert.assertEquals(1, missing.length);
+                Assert.assertEquals("106141412345678915", ((Sscc96) EpcDecoder.decode(group.toHex(missing[0]))).getSSCC());
+            } else {
+                Assert.assertEquals("00614141453245", group.getGTIN());
+                Assert.assertEquals(Long.parseLong(group.getCompanyPrefixString()), group.getCompanyPrefix());
+                Assert.assertArrayEquals(new long[]{50}, group.getMissing().toArray());
+                Assert.assertArrayEquals(new long[]{101}, group.getUnexpected().toArray());
+                Assert.assertEquals(tools.createSGTIN_96HexEPC(0, "00614141453245", "50"), group.toHex(50));
+            }
+        }
+    }
+
+    @Test
+    public void testMillionItems() throws Exception {
+        Reconciliation reconciliation = new Reconciliation();
+        for (int gtin = 0; gtin < 10; gtin++) {
+            for (long serial = 0; serial < 100000; serial++) {
+                long high = EpcEncoder.sgtin96High(1, 5, 614141, gtin, serial);
+                long low = EpcEncoder.sgtin96Low(serial);
+                reconciliation.expect(high, low);
+                if (serial % 1000 != 7) {
+                    reconciliation.observe(high, low);
+                }
+            }
+        }
+        Reconciliation.Result result = reconciliation.reconcile();
+        Assert.assertEquals(1000000 - 1000, result.getMatchedCount());
+        Assert.assertEquals(1000, result.getMissingCount());
+        Assert.assertEquals(0, result.getUnexpectedCount());
+    }
+}
@@ -0,0 +1,99 @@
+package com.jensui.projects.epctools;
+
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author chpressler
+ */
+public class SerialBitmapTest {
+
+    private static long[] toArray(TreeSet<Long> set) {
+        long[] a = new long[set.size()];
+        int i = 0;
+        for (long v : set) {
+            a[i++] = v;
+        }
+        return a;
+    }
+
+    @Test
+    public void testAddContains() {
+        SerialBitmap bitmap = new SerialBitmap();
+        Assert.assertTrue(bitmap.isEmpty());
+        Assert.assertTrue(bitmap.add(5));
+        Assert.assertFalse(bitmap.add(5));
+        Assert.assertTrue(bitmap.add(SerialBitmap.MAX_SERIAL));
+        Assert.assertTrue(bitmap.add(1L << 16));
+        Assert.assertTrue(bitmap.contains(5));
+        Assert.assertTrue(bitmap.contains(SerialBitmap.MAX_SERIAL));
+        Assert.assertFalse(bitmap.contains(6));
+        Assert.assertFalse(bitmap.contains(-1));
+        Assert.assertEquals(3, bitmap.getCardinality());
+        Assert.assertArrayEquals(new long[]{5, 1L << 16, SerialBitmap.MAX_SERIAL}, bitmap.toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSerialTooBig() {
+        new SerialBitmap().add(SerialBitmap.MAX_SERIAL + 1);
+    }
+
+    @Test
+    public void testArrayToBitmap() {
+        SerialBitmap bitmap = new SerialBitmap();
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertTrue(bitmap.add(i * 3L));
+        }
+        Assert.assertEquals(10000, bitmap.getCardinality());
+        Assert.assertTrue(bitmap.contains(29997));
+        Assert.assertFalse(bitmap.contains(29998));
+        // one bitmap container instead of 10000 chars
+        Assert.assertTrue(bitmap.getSizeInBytes() < 10000);
+    }
+
+    @Test
+    public void testAddRange() {
+        SerialBitmap bitmap = new SerialBitmap();
+        bitmap.add(70000);
+        bitmap.addRange(65530, 200000);
+        bitmap.addRange(300000, 300010);
+        Assert.assertEquals(200000 - 65530 + 10, bitmap.getCardinality());
+        Assert.assertFalse(bitmap.contains(65529));
+        Assert.assertTrue(bitmap.contains(65530));
+        Assert.assertTrue(bitmap.contains(199999));
+        Assert.assertFalse(bitmap.contains(200000));
+        Assert.assertTrue(bitmap.contains(300009));
+    }
+
+    @Test
+    public void testSetOperations() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            SerialBitmap a = new SerialBitmap();
+            SerialBitmap b = new SerialBitmap();
+            TreeSet<Long> sa = new TreeSet<>();
+            TreeSet<Long> sb = new TreeSet<>();
+            // dense and sparse containers on both sides
+            int range = round % 2 == 0 ? 1 << 18 : 1 << 26;
+            for (int i = 0; i < 30000; i++) {
+                long x = random.nextInt(range);
+                long y = random.nextInt(range);
+                a.add(x);
+                sa.add(x);
+                b.add(y);
+                sb.add(y);
+            }
+            TreeSet<Long> and = new TreeSet<>(sa);
+            and.retainAll(sb);
+            TreeSet<Long> andNot = new TreeSet<>(sa);
+            andNot.removeAll(sb);
+            Assert.assertArrayEquals(toArray(sa), a.toArray());
+            Assert.assertArrayEquals(toArray(and), a.and(b).toArray());
+            Assert.assertArrayEquals(toArray(andNot), a.andNot(b).toArray());
+            Assert.assertEquals(and.size(), a.andCardinality(b));
+            Assert.assertEquals(and.size(), b.andCardinality(a));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.jensui.projects.epctools;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author chpressler
+ */
+public class SerialRegistryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReserveAndRegister() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long key = SerialRegistry.sgtinKey(5, 614141, 812345);
+        try (SerialRegistry registry = new SerialRegistry(dir)) {
+            Assert.assertEquals(0, registry.reserve(key, 100));
+            Assert.assertEquals(100, registry.reserve(key, 50));
+            Assert.assertFalse(registry.register(key, 42));
+            Assert.assertFalse(registry.register(key, 140, 200));
+            Assert.assertTrue(registry.register(key, 1000));
+            // blocks are taken above the highest issued serial
+            Assert.assertEquals(1001, registry.reserve(key, 10));
+            Assert.assertTrue(registry.register(key, 150, 1000));
+            Assert.assertEquals(1011, registry.getIssuedCount(key));
+            Assert.assertTrue(registry.isIssued(key, 999));
+            Assert.assertFalse(registry.isIssued(key, 1011));
+            Assert.assertEquals(1011, registry.getNext(key));
+        }
+    }
+
+    @Test
+    public void testRegisterTag() throws Exception {
+        try (SerialRegistry registry = new SerialRegistry(folder.getRoot().toPath())) {
+            Epc96 sgtin = EpcEncoder.sgtin96(1, 5, 614141, 812345, 6789);
+            Assert.assertTrue(registry.register(sgtin));
+            // the filter is not part of the EPC identity
+            Assert.assertFalse(registry.register(EpcEncoder.sgtin96(3, 5, 614141, 812345, 6789)));
+            Assert.assertTrue(registry.isIssued(SerialRegistry.sgtinKey(5, 614141, 812345), 6789));
+
+            Epc96 sscc = EpcEncoder.sscc96(0, 5, 614141, 1234567890L);
+            Assert.assertEquals(SerialRegistry.ssccKey(5, 614141), SerialRegistry.key(sscc.getHigh()));
+            Assert.assertEquals(1234567890L, SerialRegistry.serial(sscc.getHigh(), sscc.getLow()));
+            Assert.assertTrue(registry.register(sscc));
+            Assert.assertFalse(registry.register(sscc));
+            Assert.assertEquals(2, registry.getPoolCount());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterUnsupportedTag() throws Exception {
+        try (SerialRegistry registry = new SerialRegistry(folder.getRoot().toPath())) {
+            registry.registerTag(0xE200341201234567L, 0x89ABCDEFL);
+        }
+    }
+
+    @Test
+    public void testExhausted() throws Exception {
+        try (SerialRegistry registry = new SerialRegistry(folder.getRoot().toPath())) {
+            // 12 digit company prefix leaves 5 digits incl. extension digit
+            long key = SerialRegistry.ssccKey(0, 614141000001L);
+            Assert.assertEquals(99999, SerialRegistry.maxSerial(key));
+            Assert.assertEquals(0, registry.reserve(key, 99990));
+            Assert.assertEquals(-1, registry.reserve(key, 11));
+            Assert.assertEquals(99990, registry.reserve(key, 10));
+            Assert.assertEquals(-1, registry.reserve(key, 1));
+        }
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long a = SerialRegistry.sgtinKey(5, 614141, 812345);
+        long b = SerialRegistry.sgtinKey(6, 123456, 1);
+        try (SerialRegistry registry = new SerialRegistry(dir)) {
+            registry.reserve(a, 1000);
+            registry.register(b, 77);
+            registry.reserve(a, 500);
+            Assert.assertEquals(3, registry.getLogSize());
+        }
+        try (SerialRegistry registry = new SerialRegistry(dir)) {
+            Assert.assertEquals(1500, registry.getIssuedCount(a));
+            Assert.assertTrue(registry.isIssued(b, 77));
+            Assert.assertEquals(1500, registry.reserve(a, 1));
+        }
+        // tear the last record, a block of 1 serial
+        try (FileChannel channel = FileChannel.open(dir.resolve(SerialRegistry.FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), SerialLog.HEADER + 3 * SerialLog.RECORD + 24);
+        }
+        try (SerialRegistry registry = new SerialRegistry(dir)) {
+            Assert.assertEquals(3, registry.getLogSize());
+            Assert.assertEquals(1500, registry.getIssuedCount(a));
+            Assert.assertEquals(1500, registry.reserve(a, 1));
+            Assert.assertEquals(4, registry.getLogSize());
+        }
+    }
+
+    @Test
+    public void testGrowAndCompact() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long key = SerialRegistry.sgtinKey(5, 614141, 812345);
+        try (SerialRegistry registry = new SerialRegistry(dir)) {
+            for (int i = 0; i < 100000; i++) {
+                Assert.assertEquals(i * 3L, registry.reserve(key, 3));
+            }
+            registry.register(key, 1000000);
+            Assert.assertEquals(100001, registry.getLogSize());
+            registry.compact();
+            Assert.assertEquals(2, registry.getLogSize());
+            Assert.assertEquals(1000001, registry.reserve(key, 3));
+        }
+        try (SerialRegistry registry = new SerialRegistry(dir)) {
+            Assert.assertEquals(3, registry.getLogSize());
+            Assert.assertEquals(300004, registry.getIssuedCount(key));
+            Assert.assertTrue(registry.isIssued(key, 299999));
+            Assert.assertFalse(registry.isIssued(key, 300000));
+        }
+    }
+
+    @Test
+    public void testConcurrentReserve() throws Exception {
+        final Path dir = folder.getRoot().toPath();
+        final long[] keys = {SerialRegistry.sgtinKey(5, 614141, 812345), SerialRegistry.sgtinKey(5, 614141, 812346)};
+        final SerialBitmap[] seen = {new SerialBitmap(), new SerialBitmap()};
+        final SerialRegistry registry = new SerialRegistry(dir);
+        List<Thread> threads = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            int k = (thread + i) % 2;
+                            long first = registry.reserve(keys[k], 7);
+                            synchronized (seen) {
+                                for (long s = first; s < first + 7; s++) {
+                                    if (!seen[k].add(s)) {
+                                        throw new IllegalStateException("serial issued twice: " + s);
+                                    }
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        registry.close();
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        try (SerialRegistry reopened = new SerialRegistry(dir)) {
+            for (int k = 0; k < 2; k++) {
+                Assert.assertEquals(8 * 1000 * 7, seen[k].getCardinality());
+                Assert.assertEquals(8 * 1000 * 7, reopened.getIssuedCount(keys[k]));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.jensui.projects.epctools.cli;
+
+import com.jensui.projects.epctools.AlphanumericScheme;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author chpressler
+ */
+public class DumpConverterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDecodeKeepsOrderAcrossSegments() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("30740242204031C0000003E7\r\n");
+            sb.append("3154F618B8B2D05E00000000\n");
+            sb.append("\n");
+            sb.append("36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0\n");
+            sb.append("E20034120123456789ABCDEF\n");
+        }
+        File in = write(sb.toString());
+        File out = folder.newFile("out.txt");
+        DumpConverter.Stats stats = new DumpConverter(LineConverter.decoder(OutputFormat.URI), 4, 1000).convert(in.toPath(), out.toPath());
+        Assert.assertEquals(2000, stats.getLines());
+        Assert.assertEquals(500, stats.getErrors());
+        List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.US_ASCII);
+        Assert.assertEquals(1500, lines.size());
+        for (int i = 0; i < lines.size(); i += 3) {
+            Assert.assertEquals("urn:epc:id:sgtin:0037000.065735.999", lines.get(i));
+            Assert.assertEquals("urn:epc:id:sscc:4032046.3000000000", lines.get(i + 1));
+            Assert.assertEquals("urn:epc:id:sgtin:030430.0058045.12345abcABC012345678", lines.get(i + 2));
+        }
+    }
+
+    @Test
+    public void testDecodeFormats() throws Exception {
+        File in = write("30740242204031C0000003E7\n3154F618B8B2D05E00000000");
+        File out = folder.newFile("out.txt");
+        new DumpConverter(LineConverter.decoder(OutputFormat.TAG_URI), 2).convert(in.toPath(), out.toPath());
+        List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.US_ASCII);
+        Assert.assertEquals("urn:epc:tag:sgtin-96:3.0037000.065735.999", lines.get(0));
+        Assert.assertEquals("urn:epc:tag:sscc-96:2.4032046.3000000000", lines.get(1));
+
+        new DumpConverter(LineConverter.decoder(OutputFormat.GTIN_CSV), 2).convert(in.toPath(), out.toPath());
+        lines = Files.readAllLines(out.toPath(), StandardCharsets.US_ASCII);
+        Assert.assertEquals("00037000657354,999", lines.get(0));
+        Assert.assertEquals("340320460000000000,", lines.get(1));
+    }
+
+    @Test
+    public void testGtinCsvOfOtherSchemes() throws Exception {
+        long[] words = new long[AlphanumericScheme.WORDS];
+        AlphanumericScheme.GRAI_170.encode(1, 5, 614141L, 12345L, "A1", words);
+        File in = write(AlphanumericScheme.GRAI_170.toHex(words) + "\n33B40257BC00C0E00000007B\n");
+        File out = folder.newFile("out.txt");
+        DumpConverter.Stats stats = new DumpConverter(LineConverter.decoder(OutputFormat.GTIN_CSV), 1).convert(in.toPath(), out.toPath());
+        Assert.assertEquals(0, stats.getErrors());
+        List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.US_ASCII);
+        Assert.assertEquals(",", lines.get(0));
+        Assert.assertEquals(",", lines.get(1));
+    }
+
+    @Test
+    public void testEncode() throws Exception {
+        File in = write("00300694220303,1\n00300694220303,123456789\n00300694220303,x\n");
+        File out = folder.newFile("out.txt");
+        DumpConverter.Stats stats = new DumpConverter(LineConverter.sgtin96Encoder(2, OutputFormat.HEX), 1).convert(in.toPath(), out.toPath());
+        Assert.assertEquals(1, stats.getErrors());
+        List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.US_ASCII);
+        Assert.assertEquals("30581D5D419C238000000001", lines.get(0));
+        Assert.assertEquals("30581D5D419C2380075BCD15", lines.get(1));
+    }
+
+    private File write(String content) throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
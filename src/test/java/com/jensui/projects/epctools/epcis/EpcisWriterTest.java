@@ -0,0 +1,163 @@
+package com.jensui.projects.epctools.epcis;
+
+import com.jensui.projects.epctools.EPCTools;
+import com.jensui.projects.epctools.EpcEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * @author chpressler
+ */
+public class EpcisWriterTest {
+
+    private static final long TIME = 1700000000123L;
+
+    private static EpcisEvent shipping() {
+        EpcisEvent event = new EpcisEvent(EpcisEvent.Type.OBJECT, EpcisEvent.Action.OBSERVE, TIME);
+        event.setBizStep("shipping");
+        event.setDisposition("in_transit");
+        event.setReadPoint("urn:epc:id:sgln:0614141.00777.0");
+        return event;
+    }
+
+    @Test
+    public void testXml() throws Exception {
+        EPCTools tools = EPCTools.getInstance();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EpcisWriter writer = new EpcisWriter(bytes, EpcisWriter.Format.XML);
+        writer.setMaxEpcsPerEvent(1000);
+        writer.startDocument(TIME);
+        writer.startEvent(shipping());
+        for (int serial = 0; serial < 2500; serial++) {
+            writer.epc(EpcEncoder.sgtin96High(1, 5, 614141, 812345, serial), EpcEncoder.sgtin96Low(serial));
+        }
+        writer.endEvent();
+        EpcisEvent pack = new EpcisEvent(EpcisEvent.Type.AGGREGATION, EpcisEvent.Action.ADD, TIME);
+        pack.setParentID("urn:epc:id:sscc:0614141.1234567890");
+        pack.setBizStep("urn:epcglobal:cbv:bizstep:packing");
+        writer.startEvent(pack);
+        writer.epcHex(tools.createSGTIN_96HexEPC(1, 5, "0614141", "812345", "7"));
+        writer.epcHex(tools.createSGTIN_198HexEPC(1, 5, "0614141", "812345", "A&B"));
+        writer.endEvent();
+        writer.endDocument();
+        Assert.assertEquals(4, writer.getEventCount());
+        Assert.assertEquals(2502, writer.getEpcCount());
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(bytes.toByteArray()));
+        Element root = document.getDocumentElement();
+        Assert.assertEquals("2.0", root.getAttribute("schemaVersion"));
+        Assert.assertEquals("2023-11-14T22:13:20.123Z", root.getAttribute("creationDate"));
+        NodeList objectEvents = document.getElementsByTagName("ObjectEvent");
+        Assert.assertEquals(3, objectEvents.getLength());
+        Element last = (Element) objectEvents.item(2);
+        Assert.assertEquals(500, last.getElementsByTagName("epc").getLength());
+        Assert.assertEquals("urn:epc:id:sgtin:0614141.812345.2000", last.getElementsByTagName("epc").item(0).getTextContent());
+        Assert.assertEquals("urn:epcglobal:cbv:bizstep:shipping", last.getElementsByTagName("bizStep").item(0).getTextContent());
+        Assert.assertEquals("urn:epc:id:sgln:0614141.00777.0", ((Element) last.getElementsByTagName("readPoint").item(0)).getElementsByTagName("id").item(0).getTextContent());
+
+        Element aggregation = (Element) document.getElementsByTagName("AggregationEvent").item(0);
+        Assert.assertEquals("urn:epc:id:sscc:0614141.1234567890", aggregation.getElementsByTagName("parentID").item(0).getTextContent());
+        NodeList children = aggregation.getElementsByTagName("epc");
+        Assert.assertEquals("urn:epc:id:sgtin:0614141.812345.7", children.item(0).getTextContent());
+        Assert.assertEquals(tools.createEPCPureIdentityURI(tools.createSGTIN_198HexEPC(1, 5, "0614141", "812345", "A&B")), children.item(1).getTextContent());
+        Assert.assertEquals("ADD", aggregation.getElementsByTagName("action").item(0).getTextContent());
+    }
+
+    @Test
+    public void testXmlWithoutOptionalFields() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EpcisWriter writer = new EpcisWriter(bytes, EpcisWriter.Format.XML);
+        writer.startDocument(TIME);
+        EpcisEvent observe = new EpcisEvent(EpcisEvent.Type.AGGREGATION, EpcisEvent.Action.OBSERVE, TIME);
+        observe.setEventTimeZoneOffset(null);
+        writer.startEvent(observe);
+        writer.epc(EpcEncoder.sgtin96(1, 5, 614141, 812345, 1));
+        writer.endEvent();
+        writer.endDocument();
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(bytes.toByteArray()));
+        Element aggregation = (Element) document.getElementsByTagName("AggregationEvent").item(0);
+        Assert.assertEquals(0, aggregation.getElementsByTagName("parentID").getLength());
+        Assert.assertEquals(0, aggregation.getElementsByTagName("eventTimeZoneOffset").getLength());
+        Assert.assertEquals("2023-11-14T22:13:20.123Z", aggregation.getElementsByTagName("eventTime").item(0).getTextContent());
+        Assert.assertEquals("urn:epc:id:sgtin:0614141.812345.1", aggregation.getElementsByTagName("epc").item(0).getTextContent());
+        Assert.assertEquals("OBSERVE", aggregation.getElementsByTagName("action").item(0).getTextContent());
+    }
+
+    @Test
+    public void testJsonLd() throws Exception {
+        StringWriter out = new StringWriter();
+        EpcisWriter writer = new EpcisWriter(out, EpcisWriter.Format.JSON_LD);
+        writer.setMaxEpcsPerEvent(2);
+        writer.startDocument(TIME);
+        EpcisEvent event = shipping();
+        event.setBizLocation("urn:epc:id:sgln:0614141.00888.\"x\"");
+        writer.startEvent(event);
+        for (int serial = 1; serial <= 3; serial++) {
+            writer.epc(EpcEncoder.sgtin96(1, 5, 614141, 812345, serial));
+        }
+        writer.endEvent();
+        writer.endDocument();
+        String head = "{\"@context\":[\"" + EpcisWriter.JSON_LD_CONTEXT + "\"],\"type\":\"EPCISDocument\",\"schemaVersion\":\"2.0\","
+                + "\"creationDate\":\"2023-11-14T22:13:20.123Z\",\"epcisBody\":{\"eventList\":[";
+        String fields = "\"action\":\"OBSERVE\",\"bizStep\":\"shipping\",\"disposition\":\"in_transit\","
+                + "\"readPoint\":{\"id\":\"urn:epc:id:sgln:0614141.00777.0\"},\"bizLocation\":{\"id\":\"urn:epc:id:sgln:0614141.00888.\\\"x\\\"\"}}";
+        String eventHead = "{\"type\":\"ObjectEvent\",\"eventTime\":\"2023-11-14T22:13:20.123Z\",\"eventTimeZoneOffset\":\"+00:00\",\"epcList\":[";
+        Assert.assertEquals(head
+                + eventHead + "\"urn:epc:id:sgtin:0614141.812345.1\",\"urn:epc:id:sgtin:0614141.812345.2\"]," + fields
+                + "," + eventHead + "\"urn:epc:id:sgtin:0614141.812345.3\"]," + fields
+                + "]}}", out.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEpcOutsideEvent() throws Exception {
+        EpcisWriter writer = new EpcisWriter(new StringWriter(), EpcisWriter.Format.XML);
+        writer.startDocument(TIME);
+        writer.uri("urn:epc:id:sgtin:0614141.812345.1");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEventNotEnded() throws Exception {
+        EpcisWriter writer = new EpcisWriter(new StringWriter(), EpcisWriter.Format.JSON_LD);
+        writer.startDocument(TIME);
+        writer.startEvent(shipping());
+        writer.endDocument();
+    }
+
+    @Test
+    public void testLargeEvent() throws Exception {
+        // a truck load through a counting sink, nothing is kept per EPC
+        final long[] chars = {0};
+        EpcisWriter writer = new EpcisWriter(new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                chars[0] += len;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, EpcisWriter.Format.XML);
+        writer.startDocument(TIME);
+        writer.startEvent(shipping());
+        for (int serial = 0; serial < 200000; serial++) {
+            writer.epc(EpcEncoder.sgtin96High(1, 5, 614141, 812345, serial), EpcEncoder.sgtin96Low(serial));
+        }
+        writer.endEvent();
+        writer.endDocument();
+        Assert.assertEquals(1, writer.getEventCount());
+        Assert.assertTrue(chars[0] > 200000 * 50);
+    }
+}
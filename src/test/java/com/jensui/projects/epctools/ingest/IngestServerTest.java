@@ -0,0 +1,172 @@
+package com.jensui.projects.epctools.ingest;
+
+import com.jensui.projects.epctools.Epc96;
+import com.jensui.projects.epctools.EpcDecoder;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Local stand-in readers against a server on ephemeral ports.
+ *
+ * @author chpressler
+ */
+public class IngestServerTest {
+
+    private static final InetSocketAddress LOCAL = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    @Test
+    public void testTcpHexLines() throws Exception {
+        QueueSink sink = new QueueSink(16);
+        try (IngestServer server = new IngestServer(sink, 2, 4)) {
+            InetSocketAddress address = server.bindTcp(LOCAL, Framing.HEX_LINES);
+            server.start();
+            try (Socket reader = new Socket(address.getAddress(), address.getPort())) {
+                OutputStream out = reader.getOutputStream();
+                out.write("30740242204031C0000003E7\r\n\nnot a tag\n36381DB78038AF58B266D1AE1C58E0C286C18B266D1AB66EE0\n  3154F618B8B2D05E00000000\n30381D5D419C2380".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                Thread.sleep(50);
+                out.write("00000001".getBytes(StandardCharsets.US_ASCII));
+            }
+            Assert.assertEquals(EpcDecoder.decode("30740242204031C0000003E7"), sink.poll(5, TimeUnit.SECONDS));
+            Assert.assertEquals(EpcDecoder.decode("3154F618B8B2D05E00000000"), sink.poll(5, TimeUnit.SECONDS));
+            Assert.assertEquals(EpcDecoder.decode("30381D5D419C238000000001"), sink.poll(5, TimeUnit.SECONDS));
+            ConnectionStats stats = awaitClosed(server);
+            Assert.assertEquals("tcp", stats.getProtocol());
+            Assert.assertEquals(5, stats.getFrames());
+            Assert.assertEquals(3, stats.getDecoded());
+            Assert.assertEquals(1, stats.getErrors());
+            Assert.assertEquals(1, stats.getSkipped());
+            Assert.assertTrue(stats.getThroughput() > 0);
+        }
+    }
+
+    @Test
+    public void testUdpBinary() throws Exception {
+        QueueSink sink = new QueueSink(16);
+        try (IngestServer server = new IngestServer(sink, 1, 4)) {
+            InetSocketAddress address = server.bindUdp(LOCAL, Framing.BINARY);
+            server.start();
+            byte[] datagram = new byte[26];
+            datagram[0] = 12;
+            hexToBytes("30740242204031C0000003E7", datagram, 1);
+            datagram[13] = 12;
+            hexToBytes("3154F618B8B2D05E00000000", datagram, 14);
+            try (DatagramSocket reader = new DatagramSocket()) {
+                reader.send(new DatagramPacket(datagram, datagram.length, address));
+            }
+            Assert.assertEquals("30740242204031C0000003E7", sink.poll(5, TimeUnit.SECONDS).toHexString());
+            Assert.assertEquals("3154F618B8B2D05E00000000", sink.poll(5, TimeUnit.SECONDS).toHexString());
+            Assert.assertEquals("udp", server.getConnections().get(0).getProtocol());
+            Assert.assertEquals(2, server.getConnections().get(0).getFrames());
+        }
+    }
+
+    /**
+     * A sink slower than the reader holds the reader back, nothing is lost.
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        final int tags = 20000;
+        final QueueSink sink = new QueueSink(8);
+        try (IngestServer server = new IngestServer(sink, 1, 1)) {
+            InetSocketAddress address = server.bindTcp(LOCAL, Framing.HEX_LINES);
+            server.start();
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < tags; i++) {
+                            Epc96 epc = sink.poll(10, TimeUnit.SECONDS);
+                            Assert.assertNotNull(epc);
+                            if ((i & 0xFFF) == 0) {
+                                Thread.sleep(20);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            consumer.start();
+            try (Socket reader = new Socket(address.getAddress(), address.getPort())) {
+                OutputStream out = reader.getOutputStream();
+                byte[] line = "30740242204031C0000003E7\n".getBytes(StandardCharsets.US_ASCII);
+                for (int i = 0; i < tags; i++) {
+                    out.write(line);
+                }
+            }
+            consumer.join(30000);
+            Assert.assertFalse(consumer.isAlive());
+            ConnectionStats stats = awaitClosed(server);
+            Assert.assertEquals(tags, stats.getDecoded());
+            Assert.assertEquals(0, sink.size());
+        }
+    }
+
+    /**
+     * One slot and a sink that returns at once: slots are released while
+     * the selector is pausing the connection, which must not lose the
+     * wakeup.
+     */
+    @Test
+    public void testPauseResumeRace() throws Exception {
+        final int tags = 200000;
+        byte[] data = new byte[tags * 25];
+        byte[] line = "30740242204031C0000003E7\n".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < tags; i++) {
+            System.arraycopy(line, 0, data, i * 25, 25);
+        }
+        EpcSink sink = new EpcSink() {
+            @Override
+            public void accept(ConnectionStats source, Epc96[] epcs, int count) {
+            }
+        };
+        for (int run = 0; run < 20; run++) {
+            try (IngestServer server = new IngestServer(sink, 1, 1)) {
+                InetSocketAddress address = server.bindTcp(LOCAL, Framing.HEX_LINES);
+                server.start();
+                try (Socket reader = new Socket(address.getAddress(), address.getPort())) {
+                    reader.getOutputStream().write(data);
+                }
+                ConnectionStats stats = null;
+                for (int i = 0; i < 1000 && (stats == null || !stats.isClosed()); i++) {
+                    List<ConnectionStats> connections = server.getConnections();
+                    stats = connections.isEmpty() ? null : connections.get(0);
+                    Thread.sleep(10);
+                }
+                Assert.assertNotNull(stats);
+                Assert.assertTrue("stalled at " + stats.getFrames() + " in run " + run, stats.isClosed());
+                for (int i = 0; i < 500 && stats.getDecoded() < tags; i++) {
+                    Thread.sleep(10);
+                }
+                Assert.assertEquals(tags, stats.getDecoded());
+            }
+        }
+    }
+
+    private static ConnectionStats awaitClosed(IngestServer server) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            List<ConnectionStats> connections = server.getConnections();
+            if (!connections.isEmpty() && connections.get(0).isClosed()) {
+                return connections.get(0);
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("connection not closed");
+    }
+
+    private static void hexToBytes(String hex, byte[] dst, int offset) {
+        for (int i = 0; i < hex.length(); i += 2) {
+            dst[offset + i / 2] = (byte) Integer.parseInt(hex.substring(i, i + 2), 16);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.jensui.projects.epctools.journal;
+
+import com.jensui.projects.epctools.AlphanumericScheme;
+import com.jensui.projects.epctools.EpcDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author chpressler
+ */
+public class ReadJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * SGTIN-96 with partition 5 (24 bit company prefix, 20 bit item reference)
+     */
+    private static long high(long companyPrefix, long itemReference, long serial) {
+        return 0x30L << 56 | 1L << 53 | 5L << 50 | (companyPrefix << 20 | itemReference) << 6 | serial >>> 32;
+    }
+
+    private static List<Long> query(ReadJournal journal, long companyPrefix, long itemReference, long from, long to) {
+        final List<Long> sequences = new ArrayList<>();
+        long n = journal.query(5, companyPrefix, itemReference, from, to, new RecordVisitor() {
+            @Override
+            public void visit(JournalRecord record) {
+                sequences.add(record.getSequence());
+            }
+        });
+        Assert.assertEquals(sequences.size(), n);
+        return sequences;
+    }
+
+    @Test
+    public void testAppendAndQuery() throws Exception {
+        try (ReadJournal journal = new ReadJournal(folder.getRoot().toPath(), 16)) {
+            Assert.assertEquals(0, journal.append(high(614141, 812345, 0), 6789, 1000, 7, 2));
+            Assert.assertEquals(1, journal.append(high(614141, 1, 0), 1, 1001, 7, 1));
+            Assert.assertEquals(2, journal.append(high(614141, 812345, 0), 6790, 1002, 8, 1));
+            Assert.assertEquals(3, journal.size());
+            Assert.assertEquals(2, query(journal, 614141, 812345, 0, Long.MAX_VALUE).size());
+            Assert.assertEquals(1, query(journal, 614141, 1, 0, Long.MAX_VALUE).size());
+            Assert.assertEquals(0, query(journal, 614142, 1, 0, Long.MAX_VALUE).size());
+            Assert.assertEquals(0, query(journal, 1L << 24, 1, 0, Long.MAX_VALUE).size());
+
+            JournalRecord record = new JournalRecord();
+            Assert.assertTrue(journal.read(2, record));
+            Assert.assertEquals(1002, record.getTimestamp());
+            Assert.assertEquals(8, record.getReader());
+            Assert.assertEquals(1, record.getAntenna());
+            Assert.assertEquals(96, record.getBits());
+            Assert.assertEquals(EpcDecoder.decode(high(614141, 812345, 0), 6790), record.toEpc96());
+            Assert.assertFalse(journal.read(3, record));
+        }
+    }
+
+    @Test
+    public void testTimeRange() throws Exception {
+        try (ReadJournal journal = new ReadJournal(folder.getRoot().toPath(), 8)) {
+            for (int i = 0; i < 40; i++) {
+                journal.append(high(614141, 812345, 0), i, 1000 + i * 10, 1, 1);
+            }
+            List<Long> sequences = query(journal, 614141, 812345, 1095, 1200);
+            Assert.assertEquals(11, sequences.size());
+            Assert.assertEquals(10L, (long) sequences.get(0));
+            Assert.assertEquals(20L, (long) sequences.get(10));
+            Assert.assertEquals(0, query(journal, 614141, 812345, 2000, 3000).size());
+        }
+    }
+
+    @Test
+    public void testRollAndReopen() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (ReadJournal journal = new ReadJournal(dir, 10)) {
+            for (int i = 0; i < 35; i++) {
+                journal.append(high(614141, i % 3, 0), i, 1000 + i, i % 4, 0);
+            }
+        }
+        Assert.assertTrue(Files.exists(dir.resolve("00000000000000000000.seg")));
+        Assert.assertTrue(Files.exists(dir.resolve("00000000000000000000.idx")));
+        Assert.assertTrue(Files.exists(dir.resolve("00000000000000000030.seg")));
+        Assert.assertFalse(Files.exists(dir.resolve("00000000000000000030.idx")));
+
+        // a lost index of a sealed segment is rebuilt
+        Files.delete(dir.resolve("00000000000000000010.idx"));
+        try (ReadJournal journal = new ReadJournal(dir, 10)) {
+            Assert.assertEquals(35, journal.size());
+            List<Long> sequences = query(journal, 614141, 2, 0, Long.MAX_VALUE);
+            Assert.assertEquals(11, sequences.size());
+            for (int i = 0; i < sequences.size(); i++) {
+                Assert.assertEquals(2L + i * 3, (long) sequences.get(i));
+            }
+            Assert.assertEquals(35, journal.append(high(614141, 2, 0), 35, 2000, 0, 0));
+            Assert.assertEquals(12, query(journal, 614141, 2, 0, Long.MAX_VALUE).size());
+        }
+        Assert.assertTrue(Files.exists(dir.resolve("00000000000000000010.idx")));
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (ReadJournal journal = new ReadJournal(dir, 10)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(high(614141, 7, 0), i, 1000 + i, 1, 1);
+            }
+        }
+        // corrupt the epc of record 3 as if the write was cut off
+        Path segment = dir.resolve("00000000000000000000.seg");
+        byte[] data = Files.readAllBytes(segment);
+        data[Segment.HEADER + 3 * Segment.RECORD + 20] ^= 0x55;
+        Files.write(segment, data);
+        try (ReadJournal journal = new ReadJournal(dir, 10)) {
+            Assert.assertEquals(3, journal.size());
+            Assert.assertEquals(3, query(journal, 614141, 7, 0, Long.MAX_VALUE).size());
+            Assert.assertEquals(3, journal.append(high(614141, 7, 0), 9, 2000, 1, 1));
+            JournalRecord record = new JournalRecord();
+            Assert.assertFalse(journal.read(4, record));
+        }
+    }
+
+    @Test
+    public void testSgtin198() throws Exception {
+        long[] words = new long[AlphanumericScheme.WORDS];
+        AlphanumericScheme.SGTIN_198.encode(3, 5, 614141, 812345, "ABC-123", words);
+        try (ReadJournal journal = new ReadJournal(folder.getRoot().toPath(), 16)) {
+            journal.append(words, 198, 5000, 3, 4);
+            journal.append(high(614141, 812345, 0), 1, 5001, 3, 4);
+            final List<String> hex = new ArrayList<>();
+            journal.query(5, 614141, 812345, 0, Long.MAX_VALUE, new RecordVisitor() {
+                @Override
+                public void visit(JournalRecord record) {
+                    hex.add(record.toHexString());
+                }
+            });
+            Assert.assertEquals(2, hex.size());
+            Assert.assertEquals(AlphanumericScheme.SGTIN_198.toHex(words), hex.get(0));
+            Assert.assertEquals(50, hex.get(0).length());
+        }
+    }
+}
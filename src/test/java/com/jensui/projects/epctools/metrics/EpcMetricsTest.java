@@ -0,0 +1,141 @@
+package com.jensui.projects.epctools.metrics;
+
+import com.jensui.projects.epctools.EPCTools;
+import com.jensui.projects.epctools.metrics.EpcMetrics.Operation;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author chpressler
+ */
+public class EpcMetricsTest {
+
+    private final EPCTools tools = EPCTools.getInstance();
+
+    @Before
+    public void setUp() {
+        EpcMetrics.reset();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        EpcMetrics.setEnabled(false);
+        EpcMetrics.reset();
+        EpcMetrics.unregisterMBean();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        EpcMetrics.setEnabled(false);
+        tools.parseHexString("30740242204031C0000003E7");
+        try {
+            tools.parseHexString("E2003412012345678901ABCD");
+            Assert.fail();
+        } catch (Exception e) {
+            // expected
+        }
+        Assert.assertEquals(0, EpcMetrics.getCount(Operation.PARSE_HEX));
+        Assert.assertTrue(EpcMetrics.getFailuresByHeader().isEmpty());
+    }
+
+    @Test
+    public void testCountsAndFailures() throws Exception {
+        EpcMetrics.setEnabled(true);
+        tools.parseHexString("30740242204031C0000003E7");
+        tools.createEPCPureIdentityURI("30740242204031C0000003E7");
+        tools.createSGTIN_96HexEPC(1, 5, "614141", "812345", "6789");
+        for (int i = 0; i < 3; i++) {
+            try {
+                tools.parseHexString("E2003412012345678901ABCD");
+                Assert.fail();
+            } catch (Exception e) {
+                Assert.assertEquals("unsupported Header: 226", e.getMessage());
+            }
+        }
+        try {
+            tools.createHexEPC("urn:epc:id:foo:1.2", 0);
+            Assert.fail();
+        } catch (Exception e) {
+            // expected
+        }
+        Assert.assertEquals(4, EpcMetrics.getCount(Operation.PARSE_HEX));
+        Assert.assertEquals(3, EpcMetrics.getFailures(Operation.PARSE_HEX));
+        Assert.assertEquals(1, EpcMetrics.getCount(Operation.URI));
+        Assert.assertEquals(1, EpcMetrics.getCount(Operation.ENCODE));
+        Assert.assertEquals(1, EpcMetrics.getFailures(Operation.PARSE_URI));
+        Assert.assertEquals(3, EpcMetrics.getFailures(0xE2));
+        Assert.assertEquals(1, EpcMetrics.getFailures(EpcMetrics.UNKNOWN_HEADER));
+        Assert.assertEquals(Long.valueOf(3), EpcMetrics.getFailuresByHeader().get("E2"));
+        Assert.assertEquals(Long.valueOf(3), EpcMetrics.getFailuresByReason().get("Exception at EPCTools.parse"));
+        Assert.assertEquals(4, EpcMetrics.getLatency(Operation.PARSE_HEX).getCount());
+
+        Map<String, Long> snapshot = EpcMetrics.getSnapshot();
+        Assert.assertEquals(Long.valueOf(4), snapshot.get("parseHexString.count"));
+        Assert.assertEquals(Long.valueOf(3), snapshot.get("failures.header.E2"));
+        Assert.assertEquals(Long.valueOf(3), snapshot.get("failures.reason.Exception at EPCTools.parse"));
+        Assert.assertTrue(snapshot.get("parseHexString.latency.max") >= snapshot.get("parseHexString.latency.p50"));
+
+        EpcMetrics.reset();
+        Assert.assertEquals(0, EpcMetrics.getCount(Operation.PARSE_HEX));
+        Assert.assertTrue(EpcMetrics.getFailuresByReason().isEmpty());
+    }
+
+    @Test
+    public void testReason() {
+        Exception[] partitions = new Exception[2];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Exception("invalid partition: " + (i + 7));
+        }
+        // the values in the message do not create new reasons
+        Assert.assertEquals("Exception at EpcMetricsTest.testReason", EpcMetrics.reason(partitions[0]));
+        Assert.assertEquals(EpcMetrics.reason(partitions[0]), EpcMetrics.reason(partitions[1]));
+        NullPointerException npe = new NullPointerException();
+        npe.setStackTrace(new StackTraceElement[0]);
+        Assert.assertEquals("NullPointerException", EpcMetrics.reason(npe));
+        Assert.assertEquals(0xE2, EpcMetrics.header("e2"));
+        Assert.assertEquals(EpcMetrics.UNKNOWN_HEADER, EpcMetrics.header("x2"));
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000000, histogram.getMax());
+        Assert.assertEquals(500500, histogram.getMean(), 0.001);
+        long p50 = histogram.getValueAtPercentile(50);
+        Assert.assertTrue(p50 >= 500000 && p50 < 500000 * 65 / 64);
+        long p99 = histogram.getValueAtPercentile(99);
+        Assert.assertTrue(p99 >= 990000 && p99 < 990000 * 65 / 64);
+        Assert.assertEquals(1000000, histogram.getValueAtPercentile(100));
+        for (long v : new long[]{0, 1, 127, 128, 129, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(v);
+            Assert.assertTrue(LatencyHistogram.highestValue(index) >= v);
+            Assert.assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < v);
+        }
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        EpcMetrics.registerMBean();
+        EpcMetrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(EpcMetrics.OBJECT_NAME);
+        server.setAttribute(name, new Attribute("Enabled", true));
+        Assert.assertTrue(EpcMetrics.isEnabled());
+        tools.parseHexString("30740242204031C0000003E7");
+        TabularData snapshot = (TabularData) server.getAttribute(name, "Snapshot");
+        Assert.assertEquals(1L, snapshot.get(new Object[]{"parseHexString.count"}).get("value"));
+    }
+}